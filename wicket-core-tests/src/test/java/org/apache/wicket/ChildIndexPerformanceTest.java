@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.apache.commons.collections4.map.LinkedMap;
+import org.apache.wicket.markup.html.WebMarkupContainer;
+import org.apache.wicket.util.WicketTestTag;
+import org.apache.wicket.util.tester.WicketTestCase;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Compares heap and serialized size of children in a {@link ChildIndex} with a {@link LinkedMap},
+ * as previously used by {@link MarkupContainer}.
+ */
+@Tag(WicketTestTag.SLOW)
+class ChildIndexPerformanceTest extends WicketTestCase
+{
+	private static final int SIZE = 1000;
+
+	private static final int COPIES = 200;
+
+	@Test
+	void footprint() throws IOException
+	{
+		List<Component> children = new ArrayList<>();
+		for (int i = 0; i < SIZE; i++)
+		{
+			children.add(new WebMarkupContainer(Integer.toString(i)));
+		}
+
+		ChildIndex index = new ChildIndex(SIZE);
+		LinkedMap<String, Component> map = new LinkedMap<>(SIZE);
+		for (Component child : children)
+		{
+			index.put(child);
+			map.put(child.getId(), child);
+		}
+
+		System.out.println("serialized size of " + SIZE + " children: " +
+			ChildIndexTest.serializedSize(index) + " bytes in ChildIndex, " +
+			ChildIndexTest.serializedSize(map) + " bytes in LinkedMap");
+
+		long indexHeap = heapSize(() -> {
+			ChildIndex copy = new ChildIndex(MarkupContainer.MAPIFY_THRESHOLD * 2);
+			children.forEach(copy::put);
+			return copy;
+		});
+		long mapHeap = heapSize(() -> {
+			LinkedMap<String, Component> copy = new LinkedMap<>(
+				MarkupContainer.MAPIFY_THRESHOLD * 2);
+			children.forEach(child -> copy.put(child.getId(), child));
+			return copy;
+		});
+		System.out.println("heap size per child: ~" + indexHeap / (COPIES * SIZE) +
+			" bytes in ChildIndex, ~" + mapHeap / (COPIES * SIZE) + " bytes in LinkedMap");
+	}
+
+	private long heapSize(Supplier<Object> factory)
+	{
+		Runtime runtime = Runtime.getRuntime();
+		System.gc();
+		long before = runtime.totalMemory() - runtime.freeMemory();
+
+		List<Object> retained = new ArrayList<>(COPIES);
+		for (int i = 0; i < COPIES; i++)
+		{
+			retained.add(factory.get());
+		}
+
+		System.gc();
+		long after = runtime.totalMemory() - runtime.freeMemory();
+		assertEquals(COPIES, retained.size());
+		return Math.max(0, after - before);
+	}
+}
@@ -0,0 +1,171 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.commons.collections4.map.LinkedMap;
+import org.apache.wicket.core.util.lang.WicketObjects;
+import org.apache.wicket.markup.html.WebMarkupContainer;
+import org.apache.wicket.util.tester.WicketTestCase;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link ChildIndex}
+ */
+class ChildIndexTest extends WicketTestCase
+{
+	@Test
+	void putReplaceRemoveKeepsOrder()
+	{
+		ChildIndex index = new ChildIndex(4);
+		List<Component> expected = new ArrayList<>();
+		for (int i = 0; i < 100; i++)
+		{
+			Component child = new WebMarkupContainer("child" + i);
+			assertNull(index.put(child));
+			expected.add(child);
+		}
+
+		Component replacement = new WebMarkupContainer("child50");
+		assertSame(expected.get(50), index.put(replacement));
+		expected.set(50, replacement);
+
+		for (int i = 0; i < 100; i += 3)
+		{
+			assertSame(expected.get(i), index.remove("child" + i));
+			assertNull(index.remove("child" + i));
+		}
+		expected.removeIf(child -> Integer.parseInt(child.getId().substring(5)) % 3 == 0);
+
+		assertEquals(expected.size(), index.size());
+		assertEquals(expected, index.toList());
+		assertSame(replacement, index.get("child50"));
+		assertNull(index.get("child0"));
+		assertSame(expected.get(0), index.first());
+
+		// previous sibling skips removed children
+		assertSame(index.get("child2"), index.getPrevious("child4"));
+		assertNull(index.getPrevious("child1"));
+		assertNull(index.getPrevious("child0"));
+	}
+
+	@Test
+	void removedChildrenAreCompacted()
+	{
+		ChildIndex index = new ChildIndex(48);
+		for (int round = 0; round < 100; round++)
+		{
+			for (int i = 0; i < 40; i++)
+			{
+				index.put(new WebMarkupContainer("child" + round + "_" + i));
+			}
+			for (int i = 0; i < 40; i++)
+			{
+				if (i != round % 40)
+				{
+					index.remove("child" + round + "_" + i);
+				}
+			}
+		}
+
+		assertEquals(100, index.size());
+		Iterator<Component> iterator = index.iterator();
+		for (int round = 0; round < 100; round++)
+		{
+			String id = "child" + round + "_" + (round % 40);
+			assertEquals(id, iterator.next().getId());
+			assertEquals(id, index.get(id).getId());
+		}
+		assertFalse(iterator.hasNext());
+	}
+
+	@Test
+	void serialization()
+	{
+		WebMarkupContainer container = new WebMarkupContainer("container");
+		for (int i = 0; i < 1000; i++)
+		{
+			container.add(new WebMarkupContainer("child" + i));
+		}
+		for (int i = 0; i < 1000; i += 2)
+		{
+			container.remove("child" + i);
+		}
+
+		WebMarkupContainer clone = WicketObjects.cloneObject(container);
+
+		assertEquals(500, clone.size());
+		int i = 1;
+		for (Component child : clone)
+		{
+			assertEquals("child" + i, child.getId());
+			assertSame(child, clone.get("child" + i));
+			assertSame(clone, child.getParent());
+			i += 2;
+		}
+
+		clone.add(new WebMarkupContainer("child0"));
+		Component last = null;
+		for (Component child : clone)
+		{
+			last = child;
+		}
+		assertSame(clone.get("child0"), last);
+	}
+
+	/**
+	 * Children in a {@link ChildIndex} serialize smaller than in a {@link LinkedMap}, as previously
+	 * used by {@link MarkupContainer}.
+	 */
+	@Test
+	void serializedSize() throws IOException
+	{
+		ChildIndex index = new ChildIndex(1000);
+		LinkedMap<String, Component> map = new LinkedMap<>(1000);
+		for (int i = 0; i < 1000; i++)
+		{
+			Component child = new WebMarkupContainer(Integer.toString(i));
+			index.put(child);
+			map.put(child.getId(), child);
+		}
+
+		assertTrue(serializedSize(index) < serializedSize(map));
+	}
+
+	static long serializedSize(Serializable object) throws IOException
+	{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(bytes))
+		{
+			out.writeObject(object);
+		}
+		return bytes.size();
+	}
+}
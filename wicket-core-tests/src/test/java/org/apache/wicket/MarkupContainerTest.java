@@ -33,7 +33,6 @@ import java.util.Optional;
 import java.util.Random;
 import java.util.stream.Collectors;
 
-import org.apache.commons.collections4.map.LinkedMap;
 import org.apache.wicket.core.util.lang.WicketObjects;
 import org.apache.wicket.markup.IMarkupResourceStreamProvider;
 import org.apache.wicket.markup.html.WebComponent;
@@ -394,7 +393,7 @@ class MarkupContainerTest extends WicketTestCase
 	}
 
 	@Test
-	void childrenListBecomesMapWhenThresholdPassed()
+	void childrenListBecomesIndexWhenThresholdPassed()
 	{
 		WebMarkupContainer wmc = new WebMarkupContainer("id");
 
@@ -402,28 +401,28 @@ class MarkupContainerTest extends WicketTestCase
 		assertChildrenType(wmc, List.class);
 
 		addNChildren(wmc, 1);
-		assertChildrenType(wmc, LinkedMap.class);
+		assertChildrenType(wmc, ChildIndex.class);
 	}
 
 	@Test
-	void childrenBecomesLinkedMapWhenThresholdPassed()
+	void childrenBecomesIndexWhenThresholdPassed()
 	{
 		WebMarkupContainer wmc = new WebMarkupContainer("id");
 
 		addNChildren(wmc, NUMBER_OF_CHILDREN_FOR_A_MAP + 1);
 
-		assertChildrenType(wmc, LinkedMap.class);
+		assertChildrenType(wmc, ChildIndex.class);
 	}
 
 	@Test
-	void linkedMapChildrenBecomesChild()
+	void indexChildrenBecomesChild()
 	{
 		WebMarkupContainer wmc = new WebMarkupContainer("id");
 
 		addNChildren(wmc, NUMBER_OF_CHILDREN_FOR_A_MAP);
 		wmc.add(new EmptyPanel("panel"));
 
-		assertChildrenType(wmc, LinkedMap.class);
+		assertChildrenType(wmc, ChildIndex.class);
 
 		Iterator<Component> iterator = wmc.iterator();
 		removeNChildren(iterator, NUMBER_OF_CHILDREN_FOR_A_MAP);
@@ -23,7 +23,10 @@ import static org.junit.jupiter.api.Assertions.fail;
 
 import java.io.IOException;
 import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.List;
 
+import org.apache.wicket.IRequestListener;
 import org.apache.wicket.MarkupContainer;
 import org.apache.wicket.Page;
 import org.apache.wicket.Session;
@@ -34,6 +37,7 @@ import org.apache.wicket.core.request.mapper.MountedMapper;
 import org.apache.wicket.markup.IMarkupFragment;
 import org.apache.wicket.markup.IMarkupResourceStreamProvider;
 import org.apache.wicket.markup.Markup;
+import org.apache.wicket.markup.html.WebComponent;
 import org.apache.wicket.markup.html.WebPage;
 import org.apache.wicket.markup.html.link.StatelessLink;
 import org.apache.wicket.request.Url;
@@ -152,6 +156,111 @@ public class ListenerRequestHandlerTest extends WicketTestCase
 		assertTrue(page.executedInAnFreshPage);
 	}
 
+	@Test
+	void readOnlyListener()
+	{
+		ReadOnlyListener.readOnly = true;
+		ReadOnlyListener.sharedAccess.clear();
+
+		ReadOnlyListenerPage page = tester.startPage(ReadOnlyListenerPage.class);
+
+		// not yet known to be read-only
+		tester.executeListener(page.listener);
+		// known now
+		tester.executeListener(page.listener);
+
+		// no longer read-only, retried exclusively
+		ReadOnlyListener.readOnly = false;
+		tester.executeListener(page.listener);
+		tester.executeListener(page.listener);
+
+		assertEquals(List.of(false, true, false, false), ReadOnlyListener.sharedAccess);
+	}
+
+	@Test
+	void readOnlyListenerRenderingPage()
+	{
+		ReadOnlyListener.readOnly = true;
+		ReadOnlyListener.rendersPage = true;
+		ReadOnlyListener.sharedAccess.clear();
+		try
+		{
+			ReadOnlyListenerPage page = tester.startPage(ReadOnlyListenerPage.class);
+
+			tester.executeListener(page.listener);
+			tester.executeListener(page.listener);
+
+			// rendering modifies the page
+			assertEquals(List.of(false, false), ReadOnlyListener.sharedAccess);
+		}
+		finally
+		{
+			ReadOnlyListener.rendersPage = false;
+		}
+	}
+
+	/**
+	 * Test page for #readOnlyListener()
+	 */
+	public static class ReadOnlyListenerPage extends WebPage implements IMarkupResourceStreamProvider
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final ReadOnlyListener listener;
+
+		/**
+		 * Constructor.
+		 */
+		public ReadOnlyListenerPage()
+		{
+			setStatelessHint(false);
+
+			add(listener = new ReadOnlyListener("listener"));
+		}
+
+		@Override
+		public IResourceStream getMarkupResourceStream(MarkupContainer container,
+			Class<?> containerClass)
+		{
+			return new StringResourceStream(
+				"<html><body><span wicket:id='listener'></span></body></html>");
+		}
+	}
+
+	private static class ReadOnlyListener extends WebComponent implements IRequestListener
+	{
+		private static final long serialVersionUID = 1L;
+
+		private static boolean readOnly;
+
+		private static boolean rendersPage;
+
+		private static final List<Boolean> sharedAccess = new ArrayList<>();
+
+		ReadOnlyListener(String id)
+		{
+			super(id);
+		}
+
+		@Override
+		public boolean isReadOnly()
+		{
+			return readOnly;
+		}
+
+		@Override
+		public boolean rendersPage()
+		{
+			return rendersPage;
+		}
+
+		@Override
+		public void onRequest()
+		{
+			sharedAccess.add(((IReadOnlyRequestHandler)getRequestCycle().getActiveRequestHandler()).isReadOnly());
+		}
+	}
+
 	/**
 	 * Test page for #recreateThePageWhenListenereInterfaceIsExecutedOnExpiredPage()
 	 */
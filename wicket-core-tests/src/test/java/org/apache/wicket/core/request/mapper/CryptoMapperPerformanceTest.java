@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.core.request.mapper;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.wicket.core.random.DefaultSecureRandomSupplier;
+import org.apache.wicket.core.request.handler.PageProvider;
+import org.apache.wicket.core.request.handler.RenderPageRequestHandler;
+import org.apache.wicket.core.request.mapper.CryptoMapperTest.HomePage;
+import org.apache.wicket.core.request.mapper.CryptoMapperTest.Page2;
+import org.apache.wicket.core.util.crypt.AESGCMCrypt;
+import org.apache.wicket.request.IRequestHandler;
+import org.apache.wicket.request.IRequestMapper;
+import org.apache.wicket.request.mapper.parameter.PageParameters;
+import org.apache.wicket.util.WicketTestTag;
+import org.apache.wicket.util.crypt.CipherUtils;
+import org.apache.wicket.util.crypt.ICrypt;
+import org.apache.wicket.util.crypt.SunJceCrypt;
+import org.apache.wicket.util.tester.WicketTester;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Measures {@link CryptoMapper#mapHandler(IRequestHandler)} for a page rendering 100 URLs three
+ * times each. The cipher and the cache of encrypted URLs are compared separately: each cipher
+ * without cache, and each cipher without and with cache.
+ */
+@Tag(WicketTestTag.SLOW)
+class CryptoMapperPerformanceTest
+{
+	private static final int ROUNDS = 20;
+
+	private static final int RENDERS = 3;
+
+	private WicketTester tester;
+
+	private IRequestMapper delegate;
+
+	private final List<IRequestHandler> handlers = new ArrayList<>();
+
+	@BeforeEach
+	void before()
+	{
+		tester = new WicketTester(HomePage.class);
+		delegate = tester.getApplication().getRootRequestMapper();
+
+		for (int i = 0; i < 100; i++)
+		{
+			PageParameters parameters = new PageParameters().set("i", i);
+			handlers.add(new RenderPageRequestHandler(new PageProvider(Page2.class, parameters)));
+		}
+	}
+
+	@AfterEach
+	void after()
+	{
+		tester.destroy();
+	}
+
+	@Test
+	void mapHandler()
+	{
+		SunJceCrypt sunJceCrypt = new SunJceCrypt(SunJceCrypt.randomSalt(), 1000);
+		DefaultSecureRandomSupplier randomSupplier = new DefaultSecureRandomSupplier();
+		AESGCMCrypt aesGcmCrypt = new AESGCMCrypt(
+			CipherUtils.generateKey("AES", 256, randomSupplier.getRandom()), randomSupplier);
+
+		// warmup
+		measure(sunJceCrypt, 0);
+		measure(sunJceCrypt, 256);
+		measure(aesGcmCrypt, 0);
+		measure(aesGcmCrypt, 256);
+
+		long sunJce = measure(sunJceCrypt, 0);
+		long sunJceCached = measure(sunJceCrypt, 256);
+		long aesGcm = measure(aesGcmCrypt, 0);
+		long aesGcmCached = measure(aesGcmCrypt, 256);
+
+		System.out.println("cipher without cache: " + sunJce + " ns per url with SunJceCrypt, " +
+			aesGcm + " ns per url with AESGCMCrypt");
+		System.out.println("cache with SunJceCrypt: " + sunJce + " ns per url without, " +
+			sunJceCached + " ns per url with cache");
+		System.out.println("cache with AESGCMCrypt: " + aesGcm + " ns per url without, " +
+			aesGcmCached + " ns per url with cache");
+	}
+
+	private long measure(ICrypt crypt, int cacheSize)
+	{
+		long start = System.nanoTime();
+		for (int round = 0; round < ROUNDS; round++)
+		{
+			// a new mapper per round starts with an empty cache, like a new request
+			CryptoMapper mapper = new CryptoMapper(delegate, () -> crypt)
+				.setEncryptedUrlCacheSize(cacheSize);
+			for (int render = 0; render < RENDERS; render++)
+			{
+				for (IRequestHandler handler : handlers)
+				{
+					assertNotNull(mapper.mapHandler(handler));
+				}
+			}
+		}
+		return (System.nanoTime() - start) / (ROUNDS * RENDERS * handlers.size());
+	}
+}
@@ -18,19 +18,25 @@ package org.apache.wicket.core.request.mapper;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.apache.wicket.MockPage;
+import org.apache.wicket.core.random.DefaultSecureRandomSupplier;
 import org.apache.wicket.core.request.handler.BookmarkableListenerRequestHandler;
 import org.apache.wicket.core.request.handler.ListenerRequestHandler;
 import org.apache.wicket.core.request.handler.PageAndComponentProvider;
 import org.apache.wicket.core.request.handler.PageProvider;
 import org.apache.wicket.core.request.handler.RenderPageRequestHandler;
 import org.apache.wicket.core.request.handler.RequestSettingRequestHandler;
+import org.apache.wicket.core.util.crypt.AESGCMCrypt;
 import org.apache.wicket.markup.IMarkupFragment;
 import org.apache.wicket.markup.Markup;
 import org.apache.wicket.markup.html.WebPage;
@@ -48,6 +54,7 @@ import org.apache.wicket.request.mapper.info.PageComponentInfo;
 import org.apache.wicket.request.mapper.parameter.PageParameters;
 import org.apache.wicket.request.resource.PackageResourceReference;
 import org.apache.wicket.request.resource.UrlResourceReference;
+import org.apache.wicket.util.crypt.CipherUtils;
 import org.apache.wicket.util.crypt.ICrypt;
 import org.apache.wicket.util.crypt.SunJceCrypt;
 import org.apache.wicket.util.string.StringValue;
@@ -663,6 +670,68 @@ class CryptoMapperTest extends AbstractMapperTest
 		assertThrows(PageExpiredException.class, () -> mapper.mapRequest(req));
 	}
 
+	/**
+	 * Tests that a URL is encrypted only once per request, and that callers get their own copy.
+	 */
+	@Test
+	void encryptedUrlsAreCachedPerRequest()
+	{
+		ICrypt crypt = mapper.getCrypt();
+		AtomicInteger encryptions = new AtomicInteger();
+		mapper = new CryptoMapper(mapper.getDelegateMapper(), () -> new ICrypt()
+		{
+			@Override
+			public String encryptUrlSafe(String plainText)
+			{
+				encryptions.incrementAndGet();
+				return crypt.encryptUrlSafe(plainText);
+			}
+
+			@Override
+			public String decryptUrlSafe(String text)
+			{
+				return crypt.decryptUrlSafe(text);
+			}
+		});
+		IRequestHandler handler = new RenderPageRequestHandler(new PageProvider(Page2.class));
+
+		Url encryptedUrl = mapper.mapHandler(handler);
+		Url encryptedUrl2 = mapper.mapHandler(handler);
+
+		assertEquals(1, encryptions.get());
+		assertEquals(ENCRYPTED_BOOKMARKABLE_URL, encryptedUrl.toString());
+		assertEquals(ENCRYPTED_BOOKMARKABLE_URL, encryptedUrl2.toString());
+		assertNotSame(encryptedUrl, encryptedUrl2);
+
+		encryptedUrl2.getSegments().clear();
+		assertEquals(ENCRYPTED_BOOKMARKABLE_URL, mapper.mapHandler(handler).toString());
+
+		mapper.setEncryptedUrlCacheSize(0);
+		mapper.mapHandler(handler);
+		assertEquals(2, encryptions.get());
+	}
+
+	/**
+	 * Tests that URLs encrypted with {@link AESGCMCrypt} are mapped back.
+	 */
+	@Test
+	void aesGcmCrypt()
+	{
+		DefaultSecureRandomSupplier randomSupplier = new DefaultSecureRandomSupplier();
+		AESGCMCrypt crypt = new AESGCMCrypt(
+			CipherUtils.generateKey("AES", 256, randomSupplier.getRandom()), randomSupplier);
+		mapper = new CryptoMapper(mapper.getDelegateMapper(), () -> crypt);
+
+		IRequestHandler handler = new RenderPageRequestHandler(
+			new PageProvider(Page2.class, new PageParameters().set("i", 1)));
+		Url encryptedUrl = mapper.mapHandler(handler);
+		assertFalse(encryptedUrl.toString().contains(Page2.class.getName()));
+
+		handler = unwrapRequestHandlerDelegate(mapper.mapRequest(getRequest(encryptedUrl)));
+		assertEquals(Page2.class, ((RenderPageRequestHandler)handler).getPageClass());
+		assertEquals(1, ((RenderPageRequestHandler)handler).getPageParameters().get("i").toInt());
+	}
+
 	/**
 	 * Home page
 	 */
@@ -969,4 +969,18 @@ class MountedMapperTest extends AbstractMapperTest
 			"exactCompatScore should have greater compatibility score than optional one" +
 				" got exact = " + exactCompatScore + " and optional = " + optCompatScore);
 	}
+
+	/**
+	 * Subclasses might match other urls, thus they are not indexed.
+	 */
+	@Test
+	void indexedOnlyIfNotSubclassed()
+	{
+		MountedMapper mapper = new MountedMapper("/some/mount/path", MockPage.class);
+		assertThat(mapper.getUrlPrefix()).containsExactly("some", "mount", "path");
+		assertThat(mapper.getHandlerTypes()).contains(ListenerRequestHandler.class);
+
+		assertNull(encoder.getUrlPrefix());
+		assertNull(encoder.getHandlerTypes());
+	}
 }
@@ -16,14 +16,18 @@
  */
 package org.apache.wicket.core.request.resource;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Locale;
+import java.util.zip.GZIPInputStream;
 
 import org.apache.wicket.Application;
 import org.apache.wicket.ThreadContext;
@@ -396,4 +400,118 @@ class PackageResourceReferenceTest extends WicketTestCase
 		assertEquals(variations[1], resource.getResourceStream().getVariation());
 	}
 
+
+	private MockHttpServletResponse requestGzipped(String name, String acceptEncoding, String range)
+	{
+		tester.getApplication().getResourceSettings().setUseGzipPackageResources(true);
+
+		ResourceReference reference = new PackageResourceReference(scope, name, null, null, null);
+
+		Request request = tester.getRequestCycle().getRequest();
+		MockHttpServletRequest mockHttpServletRequest = (MockHttpServletRequest)request.getContainerRequest();
+		if (acceptEncoding != null)
+		{
+			mockHttpServletRequest.setHeader("Accept-Encoding", acceptEncoding);
+		}
+		if (range != null)
+		{
+			mockHttpServletRequest.setHeader("range", range);
+		}
+		Response response = tester.getRequestCycle().getResponse();
+		reference.getResource().respond(new Attributes(request, response));
+
+		return (MockHttpServletResponse)response.getContainerResponse();
+	}
+
+	private static byte[] gunzip(byte[] bytes) throws IOException
+	{
+		try (InputStream input = new GZIPInputStream(new ByteArrayInputStream(bytes)))
+		{
+			return IOUtils.toByteArray(input);
+		}
+	}
+
+	/**
+	 * Contents are gzipped if the client accepts it.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	void gzip() throws IOException
+	{
+		MockHttpServletResponse response = requestGzipped("resource_gt_4096.txt", "deflate, gzip",
+			null);
+
+		assertEquals("gzip", response.getHeader("Content-Encoding"));
+		assertEquals("Accept-Encoding", response.getHeader("Vary"));
+
+		byte[] content = response.getBinaryContent();
+		assertEquals(String.valueOf(content.length), response.getHeader("Content-Length"));
+		try (InputStream original = scope.getResourceAsStream("resource_gt_4096.txt"))
+		{
+			assertEquals(new String(IOUtils.toByteArray(original)), new String(gunzip(content)));
+		}
+	}
+
+	/**
+	 * Contents are not gzipped if the client does not accept it.
+	 */
+	@Test
+	void gzipNotAccepted()
+	{
+		MockHttpServletResponse response = requestGzipped("resource_gt_4096.txt", "gzip;q=0, *",
+			null);
+
+		assertNull(response.getHeader("Content-Encoding"));
+		assertEquals("Accept-Encoding", response.getHeader("Vary"));
+		assertTrue(new String(response.getBinaryContent()).startsWith("HTTP Server"));
+	}
+
+	/**
+	 * Ranges apply to the gzipped contents.
+	 */
+	@Test
+	void gzipRange()
+	{
+		MockHttpServletResponse response = requestGzipped("resource_gt_4096.txt", "gzip",
+			"bytes=0-1");
+
+		byte[] content = response.getBinaryContent();
+		assertEquals(2, content.length);
+		assertEquals((byte)0x1f, content[0]);
+		assertEquals((byte)0x8b, content[1]);
+	}
+
+	/**
+	 * A precompressed sibling is preferred if it matches the contents.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	void gzipPrecompressed() throws IOException
+	{
+		MockHttpServletResponse response = requestGzipped("verified.txt", "gzip", null);
+
+		assertEquals("gzip", response.getHeader("Content-Encoding"));
+		try (InputStream precompressed = scope.getResourceAsStream("verified.txt.gz"))
+		{
+			assertArrayEquals(IOUtils.toByteArray(precompressed), response.getBinaryContent());
+		}
+	}
+
+	/**
+	 * A precompressed sibling not matching the contents is ignored.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	void gzipStalePrecompressed() throws IOException
+	{
+		MockHttpServletResponse response = requestGzipped("precompressed.txt", "gzip", null);
+
+		// too small to be compressed
+		assertNull(response.getHeader("Content-Encoding"));
+		assertEquals("Accept-Encoding", response.getHeader("Vary"));
+		assertEquals("precompressed.txt", new String(response.getBinaryContent()));
+	}
 }
@@ -0,0 +1,225 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.core.request.resource.caching;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+import org.apache.wicket.request.resource.caching.IStaticCacheableResource;
+import org.apache.wicket.request.resource.caching.version.CachingResourceVersion;
+import org.apache.wicket.request.resource.caching.version.IResourceVersion;
+import org.apache.wicket.util.resource.IResourceStream;
+import org.apache.wicket.util.resource.StringResourceStream;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for {@link CachingResourceVersion}.
+ */
+class CachingResourceVersionTest
+{
+	private final AtomicInteger computations = new AtomicInteger();
+
+	@Test
+	void cached()
+	{
+		CachingResourceVersion version = new CachingResourceVersion(new Delegate());
+
+		assertEquals("v-a", version.getVersion(new Resource("a")));
+		assertEquals("v-a", version.getVersion(new Resource("a")));
+		assertNull(version.getVersion(new Resource(null)));
+		assertNull(version.getVersion(new Resource("null")));
+		assertNull(version.getVersion(new Resource("null")));
+
+		assertEquals(2, computations.get());
+
+		version.invalidate(new Resource("a"));
+		assertEquals("v-a", version.getVersion(new Resource("a")));
+		assertEquals(3, computations.get());
+	}
+
+	@Test
+	void evictLeastRecentlyUsed()
+	{
+		CachingResourceVersion version = new CachingResourceVersion(new Delegate(), 10);
+
+		for (int i = 0; i < 100; i++)
+		{
+			// keep "hot" in use
+			version.getVersion(new Resource("hot"));
+			version.getVersion(new Resource("cold" + i));
+		}
+		assertEquals(101, computations.get());
+
+		// still cached
+		version.getVersion(new Resource("hot"));
+		assertEquals(101, computations.get());
+
+		// evicted
+		version.getVersion(new Resource("cold0"));
+		assertEquals(102, computations.get());
+	}
+
+	@Test
+	void failureNotCached()
+	{
+		CachingResourceVersion version = new CachingResourceVersion(new Delegate());
+
+		assertThrows(IllegalStateException.class,
+			() -> version.getVersion(new Resource("failure")));
+		assertThrows(IllegalStateException.class,
+			() -> version.getVersion(new Resource("failure")));
+
+		assertEquals(2, computations.get());
+	}
+
+	/**
+	 * An error does not leave an incomplete entry behind, which following calls would wait for.
+	 */
+	@Test
+	void errorNotCached()
+	{
+		CachingResourceVersion version = new CachingResourceVersion(new Delegate());
+
+		assertThrows(LinkageError.class, () -> version.getVersion(new Resource("error")));
+		assertThrows(LinkageError.class, () -> version.getVersion(new Resource("error")));
+
+		assertEquals(2, computations.get());
+	}
+
+	/**
+	 * Threads missing the same resource wait for a single computation.
+	 */
+	@Test
+	void singleFlight() throws Exception
+	{
+		final int threads = 10;
+
+		CountDownLatch computing = new CountDownLatch(1);
+		CountDownLatch finish = new CountDownLatch(1);
+		CachingResourceVersion version = new CachingResourceVersion(new Delegate()
+		{
+			@Override
+			public String getVersion(IStaticCacheableResource resource)
+			{
+				computing.countDown();
+				try
+				{
+					finish.await();
+				}
+				catch (InterruptedException e)
+				{
+					throw new IllegalStateException(e);
+				}
+				return super.getVersion(resource);
+			}
+		});
+
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try
+		{
+			List<Future<String>> versions = new ArrayList<>();
+			versions.add(executor.submit(() -> version.getVersion(new Resource("a"))));
+			computing.await();
+			for (int i = 1; i < threads; i++)
+			{
+				versions.add(executor.submit(() -> version.getVersion(new Resource("a"))));
+			}
+			finish.countDown();
+
+			for (Future<String> future : versions)
+			{
+				assertEquals("v-a", future.get(10, TimeUnit.SECONDS));
+			}
+			assertEquals(1, computations.get());
+		}
+		finally
+		{
+			executor.shutdownNow();
+		}
+	}
+
+	private class Delegate implements IResourceVersion
+	{
+		@Override
+		public String getVersion(IStaticCacheableResource resource)
+		{
+			computations.incrementAndGet();
+
+			String key = (String)resource.getCacheKey();
+			if ("failure".equals(key))
+			{
+				throw new IllegalStateException();
+			}
+			else if ("error".equals(key))
+			{
+				throw new LinkageError();
+			}
+			return "null".equals(key) ? null : "v-" + key;
+		}
+
+		@Override
+		public Pattern getVersionPattern()
+		{
+			return Pattern.compile(".*");
+		}
+	}
+
+	private static class Resource implements IStaticCacheableResource
+	{
+		private final String key;
+
+		private Resource(String key)
+		{
+			this.key = key;
+		}
+
+		@Override
+		public boolean isCachingEnabled()
+		{
+			return true;
+		}
+
+		@Override
+		public Serializable getCacheKey()
+		{
+			return key;
+		}
+
+		@Override
+		public IResourceStream getResourceStream()
+		{
+			return new StringResourceStream("content");
+		}
+
+		@Override
+		public void respond(Attributes attributes)
+		{
+		}
+	}
+}
@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.core.request.resource.caching;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+
+import org.apache.wicket.markup.html.PackageResourceTest;
+import org.apache.wicket.request.resource.PackageResource;
+import org.apache.wicket.request.resource.PackageResourceReference;
+import org.apache.wicket.request.resource.caching.IStaticCacheableResource;
+import org.apache.wicket.request.resource.caching.version.ManifestResourceVersion;
+import org.apache.wicket.request.resource.caching.version.MessageDigestResourceVersion;
+import org.apache.wicket.request.resource.caching.version.ResourceVersionManifest;
+import org.apache.wicket.request.resource.caching.version.StaticResourceVersion;
+import org.apache.wicket.util.resource.FileResourceStream;
+import org.apache.wicket.util.resource.IResourceStream;
+import org.apache.wicket.util.resource.StringResourceStream;
+import org.apache.wicket.util.tester.WicketTestCase;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Test for {@link ManifestResourceVersion} and {@link ResourceVersionManifest}.
+ */
+class ManifestResourceVersionTest extends WicketTestCase
+{
+	@TempDir
+	Path directory;
+
+	@Test
+	void scanWriteAndRead() throws IOException
+	{
+		Path script = directory.resolve("org/example/script.js");
+		Files.createDirectories(script.getParent());
+		Files.writeString(script, "alert('hello');");
+		Files.writeString(directory.resolve("org/example/Script.class"), "class");
+		Files.createDirectories(directory.resolve("META-INF"));
+		Files.writeString(directory.resolve("META-INF/MANIFEST.MF"), "manifest");
+
+		ResourceVersionManifest.main(new String[] { directory.toString() });
+
+		ResourceVersionManifest manifest = ResourceVersionManifest.read(Collections.singletonList(
+			directory.resolve(ResourceVersionManifest.LOCATION).toUri().toURL()).iterator());
+
+		// same as computed at runtime
+		String expected = new MessageDigestResourceVersion().getVersion(new TestResource()
+		{
+			@Override
+			public StringResourceStream getResourceStream()
+			{
+				return new StringResourceStream("alert('hello');");
+			}
+		});
+		assertEquals(Map.of("org/example/script.js", expected), manifest.getVersions());
+
+		// reproducible
+		byte[] written = Files.readAllBytes(directory.resolve(ResourceVersionManifest.LOCATION));
+		ResourceVersionManifest.scan(directory, "MD5").write(directory.resolve("other"));
+		assertEquals(new String(written, StandardCharsets.UTF_8),
+			Files.readString(directory.resolve("other")));
+	}
+
+	@Test
+	void packageResource()
+	{
+		tester.getSession().setLocale(Locale.ENGLISH);
+
+		PackageResource resource = new PackageResourceReference(PackageResourceTest.class,
+			"packaged1.txt").getResource();
+
+		// the localized variant is located
+		ResourceVersionManifest manifest = new ResourceVersionManifest(
+			Map.of("org/apache/wicket/markup/html/packaged1.txt", "ABC",
+				"org/apache/wicket/markup/html/packaged1_en.txt", "ABCDEF"));
+		ManifestResourceVersion version = new ManifestResourceVersion(manifest,
+			new StaticResourceVersion("FALLBACK"));
+
+		assertEquals("ABCDEF", version.getVersion(resource));
+
+		// not a package resource
+		assertEquals("FALLBACK", version.getVersion(new TestResource()));
+
+		// not found
+		assertNull(version.getVersion(new PackageResourceReference(PackageResourceTest.class,
+			"missing.txt").getResource()));
+	}
+
+	@Test
+	void otherResourceWithSamePath() throws IOException
+	{
+		Path file = directory.resolve("org/apache/wicket/markup/html/packaged1.txt");
+		Files.createDirectories(file.getParent());
+		Files.writeString(file, "other");
+
+		ResourceVersionManifest manifest = new ResourceVersionManifest(
+			Map.of("org/apache/wicket/markup/html/packaged1.txt", "ABC"));
+		ManifestResourceVersion version = new ManifestResourceVersion(manifest,
+			new StaticResourceVersion("FALLBACK"));
+
+		assertEquals("FALLBACK", version.getVersion(new TestResource()
+		{
+			@Override
+			public IResourceStream getResourceStream()
+			{
+				return new FileResourceStream(file.toFile());
+			}
+		}));
+	}
+
+	@Test
+	void readFromClassPath()
+	{
+		// no manifest in class path, all fallback
+		ManifestResourceVersion version = new ManifestResourceVersion();
+		assertEquals(new MessageDigestResourceVersion().getVersion(new TestResource()),
+			version.getVersion(new TestResource()));
+	}
+}
@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.core.util.crypt;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.apache.wicket.core.random.DefaultSecureRandomSupplier;
+import org.apache.wicket.util.crypt.CipherUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.SecretKey;
+
+class AESGCMCryptTest
+{
+	private AbstractJceCrypt crypt;
+
+	@BeforeEach
+	void before()
+	{
+		DefaultSecureRandomSupplier randomSupplier = new DefaultSecureRandomSupplier();
+
+		SecretKey secretKey = CipherUtils.generateKey("AES", 256,
+			randomSupplier.getRandom());
+
+		crypt = new AESGCMCrypt(secretKey, randomSupplier);
+	}
+
+	@Test
+	void encryptDecrypt()
+	{
+		String inputTest = "inputTest";
+		String encrypted = crypt.encryptUrlSafe(inputTest);
+
+		String japFlowerBirdsWindMoon = "花鳥風月";
+		String encrypted2 = crypt.encryptUrlSafe(japFlowerBirdsWindMoon);
+
+		assertEquals(inputTest, crypt.decryptUrlSafe(encrypted));
+		assertEquals(japFlowerBirdsWindMoon, crypt.decryptUrlSafe(encrypted2));
+		assertEquals("", crypt.decryptUrlSafe(crypt.encryptUrlSafe("")));
+	}
+
+	@Test
+	void freshIvForEachEncryption()
+	{
+		String encrypted = crypt.encryptUrlSafe("inputTest");
+		String encrypted2 = crypt.encryptUrlSafe("inputTest");
+
+		assertNotEquals(encrypted, encrypted2);
+		assertEquals("inputTest", crypt.decryptUrlSafe(encrypted2));
+		assertEquals("inputTest", crypt.decryptUrlSafe(encrypted));
+	}
+
+	@Test
+	void tamperedTextIsNotDecrypted()
+	{
+		char[] encrypted = crypt.encryptUrlSafe("inputTest").toCharArray();
+		int last = encrypted.length - 2;
+		encrypted[last] = encrypted[last] == 'A' ? 'B' : 'A';
+
+		assertNull(crypt.decryptUrlSafe(new String(encrypted)));
+		assertNull(crypt.decryptUrlSafe("AAAA"));
+	}
+}
@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.core.util.lang;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+import org.apache.wicket.core.util.lang.PropertyResolver.CachingPropertyLocator;
+import org.apache.wicket.core.util.lang.PropertyResolver.DefaultPropertyLocator;
+import org.apache.wicket.core.util.lang.PropertyResolver.IPropertyLocator;
+import org.apache.wicket.util.WicketTestTag;
+import org.apache.wicket.util.tester.WicketTestCase;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Compares reading a nested property by {@link PropertyResolver} with compiled methods and with
+ * reflection.
+ */
+@Tag(WicketTestTag.SLOW)
+class PropertyResolverPerformanceTest extends WicketTestCase
+{
+	private static final int ROUNDS = 200_000;
+
+	private final Person person = new Person();
+
+	@AfterEach
+	void after()
+	{
+		PropertyResolver.destroy(tester.getApplication());
+	}
+
+	@Test
+	void getValue()
+	{
+		person.setAddress(new Address());
+		person.getAddress().setStreet("wicket-street");
+
+		IPropertyLocator reflection = new CachingPropertyLocator(
+			new DefaultPropertyLocator(false));
+		IPropertyLocator compiled = new CachingPropertyLocator(new DefaultPropertyLocator());
+
+		// warmup
+		measure(reflection, "address.street", "wicket-street");
+		measure(compiled, "address.street", "wicket-street");
+
+		System.out.println("getValue: " + measure(reflection, "address.street", "wicket-street") +
+			" ns with reflection, " + measure(compiled, "address.street", "wicket-street") +
+			" ns with compiled methods");
+	}
+
+	private long measure(IPropertyLocator locator, String expression, Object expected)
+	{
+		PropertyResolver.setLocator(tester.getApplication(), locator);
+
+		long start = System.nanoTime();
+		for (int i = 0; i < ROUNDS; i++)
+		{
+			if (PropertyResolver.getValue(expression, person) != expected)
+			{
+				fail("unexpected value");
+			}
+		}
+		return (System.nanoTime() - start) / ROUNDS;
+	}
+}
@@ -58,7 +58,6 @@ import org.junit.jupiter.api.Test;
  */
 public class PropertyResolverTest extends WicketTestCase
 {
-
 	private static final PropertyResolverConverter CONVERTER = new PropertyResolverConverter(
 		new ConverterLocator(), Locale.US);
 
@@ -786,6 +785,75 @@ public class PropertyResolverTest extends WicketTestCase
 		assertFalse(instantPayment);
 	}
 
+	/**
+	 * Frequently used getters and setters are compiled, results have to be the same as with
+	 * reflection.
+	 */
+	@Test
+	void compiledMethods()
+	{
+		person.setAddress(new Address());
+		for (int i = 0; i < 100; i++)
+		{
+			PropertyResolver.setValue("age", person, i, CONVERTER);
+			assertEquals(i, PropertyResolver.getValue("age", person));
+
+			PropertyResolver.setValue("address.street", person, "street" + i, CONVERTER);
+			assertEquals("street" + i, PropertyResolver.getValue("address.street", person));
+
+			PropertyResolver.setValue("name", person, null, CONVERTER);
+			assertNull(PropertyResolver.getValue("name", person));
+
+			// JDK methods cannot be compiled
+			assertEquals(("street" + i).length(),
+				PropertyResolver.getValue("address.street.length()", person));
+		}
+
+		assertThrows(ConversionException.class,
+			() -> PropertyResolver.setValue("age", person, null, CONVERTER));
+	}
+
+	/**
+	 * Errors thrown by methods are wrapped the same, before and after they are compiled.
+	 */
+	@Test
+	void compiledMethodsWrapErrors()
+	{
+		Failing failing = new Failing();
+		for (int i = 0; i < 100; i++)
+		{
+			WicketRuntimeException get = assertThrows(WicketRuntimeException.class,
+				() -> PropertyResolver.getValue("value", failing));
+			assertTrue(get.getCause() instanceof LinkageError);
+
+			WicketRuntimeException set = assertThrows(WicketRuntimeException.class,
+				() -> PropertyResolver.setValue("value", failing, "value", CONVERTER));
+			assertTrue(set.getCause() instanceof LinkageError);
+		}
+	}
+
+	/**
+	 * Bean failing with an error.
+	 */
+	public static class Failing
+	{
+		/**
+		 * @return never
+		 */
+		public String getValue()
+		{
+			throw new LinkageError("get");
+		}
+
+		/**
+		 * @param value
+		 */
+		public void setValue(String value)
+		{
+			throw new LinkageError("set");
+		}
+	}
+
 	class CustomGetAndSetLocator implements IPropertyLocator {
 
 		private IPropertyLocator locator = new DefaultPropertyLocator();
@@ -21,6 +21,12 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import org.apache.wicket.MarkupContainer;
+import org.apache.wicket.markup.html.WebPage;
+import org.apache.wicket.markup.html.basic.Label;
+import org.apache.wicket.markup.parser.XmlTag.TagType;
+import org.apache.wicket.util.resource.IResourceStream;
+import org.apache.wicket.util.resource.StringResourceStream;
 import org.apache.wicket.util.tester.WicketTestCase;
 import org.junit.jupiter.api.Test;
 
@@ -207,4 +213,92 @@ class MarkupTest extends WicketTestCase
 		assertEquals("c4", ((ComponentTag)mkFragment.get(0)).getId());
 	}
 
+	/**
+	 * Consecutive raw markup is coalesced.
+	 */
+	@Test
+	void rawMarkupRuns()
+	{
+		Markup markup = new Markup(new MarkupResourceStream(new StringResourceStream("")));
+		markup.addMarkupElement(new RawMarkup("a"));
+		markup.addMarkupElement(new RawMarkup("b"));
+		ComponentTag open = new ComponentTag("span", TagType.OPEN);
+		open.setId("x");
+		markup.addMarkupElement(open);
+		markup.addMarkupElement(new RawMarkup("c"));
+		markup.addMarkupElement(new RawMarkup("d"));
+		markup.addMarkupElement(new RawMarkup("e"));
+		ComponentTag close = new ComponentTag("span", TagType.CLOSE);
+		close.setOpenTag(open);
+		markup.addMarkupElement(close);
+		markup.addMarkupElement(new RawMarkup("f"));
+		markup.makeImmutable();
+
+		MarkupStream stream = new MarkupStream(markup);
+		assertEquals(2, stream.getRawMarkupRunLength());
+		assertEquals("ab", stream.getRawMarkupRun().toString());
+
+		stream.setCurrentIndex(1);
+		assertEquals(0, stream.getRawMarkupRunLength());
+
+		stream.setCurrentIndex(3);
+		assertEquals(3, stream.getRawMarkupRunLength());
+		assertEquals("cde", stream.getRawMarkupRun().toString());
+
+		stream.setCurrentIndex(7);
+		assertEquals(0, stream.getRawMarkupRunLength());
+
+		MarkupStream fragment = new MarkupStream(markup.find("x"));
+		fragment.setCurrentIndex(1);
+		assertEquals(3, fragment.getRawMarkupRunLength());
+		assertEquals("cde", fragment.getRawMarkupRun().toString());
+	}
+
+	/**
+	 * Coalesced raw markup renders as before.
+	 */
+	@Test
+	void renderRawMarkupRuns()
+	{
+		tester.startPage(RawMarkupRunsPage.class);
+
+		Markup markup = tester.getLastRenderedPage().getAssociatedMarkup();
+		MarkupStream stream = new MarkupStream(markup);
+		int runs = 0;
+		while (stream.isCurrentIndexInsideTheStream())
+		{
+			if (stream.getRawMarkupRunLength() > 1)
+			{
+				runs++;
+			}
+			stream.next();
+		}
+		assertEquals(2, runs, markup.toString(true));
+
+		tester.assertContains("a<div></div>b<span wicket:id=\"label\">label</span>c<div></div>d");
+	}
+
+	/**
+	 * Page with consecutive raw markup.
+	 */
+	public static class RawMarkupRunsPage extends WebPage implements IMarkupResourceStreamProvider
+	{
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * Construct.
+		 */
+		public RawMarkupRunsPage()
+		{
+			add(new Label("label", "label"));
+		}
+
+		@Override
+		public IResourceStream getMarkupResourceStream(MarkupContainer container,
+			Class<?> containerClass)
+		{
+			return new StringResourceStream(
+				"<html><body>a<div/>b<span wicket:id=\"label\"></span>c<div/>d</body></html>");
+		}
+	}
 }
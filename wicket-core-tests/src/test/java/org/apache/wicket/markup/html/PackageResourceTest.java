@@ -22,6 +22,7 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.wicket.Application;
 import org.apache.wicket.SharedResources;
@@ -29,7 +30,9 @@ import org.apache.wicket.protocol.http.WebApplication;
 import org.apache.wicket.request.resource.JavaScriptPackageResource;
 import org.apache.wicket.request.resource.PackageResource;
 import org.apache.wicket.request.resource.PackageResourceReference;
+import org.apache.wicket.request.resource.ProcessedResourceCache;
 import org.apache.wicket.request.resource.ResourceReference;
+import org.apache.wicket.util.lang.Bytes;
 import org.apache.wicket.util.lang.Packages;
 import org.apache.wicket.util.tester.WicketTestCase;
 import org.junit.jupiter.api.BeforeEach;
@@ -193,4 +196,41 @@ public class PackageResourceTest extends WicketTestCase
 		final String contentType = tester.getLastResponse().getContentType();
 		assertEquals("text/javascript; charset=" + encoding, contentType);
 	}
+
+	/**
+	 * Compressed contents are cached.
+	 */
+	@Test
+	void compressOnce()
+	{
+		AtomicInteger compressions = new AtomicInteger();
+		application.getResourceSettings().setJavaScriptCompressor(original -> {
+			compressions.incrementAndGet();
+			return original.trim();
+		});
+		ProcessedResourceCache cache = new ProcessedResourceCache(Bytes.kilobytes(10));
+		application.getResourceSettings().setProcessedResourceCache(cache);
+
+		JavaScriptPackageResource resource = new JavaScriptPackageResource(
+			PackageResourceTest.class, "packaged3.js", null, null, null);
+
+		tester.startResource(resource);
+		String compressed = tester.getLastResponseAsString();
+		tester.startResource(resource);
+		assertEquals(compressed, tester.getLastResponseAsString());
+		assertEquals(1, compressions.get());
+
+		tester.startResource(new JavaScriptPackageResource(PackageResourceTest.class,
+			"packaged4.js", null, null, null));
+		assertEquals(2, compressions.get());
+
+		assertEquals(2, cache.getCount());
+		assertEquals(1, cache.getHitCount());
+
+		// without cache
+		application.getResourceSettings().setProcessedResourceCache(null);
+		tester.startResource(resource);
+		assertEquals(compressed, tester.getLastResponseAsString());
+		assertEquals(3, compressions.get());
+	}
 }
@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.markup.parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.apache.wicket.markup.Markup;
+import org.apache.wicket.markup.MarkupParser;
+import org.apache.wicket.markup.MarkupResourceStream;
+import org.apache.wicket.markup.parser.IXmlPullParser.HttpTagType;
+import org.apache.wicket.util.WicketTestTag;
+import org.apache.wicket.util.resource.FileResourceStream;
+import org.apache.wicket.util.tester.WicketTestCase;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Compares loading of markup as on startup of an application, parsed by {@link XmlPullParser}
+ * before and replayed by {@link PrecompiledXmlPullParser} after precompilation. Elements are
+ * pulled from the parsers alone, and markup is loaded including all markup filters.
+ */
+@Tag(WicketTestTag.SLOW)
+class PrecompiledXmlPullParserPerformanceTest extends WicketTestCase
+{
+	private static final int ITERATIONS = 500;
+
+	@TempDir
+	File directory;
+
+	@Test
+	void startup() throws Exception
+	{
+		StringBuilder markup = new StringBuilder("<!DOCTYPE html>\n<html xmlns:wicket><body>\n");
+		for (int i = 0; i < 200; i++)
+		{
+			markup.append("<div wicket:id=\"item").append(i).append("\" class=\"a b\">")
+				.append("<span wicket:id=\"label\">text</span><!-- comment -->")
+				.append("<wicket:enclosure child=\"label\"><br/></wicket:enclosure></div>\n");
+		}
+		markup.append("</body></html>");
+
+		File source = new File(directory, "source");
+		source.mkdirs();
+		File file = new File(source, "Test.html");
+		Files.write(file.toPath(), markup.toString().getBytes(StandardCharsets.UTF_8));
+
+		// precompile, as during the build
+		int size = parse(file, true).size();
+
+		int elements = pull(file, true);
+
+		// warmup
+		measurePull(file, false, elements);
+		measurePull(file, true, elements);
+		measure(file, false, size);
+		measure(file, true, size);
+
+		long pulled = measurePull(file, false, elements);
+		long pulledReplayed = measurePull(file, true, elements);
+		long parsed = measure(file, false, size);
+		long replayed = measure(file, true, size);
+
+		System.out.println("elements parsed: " + pulled / 1000 + " µs per markup, replayed: " +
+			pulledReplayed / 1000 + " µs per markup");
+		System.out.println("markup parsed: " + parsed / 1000 + " µs per markup, replayed: " +
+			replayed / 1000 + " µs per markup");
+
+		assertTrue(pulledReplayed < pulled);
+	}
+
+	private long measurePull(File file, boolean precompiled, int elements) throws Exception
+	{
+		long start = System.nanoTime();
+		for (int i = 0; i < ITERATIONS; i++)
+		{
+			assertEquals(elements, pull(file, precompiled));
+		}
+		return (System.nanoTime() - start) / ITERATIONS;
+	}
+
+	private int pull(File file, boolean precompiled) throws Exception
+	{
+		MarkupResourceStream stream = new MarkupResourceStream(
+			new FileResourceStream(new org.apache.wicket.util.file.File(file)));
+		IXmlPullParser parser = precompiled ? new PrecompiledXmlPullParser(directory, stream)
+			: new XmlPullParser();
+		parser.parse(stream.getInputStream(), "UTF-8");
+
+		int elements = 0;
+		while (parser.next() != HttpTagType.NOT_INITIALIZED)
+		{
+			parser.getElement();
+			elements++;
+		}
+		return elements;
+	}
+
+	private long measure(File file, boolean precompiled, int size) throws Exception
+	{
+		long start = System.nanoTime();
+		for (int i = 0; i < ITERATIONS; i++)
+		{
+			assertEquals(size, parse(file, precompiled).size());
+		}
+		return (System.nanoTime() - start) / ITERATIONS;
+	}
+
+	private Markup parse(File file, boolean precompiled) throws Exception
+	{
+		MarkupResourceStream stream = new MarkupResourceStream(
+			new FileResourceStream(new org.apache.wicket.util.file.File(file)));
+		IXmlPullParser parser = precompiled ? new PrecompiledXmlPullParser(directory, stream)
+			: new XmlPullParser();
+		return new MarkupParser(parser, stream).parse();
+	}
+}
@@ -0,0 +1,185 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.markup.parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.attribute.FileTime;
+
+import org.apache.wicket.markup.ComponentTag;
+import org.apache.wicket.markup.Markup;
+import org.apache.wicket.markup.MarkupParser;
+import org.apache.wicket.markup.MarkupResourceStream;
+import org.apache.wicket.markup.PrecompiledMarkupFactory;
+import org.apache.wicket.markup.html.basic.SimplePage;
+import org.apache.wicket.util.resource.FileResourceStream;
+import org.apache.wicket.util.resource.ResourceStreamNotFoundException;
+import org.apache.wicket.util.tester.WicketTestCase;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Test for {@link PrecompiledXmlPullParser}.
+ */
+class PrecompiledXmlPullParserTest extends WicketTestCase
+{
+	private static final String MARKUP = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+		"<!DOCTYPE html>\n" + "<html xmlns:wicket>\n" + "<!-- comment -->\n" +
+		"<!--[if IE]><b>ie</b><![endif]-->\n" + "<head><script>if (a < b) {}</script>" +
+		"<style>p > b {}</style></head>\n" +
+		"<body><span wicket:id=\"label\" class='a &amp; b'>text</span>\n" +
+		"<![CDATA[ <raw> ]]>\n" + "<wicket:enclosure child=\"label\"><br/></wicket:enclosure>\n" +
+		"<p>äöü</p></body>\n" + "</html>";
+
+	@TempDir
+	File directory;
+
+	/**
+	 * Parsed markup equals markup of the default parser, replayed markup as well.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	void parseAndReplay() throws Exception
+	{
+		File file = write(MARKUP);
+
+		Markup expected = new MarkupParser(new XmlPullParser(), stream(file)).parse();
+
+		Markup parsed = parse(file);
+		assertEqual(expected, parsed);
+
+		File[] precompiled = directory.listFiles((dir, name) -> name.endsWith(".markup"));
+		assertEquals(1, precompiled.length);
+
+		Markup replayed = parse(file);
+		assertEqual(expected, replayed);
+		assertEquals("UTF-8", replayed.getMarkupResourceStream().getEncoding());
+		assertEquals("html", replayed.getMarkupResourceStream().getDoctype());
+	}
+
+	/**
+	 * Precompiled markup is used only if the content of the source did not change.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	void changedSource() throws Exception
+	{
+		File file = write(MARKUP);
+		FileTime lastModified = Files.getLastModifiedTime(file.toPath());
+		assertTrue(parse(file).toString(true).contains(">text<"));
+
+		// same length and modification time, but different content
+		Files.write(file.toPath(), MARKUP.replace("text", "TEXT").getBytes(StandardCharsets.UTF_8));
+		Files.setLastModifiedTime(file.toPath(), lastModified);
+		assertTrue(parse(file).toString(true).contains(">TEXT<"));
+	}
+
+	/**
+	 * Precompiled markup is used for the same source at another location, e.g. when precompiled
+	 * during the build.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	void movedSource() throws Exception
+	{
+		File file = write(MARKUP);
+		Markup expected = parse(file);
+
+		File[] precompiled = directory.listFiles((dir, name) -> name.endsWith(".markup"));
+		assertEquals(1, precompiled.length);
+		FileTime written = FileTime.fromMillis(0);
+		Files.setLastModifiedTime(precompiled[0].toPath(), written);
+
+		File moved = new File(new File(directory, "deployed"), file.getName());
+		moved.getParentFile().mkdirs();
+		Files.copy(file.toPath(), moved.toPath());
+
+		assertEqual(expected, parse(moved));
+
+		// replayed, not written again
+		assertEquals(written, Files.getLastModifiedTime(precompiled[0].toPath()));
+	}
+
+	/**
+	 * Pages render identically with precompiled markup.
+	 */
+	@Test
+	void render()
+	{
+		tester.startPage(SimplePage.class);
+		String expected = tester.getLastResponseAsString();
+
+		tester.getApplication().getMarkupSettings().setMarkupFactory(
+			new PrecompiledMarkupFactory(directory));
+
+		tester.startPage(SimplePage.class);
+		assertEquals(expected, tester.getLastResponseAsString());
+
+		tester.getApplication().getMarkupSettings().getMarkupFactory().getMarkupCache().clear();
+
+		tester.startPage(SimplePage.class);
+		assertEquals(expected, tester.getLastResponseAsString());
+		assertTrue(directory.listFiles().length > 0);
+	}
+
+	private File write(String markup) throws IOException
+	{
+		File source = new File(directory, "source");
+		source.mkdirs();
+		File file = new File(source, "Test.html");
+		Files.write(file.toPath(), markup.getBytes(StandardCharsets.UTF_8));
+		return file;
+	}
+
+	private MarkupResourceStream stream(File file)
+	{
+		return new MarkupResourceStream(
+			new FileResourceStream(new org.apache.wicket.util.file.File(file)));
+	}
+
+	private Markup parse(File file) throws IOException, ResourceStreamNotFoundException
+	{
+		MarkupResourceStream stream = stream(file);
+		return new MarkupParser(new PrecompiledXmlPullParser(directory, stream), stream).parse();
+	}
+
+	private void assertEqual(Markup expected, Markup actual)
+	{
+		assertEquals(expected.toString(true), actual.toString(true));
+		assertEquals(expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); i++)
+		{
+			assertEquals(expected.get(i).getClass(), actual.get(i).getClass());
+			assertEquals(expected.get(i).toString(), actual.get(i).toString());
+			if (expected.get(i) instanceof ComponentTag)
+			{
+				ComponentTag tag = (ComponentTag)expected.get(i);
+				assertEquals(tag.toUserDebugString(), ((ComponentTag)actual.get(i)).toUserDebugString());
+				assertEquals(tag.getPos(), ((ComponentTag)actual.get(i)).getPos());
+				assertEquals(tag.getAttributes(), ((ComponentTag)actual.get(i)).getAttributes());
+			}
+		}
+	}
+}
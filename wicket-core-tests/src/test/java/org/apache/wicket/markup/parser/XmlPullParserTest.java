@@ -106,6 +106,26 @@ class XmlPullParserTest
 		
 	}
 
+	/**
+	 * Attribute values are unquoted, trimmed and unescaped.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	final void attributeValues() throws Exception
+	{
+		final XmlPullParser parser = new XmlPullParser();
+		parser.parse("<tag a=\" 1 \" b='2 ' c=3 d=\"&lt;4&amp;&quot;\" e f=\"\"/>");
+		XmlTag tag = parser.nextTag();
+
+		assertEquals("1", tag.getAttributes().getString("a"));
+		assertEquals("2", tag.getAttributes().getString("b"));
+		assertEquals("3", tag.getAttributes().getString("c"));
+		assertEquals("<4&\"", tag.getAttributes().getString("d"));
+		assertEquals("", tag.getAttributes().getString("e"));
+		assertEquals("", tag.getAttributes().getString("f"));
+	}
+
 	private void basicsTest1(XmlPullParser parser, XmlTag tag) throws Exception {
 		parser.parse("<tag> <tag> <tag>");
 		tag = parser.nextTag();
@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.markup.preload;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.wicket.markup.MarkupFactory;
+import org.apache.wicket.markup.MarkupParser;
+import org.apache.wicket.markup.MarkupPreloader;
+import org.apache.wicket.markup.MarkupResourceStream;
+import org.apache.wicket.util.tester.WicketTestCase;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for {@link MarkupPreloader}.
+ */
+class MarkupPreloaderTest extends WicketTestCase
+{
+	private final AtomicInteger parsed = new AtomicInteger();
+
+	@BeforeEach
+	void before()
+	{
+		tester.getApplication().getMarkupSettings().setMarkupFactory(new MarkupFactory()
+		{
+			@Override
+			public MarkupParser newMarkupParser(MarkupResourceStream resource)
+			{
+				parsed.incrementAndGet();
+				return super.newMarkupParser(resource);
+			}
+		});
+	}
+
+	@Test
+	void preloadPackage()
+	{
+		tester.getSession().setLocale(Locale.GERMAN);
+
+		MarkupPreloader.Result result = new MarkupPreloader()
+			.addPackage(PreloadPage.class.getPackage().getName())
+			.addLocale(Locale.GERMAN)
+			.preload(tester.getApplication());
+
+		assertEquals(3, result.getClasses());
+		assertTrue(result.getFailures().isEmpty());
+		assertEquals(result.getLoaded(), parsed.get());
+
+		// all markup is cached
+		tester.startPage(PreloadPage.class);
+		tester.assertContains("Seite");
+		assertEquals(result.getLoaded(), parsed.get());
+	}
+
+	@Test
+	void preloadClass()
+	{
+		tester.getSession().setLocale(Locale.ENGLISH);
+
+		MarkupPreloader.Result result = new MarkupPreloader().addClass(PreloadPage.class)
+			.addLocale(Locale.ENGLISH)
+			.setParallelism(1)
+			.preload(tester.getApplication());
+
+		// page and base page
+		assertEquals(1, result.getClasses());
+		assertEquals(2, result.getLoaded());
+		assertTrue(result.getFailures().isEmpty());
+
+		// only the panel is parsed
+		tester.startPage(PreloadPage.class);
+		tester.assertContains("page");
+		assertEquals(3, parsed.get());
+	}
+}
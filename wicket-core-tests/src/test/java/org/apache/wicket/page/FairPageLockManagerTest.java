@@ -0,0 +1,203 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.page;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.wicket.MockPage;
+import org.apache.wicket.core.util.lang.WicketObjects;
+import org.apache.wicket.mock.MockPageManager;
+import org.apache.wicket.page.FairPageLockManager.PageLock;
+import org.apache.wicket.page.PageLockStatistics.Histogram;
+import org.apache.wicket.util.WicketTestTag;
+import org.apache.wicket.util.tester.WicketTestCase;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for {@link FairPageLockManager}.
+ */
+@Tag(WicketTestTag.SLOW)
+class FairPageLockManagerTest extends WicketTestCase
+{
+	@Test
+	void reentrant()
+	{
+		FairPageLockManager manager = new FairPageLockManager(Duration.ofSeconds(5));
+
+		manager.lockPage(1);
+		manager.lockPage(1);
+
+		// single unlock releases
+		manager.unlockPage(1);
+		assertTrue(manager.getLocks().get().isEmpty());
+	}
+
+	@Test
+	void fairOrder() throws Exception
+	{
+		final FairPageLockManager manager = new FairPageLockManager(Duration.ofSeconds(10));
+
+		manager.lockPage(1);
+		PageLock lock = manager.getLocks().get().get(1);
+
+		final List<Integer> order = new ArrayList<>();
+		List<Thread> threads = new ArrayList<>();
+		for (int t = 0; t < 5; t++)
+		{
+			final int index = t;
+			Thread thread = new Thread(() -> {
+				manager.lockPage(1);
+				synchronized (order)
+				{
+					order.add(index);
+				}
+				manager.unlockAllPages();
+			});
+			thread.start();
+			threads.add(thread);
+
+			// wait until queued
+			while (lock.getQueueLength() < t + 1)
+			{
+				Thread.sleep(1);
+			}
+		}
+
+		manager.unlockAllPages();
+
+		for (Thread thread : threads)
+		{
+			thread.join(10000);
+		}
+
+		assertEquals(List.of(0, 1, 2, 3, 4), order);
+		assertTrue(manager.getLocks().get().isEmpty());
+	}
+
+	@Test
+	void timeout() throws Exception
+	{
+		final FairPageLockManager manager = new FairPageLockManager(Duration.ofMillis(100));
+
+		final CountDownLatch locked = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		Thread owner = new Thread(() -> {
+			manager.lockPage(1);
+			locked.countDown();
+			try
+			{
+				release.await(10, TimeUnit.SECONDS);
+			}
+			catch (InterruptedException e)
+			{
+			}
+			manager.unlockAllPages();
+		});
+		owner.start();
+		assertTrue(locked.await(10, TimeUnit.SECONDS));
+
+		assertThrows(CouldNotLockPageException.class, () -> manager.lockPage(1));
+
+		// lock of owner is still present
+		assertEquals(1, manager.getLocks().get().size());
+
+		release.countDown();
+		owner.join(10000);
+
+		assertTrue(manager.getLocks().get().isEmpty());
+	}
+
+	@Test
+	void shared() throws Exception
+	{
+		final FairPageLockManager manager = new FairPageLockManager(Duration.ofMillis(100));
+
+		manager.lockPageShared(1);
+
+		// other thread gets shared lock too, but not exclusive
+		final List<Boolean> results = new ArrayList<>();
+		Thread other = new Thread(() -> {
+			manager.lockPageShared(1);
+			manager.unlockAllPages();
+			results.add(true);
+
+			try
+			{
+				manager.lockPage(1);
+				results.add(true);
+			}
+			catch (CouldNotLockPageException expected)
+			{
+				results.add(false);
+			}
+		});
+		other.start();
+		other.join(10000);
+		assertEquals(List.of(true, false), results);
+
+		// upgrade
+		manager.lockPage(1);
+		assertTrue(manager.getLocks().get().get(1).isWriteLockedByCurrentThread());
+
+		manager.unlockPage(1);
+		assertTrue(manager.getLocks().get().isEmpty());
+	}
+
+	@Test
+	void statistics()
+	{
+		PageLockStatistics statistics = PageLockStatistics.get(tester.getApplication());
+		statistics.clear();
+
+		FairPageLockManager manager = new FairPageLockManager(Duration.ofSeconds(5));
+		IPageManager pageManager = new PageAccessSynchronizer(manager).adapt(new MockPageManager());
+
+		IManageablePage page = new MockPage(1);
+		pageManager.touchPage(page);
+		pageManager.getPage(1);
+		pageManager.detach();
+
+		Histogram histogram = statistics.getHistograms().get(MockPage.class.getName());
+		assertNotNull(histogram);
+		assertEquals(1, histogram.getCount());
+		assertEquals(1, histogram.getCounts()[0]);
+	}
+
+	@Test
+	void serialization()
+	{
+		FairPageLockManager manager = new FairPageLockManager(Duration.ofSeconds(5));
+		manager.lockPage(1);
+
+		FairPageLockManager clone = WicketObjects.cloneObject(manager);
+		assertNotSame(manager, clone);
+
+		// the clone does not retain locks
+		assertTrue(clone.getLocks().get().isEmpty());
+	}
+}
@@ -0,0 +1,201 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.pageStore;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.apache.wicket.MockPage;
+import org.apache.wicket.WicketRuntimeException;
+import org.apache.wicket.mock.MockPageContext;
+import org.apache.wicket.serialize.java.JavaSerializer;
+import org.apache.wicket.util.lang.Bytes;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for {@link ApplicationCachePageStore}.
+ */
+class ApplicationCachePageStoreTest
+{
+	private ApplicationCachePageStore store;
+
+	@AfterEach
+	void after()
+	{
+		if (store != null)
+		{
+			store.destroy();
+		}
+	}
+
+	private static SerializedPage page(int id, int length)
+	{
+		return new SerializedPage(id, "type", new byte[length]);
+	}
+
+	@Test
+	void getPage()
+	{
+		store = new ApplicationCachePageStore("test", Bytes.bytes(1000));
+
+		IPageContext context = new MockPageContext("session");
+
+		SerializedPage page = page(1, 100);
+		store.addPage(context, page);
+
+		assertSame(page, store.getPage(context, 1));
+		assertNull(store.getPage(context, 2));
+
+		assertEquals(1, store.getHitCount());
+		assertEquals(1, store.getMissCount());
+		assertEquals(0.5, store.getHitRatio());
+		assertEquals(Bytes.bytes(100), store.getSize());
+		assertEquals(1, store.getPageCount());
+	}
+
+	@Test
+	void frequentPagesStayResident()
+	{
+		store = new ApplicationCachePageStore("test", Bytes.bytes(1000));
+
+		IPageContext context = new MockPageContext("session");
+
+		for (int id = 1; id <= 9; id++)
+		{
+			store.addPage(context, page(id, 100));
+		}
+		for (int id = 1; id <= 9; id++)
+		{
+			assertNotNull(store.getPage(context, id));
+		}
+
+		// pages used once only
+		IPageContext other = new MockPageContext("other");
+		for (int id = 1; id <= 20; id++)
+		{
+			store.addPage(other, page(id, 100));
+		}
+
+		for (int id = 1; id <= 9; id++)
+		{
+			assertNotNull(store.getPage(context, id));
+		}
+		assertEquals(20, store.getRejectionCount());
+		assertEquals(0, store.getEvictionCount());
+	}
+
+	@Test
+	void frequentPageIsAdmitted()
+	{
+		store = new ApplicationCachePageStore("test", Bytes.bytes(1000));
+
+		IPageContext context = new MockPageContext("session");
+
+		for (int id = 1; id <= 9; id++)
+		{
+			store.addPage(context, page(id, 100));
+		}
+
+		// requested repeatedly before it is added
+		for (int i = 0; i < 3; i++)
+		{
+			assertNull(store.getPage(context, 10));
+		}
+		store.addPage(context, page(10, 100));
+
+		assertNotNull(store.getPage(context, 10));
+		assertEquals(1, store.getEvictionCount());
+		assertEquals(9, store.getPageCount());
+		assertTrue(store.getSize().bytes() <= store.getCapacity().bytes());
+	}
+
+	@Test
+	void tooLarge()
+	{
+		store = new ApplicationCachePageStore("test", Bytes.bytes(1000));
+
+		IPageContext context = new MockPageContext("session");
+
+		store.addPage(context, page(1, 100));
+		store.addPage(context, page(1, 1000));
+
+		assertNull(store.getPage(context, 1));
+		assertEquals(Bytes.bytes(0), store.getSize());
+	}
+
+	@Test
+	void removeAllPages()
+	{
+		store = new ApplicationCachePageStore("test", Bytes.bytes(1000));
+
+		IPageContext context1 = new MockPageContext("session1");
+		IPageContext context2 = new MockPageContext("session2");
+
+		store.addPage(context1, page(1, 100));
+		store.addPage(context1, page(2, 100));
+		store.addPage(context2, page(1, 100));
+
+		store.removeAllPages(context1);
+
+		assertNull(store.getPage(context1, 1));
+		assertNull(store.getPage(context1, 2));
+		assertNotNull(store.getPage(context2, 1));
+		assertEquals(Bytes.bytes(100), store.getSize());
+	}
+
+	@Test
+	void serializedPagesOnly()
+	{
+		store = new ApplicationCachePageStore("test", Bytes.bytes(1000));
+
+		assertThrows(WicketRuntimeException.class,
+			() -> store.addPage(new MockPageContext("session"), new MockPage(1)));
+	}
+
+	@Test
+	void cacheOfSerializedPages()
+	{
+		store = new ApplicationCachePageStore("test", Bytes.bytes(10000));
+
+		IPageStore chain = new SerializingPageStore(
+			new CachingPageStore(new NoopPageStore(), store), new JavaSerializer("test"));
+
+		IPageContext context = new MockPageContext("session");
+		chain.addPage(context, new MockPage(1));
+
+		assertTrue(store.getPage(context, 1) instanceof SerializedPage);
+		assertEquals(1, chain.getPage(context, 1).getPageId());
+	}
+
+	@Test
+	void lookup()
+	{
+		store = new ApplicationCachePageStore("test", Bytes.bytes(1000));
+
+		assertSame(store, ApplicationCachePageStore.get("test"));
+
+		store.destroy();
+
+		assertNull(ApplicationCachePageStore.get("test"));
+		store = null;
+	}
+}
@@ -280,6 +280,133 @@ class AsynchronousPageStoreTest
 		semaphore.release();
 	}
 
+	/**
+	 * Adds superseded by a later add of the same page are skipped.
+	 *
+	 * @throws InterruptedException
+	 */
+	@Test
+	void skipSupersededAdds() throws InterruptedException
+	{
+		final CountDownLatch adding = new CountDownLatch(1);
+		final Semaphore semaphore = new Semaphore(0);
+		final List<IManageablePage> added = new ArrayList<>();
+
+		IPageStore store = new NoopPageStore() {
+
+			@Override
+			public synchronized void addPage(IPageContext context, IManageablePage page)
+			{
+				adding.countDown();
+				try
+				{
+					semaphore.acquire();
+				}
+				catch (InterruptedException e)
+				{
+				}
+				added.add(page);
+			}
+		};
+
+		AsynchronousPageStore asyncPageStore = new AsynchronousPageStore(store, 100);
+
+		IPageContext context = new MockPageContext("sessionId");
+
+		// clog the worker
+		asyncPageStore.addPage(context, new SerializedPage(0, "", new byte[0]));
+		assertTrue(adding.await(5, TimeUnit.SECONDS));
+
+		SerializedPage last = null;
+		for (int i = 0; i < 3; i++)
+		{
+			last = new SerializedPage(1, "", new byte[0]);
+			asyncPageStore.addPage(context, last);
+		}
+		assertEquals(3, asyncPageStore.getQueueSize());
+		assertEquals(last, asyncPageStore.getPage(context, 1));
+
+		semaphore.release(2);
+
+		long until = System.currentTimeMillis() + 5000;
+		while (asyncPageStore.getMetrics().getAsynchronousAddCount() < 2 && System.currentTimeMillis() < until)
+		{
+			Thread.sleep(10);
+		}
+		asyncPageStore.destroy();
+
+		assertEquals(2, added.size());
+		assertEquals(last, added.get(1));
+		assertEquals(2, asyncPageStore.getMetrics().getAsynchronousAddCount());
+		assertEquals(2, asyncPageStore.getMetrics().getSkippedAddCount());
+		assertEquals(1, asyncPageStore.getMetrics().getBatchCount());
+	}
+
+	/**
+	 * Multiple workers store all pages, in order for each session.
+	 *
+	 * @throws InterruptedException
+	 */
+	@Test
+	void multipleWorkers() throws InterruptedException
+	{
+		final int sessions = 8;
+		final int pages = 100;
+
+		final List<List<Integer>> added = new ArrayList<>();
+		for (int s = 0; s < sessions; s++)
+		{
+			added.add(new ArrayList<>());
+		}
+
+		IPageStore store = new NoopPageStore() {
+
+			@Override
+			public void addPage(IPageContext context, IManageablePage page)
+			{
+				List<Integer> ids = added.get(Integer.parseInt(context.getSessionId(false)));
+				synchronized (ids)
+				{
+					ids.add(page.getPageId());
+				}
+			}
+		};
+
+		AsynchronousPageStore asyncPageStore = new AsynchronousPageStore(store, 1000, 4);
+
+		for (int p = 0; p < pages; p++)
+		{
+			for (int s = 0; s < sessions; s++)
+			{
+				asyncPageStore.addPage(new MockPageContext(String.valueOf(s)),
+					new SerializedPage(p, "", new byte[0]));
+			}
+		}
+
+		long until = System.currentTimeMillis() + 5000;
+		while (asyncPageStore.getMetrics().getAsynchronousAddCount() < sessions * pages &&
+			System.currentTimeMillis() < until)
+		{
+			Thread.sleep(10);
+		}
+		asyncPageStore.destroy();
+
+		for (int s = 0; s < sessions; s++)
+		{
+			List<Integer> ids = added.get(s);
+			synchronized (ids)
+			{
+				assertEquals(pages, ids.size());
+				for (int p = 0; p < pages; p++)
+				{
+					assertEquals(p, ids.get(p));
+				}
+			}
+		}
+		assertEquals(sessions * pages, asyncPageStore.getMetrics().getAsynchronousAddCount());
+		assertEquals(0, asyncPageStore.getMetrics().getSynchronousAddCount());
+	}
+
 
 	/**
 	 * Store works fully asynchronous when number of pages handled never exceeds the
@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.pageStore;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.wicket.MockPage;
+import org.apache.wicket.mock.MockPageContext;
+import org.apache.wicket.pageStore.compress.ICompressor;
+import org.apache.wicket.serialize.java.JavaSerializer;
+import org.apache.wicket.util.WicketTestTag;
+import org.apache.wicket.util.tester.WicketTestCase;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+/**
+ * Compares size and time of pages compressed by a {@link CompressingPageStore} without and with a
+ * trained dictionary.
+ */
+@Tag(WicketTestTag.SLOW)
+class CompressingPageStorePerformanceTest extends WicketTestCase
+{
+	private static final int PAGES = 100;
+
+	private static final int ROUNDS = 20;
+
+	private final JavaSerializer serializer = new JavaSerializer("test");
+
+	private final IPageContext context = new MockPageContext();
+
+	static List<ICompressor> compressors()
+	{
+		return CompressingPageStoreTest.compressors();
+	}
+
+	@ParameterizedTest
+	@MethodSource("compressors")
+	void dictionary(ICompressor compressor)
+	{
+		List<SerializedPage> pages = new ArrayList<>();
+		int size = 0;
+		for (int p = 0; p < PAGES; p++)
+		{
+			MockPage page = new MockPage(p);
+			pages.add(new SerializedPage(p, MockPage.class.getName(), serializer.serialize(page)));
+			size += pages.get(p).getData().length;
+		}
+
+		// warmup
+		measure(compressor, 0, pages);
+		measure(compressor, CompressingPageStore.DEFAULT_SAMPLES, pages);
+
+		System.out.println(compressor.getClass().getSimpleName() + ": " + size / PAGES +
+			" bytes per page, without dictionary " + measure(compressor, 0, pages) +
+			", with dictionary " + measure(compressor, CompressingPageStore.DEFAULT_SAMPLES, pages));
+	}
+
+	private String measure(ICompressor compressor, int samples, List<SerializedPage> pages)
+	{
+		InMemoryPageStore delegate = new InMemoryPageStore("performance", Integer.MAX_VALUE);
+		CompressingPageStore store = new CompressingPageStore(delegate, compressor, samples,
+			CompressingPageStore.DEFAULT_MAX_DICTIONARY_SIZE);
+		try
+		{
+			// train before measuring
+			for (int p = 0; p < samples; p++)
+			{
+				store.addPage(context, pages.get(p));
+			}
+
+			long start = System.nanoTime();
+			for (int round = 0; round < ROUNDS; round++)
+			{
+				for (SerializedPage page : pages)
+				{
+					store.addPage(context, page);
+				}
+			}
+			long nanos = (System.nanoTime() - start) / (ROUNDS * pages.size());
+
+			int compressed = 0;
+			for (SerializedPage page : pages)
+			{
+				SerializedPage stored = (SerializedPage)delegate.getPage(context, page.getPageId());
+				compressed += stored.getData().length;
+			}
+			return compressed / pages.size() + " bytes in " + nanos + " ns";
+		}
+		finally
+		{
+			store.destroy();
+		}
+	}
+}
@@ -0,0 +1,199 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.pageStore;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Random;
+
+import org.apache.wicket.MockPage;
+import org.apache.wicket.mock.MockPageContext;
+import org.apache.wicket.pageStore.compress.DeflateCompressor;
+import org.apache.wicket.pageStore.compress.ICompressor;
+import org.apache.wicket.pageStore.compress.LzCompressor;
+import org.apache.wicket.serialize.java.JavaSerializer;
+import org.apache.wicket.util.lang.Bytes;
+import org.apache.wicket.util.tester.WicketTestCase;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+/**
+ * Test for {@link CompressingPageStore}.
+ */
+class CompressingPageStoreTest extends WicketTestCase
+{
+	private final JavaSerializer serializer = new JavaSerializer("test");
+
+	private final IPageContext context = new MockPageContext();
+
+	static List<ICompressor> compressors()
+	{
+		return List.of(new DeflateCompressor(), new LzCompressor());
+	}
+
+	private SerializedPage serialize(int id)
+	{
+		MockPage page = new MockPage(id);
+		return new SerializedPage(id, MockPage.class.getName(), serializer.serialize(page));
+	}
+
+	private int delegatedSize(IPageStore delegate, int id)
+	{
+		return ((SerializedPage)delegate.getPage(context, id)).getData().length;
+	}
+
+	@ParameterizedTest
+	@MethodSource("compressors")
+	void roundTrip(ICompressor compressor)
+	{
+		InMemoryPageStore delegate = new InMemoryPageStore("roundTrip", Integer.MAX_VALUE);
+		CompressingPageStore store = new CompressingPageStore(delegate, compressor, 4,
+			CompressingPageStore.DEFAULT_MAX_DICTIONARY_SIZE);
+
+		for (int p = 0; p < 20; p++)
+		{
+			SerializedPage add = serialize(p);
+			store.addPage(context, add);
+
+			SerializedPage got = (SerializedPage)store.getPage(context, p);
+			assertEquals(add.getPageType(), got.getPageType());
+			assertArrayEquals(add.getData(), got.getData());
+			assertEquals(p, ((MockPage)serializer.deserialize(got.getData())).getPageId());
+
+			assertTrue(delegatedSize(delegate, p) < add.getData().length);
+		}
+
+		store.destroy();
+	}
+
+	@ParameterizedTest
+	@MethodSource("compressors")
+	void codec(ICompressor compressor)
+	{
+		Random random = new Random(42);
+
+		for (int i = 0; i < 50; i++)
+		{
+			byte[] dictionary = new byte[random.nextInt(3) == 0 ? 0 : random.nextInt(2000)];
+			random.nextBytes(dictionary);
+
+			// random data mixed with repetitions and dictionary content
+			byte[] data = new byte[random.nextInt(5000)];
+			for (int d = 0; d < data.length; d++)
+			{
+				int mode = random.nextInt(3);
+				if (mode == 0 || d < 8)
+				{
+					data[d] = (byte)random.nextInt();
+				}
+				else if (mode == 1 || dictionary.length == 0)
+				{
+					data[d] = data[d - 1 - random.nextInt(8)];
+				}
+				else
+				{
+					data[d] = dictionary[d % dictionary.length];
+				}
+			}
+
+			byte[] compressed = compressor.compress(data, dictionary.length == 0 ? null : dictionary);
+			assertArrayEquals(data,
+				compressor.decompress(compressed, dictionary.length == 0 ? null : dictionary));
+		}
+
+		assertArrayEquals(new byte[0], compressor.decompress(compressor.compress(new byte[0], null), null));
+	}
+
+	@ParameterizedTest
+	@MethodSource("compressors")
+	void dictionary(ICompressor compressor)
+	{
+		InMemoryPageStore plainDelegate = new InMemoryPageStore("plain", Integer.MAX_VALUE);
+		CompressingPageStore plain = new CompressingPageStore(plainDelegate, compressor, 0,
+			CompressingPageStore.DEFAULT_MAX_DICTIONARY_SIZE);
+
+		InMemoryPageStore trainedDelegate = new InMemoryPageStore("trained", Integer.MAX_VALUE);
+		CompressingPageStore trained = new CompressingPageStore(trainedDelegate, compressor);
+
+		// sample
+		for (int p = 0; p < CompressingPageStore.DEFAULT_SAMPLES; p++)
+		{
+			trained.addPage(context, serialize(p));
+		}
+
+		int plainSize = 0;
+		int trainedSize = 0;
+		for (int p = 100; p < 200; p++)
+		{
+			SerializedPage page = serialize(p);
+
+			plain.addPage(context, page);
+			plainSize += delegatedSize(plainDelegate, p);
+
+			trained.addPage(context, page);
+			trainedSize += delegatedSize(trainedDelegate, p);
+
+			assertArrayEquals(page.getData(), ((SerializedPage)trained.getPage(context, p)).getData());
+		}
+
+		assertTrue(trainedSize < plainSize);
+
+		plain.destroy();
+		trained.destroy();
+	}
+
+	@ParameterizedTest
+	@MethodSource("compressors")
+	void unknownDictionary(ICompressor compressor)
+	{
+		InMemoryPageStore delegate = new InMemoryPageStore("unknownDictionary", Integer.MAX_VALUE);
+
+		// train from first two pages
+		CompressingPageStore store = new CompressingPageStore(delegate, compressor, 2,
+			Bytes.kilobytes(1));
+		store.addPage(context, serialize(1));
+		store.addPage(context, serialize(2));
+
+		// dictionaries are lost on restart
+		CompressingPageStore restarted = new CompressingPageStore(delegate, compressor, 2,
+			Bytes.kilobytes(1));
+		assertArrayEquals(serialize(1).getData(),
+			((SerializedPage)restarted.getPage(context, 1)).getData());
+		assertNull(restarted.getPage(context, 2));
+
+		// a dictionary trained from other samples must not be mistaken for the lost one
+		Random random = new Random(42);
+		for (int p = 10; p < 12; p++)
+		{
+			byte[] data = new byte[4096];
+			for (int d = 0; d < data.length; d++)
+			{
+				data[d] = (byte)(d % 64 == 0 ? random.nextInt() : 'a' + d % 7);
+			}
+			restarted.addPage(context, new SerializedPage(p, MockPage.class.getName(), data));
+		}
+		assertNull(restarted.getPage(context, 2));
+
+		restarted.destroy();
+
+		store.destroy();
+	}
+}
@@ -0,0 +1,171 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.pageStore;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.apache.wicket.mock.MockPageContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for {@link DeltaPageStore}.
+ */
+class DeltaPageStoreTest
+{
+	private final Random random = new Random(42);
+
+	private InMemoryPageStore delegate;
+
+	private DeltaPageStore store;
+
+	private final IPageContext context = new MockPageContext("session");
+
+	@BeforeEach
+	void before()
+	{
+		delegate = new InMemoryPageStore("test", 100);
+		store = new DeltaPageStore(delegate);
+	}
+
+	@AfterEach
+	void after()
+	{
+		store.destroy();
+	}
+
+	private byte[] data(int length)
+	{
+		byte[] data = new byte[length];
+		random.nextBytes(data);
+		return data;
+	}
+
+	private int delegatedSize(int id)
+	{
+		return ((SerializedPage)delegate.getPage(context, id)).getData().length;
+	}
+
+	@Test
+	void smallChange()
+	{
+		byte[] version1 = data(10000);
+		store.addPage(context, new SerializedPage(1, "type", version1));
+		assertArrayEquals(version1, ((SerializedPage)store.getPage(context, 1)).getData());
+
+		byte[] version2 = version1.clone();
+		version2[5000] = (byte)~version2[5000];
+		store.addPage(context, new SerializedPage(1, "type", version2));
+
+		SerializedPage page = (SerializedPage)store.getPage(context, 1);
+		assertEquals("type", page.getPageType());
+		assertArrayEquals(version2, page.getData());
+
+		assertTrue(delegatedSize(1) < 100);
+	}
+
+	@Test
+	void insertionAndDeletion()
+	{
+		byte[] version1 = data(10000);
+		store.addPage(context, new SerializedPage(1, "type", version1));
+
+		// insert 3 bytes at 1000, drop 5 bytes at 7000
+		byte[] version2 = new byte[version1.length - 2];
+		System.arraycopy(version1, 0, version2, 0, 1000);
+		version2[1000] = 1;
+		version2[1001] = 2;
+		version2[1002] = 3;
+		System.arraycopy(version1, 1000, version2, 1003, 6000);
+		System.arraycopy(version1, 7005, version2, 7003, version1.length - 7005);
+
+		store.addPage(context, new SerializedPage(1, "type", version2));
+
+		assertArrayEquals(version2, ((SerializedPage)store.getPage(context, 1)).getData());
+		assertTrue(delegatedSize(1) < 100);
+	}
+
+	@Test
+	void rebase()
+	{
+		store.addPage(context, new SerializedPage(1, "type", data(10000)));
+
+		byte[] other = data(10000);
+		store.addPage(context, new SerializedPage(1, "type", other));
+
+		assertArrayEquals(other, ((SerializedPage)store.getPage(context, 1)).getData());
+		assertTrue(delegatedSize(1) < 100);
+	}
+
+	@Test
+	void smallPage()
+	{
+		byte[] data = data(10);
+		store.addPage(context, new SerializedPage(1, "type", data));
+
+		assertArrayEquals(data, ((SerializedPage)store.getPage(context, 1)).getData());
+		assertNull(delegate.getPage(context, store.getBaseId(1)));
+	}
+
+	@Test
+	void baseMissing()
+	{
+		store.addPage(context, new SerializedPage(1, "type", data(1000)));
+
+		delegate.removePage(context, new SerializedPage(store.getBaseId(1), new byte[0]));
+
+		assertNull(store.getPage(context, 1));
+	}
+
+	@Test
+	void removePage()
+	{
+		store.addPage(context, new SerializedPage(1, "type", data(1000)));
+
+		store.removePage(context, new SerializedPage(1, new byte[0]));
+
+		assertNull(store.getPage(context, 1));
+		assertNull(delegate.getPage(context, store.getBaseId(1)));
+	}
+
+	@Test
+	void encodeDecode()
+	{
+		for (int i = 0; i < 100; i++)
+		{
+			byte[] base = new byte[2 + random.nextInt(2000)];
+			random.nextBytes(base);
+
+			// mutate copy of base
+			byte[] data = new byte[random.nextInt(2000)];
+			for (int d = 0; d < data.length; d++)
+			{
+				data[d] = random.nextInt(10) == 0 ? (byte)random.nextInt()
+					: base[1 + d % (base.length - 1)];
+			}
+
+			byte[] delta = DeltaPageStore.encode(base, data);
+			assertArrayEquals(data, DeltaPageStore.decode(base, delta));
+		}
+	}
+}
@@ -16,10 +16,16 @@
  */
 package org.apache.wicket.pageStore;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.util.List;
 
+import org.apache.wicket.mock.MockPageContext;
 import org.apache.wicket.util.WicketTestTag;
 import org.apache.wicket.util.lang.Bytes;
 import org.junit.jupiter.api.Tag;
@@ -48,4 +54,108 @@ class FilePageStoreTest extends AbstractConcurrentPageStoreTest
 
 		pageStore.destroy();
 	}
+
+	/**
+	 * @throws IOException 
+	 */
+	@Test
+	void evictEldest() throws IOException
+	{
+		File folder = Files.createTempDirectory(null).toFile();
+
+		FilePageStore pageStore = new FilePageStore("app1", folder, Bytes.bytes(300));
+
+		IPageContext context = new MockPageContext("session");
+
+		pageStore.addPage(context, new SerializedPage(1, "type1", new byte[100]));
+		pageStore.addPage(context, new SerializedPage(2, "type2", new byte[100]));
+		pageStore.addPage(context, new SerializedPage(3, "type3", new byte[100]));
+		// rewrite first page
+		pageStore.addPage(context, new SerializedPage(1, "type1", new byte[100]));
+		pageStore.addPage(context, new SerializedPage(4, "type4", new byte[100]));
+
+		assertNotNull(pageStore.getPage(context, 1));
+		assertNull(pageStore.getPage(context, 2));
+		assertNotNull(pageStore.getPage(context, 3));
+		assertEquals("type4", ((SerializedPage)pageStore.getPage(context, 4)).getPageType());
+
+		List<IPersistedPage> pages = pageStore.getPersistedPages(pageStore.getSessionIdentifier(context));
+		assertEquals(3, pages.size());
+		assertEquals(4, pages.get(0).getPageId());
+		assertEquals(1, pages.get(1).getPageId());
+		assertEquals(3, pages.get(2).getPageId());
+
+		assertEquals(Bytes.bytes(300), pageStore.getTotalSize());
+
+		pageStore.removeAllPages(context);
+		assertEquals(Bytes.bytes(0), pageStore.getTotalSize());
+
+		pageStore.destroy();
+	}
+
+	/**
+	 * @throws IOException 
+	 */
+	@Test
+	void rebuildIndex() throws IOException
+	{
+		File folder = Files.createTempDirectory(null).toFile();
+
+		FilePageStore pageStore = new FilePageStore("app1", folder, MAX_SIZE_PER_SESSION);
+
+		IPageContext context = new MockPageContext("session");
+
+		pageStore.addPage(context, new SerializedPage(1, "type1", new byte[100]));
+		pageStore.addPage(context, new SerializedPage(2, "type2", new byte[200]));
+
+		String sessionIdentifier = pageStore.getSessionIdentifier(context);
+
+		pageStore.destroy();
+
+		// restart
+		pageStore = new FilePageStore("app1", folder, MAX_SIZE_PER_SESSION);
+
+		assertEquals(Bytes.bytes(300), pageStore.getTotalSize());
+		assertEquals(2, pageStore.getPersistedPages(sessionIdentifier).size());
+		assertNotNull(pageStore.getPage(context, 1));
+		assertNotNull(pageStore.getPage(context, 2));
+
+		pageStore.destroy();
+	}
+
+	/**
+	 * Folder names are sanitized, so they cannot be used as session identifiers.
+	 * 
+	 * @throws IOException 
+	 */
+	@Test
+	void totalSizeOfSanitizedFolders() throws IOException
+	{
+		File folder = Files.createTempDirectory(null).toFile();
+
+		FilePageStore pageStore = new FilePageStore("app1", folder, MAX_SIZE_PER_SESSION);
+
+		IPageContext context = new MockPageContext("session:1/*");
+
+		pageStore.addPage(context, new SerializedPage(1, "type1", new byte[100]));
+		pageStore.addPage(context, new SerializedPage(2, "type2", new byte[200]));
+
+		String sessionIdentifier = pageStore.getSessionIdentifier(context);
+
+		pageStore.destroy();
+
+		// restart
+		pageStore = new FilePageStore("app1", folder, MAX_SIZE_PER_SESSION);
+
+		assertEquals(Bytes.bytes(300), pageStore.getTotalSize());
+		assertEquals(2, pageStore.getPersistedPages(sessionIdentifier).size());
+		assertEquals(Bytes.bytes(300), pageStore.getTotalSize());
+
+		// querying unknown sessions does not count
+		assertEquals(0, pageStore.getPersistedPages("unknown").size());
+		assertNull(pageStore.getPage(new MockPageContext("unknown"), 1));
+		assertEquals(Bytes.bytes(300), pageStore.getTotalSize());
+
+		pageStore.destroy();
+	}
 }
@@ -0,0 +1,149 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.pageStore;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.apache.wicket.mock.MockPageContext;
+import org.apache.wicket.util.lang.Bytes;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for {@link OffHeapPageStore}.
+ */
+class OffHeapPageStoreTest
+{
+	private OffHeapPageStore store;
+
+	@AfterEach
+	void after()
+	{
+		if (store != null)
+		{
+			store.destroy();
+		}
+	}
+
+	private static byte[] data(int length)
+	{
+		byte[] data = new byte[length];
+		for (int i = 0; i < length; i++)
+		{
+			data[i] = (byte)i;
+		}
+		return data;
+	}
+
+	@Test
+	void storeAcrossBlocks()
+	{
+		store = new OffHeapPageStore("test", Bytes.bytes(1024), Bytes.bytes(16));
+
+		IPageContext context = new MockPageContext("session");
+
+		byte[] data = data(100);
+		store.addPage(context, new SerializedPage(1, "type", data));
+
+		SerializedPage page = (SerializedPage)store.getPage(context, 1);
+		assertNotNull(page);
+		assertEquals("type", page.getPageType());
+		assertArrayEquals(data, page.getData());
+
+		assertEquals(Bytes.bytes(100), store.getTotalSize());
+		assertEquals(Bytes.bytes(112), store.getOccupiedSize());
+		assertEquals(1, store.getPageCount());
+	}
+
+	@Test
+	void replacePage()
+	{
+		store = new OffHeapPageStore("test", Bytes.bytes(1024), Bytes.bytes(16));
+
+		IPageContext context = new MockPageContext("session");
+
+		store.addPage(context, new SerializedPage(1, "type", data(100)));
+		store.addPage(context, new SerializedPage(1, "type", data(10)));
+
+		assertArrayEquals(data(10), ((SerializedPage)store.getPage(context, 1)).getData());
+		assertEquals(Bytes.bytes(16), store.getOccupiedSize());
+		assertEquals(1, store.getPersistedPages("session").size());
+	}
+
+	@Test
+	void evictLeastRecentlyUsedAcrossSessions()
+	{
+		store = new OffHeapPageStore("test", Bytes.bytes(64), Bytes.bytes(16));
+
+		IPageContext context1 = new MockPageContext("session1");
+		IPageContext context2 = new MockPageContext("session2");
+
+		store.addPage(context1, new SerializedPage(1, "type", data(32)));
+		store.addPage(context2, new SerializedPage(1, "type", data(32)));
+
+		// access page of first session
+		assertNotNull(store.getPage(context1, 1));
+
+		store.addPage(context2, new SerializedPage(2, "type", data(16)));
+
+		assertNotNull(store.getPage(context1, 1));
+		assertNull(store.getPage(context2, 1));
+		assertNotNull(store.getPage(context2, 2));
+
+		assertEquals(1, store.getEvictionCount());
+		assertEquals(Bytes.bytes(48), store.getOccupiedSize());
+	}
+
+	@Test
+	void tooLarge()
+	{
+		store = new OffHeapPageStore("test", Bytes.bytes(64), Bytes.bytes(16));
+
+		IPageContext context = new MockPageContext("session");
+
+		store.addPage(context, new SerializedPage(1, "type", data(16)));
+		store.addPage(context, new SerializedPage(2, "type", data(65)));
+
+		assertNotNull(store.getPage(context, 1));
+		assertNull(store.getPage(context, 2));
+	}
+
+	@Test
+	void removeAllPages()
+	{
+		store = new OffHeapPageStore("test", Bytes.bytes(1024), Bytes.bytes(16));
+
+		IPageContext context1 = new MockPageContext("session1");
+		IPageContext context2 = new MockPageContext("session2");
+
+		store.addPage(context1, new SerializedPage(1, "type", data(20)));
+		store.addPage(context1, new SerializedPage(2, "type", data(20)));
+		store.addPage(context2, new SerializedPage(1, "type", data(20)));
+
+		store.removeAllPages(context1);
+
+		assertNull(store.getPage(context1, 1));
+		assertNull(store.getPage(context1, 2));
+		assertNotNull(store.getPage(context2, 1));
+
+		assertEquals(1, store.getSessionIdentifiers().size());
+		assertEquals(Bytes.bytes(32), store.getOccupiedSize());
+	}
+}
@@ -0,0 +1,282 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.protocol.http;
+
+import static java.util.concurrent.CompletableFuture.delayedExecutor;
+import static java.util.concurrent.CompletableFuture.runAsync;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.wicket.mock.MockWebResponse;
+import org.apache.wicket.util.WicketTestTag;
+import org.apache.wicket.util.lang.Bytes;
+import org.apache.wicket.util.tester.WicketTestCase;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for {@link BufferedResponseStore}.
+ * 
+ * @see <a href="https://issues.apache.org/jira/browse/WICKET-3209">WICKET-3209</a>
+ */
+@Tag(WicketTestTag.SLOW)
+class BufferedResponseStoreTest extends WicketTestCase
+{
+	private static BufferedWebResponse response(String text)
+	{
+		BufferedWebResponse response = new BufferedWebResponse(null);
+		response.write(text);
+		return response;
+	}
+
+	/**
+	 * Verifies that {@link BufferedResponseStore} will expire the oldest entry if it is older than
+	 * 2 seconds
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	void entriesLife2Seconds() throws Exception
+	{
+		BufferedResponseStore store = new BufferedResponseStore(Bytes.megabytes(1),
+			Duration.ofSeconds(2));
+		assertEquals(0, store.size());
+		store.put("session", "1", new BufferedWebResponse(null));
+		assertEquals(1, store.size());
+		TimeUnit.SECONDS.sleep(3);
+		store.put("session", "2", new BufferedWebResponse(null));
+		assertEquals(1, store.size());
+		assertTrue(store.contains("session", "2"));
+		assertEquals(1, store.getExpired());
+	}
+
+	/**
+	 * Verifies that getting a value which is expired will return <code>null</code>.
+	 */
+	@Test
+	void getExpiredValue()
+	{
+		Instant start = Instant.now();
+		Duration timeout = Duration.ofMillis(50);
+		BufferedResponseStore store = new BufferedResponseStore(Bytes.megabytes(1), timeout);
+		assertEquals(0, store.size());
+		store.put("session", "1", new BufferedWebResponse(null));
+		assertEquals(1, store.size());
+		runAsync(() -> {}, delayedExecutor(timeout.toMillis() * 2, MILLISECONDS)).join(); // sleep for twice longer than the timeout
+		Duration elapsedTime = Duration.between(start, Instant.now());
+		elapsedTime = elapsedTime.truncatedTo(ChronoUnit.MILLIS);
+
+		assertTrue(elapsedTime.compareTo(timeout) > 0, "The timeout has passed.");
+		assertFalse(store.contains("session", "1"));
+		assertNull(store.remove("session", "1"));
+		assertEquals(1, store.getExpired());
+		assertEquals(0, store.size());
+	}
+
+	/**
+	 * Responses are fetched once, counting hits and misses.
+	 */
+	@Test
+	void hitsAndMisses()
+	{
+		BufferedResponseStore store = new BufferedResponseStore(Bytes.megabytes(1),
+			Duration.ofDays(1));
+		BufferedWebResponse response = response("text");
+		store.put("session", "url", response);
+
+		assertNull(store.remove("other", "url"));
+		assertNull(store.remove("session", "other"));
+		assertSame(response, store.remove("session", "url"));
+		assertNull(store.remove("session", "url"));
+
+		assertEquals(1, store.getHits());
+		assertEquals(3, store.getMisses());
+		assertEquals(0, store.size());
+		assertEquals(0, store.getSize().bytes());
+	}
+
+	/**
+	 * The oldest responses are evicted when the store gets too large.
+	 */
+	@Test
+	void maxSize()
+	{
+		BufferedResponseStore store = new BufferedResponseStore(1, Bytes.kilobytes(100),
+			Duration.ofDays(1), false);
+
+		String text = "x".repeat(10000);
+		for (int i = 0; i < 10; i++)
+		{
+			store.put("session" + i, "url", response(text));
+		}
+
+		assertTrue(store.getSize().bytes() <= Bytes.kilobytes(100).bytes());
+		assertEquals(5, store.size());
+		assertEquals(5, store.getEvicted());
+		assertFalse(store.contains("session4", "url"));
+		assertTrue(store.contains("session5", "url"));
+	}
+
+	/**
+	 * A response larger than a shard's part of the maximum size is kept until the next one is
+	 * stored.
+	 */
+	@Test
+	void largeResponse()
+	{
+		BufferedResponseStore store = new BufferedResponseStore(4, Bytes.kilobytes(100),
+			Duration.ofDays(1), false);
+
+		BufferedWebResponse response = response("x".repeat(50000));
+		store.put("session", "url1", response);
+
+		assertEquals(1, store.size());
+		assertEquals(0, store.getEvicted());
+
+		store.put("session", "url2", response("x"));
+
+		assertEquals(1, store.size());
+		assertEquals(1, store.getEvicted());
+		assertFalse(store.contains("session", "url1"));
+		assertTrue(store.contains("session", "url2"));
+	}
+
+	/**
+	 * Responses of an unbound session are removed.
+	 */
+	@Test
+	void removeSession()
+	{
+		BufferedResponseStore store = new BufferedResponseStore(Bytes.megabytes(1),
+			Duration.ofDays(1));
+		store.put("session1", "url1", response("text"));
+		store.put("session1", "url2", response("text"));
+		store.put("session2", "url1", response("text"));
+
+		store.removeSession("session1");
+
+		assertEquals(1, store.size());
+		assertFalse(store.contains("session1", "url1"));
+		assertTrue(store.contains("session2", "url1"));
+	}
+
+	/**
+	 * Bodies are compressed and restored when written.
+	 */
+	@Test
+	void compress()
+	{
+		BufferedResponseStore store = new BufferedResponseStore(4, Bytes.megabytes(1),
+			Duration.ofDays(1), true);
+
+		String text = "<tr><td>\u00e4</td></tr>".repeat(1000);
+
+		BufferedWebResponse textResponse = response(text);
+		textResponse.setContentType("text/html");
+		store.put("session", "text", textResponse);
+
+		BufferedWebResponse bytesResponse = new BufferedWebResponse(null);
+		bytesResponse.write(text.getBytes(StandardCharsets.UTF_8));
+		store.put("session", "bytes", bytesResponse);
+
+		assertTrue(store.getSize().bytes() < text.length());
+
+		MockWebResponse written = new MockWebResponse();
+		store.remove("session", "text").writeTo(written);
+		assertEquals("text/html", written.getContentType());
+		assertEquals(text, written.getTextResponse().toString());
+
+		written = new MockWebResponse();
+		store.remove("session", "bytes").writeTo(written);
+		assertEquals(text, new String(written.getBinaryResponse(), StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * <a href="https://issues.apache.org/jira/browse/WICKET-3736">WICKET-3736</a>
+	 * 
+	 * Tries to simulate heavy load on the {@link BufferedResponseStore} by putting many entries
+	 * and removing randomly them.
+	 *
+	 * @throws InterruptedException
+	 */
+	@Test
+	void heavyLoad() throws InterruptedException
+	{
+		final int numberOfThreads = 100;
+		final int iterations = 1000;
+		final CountDownLatch startLatch = new CountDownLatch(numberOfThreads);
+		final CountDownLatch endLatch = new CountDownLatch(numberOfThreads);
+		final SecureRandom rnd = new SecureRandom();
+		final BufferedResponseStore store = new BufferedResponseStore(Bytes.megabytes(1),
+			Duration.ofSeconds(60));
+		final List<String> keys = new CopyOnWriteArrayList<String>();
+
+		final Runnable r = new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				startLatch.countDown();
+				try
+				{
+					// wait all threads before starting the test
+					startLatch.await();
+				}
+				catch (InterruptedException e)
+				{
+					throw new RuntimeException(e);
+				}
+
+				for (int i = 0; i < iterations; i++)
+				{
+					String key = "abc" + (rnd.nextDouble() * iterations);
+					keys.add(key);
+					store.put(key, "url", new BufferedWebResponse(null));
+
+					int randomMax = keys.size() - 1;
+					int toRemove = randomMax == 0 ? 0 : rnd.nextInt(randomMax);
+					String key2 = keys.get(toRemove);
+					store.remove(key2, "url");
+				}
+				endLatch.countDown();
+			}
+		};
+
+		for (int t = 0; t < numberOfThreads; t++)
+		{
+			new Thread(r).start();
+		}
+		endLatch.await();
+
+		assertEquals(numberOfThreads * iterations,
+			store.getHits() + store.getMisses() + store.getExpired());
+	}
+}
@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.protocol.http;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.wicket.RuntimeConfigurationType;
+import org.apache.wicket.mock.MockApplication;
+import org.apache.wicket.mock.MockWebResponse;
+import org.apache.wicket.request.http.WebResponse;
+import org.apache.wicket.util.WicketTestTag;
+import org.apache.wicket.util.tester.WicketTestCase;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Compares allocations of text and encoded buffering of {@link BufferedWebResponse} for a large
+ * page.
+ */
+@Tag(WicketTestTag.SLOW)
+class BufferedWebResponsePerformanceTest extends WicketTestCase
+{
+	private static final int ITERATIONS = 20;
+
+	@Override
+	protected WebApplication newApplication()
+	{
+		return new MockApplication()
+		{
+			@Override
+			public RuntimeConfigurationType getConfigurationType()
+			{
+				// no response filters
+				return RuntimeConfigurationType.DEPLOYMENT;
+			}
+		};
+	}
+
+	@Test
+	void allocations()
+	{
+		StringBuilder row = new StringBuilder();
+		for (int i = 0; i < 10; i++)
+		{
+			row.append("<td class=\"cell\">value ").append(i).append("</td>");
+		}
+		String html = row.toString();
+
+		long text = measure(null, html, "text");
+		long encoded = measure(StandardCharsets.UTF_8, html, "encoded");
+
+		if (text > 0)
+		{
+			assertTrue(encoded < text);
+		}
+	}
+
+	private long measure(Charset encoding, String html, String name)
+	{
+		WebResponse discarding = new MockWebResponse()
+		{
+			@Override
+			public void write(CharSequence sequence)
+			{
+			}
+
+			@Override
+			public void write(byte[] array, int offset, int length)
+			{
+			}
+		};
+
+		long bytes = 0;
+		long start = System.nanoTime();
+		for (int i = 0; i <= ITERATIONS; i++)
+		{
+			// first iteration fills the pool
+			long allocated = allocatedBytes();
+
+			BufferedWebResponse response = new BufferedWebResponse(discarding, encoding);
+			// ~300 KB
+			for (int r = 0; r < 1000; r++)
+			{
+				response.write(html);
+			}
+			response.writeTo(discarding);
+
+			if (i > 0)
+			{
+				bytes += allocatedBytes() - allocated;
+			}
+		}
+		long time = (System.nanoTime() - start) / ITERATIONS;
+
+		System.out.println(name + ": allocated " + bytes / ITERATIONS + " bytes, " + time +
+			" ns per response");
+
+		return bytes / ITERATIONS;
+	}
+
+	private static long allocatedBytes()
+	{
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (bean instanceof com.sun.management.ThreadMXBean)
+		{
+			return ((com.sun.management.ThreadMXBean)bean).getCurrentThreadAllocatedBytes();
+		}
+		return 0;
+	}
+}
@@ -17,9 +17,15 @@
 package org.apache.wicket.protocol.http;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 
+import org.apache.wicket.RuntimeConfigurationType;
+import org.apache.wicket.mock.MockApplication;
 import org.apache.wicket.mock.MockWebResponse;
 import org.apache.wicket.request.http.WebResponse;
 import org.apache.wicket.util.tester.WicketTestCase;
@@ -30,6 +36,20 @@ import org.junit.jupiter.api.Test;
  */
 class BufferedWebResponseTest extends WicketTestCase
 {
+	@Override
+	protected WebApplication newApplication()
+	{
+		return new MockApplication()
+		{
+			@Override
+			public RuntimeConfigurationType getConfigurationType()
+			{
+				// no response filters
+				return RuntimeConfigurationType.DEPLOYMENT;
+			}
+		};
+	}
+
 	enum TestAction {
 		SET_CONTENT_LENGTH, WRITE_RESPONSE, DISABLE_CACHING
 	}
@@ -74,4 +94,92 @@ class BufferedWebResponseTest extends WicketTestCase
 		assertEquals(1, actionsSequence.indexOf(TestAction.DISABLE_CACHING));
 		assertEquals(2, actionsSequence.indexOf(TestAction.WRITE_RESPONSE));
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Characters are encoded into chunks, surrogate pairs may be split over writes.
+	 */
+	@Test
+	void encoded()
+	{
+		StringBuilder expected = new StringBuilder();
+
+		MockWebResponse originalResponse = new MockWebResponse();
+		BufferedWebResponse response = new BufferedWebResponse(originalResponse,
+			StandardCharsets.UTF_8);
+		for (int i = 0; i < 10000; i++)
+		{
+			String text = "<p>\u00e4\u20ac " + i + "</p>\ud83d";
+			response.write(text);
+			expected.append(text);
+
+			response.write("\ude00");
+			expected.append("\ude00");
+		}
+
+		assertEquals(expected.toString(), response.getText().toString());
+
+		response.writeTo(originalResponse);
+		assertNull(originalResponse.getTextResponse());
+		assertEquals(expected.toString(),
+			new String(originalResponse.getBinaryResponse(), StandardCharsets.UTF_8));
+
+		// chunks are released
+		assertThrows(IllegalStateException.class, () -> response.writeTo(originalResponse));
+	}
+
+	/**
+	 * Text is replaced in the encoded buffer.
+	 */
+	@Test
+	void encodedSetText()
+	{
+		MockWebResponse originalResponse = new MockWebResponse();
+		BufferedWebResponse response = new BufferedWebResponse(originalResponse,
+			StandardCharsets.ISO_8859_1);
+		response.write("some text");
+		response.setText("other \u00e4");
+		assertEquals("other \u00e4", response.toString());
+
+		response.writeTo(originalResponse);
+		assertEquals("other \u00e4",
+			new String(originalResponse.getBinaryResponse(), StandardCharsets.ISO_8859_1));
+	}
+
+	/**
+	 * Response filters work on text, so encoding is skipped.
+	 */
+	@Test
+	void encodedWithResponseFilter()
+	{
+		tester.getApplication()
+			.getRequestCycleSettings()
+			.addResponseFilter(buffer -> buffer.append("!"));
+
+		MockWebResponse originalResponse = new MockWebResponse();
+		BufferedWebResponse response = new BufferedWebResponse(originalResponse,
+			StandardCharsets.UTF_8);
+		response.write("some text");
+		response.writeTo(originalResponse);
+
+		assertEquals("some text!", originalResponse.getTextResponse().toString());
+	}
+
+	/**
+	 * Pages are written as bytes with encoded buffers.
+	 */
+	@Test
+	void renderEncoded()
+	{
+		tester.startPage(FirstPage.class);
+		assertEquals(0, tester.getLastResponse().getBinaryContent().length);
+
+		tester.getApplication().getRequestCycleSettings().setEncodeBufferedResponse(true);
+		tester.startPage(FirstPage.class);
+		tester.assertRenderedPage(FirstPage.class);
+
+		String text = new String(tester.getLastResponse().getBinaryContent(),
+			StandardCharsets.UTF_8);
+		assertTrue(text.contains("first page<br/>"));
+		assertEquals(text, tester.getLastResponseAsString());
+	}
+}
@@ -18,10 +18,29 @@ package org.apache.wicket.protocol.http;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+
 import org.apache.wicket.mock.MockWebResponse;
+import org.apache.wicket.protocol.http.mock.MockHttpServletRequest;
+import org.apache.wicket.protocol.http.mock.MockHttpServletResponse;
+import org.apache.wicket.protocol.http.servlet.ServletWebRequest;
+import org.apache.wicket.request.http.WebResponse;
+import org.apache.wicket.request.resource.FilePartWriterCallback;
+import org.apache.wicket.request.resource.IResource.Attributes;
+import org.apache.wicket.util.tester.WicketTester;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 /**
  * Test for {@link HeaderBufferingWebResponse}.
@@ -81,4 +100,93 @@ class HeaderBufferingWebResponseTest
 		{
 		}
 	}
+
+	/**
+	 * A file is transferred to the channel of the container through the default response, after
+	 * the buffered headers.
+	 * 
+	 * @param dir
+	 *            temporary directory
+	 * @throws IOException
+	 */
+	@Test
+	void transferFileToContainerChannel(@TempDir Path dir) throws IOException
+	{
+		Path file = dir.resolve("file.txt");
+		Files.writeString(file, "0123456789", StandardCharsets.UTF_8);
+
+		WicketTester tester = new WicketTester();
+		try
+		{
+			MockHttpServletRequest servletRequest = tester.getRequest();
+			ChannelOutputStream outputStream = new ChannelOutputStream();
+			MockHttpServletResponse servletResponse = new MockHttpServletResponse(servletRequest)
+			{
+				@Override
+				public ServletOutputStream getOutputStream()
+				{
+					return outputStream;
+				}
+			};
+
+			ServletWebRequest request = new ServletWebRequest(servletRequest, "");
+			WebResponse response = tester.getApplication().createWebResponse(request,
+				servletResponse);
+			assertTrue(response instanceof HeaderBufferingWebResponse);
+
+			response.setContentType("text/plain");
+			assertNull(servletResponse.getContentType());
+
+			new FilePartWriterCallback(file, 10L, 2L, 5L).writeData(
+				new Attributes(request, response));
+
+			assertEquals("text/plain", servletResponse.getContentType());
+			assertEquals("2345", outputStream.channelContent.toString());
+		}
+		finally
+		{
+			tester.destroy();
+		}
+	}
+
+	/**
+	 * An output stream of a container supporting channels, recording written buffers only.
+	 */
+	private static class ChannelOutputStream extends ServletOutputStream
+		implements
+			WritableByteChannel
+	{
+		private final StringBuilder channelContent = new StringBuilder();
+
+		@Override
+		public int write(ByteBuffer source)
+		{
+			int length = source.remaining();
+			channelContent.append(StandardCharsets.UTF_8.decode(source));
+			return length;
+		}
+
+		@Override
+		public void write(int b)
+		{
+			fail("written to stream");
+		}
+
+		@Override
+		public boolean isOpen()
+		{
+			return true;
+		}
+
+		@Override
+		public boolean isReady()
+		{
+			return true;
+		}
+
+		@Override
+		public void setWriteListener(WriteListener writeListener)
+		{
+		}
+	}
 }
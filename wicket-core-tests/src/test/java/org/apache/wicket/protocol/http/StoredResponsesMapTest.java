@@ -41,6 +41,7 @@ import org.junit.jupiter.api.Test;
  * @see <a href="https://issues.apache.org/jira/browse/WICKET-3209">WICKET-3209</a>
  */
 @Tag(WicketTestTag.SLOW)
+@SuppressWarnings("removal")
 class StoredResponsesMapTest
 {
 	/**
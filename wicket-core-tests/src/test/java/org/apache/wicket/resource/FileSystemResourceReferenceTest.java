@@ -23,9 +23,17 @@ import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
 import java.nio.file.Path;
 
 import org.apache.wicket.core.util.lang.WicketObjects;
+import org.apache.wicket.protocol.http.mock.MockHttpServletRequest;
+import org.apache.wicket.protocol.http.mock.MockHttpServletResponse;
+import org.apache.wicket.request.Request;
+import org.apache.wicket.request.Response;
+import org.apache.wicket.request.resource.FilePartWriterCallback;
+import org.apache.wicket.request.resource.IResource.Attributes;
 import org.apache.wicket.util.io.ByteArrayOutputStream;
 import org.apache.wicket.util.io.IOUtils;
 import org.apache.wicket.util.tester.WicketTestCase;
@@ -247,4 +255,94 @@ class FileSystemResourceReferenceTest extends WicketTestCase
 		}
 	}
 
+	/**
+	 * Test writing of a normal file
+	 * 
+	 * @throws URISyntaxException
+	 *             if the URI is not readable
+	 */
+	@Test
+	void testWriteNormalFile() throws URISyntaxException
+	{
+		MockHttpServletResponse response = respond(null);
+
+		assertEquals("FileSystemResourceReference.zip content in normal file",
+			response.getDocument());
+	}
+
+	/**
+	 * Test writing of a range of a normal file
+	 * 
+	 * @throws URISyntaxException
+	 *             if the URI is not readable
+	 */
+	@Test
+	void testWriteNormalFileRange() throws URISyntaxException
+	{
+		MockHttpServletResponse response = respond("bytes=4-13");
+
+		assertEquals(206, response.getStatus());
+		assertEquals("SystemReso", response.getDocument());
+	}
+
+	/**
+	 * Test writing of an open ended range of a normal file
+	 * 
+	 * @throws URISyntaxException
+	 *             if the URI is not readable
+	 */
+	@Test
+	void testWriteNormalFileOpenRange() throws URISyntaxException
+	{
+		MockHttpServletResponse response = respond("bytes=43-");
+
+		assertEquals(206, response.getStatus());
+		assertEquals("normal file", response.getDocument());
+	}
+
+	/**
+	 * Test transfer of a file range to a channel
+	 * 
+	 * @throws URISyntaxException
+	 *             if the URI is not readable
+	 * @throws IOException
+	 *             if the file can't be read
+	 */
+	@Test
+	void testTransferToChannel() throws URISyntaxException, IOException
+	{
+		URL resource = FileSystemResourceReferenceTest.class.getResource("FileSystemResourceReference.txt");
+		Path path = FileSystemResourceReference.getPath(resource.toURI());
+
+		final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		FilePartWriterCallback callback = new FilePartWriterCallback(path, 54L, 4L, 13L)
+		{
+			@Override
+			protected WritableByteChannel getContainerChannel(Response response)
+			{
+				return Channels.newChannel(outputStream);
+			}
+		};
+		callback.writeData(new Attributes(tester.getRequestCycle().getRequest(),
+			tester.getRequestCycle().getResponse()));
+
+		assertEquals("SystemReso", outputStream.toString());
+	}
+
+	private MockHttpServletResponse respond(String range) throws URISyntaxException
+	{
+		URL resource = FileSystemResourceReferenceTest.class.getResource("FileSystemResourceReference.txt");
+		Path path = FileSystemResourceReference.getPath(resource.toURI());
+
+		Request request = tester.getRequestCycle().getRequest();
+		MockHttpServletRequest mockHttpServletRequest = (MockHttpServletRequest)request.getContainerRequest();
+		if (range != null)
+		{
+			mockHttpServletRequest.setHeader("range", range);
+		}
+		Response response = tester.getRequestCycle().getResponse();
+		new FileSystemResource(path).respond(new Attributes(request, response));
+
+		return (MockHttpServletResponse)response.getContainerResponse();
+	}
 }
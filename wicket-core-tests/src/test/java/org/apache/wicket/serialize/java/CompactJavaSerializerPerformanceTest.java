@@ -0,0 +1,74 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.serialize.java;
+
+import org.apache.wicket.serialize.java.CompactJavaSerializerTest.TestPage;
+import org.apache.wicket.util.WicketTestTag;
+import org.apache.wicket.util.tester.WicketTestCase;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Compares size and time of pages serialized by {@link CompactJavaSerializer} and
+ * {@link JavaSerializer}.
+ */
+@Tag(WicketTestTag.SLOW)
+class CompactJavaSerializerPerformanceTest extends WicketTestCase
+{
+	private static final int ITERATIONS = 20;
+
+	@Test
+	void serialize()
+	{
+		JavaSerializer java = new JavaSerializer(tester.getApplication().getApplicationKey());
+		CompactJavaSerializer compact = new CompactJavaSerializer(
+			tester.getApplication().getApplicationKey());
+
+		for (int rows : new int[] { 1, 10, 100 })
+		{
+			TestPage page = new TestPage(rows);
+
+			// warmup
+			measure(java, page);
+			measure(compact, page);
+
+			System.out.println("rows=" + rows + ": java " + measure(java, page) + ", compact " +
+				measure(compact, page));
+		}
+	}
+
+	private String measure(JavaSerializer serializer, TestPage page)
+	{
+		byte[] bytes = null;
+		long start = System.nanoTime();
+		for (int i = 0; i < ITERATIONS; i++)
+		{
+			bytes = serializer.serialize(page);
+		}
+		long serialization = (System.nanoTime() - start) / ITERATIONS;
+
+		start = System.nanoTime();
+		for (int i = 0; i < ITERATIONS; i++)
+		{
+			serializer.deserialize(bytes);
+		}
+		long deserialization = (System.nanoTime() - start) / ITERATIONS;
+
+		return bytes.length + " bytes, serialize " + serialization + " ns, deserialize " +
+			deserialization + " ns";
+	}
+}
@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.serialize.java;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.wicket.markup.html.WebPage;
+import org.apache.wicket.markup.html.basic.Label;
+import org.apache.wicket.markup.html.form.Form;
+import org.apache.wicket.markup.html.form.TextField;
+import org.apache.wicket.markup.html.list.ListItem;
+import org.apache.wicket.markup.html.list.ListView;
+import org.apache.wicket.markup.repeater.RepeatingView;
+import org.apache.wicket.model.Model;
+import org.apache.wicket.model.PropertyModel;
+import org.apache.wicket.util.tester.WicketTestCase;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for {@link CompactJavaSerializer}.
+ */
+class CompactJavaSerializerTest extends WicketTestCase
+{
+	@Test
+	void roundTrip()
+	{
+		CompactJavaSerializer serializer = new CompactJavaSerializer(tester.getApplication().getApplicationKey());
+
+		TestPage page = new TestPage(20);
+
+		byte[] bytes = serializer.serialize(page);
+		assertNotNull(bytes);
+
+		TestPage deserialized = (TestPage)serializer.deserialize(bytes);
+		assertEquals(page.getPageId(), deserialized.getPageId());
+		assertEquals(20, ((RepeatingView)deserialized.get("rows")).size());
+		assertEquals("name 3", deserialized.get("rows:3").getDefaultModelObject());
+		assertEquals("value", deserialized.get("form:field").getDefaultModelObject());
+		assertEquals(Color.GREEN, deserialized.color);
+
+		// serialize again with reused buffer
+		assertEquals(bytes.length, serializer.serialize(page).length);
+	}
+
+	@Test
+	void registeredClasses()
+	{
+		CompactJavaSerializer serializer = new CompactJavaSerializer(tester.getApplication().getApplicationKey());
+		byte[] unregistered = serializer.serialize(new Bean("name"));
+
+		serializer.register(Bean.class);
+		byte[] registered = serializer.serialize(new Bean("name"));
+
+		assertTrue(registered.length < unregistered.length);
+		assertEquals("name", ((Bean)serializer.deserialize(registered)).name);
+	}
+
+	@Test
+	void smallerThanJavaSerializer()
+	{
+		JavaSerializer java = new JavaSerializer(tester.getApplication().getApplicationKey());
+		CompactJavaSerializer compact = new CompactJavaSerializer(tester.getApplication().getApplicationKey());
+
+		for (int rows : new int[] { 1, 10, 100 })
+		{
+			TestPage page = new TestPage(rows);
+			assertTrue(compact.serialize(page).length < java.serialize(page).length);
+		}
+	}
+
+	private enum Color
+	{
+		RED, GREEN
+	}
+
+	private static class Bean implements Serializable
+	{
+		private final String name;
+
+		Bean(String name)
+		{
+			this.name = name;
+		}
+	}
+
+	static class TestPage extends WebPage
+	{
+		private Color color = Color.GREEN;
+
+		TestPage(int rows)
+		{
+			RepeatingView view = new RepeatingView("rows");
+			add(view);
+			List<Bean> beans = new ArrayList<>();
+			for (int i = 0; i < rows; i++)
+			{
+				Bean bean = new Bean("name " + i);
+				beans.add(bean);
+				view.add(new Label(String.valueOf(i), new PropertyModel<>(bean, "name")));
+			}
+
+			add(new ListView<>("list", beans)
+			{
+				@Override
+				protected void populateItem(ListItem<Bean> item)
+				{
+					item.add(new Label("name", new PropertyModel<>(item.getModel(), "name")));
+				}
+			});
+
+			Form<Void> form = new Form<>("form");
+			add(form);
+			form.add(new TextField<>("field", Model.of("value")));
+		}
+	}
+}
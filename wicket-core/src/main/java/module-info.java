@@ -22,7 +22,6 @@ module org.apache.wicket.core {
     requires org.apache.wicket.util;
     requires org.apache.wicket.request;
     requires org.apache.commons.io;
-    requires org.apache.commons.collections4;
     requires org.apache.commons.fileupload2.core;
     requires org.apache.commons.fileupload2.jakarta;
     requires org.slf4j;
@@ -111,6 +110,7 @@ module org.apache.wicket.core {
     exports org.apache.wicket.model.util;
     exports org.apache.wicket.page;
     exports org.apache.wicket.pageStore;
+    exports org.apache.wicket.pageStore.compress;
     exports org.apache.wicket.pageStore.crypt;
     exports org.apache.wicket.pageStore.disk;
     exports org.apache.wicket.protocol.http;
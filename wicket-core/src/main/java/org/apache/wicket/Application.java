@@ -42,6 +42,7 @@ import org.apache.wicket.event.IEvent;
 import org.apache.wicket.event.IEventSink;
 import org.apache.wicket.javascript.DefaultJavaScriptCompressor;
 import org.apache.wicket.markup.MarkupFactory;
+import org.apache.wicket.markup.MarkupPreloader;
 import org.apache.wicket.markup.head.IHeaderResponse;
 import org.apache.wicket.markup.head.ResourceAggregator;
 import org.apache.wicket.markup.html.HeaderResponseDecoratorCollection;
@@ -762,6 +763,12 @@ public abstract class Application implements UnboundListener, IEventSink, IMetad
 		applicationListeners.onAfterInitialized(this);
 
 		validateInit();
+
+		MarkupPreloader markupPreloader = getMarkupSettings().getMarkupPreloader();
+		if (markupPreloader != null)
+		{
+			markupPreloader.preload(this);
+		}
 	}
 
 	/**
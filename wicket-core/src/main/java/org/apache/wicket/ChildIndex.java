@@ -0,0 +1,367 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.apache.wicket.util.io.IClusterable;
+
+/**
+ * Insertion ordered index of the children of a {@link MarkupContainer}, used when a container has
+ * more children than {@link MarkupContainer#MAPIFY_THRESHOLD}.
+ * <p>
+ * Children are kept in an array in the order of addition, a removed child leaves a gap that is
+ * closed when the array has to grow. Lookups by id go through a parallel open addressing hash
+ * table with linear probing, holding positions in this array. Thus no entry objects are needed
+ * for any child. Only the children are serialized, the hash table is rebuilt on the first lookup
+ * after deserialization, when the ids of all children are guaranteed to be read.
+ * <p>
+ * Replacing a child keeps its position in the iteration order. Iterators returned by
+ * {@link #iterator()} are not fail-fast, {@link MarkupContainer} recreates them after each
+ * addition or removal.
+ */
+final class ChildIndex implements Iterable<Component>, IClusterable
+{
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Marks a slot in the {@link #table} whose child was removed.
+	 */
+	private static final int REMOVED = -1;
+
+	/**
+	 * The children in order of addition, {@code null} for removed children.
+	 */
+	private transient Component[] children;
+
+	/**
+	 * Number of used positions in {@link #children}, including removed ones.
+	 */
+	private transient int end;
+
+	/**
+	 * Number of children.
+	 */
+	private transient int size;
+
+	/**
+	 * Hash table with a length of a power of two, at least twice as long as {@link #children}.
+	 * Each slot holds the position of a child plus one, {@code 0} if it was never used or
+	 * {@link #REMOVED}. {@code null} after deserialization until the first lookup.
+	 */
+	private transient int[] table;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param capacity
+	 *            the number of children to reserve space for
+	 */
+	ChildIndex(final int capacity)
+	{
+		allocate(capacity);
+	}
+
+	/**
+	 * @return the number of children
+	 */
+	int size()
+	{
+		return size;
+	}
+
+	/**
+	 * Gets the child with the given id.
+	 * 
+	 * @param id
+	 *            the id of the child
+	 * @return the child or {@code null} if there is no child with the given id
+	 */
+	Component get(final String id)
+	{
+		int slot = find(id);
+		return slot == -1 ? null : children[table[slot] - 1];
+	}
+
+	/**
+	 * Gets the child added before the child with the given id.
+	 * 
+	 * @param id
+	 *            the id of the child
+	 * @return the previous child or {@code null} if there is none or no child with the given id
+	 */
+	Component getPrevious(final String id)
+	{
+		int slot = find(id);
+		if (slot != -1)
+		{
+			for (int index = table[slot] - 2; index >= 0; index--)
+			{
+				if (children[index] != null)
+				{
+					return children[index];
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Adds a child after all others, or replaces the child with the same id at its position.
+	 * 
+	 * @param child
+	 *            the child
+	 * @return the replaced child or {@code null} if the child was added
+	 */
+	Component put(final Component child)
+	{
+		String id = child.getId();
+
+		int slot = find(id);
+		if (slot != -1)
+		{
+			int index = table[slot] - 1;
+			Component replaced = children[index];
+			children[index] = child;
+			return replaced;
+		}
+
+		if (end == children.length)
+		{
+			rebuild();
+		}
+
+		children[end] = child;
+		insert(id, end);
+		end++;
+		size++;
+		return null;
+	}
+
+	/**
+	 * Removes the child with the given id.
+	 * 
+	 * @param id
+	 *            the id of the child
+	 * @return the removed child or {@code null} if there is no child with the given id
+	 */
+	Component remove(final String id)
+	{
+		int slot = find(id);
+		if (slot == -1)
+		{
+			return null;
+		}
+
+		int index = table[slot] - 1;
+		Component removed = children[index];
+		children[index] = null;
+		table[slot] = REMOVED;
+		size--;
+		return removed;
+	}
+
+	/**
+	 * @return the first child
+	 * @throws NoSuchElementException
+	 *             if there are no children
+	 */
+	Component first()
+	{
+		return iterator().next();
+	}
+
+	/**
+	 * @return a copy of the children in order of addition
+	 */
+	List<Component> toList()
+	{
+		List<Component> list = new ArrayList<>(size);
+		for (int index = 0; index < end; index++)
+		{
+			if (children[index] != null)
+			{
+				list.add(children[index]);
+			}
+		}
+		return list;
+	}
+
+	@Override
+	public Iterator<Component> iterator()
+	{
+		return new Iterator<>()
+		{
+			private int index;
+
+			@Override
+			public boolean hasNext()
+			{
+				while (index < end && children[index] == null)
+				{
+					index++;
+				}
+				return index < end;
+			}
+
+			@Override
+			public Component next()
+			{
+				if (!hasNext())
+				{
+					throw new NoSuchElementException();
+				}
+				return children[index++];
+			}
+		};
+	}
+
+	/**
+	 * @return the slot in the {@link #table} of the child with the given id, or {@code -1}
+	 */
+	private int find(final String id)
+	{
+		if (table == null)
+		{
+			table = new int[tableLength(children.length)];
+			for (int index = 0; index < end; index++)
+			{
+				if (children[index] != null)
+				{
+					insert(children[index].getId(), index);
+				}
+			}
+		}
+
+		int mask = table.length - 1;
+		for (int slot = hash(id) & mask;; slot = (slot + 1) & mask)
+		{
+			int entry = table[slot];
+			if (entry == 0)
+			{
+				return -1;
+			}
+			if (entry != REMOVED && children[entry - 1].getId().equals(id))
+			{
+				return slot;
+			}
+		}
+	}
+
+	/**
+	 * Inserts a position into the {@link #table}, the id must not be present already.
+	 * <p>
+	 * Each position is inserted only once between {@link #rebuild()}s, so there are never more
+	 * used slots than {@link #end} and the table is always at least half empty.
+	 */
+	private void insert(final String id, final int index)
+	{
+		int mask = table.length - 1;
+		int slot = hash(id) & mask;
+		while (table[slot] > 0)
+		{
+			slot = (slot + 1) & mask;
+		}
+		table[slot] = index + 1;
+	}
+
+	/**
+	 * Closes the gaps left by removed children, growing the arrays if more than half of them are
+	 * still in use.
+	 */
+	private void rebuild()
+	{
+		Component[] oldChildren = children;
+		int oldEnd = end;
+
+		allocate(size >= oldChildren.length / 2 ? oldChildren.length * 2 : oldChildren.length);
+
+		for (int index = 0; index < oldEnd; index++)
+		{
+			if (oldChildren[index] != null)
+			{
+				children[end] = oldChildren[index];
+				insert(children[end].getId(), end);
+				end++;
+			}
+		}
+		size = end;
+	}
+
+	/**
+	 * Allocates empty arrays.
+	 */
+	private void allocate(final int capacity)
+	{
+		children = new Component[Math.max(capacity, 2)];
+		table = new int[tableLength(children.length)];
+		end = 0;
+		size = 0;
+	}
+
+	/**
+	 * @return the smallest power of two at least twice the given capacity
+	 */
+	private static int tableLength(final int capacity)
+	{
+		return Integer.highestOneBit(capacity * 2 - 1) << 1;
+	}
+
+	private static int hash(final String id)
+	{
+		int hash = id.hashCode();
+		return hash ^ (hash >>> 16);
+	}
+
+	private void writeObject(final ObjectOutputStream out) throws IOException
+	{
+		out.defaultWriteObject();
+		out.writeInt(size);
+		for (int index = 0; index < end; index++)
+		{
+			if (children[index] != null)
+			{
+				out.writeObject(children[index]);
+			}
+		}
+	}
+
+	private void readObject(final ObjectInputStream in) throws IOException, ClassNotFoundException
+	{
+		in.defaultReadObject();
+		int count = in.readInt();
+		children = new Component[Math.max(count, 2)];
+		for (int index = 0; index < count; index++)
+		{
+			children[index] = (Component)in.readObject();
+		}
+		end = count;
+		size = count;
+	}
+
+	@Override
+	public String toString()
+	{
+		return toList().toString();
+	}
+}
@@ -20,8 +20,10 @@ import java.io.File;
 
 import org.apache.wicket.page.IPageManager;
 import org.apache.wicket.page.PageManager;
+import org.apache.wicket.pageStore.ApplicationCachePageStore;
 import org.apache.wicket.pageStore.AsynchronousPageStore;
 import org.apache.wicket.pageStore.CachingPageStore;
+import org.apache.wicket.pageStore.CompressingPageStore;
 import org.apache.wicket.pageStore.CryptingPageStore;
 import org.apache.wicket.pageStore.DiskPageStore;
 import org.apache.wicket.pageStore.FilePageStore;
@@ -29,7 +31,9 @@ import org.apache.wicket.pageStore.GroupingPageStore;
 import org.apache.wicket.pageStore.IPageStore;
 import org.apache.wicket.pageStore.InMemoryPageStore;
 import org.apache.wicket.pageStore.InSessionPageStore;
+import org.apache.wicket.pageStore.MappedDiskPageStore;
 import org.apache.wicket.pageStore.NoopPageStore;
+import org.apache.wicket.pageStore.OffHeapPageStore;
 import org.apache.wicket.pageStore.RequestPageStore;
 import org.apache.wicket.pageStore.SerializedPage;
 import org.apache.wicket.pageStore.SerializingPageStore;
@@ -47,6 +51,7 @@ import org.apache.wicket.util.lang.Bytes;
  * <li>{@link InSessionPageStore} keeping the last accessed page in the session</li>
  * <li>{@link SerializingPageStore} serializing all pages (so they are available for back-button)</li>
  * <li>{@link AsynchronousPageStore} moving storage of pages to an asynchronous worker thread (enabled by default with {@link StoreSettings#isAsynchronous()})</li>
+ * <li>{@link CompressingPageStore} compressing all pages (disabled by default in {@link StoreSettings#isCompressed()})</li>
  * <li>{@link CryptingPageStore} encrypting all pages (disabled by default in {@link StoreSettings#isEncrypted()})</li>
  * <li>{@link DiskPageStore} persisting all pages, configured according to {@link StoreSettings}</li>
  * </ol>
@@ -57,7 +62,8 @@ import org.apache.wicket.util.lang.Bytes;
  * <li>{@link InSessionPageStore} keeping the last accessed page in the session</li>
  * <li>{@link SerializingPageStore} serializing all pages (so they are available for back-button)</li>
  * <li>{@link AsynchronousPageStore} moving storage of pages to a worker thread</li>
- * <li>{@link InMemoryPageStore} keeping all pages in memory</li>
+ * <li>{@link InMemoryPageStore} keeping all pages in memory, or {@link OffHeapPageStore} keeping them
+ * outside of the heap with a budget for all sessions</li>
  * </ol>
  * ... or if all pages should be kept in the session only, without any serialization (no back-button
  * support though):
@@ -77,6 +83,8 @@ import org.apache.wicket.util.lang.Bytes;
  * <li>{@link NoopPageStore} discards all pages</li>
  * <li>{@link GroupingPageStore} groups pages, e.g. to limit storage size on a per-group basis</li>
  * <li>{@link FilePageStore} as an alternative to the trusted {@link DiskPageStore}</li>
+ * <li>{@link MappedDiskPageStore} as a variant of {@link DiskPageStore} for many concurrent sessions</li>
+ * <li>{@link ApplicationCachePageStore} as cache of a {@link CachingPageStore} following the {@link SerializingPageStore}, with a single budget for all sessions</li>
  * <li>other implementations from <a href="https://github.com/wicketstuff/core/tree/master/datastores-parent">wicketstuff-datastores</a></li>
  * </ul>
  */
@@ -102,6 +110,8 @@ public class DefaultPageManagerProvider implements IPageManagerProvider
 		
 		store = newCryptingStore(store);
 
+		store = newCompressingStore(store);
+
 		store = newAsynchronousStore(store);
 		
 		store = newSerializingStore(store);
@@ -162,7 +172,8 @@ public class DefaultPageManagerProvider implements IPageManagerProvider
 		if (storeSettings.isAsynchronous())
 		{
 			int capacity = storeSettings.getAsynchronousQueueCapacity();
-			pageStore = new AsynchronousPageStore(pageStore, capacity);
+			int workers = storeSettings.getAsynchronousWorkers();
+			pageStore = new AsynchronousPageStore(pageStore, capacity, workers);
 		}
 
 		return pageStore;
@@ -178,6 +189,23 @@ public class DefaultPageManagerProvider implements IPageManagerProvider
 		return new SerializingPageStore(pageStore, getSerializer());
 	}
 
+	/**
+	 * Compress all pages, if enabled in {@link StoreSettings#isCompressed()}.
+	 * 
+	 * @see CompressingPageStore
+	 */
+	protected IPageStore newCompressingStore(IPageStore pageStore)
+	{
+		StoreSettings storeSettings = application.getStoreSettings();
+
+		if (storeSettings.isCompressed())
+		{
+			pageStore = new CompressingPageStore(pageStore, storeSettings.getCompressor().get());
+		}
+
+		return pageStore;
+	}
+
 	/**
 	 * Crypt all pages, if enabled in {@link StoreSettings#isEncrypted()}.
 	 * 
@@ -39,6 +39,22 @@ public interface IRequestListener extends IClusterable
 		return true;
 	}
 	
+	/**
+	 * Is invocation of this listener read-only, i.e. it does not modify its page.
+	 * <p>
+	 * Repeated non-Ajax invocations of a read-only listener that does not {@link #rendersPage()}
+	 * may access the page concurrently, if the {@link org.apache.wicket.page.IPageLockManager}
+	 * supports shared locks. The page is not detached afterwards, thus the listener must not load
+	 * any detachable state of it either.
+	 * 
+	 * @return default {@code false}
+	 * @see org.apache.wicket.page.IPageLockManager#lockPageShared(int)
+	 */
+	default boolean isReadOnly()
+	{
+		return false;
+	}
+
 	/**
 	 * Called when a request is received.
 	 */
@@ -26,12 +26,10 @@ import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
-import java.util.Map;
 import java.util.Spliterators;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
-import org.apache.commons.collections4.map.LinkedMap;
 import org.apache.wicket.behavior.OutputMarkupContainerClassNameBehavior;
 import org.apache.wicket.core.util.string.ComponentStrings;
 import org.apache.wicket.markup.ComponentTag;
@@ -111,10 +109,10 @@ public abstract class MarkupContainer extends Component implements Iterable<Comp
 	private static final int INITIAL_CHILD_LIST_CAPACITY = 12;
 
 	/**
-	 * The threshold where we start using a Map to store children in, replacing a List. Adding
-	 * components to a list is O(n), and to a map O(1). The magic number is 24, due to a Map using
-	 * more memory to store its elements and below 24 children there's no discernible difference
-	 * between adding to a Map or a List.
+	 * The threshold where we start using a {@link ChildIndex} to store children in, replacing a
+	 * List. Adding components to a list is O(n), and to the index O(1). The magic number is 24, due
+	 * to the index using more memory to store its elements and below 24 children there's no
+	 * discernible difference between adding to the index or a List.
 	 * 
 	 * We have focused on adding elements to a list, instead of indexed lookups because adding is an
 	 * action that is performed very often, and lookups often are done by component IDs, not index.
@@ -166,8 +164,8 @@ public abstract class MarkupContainer extends Component implements Iterable<Comp
 
 	/**
 	 * The children of this markup container, if any. Can be a Component when there's only one
-	 * child, a List when the number of children is fewer than {@link #MAPIFY_THRESHOLD} or a Map
-	 * when there are more children.
+	 * child, a List when the number of children is fewer than {@link #MAPIFY_THRESHOLD} or a
+	 * {@link ChildIndex} when there are more children.
 	 */
 	private Object children;
 
@@ -617,8 +615,8 @@ public abstract class MarkupContainer extends Component implements Iterable<Comp
 			}
 			else
 			{
-				Map<String, Component> childrenMap = children();
-				internalIterator = childrenMap.values().iterator();
+				ChildIndex childrenIndex = children();
+				internalIterator = childrenIndex.iterator();
 			}
 
 				// since we now have a new iterator, we need to set it to the last known position
@@ -1066,8 +1064,8 @@ public abstract class MarkupContainer extends Component implements Iterable<Comp
 	 * 
 	 * - a list of components when there are more than 1 children
 	 * 
-	 * - a map of components when the number of children makes looking up children by id more costly
-	 * than an indexed search (see MAPIFY_THRESHOLD)
+	 * - an index of components when the number of children makes looking up children by id more
+	 * costly than an indexed search (see MAPIFY_THRESHOLD), see {@link ChildIndex}
 	 * 
 	 * To ensure that iterating through the list of children keeps working even when children are
 	 * added, replaced and removed without throwing a ConcurrentModificationException a special
@@ -1118,15 +1116,15 @@ public abstract class MarkupContainer extends Component implements Iterable<Comp
 			}
 			return null;
 		}
-		Map<String, Component> kids = children();
+		ChildIndex kids = children();
 		return kids.get(childId);
 	}
 
 	/**
 	 * Removes the child component identified by {@code childId} from the list of children.
 	 * 
-	 * Will change the internal list or map to a single component when the number of children hits
-	 * 1, but not change the internal map to a list when the threshold is reached (the memory was
+	 * Will change the internal list or index to a single component when the number of children hits
+	 * 1, but not change the internal index to a list when the threshold is reached (the memory was
 	 * already claimed, so there's little to be gained other than wasting CPU cycles for the
 	 * conversion).
 	 * 
@@ -1165,17 +1163,17 @@ public abstract class MarkupContainer extends Component implements Iterable<Comp
 				prevChild = child;
 			}
 		}
-		else if (children instanceof LinkedMap)
+		else if (children instanceof ChildIndex)
 		{
-			LinkedMap<String, Component> childrenMap = children();
-			if (childrenMap.containsKey(childId))
+			ChildIndex childrenIndex = children();
+			Component prevSibling = childrenIndex.getPrevious(childId);
+			Component oldChild = childrenIndex.remove(childId);
+			if (oldChild != null)
 			{
-				String prevSiblingId = childrenMap.previousKey(childId);
-				Component oldChild = childrenMap.remove(childId);
-				removalsAdd(oldChild, childrenMap.get(prevSiblingId));
-				if (childrenMap.size() == 1)
+				removalsAdd(oldChild, prevSibling);
+				if (childrenIndex.size() == 1)
 				{
-					children = childrenMap.values().iterator().next();
+					children = childrenIndex.first();
 				}
 			}
 		}
@@ -1201,7 +1199,7 @@ public abstract class MarkupContainer extends Component implements Iterable<Comp
 			List<?> kids = children();
 			return kids.size();
 		}
-		return ((Map<?, ?>)children).size();
+		return ((ChildIndex)children).size();
 	}
 
 	/**
@@ -1276,7 +1274,7 @@ public abstract class MarkupContainer extends Component implements Iterable<Comp
 
 			/*
 			 * If it still fits in the allotted number of items of a List, just add it, otherwise
-			 * change the internal data structure to a Map for speedier lookups.
+			 * change the internal data structure to an index for speedier lookups.
 			 */
 			if (childrenList.size() < MAPIFY_THRESHOLD)
 			{
@@ -1284,19 +1282,19 @@ public abstract class MarkupContainer extends Component implements Iterable<Comp
 			}
 			else
 			{
-				Map<String, Component> newChildren = new LinkedMap<>(MAPIFY_THRESHOLD * 2);
+				ChildIndex newChildren = new ChildIndex(MAPIFY_THRESHOLD * 2);
 				for (Component curChild : childrenList)
 				{
-					newChildren.put(curChild.getId(), curChild);
+					newChildren.put(curChild);
 				}
-				newChildren.put(child.getId(), child);
+				newChildren.put(child);
 				children = newChildren;
 			}
 			return null;
 		}
 
-		Map<String, Component> childrenMap = children();
-		Component oldChild = childrenMap.put(child.getId(), child);
+		ChildIndex childrenIndex = children();
+		Component oldChild = childrenIndex.put(child);
 
 		if (oldChild == null)
 		{
@@ -1634,6 +1632,16 @@ public abstract class MarkupContainer extends Component implements Iterable<Comp
 			// Remember where we are
 			final int index = markupStream.getCurrentIndex();
 
+			// Render consecutive raw markup with a single write
+			final int rawMarkupRun = markupStream.getRawMarkupRunLength();
+			if (rawMarkupRun > 1)
+			{
+				getResponse().write(markupStream.getRawMarkupRun());
+				markupStream.setCurrentIndex(index + rawMarkupRun - 1);
+				markupStream.next();
+				continue;
+			}
+
 			// Render the markup element
 			boolean rawMarkup = renderNext(markupStream);
 
@@ -1714,7 +1722,7 @@ public abstract class MarkupContainer extends Component implements Iterable<Comp
 		}
 		else
 		{
-			return new ArrayList<>(((Map<String, Component>)children).values());
+			return ((ChildIndex)children).toList();
 		}
 	}
 
@@ -0,0 +1,41 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.core.request.handler;
+
+import org.apache.wicket.request.IRequestHandler;
+
+/**
+ * A request handler that may declare to not modify any page, thus a shared lock to the pages
+ * accessed while it is active is sufficient.
+ * <p>
+ * A read-only handler must neither render nor detach the pages it accesses, since these are
+ * accessed by concurrent requests. Note that a shared lock cannot be upgraded atomically: if it
+ * turns out that a page has to be modified, the handler has to start over, e.g. by replacing
+ * itself with a handler that is not read-only.
+ * 
+ * @see org.apache.wicket.page.PageAccessSynchronizer
+ * @see org.apache.wicket.page.IPageLockManager#lockPageShared(int)
+ */
+public interface IReadOnlyRequestHandler extends IRequestHandler
+{
+	/**
+	 * Is this handler read-only.
+	 * 
+	 * @return {@code true} if pages are not modified
+	 */
+	boolean isReadOnly();
+}
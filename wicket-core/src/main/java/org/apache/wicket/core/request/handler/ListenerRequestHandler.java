@@ -16,17 +16,25 @@
  */
 package org.apache.wicket.core.request.handler;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.wicket.Application;
 import org.apache.wicket.Component;
 import org.apache.wicket.IRequestListener;
+import org.apache.wicket.MetaDataKey;
 import org.apache.wicket.Page;
+import org.apache.wicket.Session;
 import org.apache.wicket.WicketRuntimeException;
 import org.apache.wicket.behavior.Behavior;
 import org.apache.wicket.core.request.handler.RenderPageRequestHandler.RedirectPolicy;
 import org.apache.wicket.core.request.handler.logger.ListenerLogData;
 import org.apache.wicket.request.ILoggableRequestHandler;
 import org.apache.wicket.request.IRequestCycle;
+import org.apache.wicket.request.RequestHandlerExecutor.ReplaceHandlerException;
 import org.apache.wicket.request.component.IRequestableComponent;
 import org.apache.wicket.request.component.IRequestablePage;
+import org.apache.wicket.request.cycle.RequestCycle;
 import org.apache.wicket.request.http.WebRequest;
 import org.apache.wicket.request.mapper.parameter.PageParameters;
 import org.apache.wicket.util.lang.Args;
@@ -35,6 +43,12 @@ import org.slf4j.LoggerFactory;
 
 /**
  * Request handler that invokes an {@link IRequestListener} on component or behavior and renders page afterwards.
+ * <p>
+ * Once a listener was found to be {@link IRequestListener#isReadOnly()} and not to render its page,
+ * further non-Ajax requests to it are {@link IReadOnlyRequestHandler#isReadOnly()}, thus the page
+ * can be accessed with a shared lock. In that case the page is not detached afterwards. If the
+ * listener turns out to require an exclusive lock, the request is retried with a new handler
+ * before the page is used.
  *
  * @author Matej Knopp
  */
@@ -42,17 +56,34 @@ public class ListenerRequestHandler
 	implements
 		IPageRequestHandler,
 		IComponentRequestHandler,
-		ILoggableRequestHandler
+		ILoggableRequestHandler,
+		IReadOnlyRequestHandler
 {
 	
 	private static final Logger LOG = LoggerFactory.getLogger(ListenerRequestHandler.class);
 
+	/**
+	 * Maximum count of read-only listeners to remember for each application.
+	 */
+	private static final int MAX_READ_ONLY_LISTENERS = 10000;
+
+	/**
+	 * Keys of listeners known to be read-only, kept in the application so the session is not
+	 * altered.
+	 */
+	private static final MetaDataKey<ReadOnlyListeners> READ_ONLY_LISTENERS = new MetaDataKey<>()
+	{
+		private static final long serialVersionUID = 1L;
+	};
+
 	private final IPageAndComponentProvider pageComponentProvider;
 
 	private final Integer behaviorId;
 
 	private ListenerLogData logData;
 
+	private Boolean readOnly;
+
 	/**
 	 * Construct.
 	 *
@@ -127,6 +158,12 @@ public class ListenerRequestHandler
 		{
 			logData = new ListenerLogData(pageComponentProvider, behaviorId);
 		}
+
+		if (Boolean.TRUE.equals(readOnly))
+		{
+			// page might be accessed by concurrent requests
+			return;
+		}
 		pageComponentProvider.detach();
 	}
 
@@ -167,6 +204,12 @@ public class ListenerRequestHandler
 					+ "' has been removed from page.");
 		}
 
+		if (isReadOnly() && (freshPage || pageComponentProvider.wasExpired() ||
+			!isShareable(findListener(component), isAjax)))
+		{
+			retryExclusive();
+		}
+
 		RedirectPolicy policy = page.isPageStateless()
 			? RedirectPolicy.NEVER_REDIRECT
 			: RedirectPolicy.AUTO_REDIRECT;
@@ -287,6 +330,12 @@ public class ListenerRequestHandler
 		}
 
 		IRequestListener requestListener = (IRequestListener)target;
+
+		if (!isReadOnly() && isShareable(requestListener, ajax))
+		{
+			// further requests may share the lock
+			rememberReadOnly(getListenerKey(page.getSession(), page.getPageId()), true);
+		}
 		
 		if (requestListener.rendersPage() && !ajax)
 		{
@@ -300,6 +349,133 @@ public class ListenerRequestHandler
 		requestListener.onRequest();
 	}
 
+	/**
+	 * Is the listener known to be read-only and the current request is not an Ajax request.
+	 * <p>
+	 * Note that the result is fixed on the first call, so it reflects the lock acquired for the
+	 * page.
+	 */
+	@Override
+	public boolean isReadOnly()
+	{
+		if (readOnly == null)
+		{
+			readOnly = false;
+
+			Integer pageId = getPageId();
+			RequestCycle requestCycle = RequestCycle.get();
+			if (pageId != null && Session.exists() && requestCycle != null &&
+				requestCycle.getRequest() instanceof WebRequest &&
+				!((WebRequest)requestCycle.getRequest()).isAjax())
+			{
+				String key = getListenerKey(Session.get(), pageId);
+				readOnly = key != null && getReadOnlyListeners().contains(key);
+			}
+		}
+		return readOnly;
+	}
+
+	/**
+	 * @return key of the listener or {@code null} if the session is temporary
+	 */
+	private String getListenerKey(Session session, int pageId)
+	{
+		String sessionId = session.getId();
+		if (sessionId == null)
+		{
+			return null;
+		}
+		return sessionId + ":" + pageId + ":" + getComponentPath() + ":" + behaviorId;
+	}
+
+	/**
+	 * Can the given listener be invoked with a shared lock to its page.
+	 * 
+	 * @param listener
+	 *            listener, may be {@code null}
+	 * @param ajax
+	 *            is the current request an Ajax request
+	 * @return {@code true} if the listener is read-only and the page is not rendered
+	 */
+	private boolean isShareable(IRequestListener listener, boolean ajax)
+	{
+		return listener != null && listener.isReadOnly() && !listener.rendersPage() && !ajax;
+	}
+
+	private IRequestListener findListener(IRequestableComponent component)
+	{
+		Object target = component;
+		if (component != null && behaviorId != null)
+		{
+			try
+			{
+				target = ((Component)component).getBehaviorById(behaviorId);
+			}
+			catch (IndexOutOfBoundsException e)
+			{
+				target = null;
+			}
+		}
+		return target instanceof IRequestListener ? (IRequestListener)target : null;
+	}
+
+	/**
+	 * Forget that the listener is read-only and retry the request with an exclusive lock.
+	 * <p>
+	 * The shared lock cannot be upgraded atomically, thus the page has to be resolved again after
+	 * the exclusive lock was acquired.
+	 */
+	private void retryExclusive()
+	{
+		rememberReadOnly(getListenerKey(Session.get(), getPageId()), false);
+
+		ListenerRequestHandler retry = new ListenerRequestHandler(
+			new PageAndComponentProvider(getPageId(), getPageClass(), getPageParameters(),
+				pageComponentProvider.getRenderCount(), getComponentPath()),
+			behaviorId);
+		retry.readOnly = false;
+
+		throw new ReplaceHandlerException(retry, false);
+	}
+
+	private void rememberReadOnly(String key, boolean listenerReadOnly)
+	{
+		if (key == null)
+		{
+			return;
+		}
+
+		ReadOnlyListeners listeners = getReadOnlyListeners();
+		if (listenerReadOnly)
+		{
+			listeners.add(key);
+		}
+		else
+		{
+			listeners.remove(key);
+		}
+	}
+
+	private static ReadOnlyListeners getReadOnlyListeners()
+	{
+		Application application = Application.get();
+
+		ReadOnlyListeners listeners = application.getMetaData(READ_ONLY_LISTENERS);
+		if (listeners == null)
+		{
+			synchronized (ReadOnlyListeners.class)
+			{
+				listeners = application.getMetaData(READ_ONLY_LISTENERS);
+				if (listeners == null)
+				{
+					listeners = new ReadOnlyListeners();
+					application.setMetaData(READ_ONLY_LISTENERS, listeners);
+				}
+			}
+		}
+		return listeners;
+	}
+
 	@Override
 	public final boolean isPageInstanceCreated()
 	{
@@ -323,4 +499,36 @@ public class ListenerRequestHandler
 	{
 		return logData;
 	}
+
+	/**
+	 * Keys of read-only listeners, least recently used ones are dropped.
+	 */
+	private static class ReadOnlyListeners
+	{
+		private final Map<String, Boolean> keys = new LinkedHashMap<>(16, 0.75f, true)
+		{
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest)
+			{
+				return size() > MAX_READ_ONLY_LISTENERS;
+			}
+		};
+
+		synchronized boolean contains(String key)
+		{
+			return keys.get(key) != null;
+		}
+
+		synchronized void add(String key)
+		{
+			keys.put(key, Boolean.TRUE);
+		}
+
+		synchronized void remove(String key)
+		{
+			keys.remove(key);
+		}
+	}
 }
@@ -17,6 +17,7 @@
 package org.apache.wicket.core.request.mapper;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Locale;
 
@@ -364,6 +365,18 @@ public abstract class AbstractBookmarkableMapper extends AbstractComponentMapper
 		return true;
 	}
 
+	/**
+	 * Get the types of handlers mapped by {@link #mapHandler(IRequestHandler)}.
+	 * 
+	 * @return the handler types
+	 * @see org.apache.wicket.request.mapper.IIndexableRequestMapper#getHandlerTypes()
+	 */
+	public Collection<Class<? extends IRequestHandler>> getHandlerTypes()
+	{
+		return List.of(BookmarkablePageRequestHandler.class, RenderPageRequestHandler.class,
+			BookmarkableListenerRequestHandler.class);
+	}
+
 	@Override
 	public Url mapHandler(IRequestHandler requestHandler) {
 		requestHandler = unwrapRequestHandlerDelegate(requestHandler);
@@ -16,17 +16,22 @@
  */
 package org.apache.wicket.core.request.mapper;
 
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Supplier;
 
 import org.apache.wicket.Application;
+import org.apache.wicket.MetaDataKey;
 import org.apache.wicket.core.request.handler.RequestSettingRequestHandler;
 import org.apache.wicket.protocol.http.PageExpiredException;
 import org.apache.wicket.request.IRequestHandler;
 import org.apache.wicket.request.IRequestMapper;
 import org.apache.wicket.request.Request;
 import org.apache.wicket.request.Url;
+import org.apache.wicket.request.cycle.RequestCycle;
 import org.apache.wicket.request.mapper.IRequestMapperDelegate;
 import org.apache.wicket.request.mapper.info.PageComponentInfo;
 import org.apache.wicket.util.crypt.ICrypt;
@@ -82,6 +87,12 @@ import org.slf4j.LoggerFactory;
  * exception if a encrypted URL cannot be decrypted. This can occur when using {@code KeyInSessionSunJceCryptFactory}, and
  * the session has expired.
  * </p>
+ * <p>
+ * URLs encrypted while handling a request are remembered until the end of that request, so a URL rendered several times
+ * on a page is encrypted only once, see {@link #setEncryptedUrlCacheSize(int)}. For applications rendering many
+ * encrypted URLs {@link org.apache.wicket.core.util.crypt.AESGCMCrypt} is considerably cheaper than the default
+ * {@link org.apache.wicket.util.crypt.SunJceCrypt}.
+ * </p>
  * 
  * @author igor.vaynberg
  * @author Jesse Long
@@ -101,6 +112,15 @@ public class CryptoMapper implements IRequestMapperDelegate
 
 	private static final String ENCRYPTED_URL_MARKER_PREFIX = "crypt.";
 
+	/**
+	 * Per request caches of encrypted URLs, one for each {@link CryptoMapper}.
+	 */
+	private static final MetaDataKey<Map<CryptoMapper, Map<String, Url>>> ENCRYPTED_URLS =
+		new MetaDataKey<>()
+		{
+			private static final long serialVersionUID = 1L;
+		};
+
 	private final IRequestMapper wrappedMapper;
 	private final Supplier<ICrypt> cryptProvider;
 
@@ -109,6 +129,11 @@ public class CryptoMapper implements IRequestMapperDelegate
 	 */
 	private boolean markEncryptedUrls = false;
 
+	/**
+	 * Maximum number of encrypted URLs remembered during a single request.
+	 */
+	private int encryptedUrlCacheSize = 256;
+
 	/**
 	 * Encrypt with {@link org.apache.wicket.settings.SecuritySettings#getCryptFactory()}.
 	 * <p>
@@ -170,6 +195,34 @@ public class CryptoMapper implements IRequestMapperDelegate
 		return this;
 	}
 
+	/**
+	 * The maximum number of encrypted URLs remembered during a single request, so that a URL
+	 * rendered several times on a page is encrypted only once.
+	 * 
+	 * @return the maximum number of cached URLs, {@code 0} if caching is disabled.
+	 */
+	public int getEncryptedUrlCacheSize()
+	{
+		return encryptedUrlCacheSize;
+	}
+
+	/**
+	 * Sets the maximum number of encrypted URLs remembered during a single request. The least
+	 * recently used URLs are evicted when the limit is reached.
+	 * 
+	 * @param encryptedUrlCacheSize
+	 *		the maximum number of cached URLs, {@code 0} disables caching.
+	 * 
+	 * @return {@code this}, for chaining.
+	 */
+	public CryptoMapper setEncryptedUrlCacheSize(int encryptedUrlCacheSize)
+	{
+		Args.isTrue(encryptedUrlCacheSize >= 0, "encryptedUrlCacheSize must not be negative: {}",
+			encryptedUrlCacheSize);
+		this.encryptedUrlCacheSize = encryptedUrlCacheSize;
+		return this;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 * <p>
@@ -211,7 +264,54 @@ public class CryptoMapper implements IRequestMapperDelegate
 			return url;
 		}
 
-		return encryptUrl(url);
+		Map<String, Url> cache = getEncryptedUrlCache();
+		if (cache == null)
+		{
+			return encryptUrl(url);
+		}
+
+		String key = url.toString();
+		Url encryptedUrl = cache.get(key);
+		if (encryptedUrl == null)
+		{
+			encryptedUrl = encryptUrl(url);
+			cache.put(key, new Url(encryptedUrl));
+			return encryptedUrl;
+		}
+
+		// callers may modify the returned url
+		return new Url(encryptedUrl);
+	}
+
+	/**
+	 * @return the cache of URLs encrypted by this mapper during the current request, or
+	 *         {@code null} if caching is disabled or there is no request
+	 */
+	private Map<String, Url> getEncryptedUrlCache()
+	{
+		RequestCycle requestCycle = RequestCycle.get();
+		if (encryptedUrlCacheSize == 0 || requestCycle == null)
+		{
+			return null;
+		}
+
+		Map<CryptoMapper, Map<String, Url>> caches = requestCycle.getMetaData(ENCRYPTED_URLS);
+		if (caches == null)
+		{
+			caches = new IdentityHashMap<>(2);
+			requestCycle.setMetaData(ENCRYPTED_URLS, caches);
+		}
+
+		return caches.computeIfAbsent(this, mapper -> new LinkedHashMap<String, Url>(16, 0.75f, true)
+		{
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Url> eldest)
+			{
+				return size() > encryptedUrlCacheSize;
+			}
+		});
 	}
 
 	@Override
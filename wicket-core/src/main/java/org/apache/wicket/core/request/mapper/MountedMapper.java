@@ -16,6 +16,9 @@
  */
 package org.apache.wicket.core.request.mapper;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Objects;
 import java.util.function.Supplier;
 
@@ -24,6 +27,7 @@ import org.apache.wicket.request.IRequestHandler;
 import org.apache.wicket.request.Request;
 import org.apache.wicket.request.Url;
 import org.apache.wicket.request.component.IRequestablePage;
+import org.apache.wicket.request.mapper.IIndexableRequestMapper;
 import org.apache.wicket.request.mapper.info.ComponentInfo;
 import org.apache.wicket.request.mapper.info.PageComponentInfo;
 import org.apache.wicket.request.mapper.info.PageInfo;
@@ -62,7 +66,7 @@ import org.apache.wicket.util.string.Strings;
  * 
  * @author Matej Knopp
  */
-public class MountedMapper extends AbstractBookmarkableMapper
+public class MountedMapper extends AbstractBookmarkableMapper implements IIndexableRequestMapper
 {
 	/** bookmarkable page class. */
 	private final Supplier<Class<? extends IRequestablePage>> pageClassProvider;
@@ -149,6 +153,36 @@ public class MountedMapper extends AbstractBookmarkableMapper
 		}
 	}
 
+	/**
+	 * Returns the mount segments, for subclasses <code>null</code> unless overridden.
+	 */
+	@Override
+	public String[] getUrlPrefix()
+	{
+		if (getClass() != MountedMapper.class)
+		{
+			// subclasses might map other urls or handlers
+			return null;
+		}
+		return mountSegments.clone();
+	}
+
+	/**
+	 * Returns the mapped handler types, for subclasses <code>null</code> unless overridden.
+	 */
+	@Override
+	public Collection<Class<? extends IRequestHandler>> getHandlerTypes()
+	{
+		if (getClass() != MountedMapper.class)
+		{
+			// subclasses might map other urls or handlers
+			return null;
+		}
+		List<Class<? extends IRequestHandler>> types = new ArrayList<>(super.getHandlerTypes());
+		types.add(ListenerRequestHandler.class);
+		return types;
+	}
+
 	@Override
 	public Url mapHandler(IRequestHandler requestHandler)
 	{
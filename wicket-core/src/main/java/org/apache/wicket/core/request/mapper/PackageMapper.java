@@ -17,12 +17,15 @@
 package org.apache.wicket.core.request.mapper;
 
 import java.lang.reflect.Modifier;
+import java.util.Collection;
 import java.util.List;
 
 import org.apache.wicket.protocol.http.WebApplication;
+import org.apache.wicket.request.IRequestHandler;
 import org.apache.wicket.request.Request;
 import org.apache.wicket.request.Url;
 import org.apache.wicket.request.component.IRequestablePage;
+import org.apache.wicket.request.mapper.IIndexableRequestMapper;
 import org.apache.wicket.request.mapper.info.PageComponentInfo;
 import org.apache.wicket.request.mapper.parameter.IPageParametersEncoder;
 import org.apache.wicket.request.mapper.parameter.PageParameters;
@@ -61,7 +64,7 @@ import org.apache.wicket.util.string.Strings;
  *  (these will redirect to hybrid if page is not stateless)
  * </pre>
  */
-public class PackageMapper extends AbstractBookmarkableMapper
+public class PackageMapper extends AbstractBookmarkableMapper implements IIndexableRequestMapper
 {
 	/**
 	 * the name of the package for which all bookmarkable pages should be mounted
@@ -132,6 +135,34 @@ public class PackageMapper extends AbstractBookmarkableMapper
 		return null;
 	}
 
+	/**
+	 * Returns the mount segments, for subclasses <code>null</code> unless overridden.
+	 */
+	@Override
+	public String[] getUrlPrefix()
+	{
+		if (getClass() != PackageMapper.class)
+		{
+			// subclasses might map other urls or handlers
+			return null;
+		}
+		return mountSegments.clone();
+	}
+
+	/**
+	 * Returns the mapped handler types, for subclasses <code>null</code> unless overridden.
+	 */
+	@Override
+	public Collection<Class<? extends IRequestHandler>> getHandlerTypes()
+	{
+		if (getClass() != PackageMapper.class)
+		{
+			// subclasses might map other urls or handlers
+			return null;
+		}
+		return super.getHandlerTypes();
+	}
+
 	@Override
 	protected UrlInfo parseRequest(Request request)
 	{
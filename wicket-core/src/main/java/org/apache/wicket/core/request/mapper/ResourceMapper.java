@@ -16,6 +16,8 @@
  */
 package org.apache.wicket.core.request.mapper;
 
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
 
 import jakarta.servlet.http.HttpServletResponse;
@@ -27,6 +29,7 @@ import org.apache.wicket.request.Request;
 import org.apache.wicket.request.Url;
 import org.apache.wicket.request.handler.resource.ResourceReferenceRequestHandler;
 import org.apache.wicket.request.http.flow.AbortWithHttpErrorCodeException;
+import org.apache.wicket.request.mapper.IIndexableRequestMapper;
 import org.apache.wicket.request.mapper.parameter.INamedParameters;
 import org.apache.wicket.request.mapper.parameter.IPageParametersEncoder;
 import org.apache.wicket.request.mapper.parameter.PageParameters;
@@ -71,7 +74,7 @@ import org.apache.wicket.util.string.Strings;
  *
  * @author Peter Ertl
  */
-public class ResourceMapper extends AbstractBookmarkableMapper
+public class ResourceMapper extends AbstractBookmarkableMapper implements IIndexableRequestMapper
 {
 	// encode page parameters into url + decode page parameters from url
 	private final IPageParametersEncoder parametersEncoder;
@@ -198,6 +201,37 @@ public class ResourceMapper extends AbstractBookmarkableMapper
 		return score;
 	}
 
+	/**
+	 * Returns the mount segments without the last one, for subclasses <code>null</code> unless
+	 * overridden.
+	 */
+	@Override
+	public String[] getUrlPrefix()
+	{
+		if (getClass() != ResourceMapper.class)
+		{
+			// subclasses might map other urls or handlers
+			return null;
+		}
+
+		// the last segment might carry a caching decoration
+		return Arrays.copyOf(mountSegments, Math.max(mountSegments.length - 1, 0));
+	}
+
+	/**
+	 * Returns the mapped handler types, for subclasses <code>null</code> unless overridden.
+	 */
+	@Override
+	public Collection<Class<? extends IRequestHandler>> getHandlerTypes()
+	{
+		if (getClass() != ResourceMapper.class)
+		{
+			// subclasses might map other urls or handlers
+			return null;
+		}
+		return List.of(ResourceReferenceRequestHandler.class);
+	}
+
 	@Override
 	public Url mapHandler(IRequestHandler requestHandler)
 	{
@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.core.util.crypt;
+
+import org.apache.wicket.core.random.ISecureRandomSupplier;
+import org.apache.wicket.util.crypt.ICrypt;
+import org.apache.wicket.util.lang.Args;
+
+import java.security.GeneralSecurityException;
+import java.security.NoSuchAlgorithmException;
+
+import javax.crypto.Cipher;
+import javax.crypto.NoSuchPaddingException;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+
+/**
+ * AES-GCM based {@link ICrypt}, intended for encrypting many short values such as URLs rendered
+ * by {@link org.apache.wicket.core.request.mapper.CryptoMapper}.
+ * <p>
+ * Unlike {@link org.apache.wicket.util.crypt.SunJceCrypt} the key is passed in ready to use, so no
+ * key derivation takes place when encrypting or decrypting. {@link Cipher} instances are looked up
+ * once per thread and reused, each operation only initializes the cipher with a fresh IV.
+ * The encrypted output is the random IV followed by the ciphertext and authentication tag.
+ * 
+ * @see ICrypt
+ * @see AESCrypt
+ */
+public class AESGCMCrypt extends AbstractJceCrypt
+{
+	/** The cipher transformation */
+	public static final String ALGORITHM = "AES/GCM/NoPadding";
+
+	/** Length of the IV in bytes, as recommended for GCM */
+	private static final int IV_LENGTH = 12;
+
+	/** Length of the authentication tag in bits */
+	private static final int TAG_LENGTH = 128;
+
+	/**
+	 * Cipher instances are not thread-safe but independent of the key, so all instances share
+	 * one cipher per thread.
+	 */
+	private static final ThreadLocal<Cipher> CIPHERS = ThreadLocal.withInitial(() -> {
+		try
+		{
+			return Cipher.getInstance(ALGORITHM);
+		}
+		catch (NoSuchAlgorithmException | NoSuchPaddingException e)
+		{
+			throw new AESGCMCryptException("Unable to create cipher " + ALGORITHM, e);
+		}
+	});
+
+	private final SecretKey secretKey;
+
+	private final ISecureRandomSupplier randomSupplier;
+
+	/**
+	 * Exception thrown when encryption or decryption fails.
+	 */
+	public static class AESGCMCryptException extends RuntimeException
+	{
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * Constructor
+		 * 
+		 * @param message
+		 *              the detail message
+		 * @param cause
+		 *              the cause
+		 */
+		public AESGCMCryptException(String message, Throwable cause)
+		{
+			super(message, cause);
+		}
+	}
+
+	/**
+	 * Constructor
+	 * 
+	 * @param secretKey
+	 *              The AES {@link SecretKey} to use to initialize the {@link Cipher}.
+	 * @param randomSupplier
+	 *              The {@link ISecureRandomSupplier} to use to generate IVs.
+	 */
+	public AESGCMCrypt(SecretKey secretKey, ISecureRandomSupplier randomSupplier)
+	{
+		this.secretKey = Args.notNull(secretKey, "secretKey");
+		this.randomSupplier = Args.notNull(randomSupplier, "randomSupplier");
+	}
+
+	@Override
+	protected byte[] decrypt(byte[] encrypted)
+	{
+		if (encrypted.length < IV_LENGTH)
+		{
+			throw new AESGCMCryptException("Error during decryption",
+				new IllegalArgumentException("Encrypted data is shorter than the IV"));
+		}
+
+		try
+		{
+			Cipher cipher = CIPHERS.get();
+			cipher.init(Cipher.DECRYPT_MODE, secretKey,
+				new GCMParameterSpec(TAG_LENGTH, encrypted, 0, IV_LENGTH));
+			return cipher.doFinal(encrypted, IV_LENGTH, encrypted.length - IV_LENGTH);
+		}
+		catch (GeneralSecurityException e)
+		{
+			throw new AESGCMCryptException("Error during decryption", e);
+		}
+	}
+
+	@Override
+	protected byte[] encrypt(byte[] plainBytes)
+	{
+		try
+		{
+			Cipher cipher = CIPHERS.get();
+			byte[] iv = randomSupplier.getRandomBytes(IV_LENGTH);
+			cipher.init(Cipher.ENCRYPT_MODE, secretKey, new GCMParameterSpec(TAG_LENGTH, iv));
+
+			byte[] result = new byte[IV_LENGTH + cipher.getOutputSize(plainBytes.length)];
+			System.arraycopy(iv, 0, result, 0, IV_LENGTH);
+			int length = cipher.doFinal(plainBytes, 0, plainBytes.length, result, IV_LENGTH);
+
+			if (IV_LENGTH + length < result.length)
+			{
+				byte[] trimmed = new byte[IV_LENGTH + length];
+				System.arraycopy(result, 0, trimmed, 0, trimmed.length);
+				return trimmed;
+			}
+			return result;
+		}
+		catch (GeneralSecurityException e)
+		{
+			throw new AESGCMCryptException("Error during encryption", e);
+		}
+	}
+}
@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.core.util.lang;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Compiles getter and setter {@link Method}s into lambdas with {@link LambdaMetafactory}. Invoking
+ * these is as cheap as a direct method call, while {@link Method#invoke(Object, Object...)} has to
+ * check access and box its arguments on each call.
+ * <p>
+ * Compilation needs private access to the declaring class of a method, which is not available
+ * when the class is in a module not open to Wicket, e.g. the JDK's own classes. In that case
+ * {@code null} is returned and the caller has to fall back to reflection.
+ */
+final class MethodAccessors
+{
+	private static final Logger log = LoggerFactory.getLogger(MethodAccessors.class);
+
+	private static final MethodType GETTER_FACTORY = MethodType.methodType(Function.class);
+
+	private static final MethodType GETTER = MethodType.methodType(Object.class, Object.class);
+
+	private static final MethodType SETTER_FACTORY = MethodType.methodType(BiConsumer.class);
+
+	private static final MethodType SETTER = MethodType.methodType(void.class, Object.class,
+		Object.class);
+
+	private MethodAccessors()
+	{
+	}
+
+	/**
+	 * Compile a getter, i.e. a non-static method without parameters returning a value.
+	 * 
+	 * @param method
+	 *            method to compile
+	 * @return compiled getter or {@code null} if the method cannot be compiled
+	 */
+	@SuppressWarnings("unchecked")
+	static Function<Object, Object> getter(final Method method)
+	{
+		if (Modifier.isStatic(method.getModifiers()) || method.getParameterCount() != 0 ||
+			method.getReturnType() == void.class)
+		{
+			return null;
+		}
+
+		try
+		{
+			Class<?> type = method.getDeclaringClass();
+			MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(type,
+				MethodHandles.lookup());
+			MethodHandle handle = lookup.unreflect(method);
+
+			CallSite site = LambdaMetafactory.metafactory(lookup, "apply", GETTER_FACTORY, GETTER,
+				handle, MethodType.methodType(wrap(method.getReturnType()), type));
+			return (Function<Object, Object>)site.getTarget().invoke();
+		}
+		catch (Throwable ex)
+		{
+			log.debug("Cannot compile getter {}, falling back to reflection", method, ex);
+			return null;
+		}
+	}
+
+	/**
+	 * Compile a setter, i.e. a non-static method with a single parameter.
+	 * 
+	 * @param method
+	 *            method to compile
+	 * @return compiled setter or {@code null} if the method cannot be compiled
+	 */
+	@SuppressWarnings("unchecked")
+	static BiConsumer<Object, Object> setter(final Method method)
+	{
+		if (Modifier.isStatic(method.getModifiers()) || method.getParameterCount() != 1)
+		{
+			return null;
+		}
+
+		try
+		{
+			Class<?> type = method.getDeclaringClass();
+			MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(type,
+				MethodHandles.lookup());
+			MethodHandle handle = lookup.unreflect(method);
+
+			CallSite site = LambdaMetafactory.metafactory(lookup, "accept", SETTER_FACTORY, SETTER,
+				handle, MethodType.methodType(void.class, type, wrap(method.getParameterTypes()[0])));
+			return (BiConsumer<Object, Object>)site.getTarget().invoke();
+		}
+		catch (Throwable ex)
+		{
+			log.debug("Cannot compile setter {}, falling back to reflection", method, ex);
+			return null;
+		}
+	}
+
+	/**
+	 * @return the wrapper class of a primitive type, or the type itself
+	 */
+	private static Class<?> wrap(final Class<?> type)
+	{
+		return MethodType.methodType(type).wrap().returnType();
+	}
+}
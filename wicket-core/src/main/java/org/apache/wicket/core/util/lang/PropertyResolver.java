@@ -23,6 +23,8 @@ import java.lang.reflect.Method;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
 
 import org.apache.wicket.Application;
 import org.apache.wicket.Session;
@@ -90,6 +92,12 @@ public final class PropertyResolver
 	private static final String SET = "set";
 	private static final String DEBUG_CONST = " for setting it on ";
 
+	/**
+	 * Number of invocations after which a {@link MethodGetAndSet} compiles its methods, so
+	 * instances thrown away by a non-caching {@link IPropertyLocator} are not compiled.
+	 */
+	private static final int COMPILE_THRESHOLD = 16;
+
 	/**
 	 * Looks up the value from the object with the given expression. If the expression, the object
 	 * itself or one property evaluates to null then a null will be returned.
@@ -848,12 +856,43 @@ public final class PropertyResolver
 		private final Method setMethod;
 		private final Field field;
 
-		MethodGetAndSet(Method getMethod, Method setMethod, Field field)
+		/**
+		 * Whether to compile the methods, see {@link MethodAccessors}.
+		 */
+		private final boolean compile;
+
+		/**
+		 * Number of invocations so far, racy updates are harmless.
+		 */
+		private int invocations;
+
+		/**
+		 * The compiled methods, {@code null} until {@link #COMPILE_THRESHOLD} is reached.
+		 */
+		private volatile CompiledMethods compiled;
+
+		MethodGetAndSet(Method getMethod, Method setMethod, Field field, boolean compile)
 		{
 			this.getMethod = getMethod;
 			this.getMethod.setAccessible(true);
 			this.field = field;
 			this.setMethod = setMethod;
+			this.compile = compile;
+		}
+
+		/**
+		 * @return the compiled methods, or {@code null} if not (yet) compiled
+		 */
+		private CompiledMethods getCompiled()
+		{
+			CompiledMethods result = compiled;
+			if (result == null && compile && ++invocations >= COMPILE_THRESHOLD)
+			{
+				result = new CompiledMethods(MethodAccessors.getter(getMethod),
+					setMethod == null ? null : MethodAccessors.setter(setMethod));
+				compiled = result;
+			}
+			return result;
 		}
 
 		@Override
@@ -862,15 +901,24 @@ public final class PropertyResolver
 			Object ret;
 			try
 			{
-				ret = getMethod.invoke(object, (Object[])null);
+				CompiledMethods methods = getCompiled();
+				if (methods != null && methods.getter != null)
+				{
+					ret = methods.getter.apply(object);
+				}
+				else
+				{
+					ret = getMethod.invoke(object, (Object[])null);
+				}
 			}
 			catch (InvocationTargetException ex)
 			{
 				throw new WicketRuntimeException("Error calling method: " + getMethod +
 					" on object: " + object, ex.getCause());
 			}
-			catch (Exception ex)
+			catch (Throwable ex)
 			{
+				// compiled methods throw errors directly, wrap them as with reflection
 				throw new WicketRuntimeException("Error calling method: " + getMethod +
 					" on object: " + object, ex);
 			}
@@ -916,15 +964,24 @@ public final class PropertyResolver
 			{
 				try
 				{
-					setMethod.invoke(object, converted);
+					CompiledMethods methods = getCompiled();
+					if (methods != null && methods.setter != null)
+					{
+						methods.setter.accept(object, converted);
+					}
+					else
+					{
+						setMethod.invoke(object, converted);
+					}
 				}
 				catch (InvocationTargetException ex)
 				{
 					throw new WicketRuntimeException("Error calling method: " + setMethod +
 						" on object: " + object, ex.getCause());
 				}
-				catch (Exception ex)
+				catch (Throwable ex)
 				{
+					// compiled methods throw errors directly, wrap them as with reflection
 					throw new WicketRuntimeException("Error calling method: " + setMethod +
 						" on object: " + object, ex);
 				}
@@ -1043,6 +1100,22 @@ public final class PropertyResolver
 		}
 	}
 
+	/**
+	 * Compiled getter and setter of a {@link MethodGetAndSet}, each {@code null} if it could not
+	 * be compiled.
+	 */
+	private static final class CompiledMethods
+	{
+		private final Function<Object, Object> getter;
+		private final BiConsumer<Object, Object> setter;
+
+		CompiledMethods(Function<Object, Object> getter, BiConsumer<Object, Object> setter)
+		{
+			this.getter = getter;
+			this.setter = setter;
+		}
+	}
+
 	private static class FieldGetAndSet extends AbstractGetAndSet
 	{
 		private final Field field;
@@ -1259,9 +1332,33 @@ public final class PropertyResolver
 
 	/**
 	 * Default locator supporting <em>Java Beans</em> properties, maps, lists and method invocations.
+	 * <p>
+	 * Frequently used getters and setters are compiled into lambdas, which are considerably faster
+	 * than reflective invocations. Methods that cannot be compiled are invoked by reflection.
 	 */
 	public static class DefaultPropertyLocator implements IPropertyLocator
 	{
+		private final boolean compileMethods;
+
+		/**
+		 * Constructor compiling getters and setters.
+		 */
+		public DefaultPropertyLocator()
+		{
+			this(true);
+		}
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param compileMethods
+		 *            whether to compile getters and setters, invoke them by reflection otherwise
+		 */
+		public DefaultPropertyLocator(boolean compileMethods)
+		{
+			this.compileMethods = compileMethods;
+		}
+
 		@Override
 		public IGetAndSet get(Class<?> clz, String exp) {
 			IGetAndSet getAndSet = null;
@@ -1301,7 +1398,7 @@ public final class PropertyResolver
 						if (method != null)
 						{
 							getAndSet = new MethodGetAndSet(method, MethodGetAndSet.findSetter(
-								method, clz), null);
+								method, clz), null, compileMethods);
 						}
 						else
 						{
@@ -1379,7 +1476,7 @@ public final class PropertyResolver
 						else
 						{
 							getAndSet = new MethodGetAndSet(method, MethodGetAndSet.findSetter(
-								method, clz), null);
+								method, clz), null, compileMethods);
 						}
 					}
 					else
@@ -1392,7 +1489,7 @@ public final class PropertyResolver
 			{
 				field = findField(clz, exp);
 				getAndSet = new MethodGetAndSet(method, MethodGetAndSet.findSetter(method, clz),
-					field);
+					field, compileMethods);
 			}
 			
 			return getAndSet;
@@ -27,6 +27,32 @@ public abstract class AbstractMarkupFragment implements IMarkupFragment
 		return TagUtils.findTagMarkup(this, id, null, streamOffset);
 	}
 
+	/**
+	 * Get the number of consecutive {@link RawMarkup} elements starting at the given index, which
+	 * can be rendered at once with {@link #getRawMarkupRun(int)}.
+	 * 
+	 * @param index
+	 *            index of the first element
+	 * @return number of elements, 0 if not coalesced
+	 */
+	int getRawMarkupRunLength(final int index)
+	{
+		return 0;
+	}
+
+	/**
+	 * Get the coalesced raw markup of consecutive {@link RawMarkup} elements.
+	 * 
+	 * @param index
+	 *            index of the first element
+	 * @return raw markup, {@code null} if not coalesced
+	 * @see #getRawMarkupRunLength(int)
+	 */
+	CharSequence getRawMarkupRun(final int index)
+	{
+		return null;
+	}
+
 	@Override
 	public String toString()
 	{
@@ -48,6 +48,9 @@ public class Markup extends AbstractMarkupFragment
 	/** The associated markup file */
 	private final MarkupResourceStream markupResourceStream;
 
+	/** Runs of consecutive raw markup, computed lazily */
+	private volatile RawMarkupRuns rawMarkupRuns;
+
 	/**
 	 * Take the markup string, parse it and return the Markup (list of MarkupElements).
 	 * <p>
@@ -145,6 +148,7 @@ public class Markup extends AbstractMarkupFragment
 		}
 
 		markupElements.set(index, elem);
+		rawMarkupRuns = null;
 	}
 
 	/**
@@ -171,6 +175,7 @@ public class Markup extends AbstractMarkupFragment
 	final public void addMarkupElement(final MarkupElement markupElement)
 	{
 		markupElements.add(markupElement);
+		rawMarkupRuns = null;
 	}
 
 	/**
@@ -182,6 +187,30 @@ public class Markup extends AbstractMarkupFragment
 	final public void addMarkupElement(final int pos, final MarkupElement markupElement)
 	{
 		markupElements.add(pos, markupElement);
+		rawMarkupRuns = null;
+	}
+
+	@Override
+	final int getRawMarkupRunLength(final int index)
+	{
+		return getRawMarkupRuns().lengths[index];
+	}
+
+	@Override
+	final CharSequence getRawMarkupRun(final int index)
+	{
+		return getRawMarkupRuns().texts[index];
+	}
+
+	private RawMarkupRuns getRawMarkupRuns()
+	{
+		RawMarkupRuns runs = rawMarkupRuns;
+		if (runs == null)
+		{
+			runs = new RawMarkupRuns(markupElements);
+			rawMarkupRuns = runs;
+		}
+		return runs;
 	}
 
 	/**
@@ -265,4 +294,47 @@ public class Markup extends AbstractMarkupFragment
 	{
 		return markupElements.subList(startIndex, startIndex + size).iterator();
 	}
+
+	/**
+	 * The coalesced text of consecutive {@link RawMarkup} elements, so these can be rendered with a
+	 * single write.
+	 */
+	private static final class RawMarkupRuns
+	{
+		/** Number of elements in the run starting at each index, 0 for none */
+		private final int[] lengths;
+
+		/** The coalesced text of the run starting at each index */
+		private final CharSequence[] texts;
+
+		private RawMarkupRuns(final List<MarkupElement> elements)
+		{
+			int size = elements == null ? 0 : elements.size();
+			lengths = new int[size];
+			texts = new CharSequence[size];
+
+			int start = 0;
+			while (start < size)
+			{
+				int end = start;
+				while (end < size && elements.get(end) instanceof RawMarkup)
+				{
+					end++;
+				}
+
+				if (end - start > 1)
+				{
+					StringBuilder text = new StringBuilder();
+					for (int i = start; i < end; i++)
+					{
+						text.append(elements.get(i).toCharSequence());
+					}
+					lengths[start] = end - start;
+					texts[start] = text.toString();
+				}
+
+				start = Math.max(end, start + 1);
+			}
+		}
+	}
 }
@@ -513,22 +513,7 @@ public class MarkupCache implements IMarkupCache
 			}
 
 			// Watch file in the future
-			final IModificationWatcher watcher = application.getResourceSettings()
-				.getResourceWatcher(true);
-			if (watcher != null)
-			{
-				watcher.add(markupResourceStream, modifiable -> {
-					if (log.isDebugEnabled())
-					{
-						log.debug("Remove markup from watcher: " + markupResourceStream);
-					}
-
-					// Remove the markup from the cache. It will be reloaded
-					// next time when the markup is requested.
-					watcher.remove(markupResourceStream);
-					removeMarkup(cacheKey);
-				});
-			}
+			watchForChanges(markupResourceStream);
 		}
 
 		if (log.isDebugEnabled())
@@ -538,6 +523,60 @@ public class MarkupCache implements IMarkupCache
 		return loadMarkup(container, markupResourceStream, enforceReload);
 	}
 
+	/**
+	 * Add an {@link IChangeListener} to the {@link ModificationWatcher}, removing the markup from
+	 * the cache when its resource changes.
+	 * 
+	 * @param markupResourceStream
+	 *            The markup stream to watch, with a cache key
+	 */
+	private void watchForChanges(final MarkupResourceStream markupResourceStream)
+	{
+		final String cacheKey = markupResourceStream.getCacheKey();
+		final IModificationWatcher watcher = application.getResourceSettings()
+			.getResourceWatcher(true);
+		if (watcher != null)
+		{
+			watcher.add(markupResourceStream, modifiable -> {
+				if (log.isDebugEnabled())
+				{
+					log.debug("Remove markup from watcher: " + markupResourceStream);
+				}
+
+				// Remove the markup from the cache. It will be reloaded
+				// next time when the markup is requested.
+				watcher.remove(markupResourceStream);
+				removeMarkup(cacheKey);
+			});
+		}
+	}
+
+	/**
+	 * Put markup loaded ahead of any request into the cache and watch it for changes, as if it had
+	 * been requested by a container.
+	 * 
+	 * @param markup
+	 *            The markup, its resource stream must have a cache key
+	 * @return The markup provided, or the markup in the cache if the location was cached already
+	 * @see MarkupPreloader
+	 */
+	final Markup putPreloadedMarkup(final Markup markup)
+	{
+		final MarkupResourceStream markupResourceStream = markup.getMarkupResourceStream();
+		final String cacheKey = Args.notNull(markupResourceStream.getCacheKey(), "cacheKey");
+
+		String locationString = markup.locationAsString();
+		if (locationString == null)
+		{
+			locationString = cacheKey;
+		}
+
+		watchForChanges(markupResourceStream);
+
+		markupKeyCache.put(cacheKey, locationString);
+		return putIntoCache(locationString, null, markup);
+	}
+
 	/**
 	 * Get the markup cache key provider to be used
 	 * 
@@ -128,6 +128,26 @@ public class MarkupFragment extends AbstractMarkupFragment
 		return markup.get(startIndex + index);
 	}
 
+	@Override
+	final int getRawMarkupRunLength(final int index)
+	{
+		if (markup instanceof AbstractMarkupFragment)
+		{
+			int length = ((AbstractMarkupFragment)markup).getRawMarkupRunLength(startIndex + index);
+			if (index + length <= size)
+			{
+				return length;
+			}
+		}
+		return 0;
+	}
+
+	@Override
+	final CharSequence getRawMarkupRun(final int index)
+	{
+		return ((AbstractMarkupFragment)markup).getRawMarkupRun(startIndex + index);
+	}
+
 	@Override
 	public final IMarkupFragment find(final String id)
 	{
@@ -0,0 +1,537 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.markup;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Stream;
+
+import org.apache.wicket.Application;
+import org.apache.wicket.MarkupContainer;
+import org.apache.wicket.ThreadContext;
+import org.apache.wicket.application.IClassResolver;
+import org.apache.wicket.core.util.resource.locator.IResourceStreamLocator;
+import org.apache.wicket.markup.loader.DefaultMarkupLoader;
+import org.apache.wicket.util.lang.Args;
+import org.apache.wicket.util.resource.IResourceStream;
+import org.apache.wicket.util.resource.ResourceStreamNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Loads the markup of components into the {@link MarkupCache} at application startup, so the first
+ * requests after a deployment do not have to parse it.
+ * <p>
+ * Components are either added by class or discovered by package: each html file in a package (or
+ * any of its sub packages) on the class path, whose name without locale, style and extension is a
+ * {@link MarkupContainer} class, makes that class' markup to be loaded. The markup is loaded for
+ * all configured locales and styles, in parallel on a {@link ForkJoinPool}.
+ * <p>
+ * To use it, put the following code in your application's init:
+ *
+ * <pre>
+ * getMarkupSettings().setMarkupPreloader(
+ * 	new MarkupPreloader().addPackage(&quot;com.example.pages&quot;).addLocale(Locale.ENGLISH));
+ * </pre>
+ * <p>
+ * Markup is located and cached as for a container without variation and with the
+ * {@link DefaultMarkupCacheKeyProvider}. Components providing their own markup or cache key,
+ * markup of other types than html and applications with a custom {@link IMarkupCache} or markup
+ * loader are not preloaded, their markup is loaded on first use as usual.
+ *
+ * @see org.apache.wicket.settings.MarkupSettings#setMarkupPreloader(MarkupPreloader)
+ */
+public class MarkupPreloader
+{
+	private static final Logger log = LoggerFactory.getLogger(MarkupPreloader.class);
+
+	private final Set<String> packageNames = new LinkedHashSet<>();
+
+	private final Set<Class<?>> classes = new LinkedHashSet<>();
+
+	private final Set<Locale> locales = new LinkedHashSet<>();
+
+	private final Set<String> styles = new LinkedHashSet<>();
+
+	private int parallelism = Runtime.getRuntime().availableProcessors();
+
+	/**
+	 * Add a package to discover components in.
+	 *
+	 * @param packageName
+	 *            name of the package, sub packages are included
+	 * @return {@code this} object for chaining
+	 */
+	public MarkupPreloader addPackage(final String packageName)
+	{
+		packageNames.add(Args.notEmpty(packageName, "packageName"));
+		return this;
+	}
+
+	/**
+	 * Add a component to load the markup of.
+	 *
+	 * @param clazz
+	 *            the component class
+	 * @return {@code this} object for chaining
+	 */
+	public MarkupPreloader addClass(final Class<? extends MarkupContainer> clazz)
+	{
+		classes.add(Args.notNull(clazz, "clazz"));
+		return this;
+	}
+
+	/**
+	 * Add a locale to load markup for. If none is added, the default locale of the JVM is used.
+	 *
+	 * @param locale
+	 *            locale of sessions
+	 * @return {@code this} object for chaining
+	 */
+	public MarkupPreloader addLocale(final Locale locale)
+	{
+		locales.add(Args.notNull(locale, "locale"));
+		return this;
+	}
+
+	/**
+	 * Add a style to load markup for. If none is added, markup is loaded without style only.
+	 *
+	 * @param style
+	 *            style of sessions, may be {@code null}
+	 * @return {@code this} object for chaining
+	 */
+	public MarkupPreloader addStyle(final String style)
+	{
+		styles.add(style);
+		return this;
+	}
+
+	/**
+	 * Set the number of threads loading markup, the number of processors by default.
+	 *
+	 * @param parallelism
+	 *            number of threads
+	 * @return {@code this} object for chaining
+	 */
+	public MarkupPreloader setParallelism(final int parallelism)
+	{
+		Args.isTrue(parallelism > 0, "parallelism must be positive: %d", parallelism);
+		this.parallelism = parallelism;
+		return this;
+	}
+
+	/**
+	 * Load the markup of all components into the markup cache of the application.
+	 *
+	 * @param application
+	 *            the application
+	 * @return the result
+	 */
+	public Result preload(final Application application)
+	{
+		Args.notNull(application, "application");
+
+		final long start = System.nanoTime();
+		final Result result = new Result();
+
+		MarkupFactory markupFactory = application.getMarkupSettings().getMarkupFactory();
+		IMarkupCache markupCache = markupFactory.getMarkupCache();
+		if ((markupCache instanceof MarkupCache) == false)
+		{
+			log.warn("Markup is not preloaded, the markup cache is not a MarkupCache: {}",
+				markupCache);
+			return result;
+		}
+		if (markupFactory.getMarkupLoader().getClass() != DefaultMarkupLoader.class)
+		{
+			log.warn("Markup is not preloaded, the markup factory uses a custom markup loader");
+			return result;
+		}
+
+		Set<Class<?>> markupClasses = new LinkedHashSet<>(classes);
+		for (String packageName : packageNames)
+		{
+			findClasses(application, packageName, markupClasses);
+		}
+		result.classes = markupClasses.size();
+
+		Set<Locale> locales = this.locales.isEmpty() ? Collections.singleton(Locale.getDefault())
+			: this.locales;
+		Set<String> styles = this.styles.isEmpty() ? Collections.<String> singleton(null)
+			: this.styles;
+
+		// workers have to find classes and resources as the calling thread does
+		final ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		try
+		{
+			List<ForkJoinTask<?>> tasks = new ArrayList<>();
+			for (Class<?> clazz : markupClasses)
+			{
+				for (Locale locale : locales)
+				{
+					for (String style : styles)
+					{
+						tasks.add(pool.submit(() -> preloadMarkup(application, classLoader,
+							(MarkupCache)markupCache, clazz, locale, style, result)));
+					}
+				}
+			}
+
+			for (ForkJoinTask<?> task : tasks)
+			{
+				task.join();
+			}
+		}
+		finally
+		{
+			pool.shutdown();
+		}
+
+		result.duration = Duration.ofNanos(System.nanoTime() - start);
+
+		log.info("Preloaded {} markup files of {} components in {} ms, {} failures",
+			result.getLoaded(), result.getClasses(), result.getDuration().toMillis(),
+			result.getFailures().size());
+		for (Map.Entry<String, Exception> failure : result.getFailures().entrySet())
+		{
+			log.warn("Failed to preload markup " + failure.getKey(), failure.getValue());
+		}
+
+		return result;
+	}
+
+	/**
+	 * Load the markup of a component on a worker thread.
+	 */
+	private void preloadMarkup(final Application application, final ClassLoader classLoader,
+		final MarkupCache markupCache, final Class<?> clazz, final Locale locale,
+		final String style, final Result result)
+	{
+		Thread thread = Thread.currentThread();
+		ClassLoader previousClassLoader = thread.getContextClassLoader();
+		ThreadContext previousContext = ThreadContext.detach();
+		try
+		{
+			thread.setContextClassLoader(classLoader);
+			ThreadContext.setApplication(application);
+
+			loadMarkup(application, markupCache, clazz, locale, style, result);
+		}
+		catch (IOException | ResourceStreamNotFoundException | RuntimeException e)
+		{
+			result.failures.put(getCacheKey(clazz, locale, style), e);
+		}
+		finally
+		{
+			ThreadContext.restore(previousContext);
+			thread.setContextClassLoader(previousClassLoader);
+		}
+	}
+
+	/**
+	 * Load the markup of a component, merging it with the markup of its base class like
+	 * {@link org.apache.wicket.markup.loader.InheritedMarkupMarkupLoader} does.
+	 *
+	 * @return markup, {@link Markup#NO_MARKUP} or {@code null} if not found
+	 */
+	private Markup loadMarkup(final Application application, final MarkupCache markupCache,
+		final Class<?> clazz, final Locale locale, final String style, final Result result)
+		throws IOException, ResourceStreamNotFoundException
+	{
+		String cacheKey = getCacheKey(clazz, locale, style);
+
+		// a base markup might have been loaded by another component already
+		Markup markup = markupCache.getMarkupFromCache(cacheKey, null);
+		if (markup != null)
+		{
+			return markup;
+		}
+
+		MarkupResourceStream markupResourceStream = getMarkupResourceStream(application, clazz,
+			locale, style);
+		if (markupResourceStream == null)
+		{
+			return null;
+		}
+		markupResourceStream.setCacheKey(cacheKey);
+
+		markup = MarkupFactory.get().newMarkupParser(markupResourceStream).parse();
+		result.loaded.incrementAndGet();
+
+		int extendIndex = requiresBaseMarkup(markup);
+		if (extendIndex != -1)
+		{
+			Class<?> baseClass = markupResourceStream.getMarkupClass().getSuperclass();
+			Markup baseMarkup = loadMarkup(application, markupCache, baseClass, locale, style,
+				result);
+			if ((baseMarkup == null) || (baseMarkup == Markup.NO_MARKUP))
+			{
+				throw new MarkupNotFoundException(
+					"Base markup of inherited markup not found. Component class: " +
+						markupResourceStream.getMarkupClass().getName());
+			}
+
+			markup = new MergedMarkup(markup, baseMarkup, extendIndex);
+		}
+
+		return markupCache.putPreloadedMarkup(markup);
+	}
+
+	/**
+	 * Locate markup like {@link DefaultMarkupResourceStreamProvider} does.
+	 */
+	private MarkupResourceStream getMarkupResourceStream(final Application application,
+		Class<?> containerClass, final Locale locale, final String style)
+	{
+		final IResourceStreamLocator locator = application.getResourceSettings()
+			.getResourceStreamLocator();
+
+		MarkupType markupType = MarkupType.HTML_MARKUP_TYPE;
+
+		while (containerClass != MarkupContainer.class)
+		{
+			String path = containerClass.getName().replace('.', '/');
+			IResourceStream resourceStream = locator.locate(containerClass, path, style, null,
+				locale, markupType.getExtension(), false);
+
+			if (resourceStream != null)
+			{
+				return new MarkupResourceStream(resourceStream, new ContainerInfo(containerClass,
+					locale, style, null, markupType), containerClass);
+			}
+
+			containerClass = containerClass.getSuperclass();
+		}
+
+		return null;
+	}
+
+	/**
+	 * Get the key like {@link DefaultMarkupCacheKeyProvider} does.
+	 */
+	private String getCacheKey(final Class<?> clazz, final Locale locale, final String style)
+	{
+		final StringBuilder buffer = new StringBuilder(clazz.getName().length() + 64);
+		buffer.append(clazz.getName());
+		if (style != null)
+		{
+			buffer.append('_').append(style);
+		}
+		buffer.append('_').append(locale.toString());
+		buffer.append('.').append(MarkupType.HTML_MARKUP_TYPE.getExtension());
+		return buffer.toString();
+	}
+
+	private int requiresBaseMarkup(final IMarkupFragment markup)
+	{
+		for (int i = 0; i < markup.size(); i++)
+		{
+			if (TagUtils.isExtendTag(markup, i))
+			{
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Find the components with markup in a package.
+	 */
+	private void findClasses(final Application application, final String packageName,
+		final Set<Class<?>> found)
+	{
+		IClassResolver classResolver = application.getApplicationSettings().getClassResolver();
+
+		String packagePath = packageName.replace('.', '/');
+		Iterator<URL> urls = classResolver.getResources(packagePath);
+		while (urls.hasNext())
+		{
+			URL url = urls.next();
+			try
+			{
+				for (String file : findMarkupFiles(url, packagePath))
+				{
+					Class<?> clazz = resolveClass(classResolver, file);
+					if (clazz != null)
+					{
+						found.add(clazz);
+					}
+				}
+			}
+			catch (IOException | URISyntaxException e)
+			{
+				log.warn("Cannot discover markup in " + url, e);
+			}
+		}
+	}
+
+	/**
+	 * Find the markup files in a package directory or jar.
+	 *
+	 * @return paths relative to the class path root
+	 */
+	private List<String> findMarkupFiles(final URL url, final String packagePath)
+		throws IOException, URISyntaxException
+	{
+		final String suffix = "." + MarkupType.HTML_MARKUP_TYPE.getExtension();
+
+		List<String> files = new ArrayList<>();
+		if ("file".equals(url.getProtocol()))
+		{
+			Path directory = Path.of(url.toURI());
+			try (Stream<Path> paths = Files.walk(directory))
+			{
+				paths.filter(Files::isRegularFile)
+					.map(path -> directory.relativize(path).toString())
+					.filter(path -> path.endsWith(suffix))
+					.forEach(path -> files.add(
+						packagePath + '/' + path.replace(File.separatorChar, '/')));
+			}
+		}
+		else if ("jar".equals(url.getProtocol()))
+		{
+			JarURLConnection connection = (JarURLConnection)url.openConnection();
+			connection.setUseCaches(false);
+			try (JarFile jar = connection.getJarFile())
+			{
+				Enumeration<JarEntry> entries = jar.entries();
+				while (entries.hasMoreElements())
+				{
+					JarEntry entry = entries.nextElement();
+					String name = entry.getName();
+					if (entry.isDirectory() == false && name.startsWith(packagePath + '/') &&
+						name.endsWith(suffix))
+					{
+						files.add(name);
+					}
+				}
+			}
+		}
+		else
+		{
+			log.warn("Cannot discover markup in {}, unsupported protocol", url);
+		}
+		return files;
+	}
+
+	/**
+	 * Resolve the component a markup file belongs to, by stripping locale and style from its
+	 * name.
+	 *
+	 * @return component class or {@code null}
+	 */
+	private Class<?> resolveClass(final IClassResolver classResolver, final String file)
+	{
+		int extension = file.lastIndexOf('.');
+		int simpleName = file.lastIndexOf('/') + 1;
+
+		String name = file.substring(0, extension);
+		while (true)
+		{
+			try
+			{
+				Class<?> clazz = classResolver.resolveClass(name.replace('/', '.'));
+				if (MarkupContainer.class.isAssignableFrom(clazz) &&
+					IMarkupResourceStreamProvider.class.isAssignableFrom(clazz) == false &&
+					IMarkupCacheKeyProvider.class.isAssignableFrom(clazz) == false)
+				{
+					return clazz;
+				}
+				return null;
+			}
+			catch (ClassNotFoundException | LinkageError e)
+			{
+				int underscore = name.lastIndexOf('_');
+				if (underscore <= simpleName)
+				{
+					return null;
+				}
+				name = name.substring(0, underscore);
+			}
+		}
+	}
+
+	/**
+	 * The result of preloading.
+	 */
+	public static class Result
+	{
+		private int classes;
+
+		private final AtomicInteger loaded = new AtomicInteger();
+
+		private final Map<String, Exception> failures = new ConcurrentHashMap<>();
+
+		private Duration duration = Duration.ZERO;
+
+		/**
+		 * @return number of components found
+		 */
+		public int getClasses()
+		{
+			return classes;
+		}
+
+		/**
+		 * @return number of markup files parsed
+		 */
+		public int getLoaded()
+		{
+			return loaded.get();
+		}
+
+		/**
+		 * @return failures keyed by the cache key of the markup
+		 */
+		public Map<String, Exception> getFailures()
+		{
+			return Collections.unmodifiableMap(failures);
+		}
+
+		/**
+		 * @return the total time taken
+		 */
+		public Duration getDuration()
+		{
+			return duration;
+		}
+	}
+}
@@ -288,6 +288,37 @@ public class MarkupStream
 		return markup instanceof MergedMarkup;
 	}
 
+	/**
+	 * THIS METHOD IS NOT PART OF THE WICKET PUBLIC API. DO NOT USE IT.
+	 * <p>
+	 * Get the number of consecutive {@link RawMarkup} elements starting at the current index, which
+	 * can be rendered at once with {@link #getRawMarkupRun()}.
+	 * 
+	 * @return number of elements, 0 if these have to be rendered one by one
+	 */
+	public int getRawMarkupRunLength()
+	{
+		if (markup instanceof AbstractMarkupFragment && isCurrentIndexInsideTheStream())
+		{
+			return ((AbstractMarkupFragment)markup).getRawMarkupRunLength(currentIndex);
+		}
+		return 0;
+	}
+
+	/**
+	 * THIS METHOD IS NOT PART OF THE WICKET PUBLIC API. DO NOT USE IT.
+	 * <p>
+	 * Get the raw markup of all consecutive {@link RawMarkup} elements starting at the current
+	 * index.
+	 * 
+	 * @return raw markup
+	 * @see #getRawMarkupRunLength()
+	 */
+	public CharSequence getRawMarkupRun()
+	{
+		return ((AbstractMarkupFragment)markup).getRawMarkupRun(currentIndex);
+	}
+
 	/**
 	 * Note:
 	 * 
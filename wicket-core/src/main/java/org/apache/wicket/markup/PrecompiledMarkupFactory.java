@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.markup;
+
+import java.io.File;
+
+import org.apache.wicket.markup.parser.IMarkupFilter;
+import org.apache.wicket.markup.parser.PrecompiledXmlPullParser;
+import org.apache.wicket.util.lang.Args;
+
+/**
+ * A {@link MarkupFactory} keeping parsed markup in a directory, so it does not have to be parsed
+ * again after a restart or on other nodes of a cluster.
+ * <p>
+ * To use it, put the following code in your application's init:
+ *
+ * <pre>
+ * getMarkupSettings().setMarkupFactory(new PrecompiledMarkupFactory(new File(&quot;...&quot;)));
+ * </pre>
+ *
+ * @see PrecompiledXmlPullParser
+ */
+public class PrecompiledMarkupFactory extends MarkupFactory
+{
+	private final File directory;
+
+	/**
+	 * Construct.
+	 *
+	 * @param directory
+	 *            directory to keep parsed markup in
+	 */
+	public PrecompiledMarkupFactory(final File directory)
+	{
+		this.directory = Args.notNull(directory, "directory");
+	}
+
+	/**
+	 * Get the directory of parsed markup.
+	 *
+	 * @return directory
+	 */
+	public File getDirectory()
+	{
+		return directory;
+	}
+
+	@Override
+	public MarkupParser newMarkupParser(final MarkupResourceStream resource)
+	{
+		// Markup parsers can not be re-used
+		return new MarkupParser(new PrecompiledXmlPullParser(directory, resource), resource)
+		{
+			@Override
+			protected IMarkupFilter onAppendMarkupFilter(final IMarkupFilter filter)
+			{
+				return PrecompiledMarkupFactory.this.onAppendMarkupFilter(filter);
+			}
+		};
+	}
+}
@@ -0,0 +1,576 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.markup.parser;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.ParseException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+import org.apache.wicket.markup.MarkupException;
+import org.apache.wicket.markup.MarkupResourceStream;
+import org.apache.wicket.markup.parser.XmlTag.TagType;
+import org.apache.wicket.markup.parser.XmlTag.TextSegment;
+import org.apache.wicket.util.io.FullyBufferedReader;
+import org.apache.wicket.util.io.IOUtils;
+import org.apache.wicket.util.io.XmlReader;
+import org.apache.wicket.util.lang.Args;
+import org.apache.wicket.util.lang.Packages;
+import org.apache.wicket.util.string.Strings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A pull parser which keeps the elements found by {@link XmlPullParser} in a directory, so
+ * unchanged markup does not have to be parsed again.
+ * <p>
+ * On the first parse of a markup resource, the positions of all elements and their attributes are
+ * written to a file in the directory. Subsequent parses of the same resource (e.g. after a restart
+ * of the application or on another node of a cluster sharing the directory) decode the resource
+ * and replay these elements instead of tokenizing it again, as long as the content of the resource
+ * did not change. Files are named by a digest of the path of the resource relative to the class
+ * path, and are validated by the length and a checksum of its content. Note that
+ * {@link org.apache.wicket.markup.parser.IMarkupFilter}s are still applied on each parse, since
+ * they create component specific markup elements.
+ * <p>
+ * The directory can be filled in advance, e.g. by loading all markup during the build, and be
+ * shipped read-only with the application.
+ *
+ * @see org.apache.wicket.markup.PrecompiledMarkupFactory
+ */
+public class PrecompiledXmlPullParser implements IXmlPullParser
+{
+	private static final Logger log = LoggerFactory.getLogger(PrecompiledXmlPullParser.class);
+
+	private static final int MAGIC = 0x574d4b50;
+
+	private static final int VERSION = 3;
+
+	private static final HttpTagType[] HTTP_TAG_TYPES = HttpTagType.values();
+
+	private static final TagType[] TAG_TYPES = TagType.values();
+
+	/** The directory to keep parsed markup in */
+	private final File directory;
+
+	/** The resource to parse */
+	private final MarkupResourceStream resource;
+
+	/** The parser while parsing, {@code null} while replaying */
+	private XmlPullParser parser;
+
+	/** The recorded elements, {@code null} if not recording */
+	private ByteArrayOutputStream recorded;
+
+	private DataOutputStream recording;
+
+	private int recordedCount;
+
+	/** The default encoding of the parsed resource */
+	private String defaultEncoding;
+
+	/** The length of the content of the parsed resource */
+	private int contentLength;
+
+	/** The checksum of the content of the parsed resource */
+	private long contentChecksum;
+
+	/** The elements to replay */
+	private DataInputStream replay;
+
+	private int replayCount;
+
+	private FullyBufferedReader input;
+
+	private String encoding;
+
+	private String doctype;
+
+	private String replayDoctype;
+
+	private CharSequence lastText;
+
+	private XmlTag lastTag;
+
+	/**
+	 * Construct.
+	 *
+	 * @param directory
+	 *            directory to keep parsed markup in
+	 * @param resource
+	 *            the markup resource to be parsed
+	 */
+	public PrecompiledXmlPullParser(final File directory, final MarkupResourceStream resource)
+	{
+		this.directory = Args.notNull(directory, "directory");
+		this.resource = Args.notNull(resource, "resource");
+	}
+
+	@Override
+	public void parse(final CharSequence string) throws IOException
+	{
+		// not backed by a resource
+		parser = new XmlPullParser();
+		parser.parse(string);
+	}
+
+	@Override
+	public void parse(final InputStream inputStream) throws IOException
+	{
+		parse(inputStream, "UTF-8");
+	}
+
+	@Override
+	public void parse(final InputStream inputStream, final String encoding) throws IOException
+	{
+		Args.notNull(inputStream, "inputStream");
+
+		defaultEncoding = encoding;
+
+		File file = getFile();
+		if (file == null)
+		{
+			parser = new XmlPullParser();
+			parser.parse(inputStream, encoding);
+			return;
+		}
+
+		byte[] content;
+		try
+		{
+			content = IOUtils.toByteArray(inputStream);
+		}
+		finally
+		{
+			IOUtils.closeQuietly(inputStream);
+		}
+		contentLength = content.length;
+		contentChecksum = checksum(content);
+
+		if (file.isFile())
+		{
+			try
+			{
+				if (load(file, content))
+				{
+					return;
+				}
+			}
+			catch (IOException | RuntimeException ex)
+			{
+				log.debug("Cannot load precompiled markup {}", file, ex);
+			}
+		}
+
+		parser = new XmlPullParser();
+		parser.parse(new ByteArrayInputStream(content), encoding);
+
+		recorded = new ByteArrayOutputStream();
+		recording = new DataOutputStream(recorded);
+	}
+
+	/**
+	 * Get the file to keep the parsed markup in.
+	 *
+	 * @return file or {@code null} if the resource cannot be precompiled
+	 */
+	private File getFile()
+	{
+		String path = getPath();
+		if (path == null)
+		{
+			return null;
+		}
+
+		try
+		{
+			// names of files do not collide, even in a flat directory
+			byte[] digest = MessageDigest.getInstance("SHA-256")
+				.digest(path.getBytes(StandardCharsets.UTF_8));
+			return new File(directory, Strings.toHexString(digest) + ".markup");
+		}
+		catch (NoSuchAlgorithmException ex)
+		{
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	/**
+	 * Get the path of the resource relative to the class path, so it does not depend on where
+	 * the application is deployed.
+	 *
+	 * @return path or {@code null} if the resource has no location
+	 */
+	private String getPath()
+	{
+		String location = resource.locationAsString();
+		if (location == null)
+		{
+			return null;
+		}
+
+		String name = location.substring(
+			Math.max(location.lastIndexOf('/'), location.lastIndexOf('\\')) + 1);
+		try
+		{
+			return Packages.absolutePath(resource.getMarkupClass(), name);
+		}
+		catch (MarkupException ex)
+		{
+			// not associated with a class
+			return name;
+		}
+	}
+
+	/**
+	 * Checksum of the content of a resource.
+	 *
+	 * @param content
+	 *            content
+	 * @return checksum
+	 */
+	private static long checksum(final byte[] content)
+	{
+		CRC32C checksum = new CRC32C();
+		checksum.update(content);
+		return checksum.getValue();
+	}
+
+	@Override
+	public HttpTagType next() throws ParseException
+	{
+		if (parser != null)
+		{
+			HttpTagType type = parser.next();
+			if (recording != null)
+			{
+				try
+				{
+					if (type == HttpTagType.NOT_INITIALIZED)
+					{
+						save();
+					}
+					else
+					{
+						record(type);
+					}
+				}
+				catch (IOException ex)
+				{
+					log.debug("Cannot record markup {}", resource, ex);
+					recording = null;
+				}
+			}
+			return type;
+		}
+
+		return replay();
+	}
+
+	/**
+	 * Record the last element of the parser.
+	 */
+	private void record(final HttpTagType type) throws IOException
+	{
+		recording.writeByte(type.ordinal());
+		recording.writeInt(parser.getStringStart());
+		recording.writeInt(parser.getStringEnd());
+		recording.writeInt(parser.getPosition());
+
+		if (type != HttpTagType.BODY)
+		{
+			XmlTag tag = parser.getElement();
+
+			recording.writeByte(tag.type == null ? -1 : tag.type.ordinal());
+			recording.writeInt(tag.getPos());
+			recording.writeInt(tag.getLineNumber());
+			recording.writeInt(tag.getColumnNumber());
+			writeString(recording, tag.name);
+			writeString(recording, tag.namespace);
+
+			if (tag.hasAttributes())
+			{
+				recording.writeInt(tag.getAttributes().size());
+				for (Map.Entry<String, Object> entry : tag.getAttributes().entrySet())
+				{
+					recording.writeUTF(entry.getKey());
+					writeString(recording, entry.getValue() == null ? null : entry.getValue().toString());
+				}
+			}
+			else
+			{
+				recording.writeInt(0);
+			}
+		}
+
+		recordedCount++;
+	}
+
+	/**
+	 * Save all recorded elements.
+	 */
+	private void save() throws IOException
+	{
+		recording.flush();
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream(recorded.size() + 256);
+		DataOutputStream data = new DataOutputStream(out);
+		data.writeInt(MAGIC);
+		data.writeInt(VERSION);
+		writeHeader(data);
+		writeString(data, parser.getEncoding());
+		writeString(data, parser.getDoctype() == null ? null : parser.getDoctype().toString());
+		data.writeInt(parser.getInput().length());
+		data.writeInt(recordedCount);
+		recorded.writeTo(data);
+		data.flush();
+
+		directory.mkdirs();
+		File file = getFile();
+		File temp = File.createTempFile("markup", ".tmp", directory);
+		try
+		{
+			Files.write(temp.toPath(), out.toByteArray());
+			Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+		}
+		finally
+		{
+			Files.deleteIfExists(temp.toPath());
+		}
+
+		recording = null;
+	}
+
+	/**
+	 * Load recorded elements.
+	 *
+	 * @param file
+	 *            file with recorded elements
+	 * @param content
+	 *            content of the resource
+	 * @return {@code false} if the file is outdated
+	 */
+	private boolean load(final File file, final byte[] content) throws IOException
+	{
+		DataInputStream data = new DataInputStream(
+			new ByteArrayInputStream(Files.readAllBytes(file.toPath())));
+
+		if (data.readInt() != MAGIC || data.readInt() != VERSION)
+		{
+			return false;
+		}
+
+		ByteArrayOutputStream header = new ByteArrayOutputStream();
+		writeHeader(new DataOutputStream(header));
+		byte[] expected = header.toByteArray();
+		byte[] actual = new byte[expected.length];
+		data.readFully(actual);
+		if (!Arrays.equals(expected, actual))
+		{
+			return false;
+		}
+
+		encoding = readString(data);
+		replayDoctype = readString(data);
+		int length = data.readInt();
+
+		// decode as XmlPullParser does
+		XmlReader reader = new XmlReader(new ByteArrayInputStream(content), defaultEncoding);
+		input = new FullyBufferedReader(reader);
+		if (input.size() != length)
+		{
+			return false;
+		}
+		replayCount = data.readInt();
+		replay = data;
+
+		return true;
+	}
+
+	/**
+	 * Write what identifies the version of the parsed resource.
+	 */
+	private void writeHeader(final DataOutputStream data) throws IOException
+	{
+		data.writeUTF(getPath());
+		data.writeInt(contentLength);
+		data.writeLong(contentChecksum);
+		writeString(data, defaultEncoding);
+	}
+
+	/**
+	 * Replay the next recorded element.
+	 */
+	private HttpTagType replay() throws ParseException
+	{
+		if (replayCount == 0)
+		{
+			return HttpTagType.NOT_INITIALIZED;
+		}
+		replayCount--;
+
+		try
+		{
+			HttpTagType type = HTTP_TAG_TYPES[replay.readByte()];
+
+			int start = replay.readInt();
+			int end = replay.readInt();
+			input.setPosition(replay.readInt());
+			if (start == -1)
+			{
+				lastText = input.getSubstring(end);
+			}
+			else
+			{
+				lastText = input.getSubstring(start, end);
+			}
+
+			if (type != HttpTagType.BODY)
+			{
+				byte tagType = replay.readByte();
+				int pos = replay.readInt();
+				int line = replay.readInt();
+				int column = replay.readInt();
+
+				XmlTag tag = new XmlTag(new TextSegment(lastText, pos, line, column),
+					tagType == -1 ? null : TAG_TYPES[tagType]);
+				tag.name = readString(replay);
+				tag.namespace = readString(replay);
+
+				int attributes = replay.readInt();
+				for (int a = 0; a < attributes; a++)
+				{
+					tag.getAttributes().put(replay.readUTF(), readString(replay));
+				}
+
+				lastTag = tag;
+
+				if (type == HttpTagType.DOCTYPE)
+				{
+					doctype = replayDoctype;
+				}
+			}
+
+			return type;
+		}
+		catch (IOException ex)
+		{
+			throw new IllegalStateException("Corrupt precompiled markup " + resource, ex);
+		}
+	}
+
+	private static void writeString(final DataOutputStream data, final String string)
+		throws IOException
+	{
+		data.writeBoolean(string != null);
+		if (string != null)
+		{
+			data.writeUTF(string);
+		}
+	}
+
+	private static String readString(final DataInputStream data) throws IOException
+	{
+		if (data.readBoolean())
+		{
+			return data.readUTF();
+		}
+		return null;
+	}
+
+	@Override
+	public String getEncoding()
+	{
+		return parser != null ? parser.getEncoding() : encoding;
+	}
+
+	@Override
+	public CharSequence getDoctype()
+	{
+		return parser != null ? parser.getDoctype() : doctype;
+	}
+
+	@Override
+	public CharSequence getInputFromPositionMarker(final int toPos)
+	{
+		return parser != null ? parser.getInputFromPositionMarker(toPos)
+			: input.getSubstring(toPos);
+	}
+
+	@Override
+	public CharSequence getInput(final int fromPos, final int toPos)
+	{
+		return parser != null ? parser.getInput(fromPos, toPos) : input.getSubstring(fromPos, toPos);
+	}
+
+	@Override
+	public XmlTag getElement()
+	{
+		return parser != null ? parser.getElement() : lastTag;
+	}
+
+	@Override
+	public CharSequence getString()
+	{
+		return parser != null ? parser.getString() : lastText;
+	}
+
+	@Override
+	public void setPositionMarker()
+	{
+		if (parser != null)
+		{
+			parser.setPositionMarker();
+		}
+		else
+		{
+			input.setPositionMarker(input.getPosition());
+		}
+	}
+
+	@Override
+	public void setPositionMarker(final int pos)
+	{
+		if (parser != null)
+		{
+			parser.setPositionMarker(pos);
+		}
+		else
+		{
+			input.setPositionMarker(pos);
+		}
+	}
+
+	@Override
+	public String toString()
+	{
+		return parser != null ? parser.toString() : input.toString();
+	}
+}
@@ -68,6 +68,12 @@ public final class XmlPullParser implements IXmlPullParser
 	/** Everything in between &lt;!DOCTYPE ... &gt; */
 	private CharSequence doctype;
 
+	/** The start of lastText in the input, -1 if starting at the position marker */
+	private int lastTextStart;
+
+	/** The end of lastText in the input, -1 if ending at the end of the input */
+	private int lastTextEnd;
+
 	/** The type of what is in lastText */
 	private HttpTagType lastType = HttpTagType.NOT_INITIALIZED;
 
@@ -105,6 +111,61 @@ public final class XmlPullParser implements IXmlPullParser
 		return input.getSubstring(fromPos, toPos);
 	}
 
+	/**
+	 * Get the characters in between both positions and remember the positions.
+	 * 
+	 * @param fromPos
+	 *            first index, -1 to start at the position marker
+	 * @param toPos
+	 *            second index, -1 for the end of the input
+	 * @return the text in between both positions
+	 */
+	private CharSequence text(final int fromPos, final int toPos)
+	{
+		lastTextStart = fromPos;
+		lastTextEnd = toPos;
+
+		if (fromPos == -1)
+		{
+			return input.getSubstring(toPos);
+		}
+		return input.getSubstring(fromPos, toPos);
+	}
+
+	/**
+	 * @return the start of the text of the last element, -1 if it started at the position marker
+	 * @see #getString()
+	 */
+	int getStringStart()
+	{
+		return lastTextStart;
+	}
+
+	/**
+	 * @return the end of the text of the last element, -1 if it ended at the end of the input
+	 * @see #getString()
+	 */
+	int getStringEnd()
+	{
+		return lastTextEnd;
+	}
+
+	/**
+	 * @return the current position in the input
+	 */
+	int getPosition()
+	{
+		return input.getPosition();
+	}
+
+	/**
+	 * @return the whole input
+	 */
+	CharSequence getInput()
+	{
+		return input.toString();
+	}
+
 	/**
 	 * Whatever will be in between the current index and the closing tag, will be ignored (and thus
 	 * treated as raw markup (text). This is useful for tags like 'script'.
@@ -135,7 +196,7 @@ public final class XmlPullParser implements IXmlPullParser
 		}
 
 		input.setPosition(pos);
-		lastText = input.getSubstring(startIndex, pos);
+		lastText = text(startIndex, pos);
 		lastType = HttpTagType.BODY;
 
 		// Check that the tag is properly closed
@@ -188,13 +249,13 @@ public final class XmlPullParser implements IXmlPullParser
 			if (openBracketIndex == -1)
 			{
 				// There is no next matching tag.
-				lastText = input.getSubstring(-1);
+				lastText = text(-1, -1);
 				input.setPosition(input.size());
 				lastType = HttpTagType.BODY;
 				return lastType;
 			}
 
-			lastText = input.getSubstring(openBracketIndex);
+			lastText = text(-1, openBracketIndex);
 			input.setPosition(openBracketIndex);
 			lastType = HttpTagType.BODY;
 			return lastType;
@@ -223,11 +284,12 @@ public final class XmlPullParser implements IXmlPullParser
 		}
 
 		// Get the complete tag text
-		lastText = input.getSubstring(openBracketIndex, closeBracketIndex + 1);
+		lastText = text(openBracketIndex, closeBracketIndex + 1);
 
 		// Get the tagtext between open and close brackets
-		String tagText = lastText.subSequence(1, lastText.length() - 1).toString();
-		if (tagText.length() == 0)
+		final int tagTextStart = openBracketIndex + 1;
+		final int tagTextEnd = closeBracketIndex;
+		if (tagTextStart == tagTextEnd)
 		{
 			throw new ParseException("Found empty tag: '<>' at" + getLineAndColumnText(),
 				input.getPosition());
@@ -235,31 +297,34 @@ public final class XmlPullParser implements IXmlPullParser
 
 		// Type of the tag, to be determined next
 		final TagType type;
+		final String tagText;
 
 		// If the tag ends in '/', it's a "simple" tag like <foo/>
-		if (tagText.endsWith("/"))
+		if (input.charAt(tagTextEnd - 1) == '/')
 		{
 			type = TagType.OPEN_CLOSE;
-			tagText = tagText.substring(0, tagText.length() - 1);
+			tagText = input.getSubstring(tagTextStart, tagTextEnd - 1).toString();
 		}
-		else if (tagText.startsWith("/"))
+		else if (input.charAt(tagTextStart) == '/')
 		{
 			// The tag text starts with a '/', it's a simple close tag
 			type = TagType.CLOSE;
-			tagText = tagText.substring(1);
+			tagText = input.getSubstring(tagTextStart + 1, tagTextEnd).toString();
 		}
 		else
 		{
 			// It must be an open tag
 			type = TagType.OPEN;
+			tagText = input.getSubstring(tagTextStart, tagTextEnd).toString();
 
 			// If open tag and starts with "s" like "script" or "style", than ...
 			if ((tagText.length() > STYLE.length()) &&
 				((tagText.charAt(0) == 's') || (tagText.charAt(0) == 'S')))
 			{
-				final String lowerCase = tagText.toLowerCase(Locale.ROOT);
-				if (lowerCase.startsWith(SCRIPT))
+				// lower case only if needed, many tags start with "s"
+				if (tagText.regionMatches(true, 0, SCRIPT, 0, SCRIPT.length()))
 				{
+					final String lowerCase = tagText.toLowerCase(Locale.ROOT);
 					String typeAttr = "type=";
 					int idxOfType = lowerCase.indexOf(typeAttr);
 					if (idxOfType > 0)
@@ -282,7 +347,7 @@ public final class XmlPullParser implements IXmlPullParser
 						skipUntilText = SCRIPT;
 					}
 				}
-				else if (lowerCase.startsWith(STYLE))
+				else if (tagText.regionMatches(true, 0, STYLE, 0, STYLE.length()))
 				{
 					// prepare to skip everything between the open and close tag
 					skipUntilText = STYLE;
@@ -365,7 +430,7 @@ public final class XmlPullParser implements IXmlPullParser
 		}
 
 		pos += 4;
-		lastText = input.getSubstring(openBracketIndex, pos);
+		lastText = text(openBracketIndex, pos);
 		input.setPosition(closeBracketIndex + 1);
 		lastType = HttpTagType.CONDITIONAL_COMMENT;
 	}
@@ -377,7 +442,7 @@ public final class XmlPullParser implements IXmlPullParser
 		}
 
 		pos += 3;
-		lastText = input.getSubstring(openBracketIndex, pos);
+		lastText = text(openBracketIndex, pos);
 		lastType = HttpTagType.COMMENT;
 		input.setPosition(pos);
 	}
@@ -403,7 +468,7 @@ public final class XmlPullParser implements IXmlPullParser
 		} while (!tagText.endsWith("]]"));
 
 		input.setPosition(closeBracketIndex + 1);
-		lastText = tagText;
+		lastText = text(openBracketIndex + 1, closeBracketIndex);
 		lastType = HttpTagType.CDATA;
 	}
 
@@ -597,6 +662,47 @@ public final class XmlPullParser implements IXmlPullParser
 		return input.toString();
 	}
 
+	/**
+	 * Get the value of an attribute, without quotes and surrounding whitespace and unescaped.
+	 * <p>
+	 * The value is copied once at most, unescaping is skipped if it contains no entity.
+	 *
+	 * @param value
+	 *            the value as found in the tag
+	 * @return value
+	 */
+	private static String attributeValue(final String value)
+	{
+		int start = 0;
+		int end = value.length();
+
+		// Chop off double quotes or single quotes
+		if (value.startsWith("\"") || value.startsWith("\'"))
+		{
+			start++;
+			end--;
+		}
+
+		// Trim whitespace as String#trim() does
+		while (start < end && value.charAt(start) <= ' ')
+		{
+			start++;
+		}
+		while (end > start && value.charAt(end - 1) <= ' ')
+		{
+			end--;
+		}
+
+		String trimmed = value.substring(start, end);
+
+		// Unescape
+		if (trimmed.indexOf('&') != -1)
+		{
+			trimmed = Strings.unescapeMarkup(trimmed).toString();
+		}
+		return trimmed;
+	}
+
 	/**
 	 * Parses the text between tags. For example, "a href=foo.html".
 	 *
@@ -627,7 +733,8 @@ public final class XmlPullParser implements IXmlPullParser
 				return true;
 			}
 
-			// Extract attributes
+			// Extract attributes eagerly, the markup filters look up attributes of each tag
+			// anyway
 			final VariableAssignmentParser attributeParser = new VariableAssignmentParser(tagText);
 			while (attributeParser.matcher().find(pos))
 			{
@@ -643,17 +750,7 @@ public final class XmlPullParser implements IXmlPullParser
 				// Set new position to end of attribute
 				pos = attributeParser.matcher().end(0);
 
-				// Chop off double quotes or single quotes
-				if (value.startsWith("\"") || value.startsWith("\'"))
-				{
-					value = value.substring(1, value.length() - 1);
-				}
-
-				// Trim trailing whitespace
-				value = value.trim();
-
-				// Unescape
-				value = Strings.unescapeMarkup(value).toString();
+				value = attributeValue(value);
 
 				// Get key
 				final String key = attributeParser.getKey();
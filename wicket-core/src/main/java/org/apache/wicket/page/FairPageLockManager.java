@@ -0,0 +1,384 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.page;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+import org.apache.wicket.Application;
+import org.apache.wicket.WicketRuntimeException;
+import org.apache.wicket.settings.ExceptionSettings;
+import org.apache.wicket.util.LazyInitializer;
+import org.apache.wicket.util.lang.Args;
+import org.apache.wicket.util.lang.Threads;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An {@link IPageLockManager} granting locks to a page in the order they were requested.
+ * <p>
+ * In contrast to {@link DefaultPageLockManager} waiting threads are queued with a fair
+ * {@link ReentrantReadWriteLock} for each page, so they are woken up when the lock is released,
+ * without polling and without the risk of a thread being overtaken repeatedly by later requests.
+ * Waiting threads are parked with {@link java.util.concurrent.locks.LockSupport}.
+ * <p>
+ * Shared locks are supported, see {@link #lockPageShared(int)}: A thread holding a shared lock
+ * and requesting an exclusive lock releases its shared lock first, thus the upgrade is not
+ * atomic. The page has to be resolved again after the upgrade, see
+ * {@link org.apache.wicket.core.request.handler.IReadOnlyRequestHandler}.
+ * <p>
+ * The time waited for each lock is recorded in the {@link PageLockStatistics} of the application,
+ * as soon as the class of the locked page is known.
+ * <p>
+ * To use this lock manager, override {@link org.apache.wicket.Session#newPageAccessSynchronizer(Duration)}:
+ * 
+ * <pre>
+ * protected PageAccessSynchronizer newPageAccessSynchronizer(Duration timeout)
+ * {
+ * 	return new PageAccessSynchronizer(new FairPageLockManager(timeout));
+ * }
+ * </pre>
+ */
+public class FairPageLockManager implements IPageLockManager
+{
+	private static final long serialVersionUID = 1L;
+
+	private static final Logger logger = LoggerFactory.getLogger(FairPageLockManager.class);
+
+	/** map of locks, held or waited for */
+	private final LazyInitializer<ConcurrentMap<Integer, PageLock>> locks = new LazyInitializer<>()
+	{
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected ConcurrentMap<Integer, PageLock> createInstance()
+		{
+			return new ConcurrentHashMap<>();
+		}
+	};
+
+	/** timeout value for acquiring a page lock */
+	private final Duration timeout;
+
+	/**
+	 * Constructor
+	 *
+	 * @param timeout
+	 *            timeout value for acquiring a page lock
+	 */
+	public FairPageLockManager(Duration timeout)
+	{
+		this.timeout = Args.notNull(timeout, "timeout");
+	}
+
+	/**
+	 * @param pageId
+	 *            the id of the page to be locked
+	 * @return the duration for acquiring a page lock
+	 */
+	public Duration getTimeout(int pageId)
+	{
+		return timeout;
+	}
+
+	/**
+	 * Get the statistics to record waited times into.
+	 * 
+	 * @return statistics of the current application, or {@code null} if not available
+	 */
+	protected PageLockStatistics getStatistics()
+	{
+		return Application.exists() ? PageLockStatistics.get(Application.get()) : null;
+	}
+
+	@Override
+	public void lockPage(int pageId) throws CouldNotLockPageException
+	{
+		final boolean[] held = { false };
+		final PageLock lock = enter(pageId, held);
+
+		if (held[0])
+		{
+			if (lock.isWriteLockedByCurrentThread())
+			{
+				return;
+			}
+
+			// upgrade
+			releaseShared(lock);
+		}
+
+		acquire(lock, true);
+	}
+
+	/**
+	 * Acquire a shared lock to a page, waiting for an exclusive lock to be released.
+	 */
+	@Override
+	public void lockPageShared(int pageId) throws CouldNotLockPageException
+	{
+		final boolean[] held = { false };
+		final PageLock lock = enter(pageId, held);
+
+		if (held[0])
+		{
+			return;
+		}
+
+		acquire(lock, false);
+	}
+
+	/**
+	 * Enter the lock of a page.
+	 * 
+	 * @param held
+	 *            is set to {@code true} if the lock is already held by the current thread
+	 */
+	private PageLock enter(int pageId, boolean[] held)
+	{
+		return locks.get().compute(pageId, (id, existing) -> {
+			if (existing != null && existing.isHeldByCurrentThread())
+			{
+				held[0] = true;
+				return existing;
+			}
+
+			PageLock result = existing == null ? new PageLock(id) : existing;
+			result.users++;
+			return result;
+		});
+	}
+
+	private void acquire(PageLock lock, boolean exclusive)
+	{
+		final Thread thread = Thread.currentThread();
+
+		Duration pageTimeout = getTimeout(lock.pageId);
+
+		if (logger.isDebugEnabled())
+		{
+			logger.debug("'{}' attempting to acquire {} lock to page with id '{}'", thread.getName(),
+				exclusive ? "exclusive" : "shared", lock.pageId);
+		}
+
+		long start = System.nanoTime();
+		boolean locked = false;
+		try
+		{
+			if (exclusive)
+			{
+				locked = lock.writeLock().tryLock(pageTimeout.toNanos(), TimeUnit.NANOSECONDS);
+			}
+			else
+			{
+				locked = lock.readLock().tryLock(pageTimeout.toNanos(), TimeUnit.NANOSECONDS);
+			}
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new WicketRuntimeException(e);
+		}
+		finally
+		{
+			if (!locked)
+			{
+				leave(lock);
+			}
+		}
+
+		if (!locked)
+		{
+			handleFailedLock(lock, pageTimeout);
+			throw new CouldNotLockPageException(lock.pageId, thread.getName(), pageTimeout);
+		}
+
+		lock.waits.put(thread, Duration.ofNanos(System.nanoTime() - start));
+
+		logger.debug("{} acquired lock to page {}", thread.getName(), lock.pageId);
+	}
+
+	/**
+	 * Records the waited time for the lock to the given page.
+	 */
+	@Override
+	public void onPageLocked(IManageablePage page)
+	{
+		PageLock lock = locks.get().get(page.getPageId());
+		if (lock != null)
+		{
+			Duration waited = lock.waits.remove(Thread.currentThread());
+			if (waited != null)
+			{
+				PageLockStatistics statistics = getStatistics();
+				if (statistics != null)
+				{
+					statistics.record(page.getClass(), waited);
+				}
+			}
+		}
+	}
+
+	private void handleFailedLock(PageLock lock, Duration pageTimeout)
+	{
+		if (logger.isWarnEnabled())
+		{
+			Thread owner = lock.getOwner();
+
+			logger.warn(
+				"Thread '{}' failed to acquire lock to page with id '{}', attempted for {}." +
+					" The thread that holds the lock has name '{}', {} threads are waiting.",
+				Thread.currentThread().getName(), lock.pageId, pageTimeout,
+				owner != null ? owner.getName() : "N/A (shared)", lock.getQueueLength());
+
+			if (Application.exists())
+			{
+				ExceptionSettings.ThreadDumpStrategy strategy = Application.get()
+					.getExceptionSettings()
+					.getThreadDumpStrategy();
+				switch (strategy)
+				{
+					case ALL_THREADS :
+						Threads.dumpAllThreads(logger);
+						break;
+					case THREAD_HOLDING_LOCK :
+						if (owner != null)
+						{
+							Threads.dumpSingleThread(logger, owner);
+						}
+						break;
+					case NO_THREADS :
+					default :
+						// do nothing
+				}
+			}
+		}
+	}
+
+	@Override
+	public void unlockAllPages()
+	{
+		for (PageLock lock : locks.get().values())
+		{
+			if (lock.isHeldByCurrentThread())
+			{
+				unlock(lock);
+			}
+		}
+	}
+
+	@Override
+	public void unlockPage(int pageId)
+	{
+		PageLock lock = locks.get().get(pageId);
+		if (lock != null && lock.isHeldByCurrentThread())
+		{
+			unlock(lock);
+		}
+	}
+
+	private void unlock(PageLock lock)
+	{
+		while (lock.isWriteLockedByCurrentThread())
+		{
+			lock.writeLock().unlock();
+		}
+		releaseShared(lock);
+
+		lock.waits.remove(Thread.currentThread());
+
+		if (logger.isDebugEnabled())
+		{
+			logger.debug("'{}' released lock to page with id '{}'", Thread.currentThread().getName(),
+				lock.pageId);
+		}
+
+		leave(lock);
+	}
+
+	private void releaseShared(PageLock lock)
+	{
+		while (lock.getReadHoldCount() > 0)
+		{
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Leave a lock, removing it if no other thread holds or waits for it.
+	 */
+	private void leave(PageLock lock)
+	{
+		locks.get().computeIfPresent(lock.pageId, (id, existing) -> {
+			if (existing == lock && --existing.users == 0)
+			{
+				return null;
+			}
+			return existing;
+		});
+	}
+
+	/*
+	 * used by tests
+	 */
+	Supplier<ConcurrentMap<Integer, PageLock>> getLocks()
+	{
+		return locks;
+	}
+
+	/**
+	 * Fair lock to a page.
+	 */
+	static class PageLock extends ReentrantReadWriteLock
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final int pageId;
+
+		/**
+		 * Count of threads holding or waiting for this lock, guarded by the map of locks.
+		 */
+		private int users;
+
+		/**
+		 * Times waited by the holding threads, not yet recorded.
+		 */
+		private final transient ConcurrentMap<Thread, Duration> waits = new ConcurrentHashMap<>();
+
+		PageLock(int pageId)
+		{
+			super(true);
+
+			this.pageId = pageId;
+		}
+
+		boolean isHeldByCurrentThread()
+		{
+			return isWriteLockedByCurrentThread() || getReadHoldCount() > 0;
+		}
+
+		@Override
+		protected Thread getOwner()
+		{
+			return super.getOwner();
+		}
+	}
+}
@@ -35,6 +35,22 @@ public interface IPageLockManager extends Serializable
 	 */
 	void lockPage(int pageId) throws CouldNotLockPageException;
 
+	/**
+	 * Acquire a shared lock to a page, for requests that do not modify the page.
+	 * <p>
+	 * Multiple threads may hold a shared lock to the same page at once. By default an exclusive
+	 * lock is acquired.
+	 *
+	 * @param pageId
+	 *            page id
+	 * @throws CouldNotLockPageException
+	 *             if lock could not be acquired
+	 */
+	default void lockPageShared(int pageId) throws CouldNotLockPageException
+	{
+		lockPage(pageId);
+	}
+
 	/**
 	 * Unlocks all pages locked by this thread
 	 */
@@ -48,4 +64,15 @@ public interface IPageLockManager extends Serializable
 	 */
 	void unlockPage(int pageId);
 
+	/**
+	 * Notification that a page locked by the current thread was resolved.
+	 * <p>
+	 * Does nothing by default.
+	 *
+	 * @param page
+	 *            the locked page
+	 */
+	default void onPageLocked(IManageablePage page)
+	{
+	}
 }
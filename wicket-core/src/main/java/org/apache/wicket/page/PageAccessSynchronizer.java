@@ -19,7 +19,10 @@ package org.apache.wicket.page;
 import java.io.Serializable;
 import java.time.Duration;
 
+import org.apache.wicket.core.request.handler.IReadOnlyRequestHandler;
 import org.apache.wicket.pageStore.IPageStore;
+import org.apache.wicket.request.IRequestHandler;
+import org.apache.wicket.request.cycle.RequestCycle;
 import org.apache.wicket.util.lang.Args;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -60,16 +63,43 @@ public class PageAccessSynchronizer implements Serializable
 	}
 
 	/**
-	 * Acquire a lock to a page
+	 * Acquire a lock to a page, a shared one if the current request is read-only.
 	 * 
 	 * @param pageId
 	 *            page id
 	 * @throws CouldNotLockPageException
 	 *             if lock could not be acquired
+	 * @see #isReadOnlyRequest()
 	 */
 	public void lockPage(int pageId) throws CouldNotLockPageException
 	{
-		pageLockManager.lockPage(pageId);
+		if (isReadOnlyRequest())
+		{
+			pageLockManager.lockPageShared(pageId);
+		}
+		else
+		{
+			pageLockManager.lockPage(pageId);
+		}
+	}
+
+	/**
+	 * Is the current request read-only, i.e. does the active request handler declare to not modify
+	 * pages.
+	 * 
+	 * @return {@code true} if a shared lock to pages is sufficient
+	 * @see IReadOnlyRequestHandler
+	 */
+	protected boolean isReadOnlyRequest()
+	{
+		RequestCycle requestCycle = RequestCycle.get();
+		if (requestCycle != null)
+		{
+			IRequestHandler handler = requestCycle.getActiveRequestHandler();
+			return handler instanceof IReadOnlyRequestHandler &&
+				((IReadOnlyRequestHandler)handler).isReadOnly();
+		}
+		return false;
 	}
 
 	/**
@@ -115,6 +145,10 @@ public class PageAccessSynchronizer implements Serializable
 				{
 					lockPage(pageId);
 					page = manager.getPage(pageId);
+					if (page != null)
+					{
+						pageLockManager.onPageLocked(page);
+					}
 				}
 				finally
 				{
@@ -145,7 +179,9 @@ public class PageAccessSynchronizer implements Serializable
 			@Override
 			public void touchPage(IManageablePage page)
 			{
-				lockPage(page.getPageId());
+				// touching modifies the page, thus always exclusive
+				pageLockManager.lockPage(page.getPageId());
+				pageLockManager.onPageLocked(page);
 
 				manager.touchPage(page);
 			}
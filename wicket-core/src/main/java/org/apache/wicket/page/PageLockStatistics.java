@@ -0,0 +1,192 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.page;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.apache.wicket.Application;
+import org.apache.wicket.MetaDataKey;
+import org.apache.wicket.util.lang.Args;
+
+/**
+ * Histograms of the time waited for page locks, for each page class.
+ * 
+ * @see FairPageLockManager
+ */
+public class PageLockStatistics
+{
+	private static final MetaDataKey<PageLockStatistics> KEY = new MetaDataKey<>()
+	{
+		private static final long serialVersionUID = 1L;
+	};
+
+	private final ConcurrentMap<String, Histogram> histograms = new ConcurrentHashMap<>();
+
+	/**
+	 * Get the statistics of an application.
+	 * 
+	 * @param application
+	 *            the application
+	 * @return statistics
+	 */
+	public static PageLockStatistics get(Application application)
+	{
+		Args.notNull(application, "application");
+
+		PageLockStatistics statistics = application.getMetaData(KEY);
+		if (statistics == null)
+		{
+			synchronized (PageLockStatistics.class)
+			{
+				statistics = application.getMetaData(KEY);
+				if (statistics == null)
+				{
+					statistics = new PageLockStatistics();
+					application.setMetaData(KEY, statistics);
+				}
+			}
+		}
+		return statistics;
+	}
+
+	/**
+	 * Record the time waited for a lock to a page.
+	 * 
+	 * @param pageClass
+	 *            class of the locked page
+	 * @param wait
+	 *            waited time
+	 */
+	public void record(Class<?> pageClass, Duration wait)
+	{
+		histograms.computeIfAbsent(pageClass.getName(), name -> new Histogram()).record(wait);
+	}
+
+	/**
+	 * @return histograms by page class name
+	 */
+	public Map<String, Histogram> getHistograms()
+	{
+		return Collections.unmodifiableMap(histograms);
+	}
+
+	/**
+	 * Clear all histograms.
+	 */
+	public void clear()
+	{
+		histograms.clear();
+	}
+
+	/**
+	 * A histogram of waited times, with buckets of exponentially increasing milliseconds.
+	 */
+	public static class Histogram
+	{
+		/**
+		 * Count of buckets, the last one for all times exceeding {@code 2^(BUCKETS - 2)} milliseconds.
+		 */
+		public static final int BUCKETS = 18;
+
+		private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+		private final AtomicLong totalNanos = new AtomicLong();
+
+		private final AtomicLong maxNanos = new AtomicLong();
+
+		void record(Duration wait)
+		{
+			long nanos = wait.toNanos();
+			long millis = wait.toMillis();
+
+			// 0 for less than 1 millisecond, 1 for less than 2 milliseconds, 2 for less than 4 ...
+			int bucket = Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(millis));
+			counts.incrementAndGet(bucket);
+
+			totalNanos.addAndGet(nanos);
+			maxNanos.accumulateAndGet(nanos, Math::max);
+		}
+
+		/**
+		 * Get the exclusive upper bound of a bucket.
+		 * 
+		 * @param bucket
+		 *            index of bucket
+		 * @return upper bound or {@code null} for the last bucket
+		 */
+		public static Duration getUpperBound(int bucket)
+		{
+			Args.withinRange(0, BUCKETS - 1, bucket, "bucket");
+
+			return bucket == BUCKETS - 1 ? null : Duration.ofMillis(1L << bucket);
+		}
+
+		/**
+		 * @return counts of all buckets
+		 */
+		public long[] getCounts()
+		{
+			long[] result = new long[BUCKETS];
+			for (int b = 0; b < BUCKETS; b++)
+			{
+				result[b] = counts.get(b);
+			}
+			return result;
+		}
+
+		/**
+		 * @return total count of recorded times
+		 */
+		public long getCount()
+		{
+			long count = 0;
+			for (int b = 0; b < BUCKETS; b++)
+			{
+				count += counts.get(b);
+			}
+			return count;
+		}
+
+		/**
+		 * @return sum of all recorded times
+		 */
+		public Duration getTotal()
+		{
+			return Duration.ofNanos(totalNanos.get());
+		}
+
+		/**
+		 * @return maximum of all recorded times
+		 */
+		public Duration getMax()
+		{
+			return Duration.ofNanos(maxNanos.get());
+		}
+
+		@Override
+		public String toString()
+		{
+			return "Histogram [count=" + getCount() + ", total=" + getTotal() + ", max=" + getMax() + "]";
+		}
+	}
+}
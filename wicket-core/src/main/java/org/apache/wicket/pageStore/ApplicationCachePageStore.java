@@ -0,0 +1,676 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.pageStore;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.wicket.Application;
+import org.apache.wicket.WicketRuntimeException;
+import org.apache.wicket.page.IManageablePage;
+import org.apache.wicket.util.lang.Args;
+import org.apache.wicket.util.lang.Bytes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A cache of pages shared by all sessions of an application, limited by the size of the pages.
+ * <p>
+ * This store works with {@link SerializedPage}s only, thus it has to be preceded by a
+ * {@link SerializingPageStore}, e.g. as cache of a {@link CachingPageStore} in front of the
+ * persistent store. In contrast to {@link InSessionPageStore} there is a single budget for all
+ * sessions, each page is weighed by its serialized size.
+ * <p>
+ * Admission follows W-TinyLFU: New pages enter a small window. Pages leaving the window are
+ * admitted to the main space only, if they were accessed more frequently than the page they would
+ * replace. Thus pages used repeatedly (e.g. with the back-button) stay in the cache, while pages
+ * used only once do not replace them. Access frequencies are estimated with a compact sketch,
+ * which is aged periodically.
+ *
+ * @see #get(String)
+ */
+public class ApplicationCachePageStore extends AbstractPersistentPageStore
+{
+	private static final Logger log = LoggerFactory.getLogger(ApplicationCachePageStore.class);
+
+	/**
+	 * All caches, the key is the application name. Caches are referenced weakly, so a cache that is
+	 * not destroyed with its application does not keep the application's pages (and classes)
+	 * reachable.
+	 */
+	private static final ConcurrentMap<String, WeakReference<ApplicationCachePageStore>> CACHES =
+		new ConcurrentHashMap<>();
+
+	/**
+	 * Percentage of the capacity used for the admission window.
+	 */
+	private static final int WINDOW_PERCENTAGE = 1;
+
+	/**
+	 * Percentage of the main space used for protected pages.
+	 */
+	private static final int PROTECTED_PERCENTAGE = 80;
+
+	/**
+	 * Expected average size of pages, used to size the frequency sketch.
+	 */
+	private static final int EXPECTED_PAGE_SIZE = 8 * 1024;
+
+	private final String applicationName;
+
+	private final long maxWeight;
+
+	private final long maxWindowWeight;
+
+	private final long maxProtectedWeight;
+
+	private final FrequencySketch sketch;
+
+	/**
+	 * Recently added pages.
+	 */
+	private final LinkedHashMap<PageKey, CachedPage> window = new LinkedHashMap<>(16, 0.75f, true);
+
+	/**
+	 * Admitted pages, accessed once since admission.
+	 */
+	private final LinkedHashMap<PageKey, CachedPage> probation = new LinkedHashMap<>(16, 0.75f, true);
+
+	/**
+	 * Admitted pages, accessed more than once.
+	 */
+	private final LinkedHashMap<PageKey, CachedPage> protectedPages = new LinkedHashMap<>(16, 0.75f, true);
+
+	/**
+	 * Pages of each session.
+	 */
+	private final Map<String, Map<Integer, CachedPage>> sessions = new HashMap<>();
+
+	private long windowWeight;
+
+	private long probationWeight;
+
+	private long protectedWeight;
+
+	private long hits;
+
+	private long misses;
+
+	private long evictions;
+
+	private long rejections;
+
+	/**
+	 * Cache {@link SerializedPage}s up to {@code maxBytes} for all sessions.
+	 *
+	 * @param applicationName
+	 *            {@link Application#getName()}
+	 * @param maxBytes
+	 *            maximum bytes to keep
+	 */
+	public ApplicationCachePageStore(String applicationName, Bytes maxBytes)
+	{
+		super(applicationName);
+
+		Args.notNull(maxBytes, "maxBytes");
+
+		this.applicationName = applicationName;
+
+		this.maxWeight = Args.withinRange(Bytes.bytes(1), Bytes.MAX, maxBytes, "maxBytes").bytes();
+		this.maxWindowWeight = Math.max(1, maxWeight * WINDOW_PERCENTAGE / 100);
+		this.maxProtectedWeight = (maxWeight - maxWindowWeight) * PROTECTED_PERCENTAGE / 100;
+
+		this.sketch = new FrequencySketch(
+			(int)Math.min(maxWeight / EXPECTED_PAGE_SIZE, FrequencySketch.MAX_WIDTH));
+
+		CACHES.put(applicationName, new WeakReference<>(this));
+	}
+
+	/**
+	 * Get the cache of an application.
+	 *
+	 * @param applicationName
+	 *            {@link Application#getName()}
+	 * @return cache or {@code null} if the application does not use one
+	 */
+	public static ApplicationCachePageStore get(String applicationName)
+	{
+		WeakReference<ApplicationCachePageStore> reference = CACHES.get(applicationName);
+		if (reference == null)
+		{
+			return null;
+		}
+
+		ApplicationCachePageStore cache = reference.get();
+		if (cache == null)
+		{
+			CACHES.remove(applicationName, reference);
+		}
+		return cache;
+	}
+
+	/**
+	 * Pages are already serialized.
+	 */
+	@Override
+	public boolean supportsVersioning()
+	{
+		return true;
+	}
+
+	@Override
+	public synchronized void destroy()
+	{
+		CACHES.computeIfPresent(applicationName,
+			(name, reference) -> reference.get() == this ? null : reference);
+
+		window.clear();
+		probation.clear();
+		protectedPages.clear();
+		sessions.clear();
+		windowWeight = 0;
+		probationWeight = 0;
+		protectedWeight = 0;
+
+		super.destroy();
+	}
+
+	@Override
+	protected synchronized IManageablePage getPersistedPage(String sessionIdentifier, int id)
+	{
+		PageKey key = new PageKey(sessionIdentifier, id);
+
+		sketch.increment(key.hashCode());
+
+		CachedPage cached = touch(key);
+		if (cached == null)
+		{
+			misses++;
+			return null;
+		}
+
+		hits++;
+		return cached.page;
+	}
+
+	/**
+	 * Mark a page as accessed.
+	 *
+	 * @return the cached page or {@code null}
+	 */
+	private CachedPage touch(PageKey key)
+	{
+		CachedPage cached = window.get(key);
+		if (cached == null)
+		{
+			cached = probation.remove(key);
+			if (cached != null)
+			{
+				// promote
+				probationWeight -= cached.weight;
+				protectedPages.put(key, cached);
+				protectedWeight += cached.weight;
+				cached.region = protectedPages;
+
+				demoteProtected();
+			}
+			else
+			{
+				cached = protectedPages.get(key);
+			}
+		}
+		return cached;
+	}
+
+	@Override
+	protected void addPersistedPage(String sessionIdentifier, IManageablePage page)
+	{
+		if (!(page instanceof SerializedPage))
+		{
+			throw new WicketRuntimeException(
+				"ApplicationCachePageStore works with serialized pages only");
+		}
+		int weight = ((SerializedPage)page).getData().length;
+
+		synchronized (this)
+		{
+			PageKey key = new PageKey(sessionIdentifier, page.getPageId());
+
+			sketch.increment(key.hashCode());
+
+			CachedPage cached = touch(key);
+			if (weight > maxWeight - maxWindowWeight)
+			{
+				if (cached != null)
+				{
+					remove(cached);
+				}
+
+				log.debug("Page with id '{}' of size {} exceeds the capacity of {}",
+					page.getPageId(), Bytes.bytes(weight), getCapacity());
+				return;
+			}
+
+			if (cached != null)
+			{
+				adjustWeight(cached, weight - cached.weight);
+				cached.page = page;
+				cached.weight = weight;
+			}
+			else
+			{
+				cached = new CachedPage(key, page, weight);
+				cached.region = window;
+				window.put(key, cached);
+				windowWeight += weight;
+				sessions.computeIfAbsent(sessionIdentifier, s -> new HashMap<>())
+					.put(key.pageId, cached);
+			}
+
+			evict();
+		}
+	}
+
+	@Override
+	protected synchronized void removePersistedPage(String sessionIdentifier, IManageablePage page)
+	{
+		CachedPage cached = find(new PageKey(sessionIdentifier, page.getPageId()));
+		if (cached != null)
+		{
+			remove(cached);
+		}
+	}
+
+	@Override
+	protected synchronized void removeAllPersistedPages(String sessionIdentifier)
+	{
+		Map<Integer, CachedPage> cached = sessions.get(sessionIdentifier);
+		if (cached != null)
+		{
+			for (CachedPage page : new ArrayList<>(cached.values()))
+			{
+				remove(page);
+			}
+		}
+	}
+
+	private CachedPage find(PageKey key)
+	{
+		Map<Integer, CachedPage> cached = sessions.get(key.sessionIdentifier);
+		if (cached == null)
+		{
+			return null;
+		}
+		return cached.get(key.pageId);
+	}
+
+	/**
+	 * Move pages from the window into the main space, evicting pages as needed.
+	 */
+	private void evict()
+	{
+		while (windowWeight > maxWindowWeight)
+		{
+			CachedPage candidate = eldest(window);
+			window.remove(candidate.key);
+			windowWeight -= candidate.weight;
+
+			admit(candidate);
+		}
+
+		// pages might have grown
+		while (probationWeight + protectedWeight > maxWeight - maxWindowWeight)
+		{
+			CachedPage victim = eldest(probation);
+			remove(victim == null ? eldest(protectedPages) : victim);
+			evictions++;
+		}
+
+		demoteProtected();
+	}
+
+	/**
+	 * Admit a candidate into the main space, if it is accessed more frequently than all pages it
+	 * would replace.
+	 */
+	private void admit(CachedPage candidate)
+	{
+		long maxMainWeight = maxWeight - maxWindowWeight;
+
+		while (probationWeight + protectedWeight + candidate.weight > maxMainWeight)
+		{
+			CachedPage victim = eldest(probation);
+			if (victim == null)
+			{
+				victim = eldest(protectedPages);
+			}
+
+			if (sketch.frequency(candidate.key.hashCode()) > sketch
+				.frequency(victim.key.hashCode()))
+			{
+				remove(victim);
+				evictions++;
+			}
+			else
+			{
+				unregister(candidate);
+				rejections++;
+				return;
+			}
+		}
+
+		probation.put(candidate.key, candidate);
+		probationWeight += candidate.weight;
+		candidate.region = probation;
+	}
+
+	/**
+	 * Move least recently used protected pages back to probation.
+	 */
+	private void demoteProtected()
+	{
+		while (protectedWeight > maxProtectedWeight)
+		{
+			CachedPage demoted = eldest(protectedPages);
+			protectedPages.remove(demoted.key);
+			protectedWeight -= demoted.weight;
+
+			probation.put(demoted.key, demoted);
+			probationWeight += demoted.weight;
+			demoted.region = probation;
+		}
+	}
+
+	private CachedPage eldest(LinkedHashMap<PageKey, CachedPage> region)
+	{
+		Iterator<CachedPage> iterator = region.values().iterator();
+		return iterator.hasNext() ? iterator.next() : null;
+	}
+
+	private void remove(CachedPage cached)
+	{
+		cached.region.remove(cached.key);
+		adjustWeight(cached, -cached.weight);
+
+		unregister(cached);
+	}
+
+	private void adjustWeight(CachedPage cached, long delta)
+	{
+		if (cached.region == window)
+		{
+			windowWeight += delta;
+		}
+		else if (cached.region == probation)
+		{
+			probationWeight += delta;
+		}
+		else
+		{
+			protectedWeight += delta;
+		}
+	}
+
+	private void unregister(CachedPage cached)
+	{
+		Map<Integer, CachedPage> sessionPages = sessions.get(cached.key.sessionIdentifier);
+		if (sessionPages != null)
+		{
+			sessionPages.remove(cached.key.pageId, cached);
+			if (sessionPages.isEmpty())
+			{
+				sessions.remove(cached.key.sessionIdentifier);
+			}
+		}
+	}
+
+	/**
+	 * Get the maximum size of pages to cache.
+	 *
+	 * @return capacity
+	 */
+	public Bytes getCapacity()
+	{
+		return Bytes.bytes(maxWeight);
+	}
+
+	/**
+	 * Get the size of all cached pages.
+	 *
+	 * @return size
+	 */
+	public synchronized Bytes getSize()
+	{
+		return Bytes.bytes(windowWeight + probationWeight + protectedWeight);
+	}
+
+	/**
+	 * Get the count of all cached pages.
+	 *
+	 * @return page count
+	 */
+	public synchronized int getPageCount()
+	{
+		return window.size() + probation.size() + protectedPages.size();
+	}
+
+	/**
+	 * Get the count of pages found in this cache.
+	 *
+	 * @return hit count
+	 */
+	public synchronized long getHitCount()
+	{
+		return hits;
+	}
+
+	/**
+	 * Get the count of pages not found in this cache.
+	 *
+	 * @return miss count
+	 */
+	public synchronized long getMissCount()
+	{
+		return misses;
+	}
+
+	/**
+	 * Get the ratio of hits to all requested pages.
+	 *
+	 * @return hit ratio between 0 and 1
+	 */
+	public synchronized double getHitRatio()
+	{
+		long requests = hits + misses;
+		return requests == 0 ? 0 : (double)hits / requests;
+	}
+
+	/**
+	 * Get the count of pages evicted to admit other pages.
+	 *
+	 * @return eviction count
+	 */
+	public synchronized long getEvictionCount()
+	{
+		return evictions;
+	}
+
+	/**
+	 * Get the count of pages not admitted because they were accessed less frequently than the cached
+	 * pages.
+	 *
+	 * @return rejection count
+	 */
+	public synchronized long getRejectionCount()
+	{
+		return rejections;
+	}
+
+	/**
+	 * Key of a page.
+	 */
+	private static class PageKey
+	{
+		private final String sessionIdentifier;
+
+		private final int pageId;
+
+		PageKey(String sessionIdentifier, int pageId)
+		{
+			this.sessionIdentifier = sessionIdentifier;
+			this.pageId = pageId;
+		}
+
+		@Override
+		public boolean equals(Object obj)
+		{
+			if (this == obj)
+			{
+				return true;
+			}
+			if (obj instanceof PageKey other)
+			{
+				return pageId == other.pageId && sessionIdentifier.equals(other.sessionIdentifier);
+			}
+			return false;
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return Objects.hash(sessionIdentifier, pageId);
+		}
+	}
+
+	/**
+	 * A cached page.
+	 */
+	private static class CachedPage
+	{
+		private final PageKey key;
+
+		private IManageablePage page;
+
+		private int weight;
+
+		/**
+		 * The region holding this page.
+		 */
+		private LinkedHashMap<PageKey, CachedPage> region;
+
+		CachedPage(PageKey key, IManageablePage page, int weight)
+		{
+			this.key = key;
+			this.page = page;
+			this.weight = weight;
+		}
+	}
+
+	/**
+	 * A count-min sketch of access frequencies with four 4-bit counters per key.
+	 * <p>
+	 * All counters are halved after a number of increments, so that past accesses are forgotten
+	 * gradually.
+	 */
+	static class FrequencySketch
+	{
+		static final int MAX_WIDTH = 1 << 24;
+
+		private static final long[] SEEDS = { 0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L,
+				0x9ae16a3b2f90404fL, 0xcbf29ce484222325L };
+
+		private static final long RESET_MASK = 0x7777777777777777L;
+
+		private final long[] table;
+
+		private final int sampleSize;
+
+		private int additions;
+
+		FrequencySketch(int width)
+		{
+			int size = Integer.highestOneBit(Math.max(64, width) - 1) << 1;
+
+			table = new long[size];
+			sampleSize = 10 * size;
+		}
+
+		int frequency(int hash)
+		{
+			int spread = spread(hash);
+
+			int frequency = 15;
+			for (int i = 0; i < 4; i++)
+			{
+				frequency = Math.min(frequency,
+					(int)((table[index(spread, i)] >>> offset(spread, i)) & 0xF));
+			}
+			return frequency;
+		}
+
+		void increment(int hash)
+		{
+			int spread = spread(hash);
+
+			boolean added = false;
+			for (int i = 0; i < 4; i++)
+			{
+				int index = index(spread, i);
+				int offset = offset(spread, i);
+				if (((table[index] >>> offset) & 0xF) != 0xF)
+				{
+					table[index] += 1L << offset;
+					added = true;
+				}
+			}
+
+			if (added && ++additions == sampleSize)
+			{
+				for (int i = 0; i < table.length; i++)
+				{
+					table[i] = (table[i] >>> 1) & RESET_MASK;
+				}
+				additions /= 2;
+			}
+		}
+
+		private int spread(int hash)
+		{
+			hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+			return (hash >>> 16) ^ hash;
+		}
+
+		private int index(int spread, int i)
+		{
+			long hash = (spread + SEEDS[i]) * SEEDS[i];
+			hash += hash >>> 32;
+			return (int)hash & (table.length - 1);
+		}
+
+		private int offset(int spread, int i)
+		{
+			return ((spread >>> (i << 3)) & 0xF) << 2;
+		}
+	}
+}
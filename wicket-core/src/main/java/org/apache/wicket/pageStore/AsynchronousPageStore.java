@@ -17,13 +17,16 @@
 package org.apache.wicket.pageStore;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Supplier;
 
 import org.apache.wicket.MetaDataKey;
@@ -37,12 +40,17 @@ import org.slf4j.LoggerFactory;
 /**
  * Facade for {@link IPageStore} moving {@link #addPage(IPageContext, IManageablePage)} to a worker thread.
  * <p>
- * Creates an {@link PendingAdd} for {@link #addPage(IPageContext, IManageablePage)} and puts ito a {@link #queue}.
- * Later {@link PageAddingRunnable} reads in blocking manner from {@link #queue} and performs the add.
+ * Creates an {@link PendingAdd} for {@link #addPage(IPageContext, IManageablePage)} and puts it into a queue.
+ * Later {@link PageAddingRunnable} reads in blocking manner from the queue and performs the add.
  * <p>
- * It starts only one instance of {@link PageAddingRunnable} because all we need is to make the page
+ * By default it starts only one instance of {@link PageAddingRunnable} because all we need is to make the page
  * storing asynchronous. We don't want to write concurrently in the wrapped {@link IPageStore},
  * though it may happen in the extreme case when the queue is full. These cases should be avoided.
+ * <p>
+ * If the wrapped {@link IPageStore} supports concurrent writes, multiple workers can be started,
+ * each one with its own queue: Sessions are partitioned across the workers, thus all pages of a
+ * single session are still added in order. Each worker saves all pending adds from its queue in a
+ * single batch, skipping adds that were superseded by a later add of the same page.
  * 
  * @author Matej Knopp
  * @author manuelbarzi
@@ -64,14 +72,14 @@ public class AsynchronousPageStore extends DelegatingPageStore
 	private static final long POLL_WAIT = 1000L;
 
 	/**
-	 * The page saving thread.
+	 * The page saving threads.
 	 */
-	private final Thread pageSavingThread;
+	private final List<Thread> pageSavingThreads;
 
 	/**
-	 * The queue where the entries which have to be saved are temporary stored
+	 * The queues where the entries which have to be saved are temporary stored, one for each thread.
 	 */
-	private final BlockingQueue<PendingAdd> queue;
+	private final List<BlockingQueue<PendingAdd>> queues;
 
 	/**
 	 * A map 'sessionId:::pageId' -> {@link PendingAdd}. Used for fast retrieval of {@link PendingAdd}s which
@@ -79,6 +87,8 @@ public class AsynchronousPageStore extends DelegatingPageStore
 	 */
 	private final ConcurrentMap<String, PendingAdd> queueMap;
 
+	private final Metrics metrics = new Metrics();
+
 	/**
 	 * Construct.
 	 * 
@@ -88,16 +98,76 @@ public class AsynchronousPageStore extends DelegatingPageStore
 	 *            the capacity of the queue that delays the saving
 	 */
 	public AsynchronousPageStore(final IPageStore delegate, final int capacity)
+	{
+		this(delegate, capacity, 1);
+	}
+
+	/**
+	 * Construct.
+	 * 
+	 * @param delegate
+	 *            the wrapped {@link IPageStore} that actually saved the page, must support
+	 *            concurrent adds if more than one worker is used
+	 * @param capacity
+	 *            the capacity of the queues that delay the saving, divided between all workers
+	 * @param workers
+	 *            count of workers
+	 */
+	public AsynchronousPageStore(final IPageStore delegate, final int capacity, final int workers)
 	{
 		super(delegate);
-		
-		queue = new LinkedBlockingQueue<>(capacity);
+
+		Args.withinRange(1, Integer.MAX_VALUE, workers, "workers");
+
+		queues = new ArrayList<>(workers);
 		queueMap = new ConcurrentHashMap<>();
+		pageSavingThreads = new ArrayList<>(workers);
 
-		PageAddingRunnable savingRunnable = new PageAddingRunnable(delegate, queue, queueMap);
-		pageSavingThread = new Thread(savingRunnable, "Wicket-AsyncPageStore-PageSavingThread");
-		pageSavingThread.setDaemon(true);
-		pageSavingThread.start();
+		for (int w = 0; w < workers; w++)
+		{
+			BlockingQueue<PendingAdd> queue = new LinkedBlockingQueue<>(Math.max(1, capacity / workers));
+			queues.add(queue);
+
+			PageAddingRunnable savingRunnable = new PageAddingRunnable(delegate, queue, queueMap, metrics);
+			String name = "Wicket-AsyncPageStore-PageSavingThread";
+			if (workers > 1)
+			{
+				name += "-" + w;
+			}
+			Thread pageSavingThread = new Thread(savingRunnable, name);
+			pageSavingThread.setDaemon(true);
+			pageSavingThread.start();
+			pageSavingThreads.add(pageSavingThread);
+		}
+	}
+
+	/**
+	 * Get the queue for the given session.
+	 */
+	private BlockingQueue<PendingAdd> getQueue(String sessionId)
+	{
+		return queues.get(Math.floorMod(sessionId.hashCode(), queues.size()));
+	}
+
+	/**
+	 * @return count of adds currently waiting in all queues
+	 */
+	public int getQueueSize()
+	{
+		int size = 0;
+		for (BlockingQueue<PendingAdd> queue : queues)
+		{
+			size += queue.size();
+		}
+		return size;
+	}
+
+	/**
+	 * @return the metrics of this store
+	 */
+	public Metrics getMetrics()
+	{
+		return metrics;
 	}
 
 	/**
@@ -259,12 +329,15 @@ public class AsynchronousPageStore extends DelegatingPageStore
 
 		private final IPageStore delegate;
 
+		private final Metrics metrics;
+
 		private PageAddingRunnable(IPageStore delegate, BlockingQueue<PendingAdd> queue,
-		                           ConcurrentMap<String, PendingAdd> map)
+		                           ConcurrentMap<String, PendingAdd> map, Metrics metrics)
 		{
 			this.delegate = delegate;
 			this.queue = queue;
 			this.map = map;
+			this.metrics = metrics;
 		}
 
 		@Override
@@ -285,40 +358,130 @@ public class AsynchronousPageStore extends DelegatingPageStore
 
 				if (add != null)
 				{
-					try
-					{
-						log.debug("Saving asynchronously: {}...", add);
-						add.asynchronous = true;
-						delegate.addPage(add, add.page);
-					}
-					catch (Exception x)
-					{
-						log.error("An error occurred while saving asynchronously '{}'", add, x);
-					}
-					finally
+					metrics.batches.incrementAndGet();
+
+					// save all pending without blocking, taking one by one to keep the capacity
+					// of the queue
+					do
 					{
-						map.remove(add.getKey());
+						save(add);
 					}
+					while ((add = queue.poll()) != null);
 				}
 			}
 		}
+
+		private void save(PendingAdd add)
+		{
+			if (map.get(add.getKey()) != add)
+			{
+				// superseded by a later add or removed meanwhile
+				log.debug("Skipping superseded: {}", add);
+				metrics.skippedAdds.incrementAndGet();
+				return;
+			}
+
+			try
+			{
+				log.debug("Saving asynchronously: {}...", add);
+				add.asynchronous = true;
+				delegate.addPage(add, add.page);
+				metrics.asynchronousAdds.incrementAndGet();
+			}
+			catch (Exception x)
+			{
+				log.error("An error occurred while saving asynchronously '{}'", add, x);
+			}
+			finally
+			{
+				map.remove(add.getKey(), add);
+			}
+		}
+	}
+
+	/**
+	 * Metrics of an {@link AsynchronousPageStore}.
+	 */
+	public static class Metrics
+	{
+		private final AtomicLong batches = new AtomicLong();
+
+		private final AtomicLong asynchronousAdds = new AtomicLong();
+
+		private final AtomicLong skippedAdds = new AtomicLong();
+
+		private final AtomicLong synchronousAdds = new AtomicLong();
+
+		/**
+		 * @return count of batches saved without blocking on the queues
+		 */
+		public long getBatchCount()
+		{
+			return batches.get();
+		}
+
+		/**
+		 * @return count of adds delegated asynchronously
+		 */
+		public long getAsynchronousAddCount()
+		{
+			return asynchronousAdds.get();
+		}
+
+		/**
+		 * @return count of adds skipped because a later add of the same page superseded them
+		 */
+		public long getSkippedAddCount()
+		{
+			return skippedAdds.get();
+		}
+
+		/**
+		 * @return count of adds delegated synchronously because the queue was full
+		 */
+		public long getSynchronousAddCount()
+		{
+			return synchronousAdds.get();
+		}
+
+		/**
+		 * @return average count of adds in a batch
+		 */
+		public double getAverageBatchSize()
+		{
+			long count = batches.get();
+			return count == 0 ? 0 : (double)(asynchronousAdds.get() + skippedAdds.get()) / count;
+		}
+
+		@Override
+		public String toString()
+		{
+			return "Metrics [batches=" + batches + ", asynchronousAdds=" + asynchronousAdds +
+				", skippedAdds=" + skippedAdds + ", synchronousAdds=" + synchronousAdds + "]";
+		}
 	}
 
 	@Override
 	public void destroy()
 	{
-		if (pageSavingThread.isAlive())
+		for (Thread pageSavingThread : pageSavingThreads)
 		{
 			pageSavingThread.interrupt();
-			try
-			{
-				pageSavingThread.join();
-			}
-			catch (InterruptedException e)
+		}
+		for (Thread pageSavingThread : pageSavingThreads)
+		{
+			if (pageSavingThread.isAlive())
 			{
-				// Re-interrupt the current thread and rethrow the InterruptedException
-    	        Thread.currentThread().interrupt();
-	            throw new WicketRuntimeException("Interrupted while waiting for pageSavingThread to finish", e);
+				try
+				{
+					pageSavingThread.join();
+				}
+				catch (InterruptedException e)
+				{
+					// Re-interrupt the current thread and rethrow the InterruptedException
+					Thread.currentThread().interrupt();
+					throw new WicketRuntimeException("Interrupted while waiting for pageSavingThread to finish", e);
+				}
 			}
 		}
 
@@ -356,7 +519,7 @@ public class AsynchronousPageStore extends DelegatingPageStore
 
 		String key = getKey(sessionId, page.getPageId());
 		PendingAdd entry = queueMap.remove(key);
-		if (entry != null && !queue.remove(entry))
+		if (entry != null && !getQueue(sessionId).remove(entry))
 		{
 			log.info("Entry not in queue");
 		}
@@ -374,7 +537,7 @@ public class AsynchronousPageStore extends DelegatingPageStore
 			queueMap.put(key, add);
 			try
 			{
-				if (queue.offer(add, OFFER_WAIT, TimeUnit.MILLISECONDS))
+				if (getQueue(add.sessionId).offer(add, OFFER_WAIT, TimeUnit.MILLISECONDS))
 				{
 					log.debug("Offered for storing asynchronously page with id '{}'", page.getPageId());
 					return;
@@ -382,14 +545,15 @@ public class AsynchronousPageStore extends DelegatingPageStore
 				else
 				{
 					log.debug("Storing synchronously page with id '{}'", page.getPageId());
-					queueMap.remove(key);
+					queueMap.remove(key, add);
+					metrics.synchronousAdds.incrementAndGet();
 				}
 			}
 			catch (InterruptedException e)
 			{
 				Thread.currentThread().interrupt();
 				log.error(e.getMessage(), e);
-				queueMap.remove(key);
+				queueMap.remove(key, add);
 			}
 		}
 		else
@@ -408,9 +572,9 @@ public class AsynchronousPageStore extends DelegatingPageStore
 			return;
 		}
 
-		queue.removeIf(add -> {
+		getQueue(sessionId).removeIf(add -> {
 			if (add.sessionId.equals(sessionId)) {
-				queueMap.remove(add.getKey());
+				queueMap.remove(add.getKey(), add);
 				return true;
 			}
 			
@@ -0,0 +1,459 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.pageStore;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.wicket.WicketRuntimeException;
+import org.apache.wicket.page.IManageablePage;
+import org.apache.wicket.pageStore.compress.ICompressor;
+import org.apache.wicket.util.lang.Args;
+import org.apache.wicket.util.lang.Bytes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A store that compresses all pages before delegating and vice versa.
+ * <p>
+ * All pages passing through this store are restricted to be {@link SerializedPage}s. You can
+ * achieve this with
+ * <ul>
+ * <li>a {@link SerializingPageStore} delegating to this store and</li>
+ * <li>delegating to a store that does not deserialize its pages, e.g. a {@link DiskPageStore}.</li>
+ * </ul>
+ * When placed after an {@link AsynchronousPageStore}, compression takes place on the page saving
+ * thread instead of the request thread. When used together with a {@link CryptingPageStore}, this
+ * store has to delegate to the latter, since encrypted pages cannot be compressed.
+ * <p>
+ * Serialized pages of the same class are very similar. Thus the first pages of each page class are
+ * sampled to train a dictionary, which is used for compression of all further pages of that class.
+ * Each dictionary is identified by a hash of its content, thus a page is never decompressed with a
+ * dictionary other than the one it was compressed with. Note that dictionaries are held in memory
+ * only: after a restart of the application (or on another node of a cluster) pages compressed with
+ * a dictionary can be read only if an identical dictionary was trained again, otherwise they are
+ * treated as missing.
+ */
+public class CompressingPageStore extends DelegatingPageStore
+{
+	private static final Logger log = LoggerFactory.getLogger(CompressingPageStore.class);
+
+	/**
+	 * Default count of pages sampled for a dictionary.
+	 */
+	public static final int DEFAULT_SAMPLES = 8;
+
+	/**
+	 * Default maximum size of a dictionary.
+	 */
+	public static final Bytes DEFAULT_MAX_DICTIONARY_SIZE = Bytes.kilobytes(32);
+
+	/**
+	 * Marker for uncompressed data.
+	 */
+	private static final byte PLAIN = 0;
+
+	/**
+	 * Marker for data compressed without dictionary, followed by a zero byte.
+	 */
+	private static final byte COMPRESSED = 1;
+
+	/**
+	 * Marker for data compressed with a dictionary, followed by the identifier of the dictionary.
+	 */
+	private static final byte COMPRESSED_WITH_DICTIONARY = 2;
+
+	/**
+	 * Length of the header of data compressed with a dictionary.
+	 */
+	private static final int HEADER = 1 + Long.BYTES;
+
+	/**
+	 * Identifier for compression without dictionary.
+	 */
+	private static final long NO_DICTIONARY = 0;
+
+	/**
+	 * Length of segments of samples to put into a dictionary.
+	 */
+	private static final int SEGMENT = 16;
+
+	private final ICompressor compressor;
+
+	private final int samples;
+
+	private final int maxDictionarySize;
+
+	private final ConcurrentMap<String, Training> trainings = new ConcurrentHashMap<>();
+
+	private final ConcurrentMap<Long, byte[]> dictionaries = new ConcurrentHashMap<>();
+
+	/**
+	 * Compress with dictionaries trained from {@value #DEFAULT_SAMPLES} pages.
+	 * 
+	 * @param delegate
+	 *            store to delegate to
+	 * @param compressor
+	 *            the compressor
+	 */
+	public CompressingPageStore(IPageStore delegate, ICompressor compressor)
+	{
+		this(delegate, compressor, DEFAULT_SAMPLES, DEFAULT_MAX_DICTIONARY_SIZE);
+	}
+
+	/**
+	 * @param delegate
+	 *            store to delegate to
+	 * @param compressor
+	 *            the compressor
+	 * @param samples
+	 *            count of pages of each class to sample for a dictionary, {@code 0} for no
+	 *            dictionaries
+	 * @param maxDictionarySize
+	 *            maximum size of a dictionary
+	 */
+	public CompressingPageStore(IPageStore delegate, ICompressor compressor, int samples,
+		Bytes maxDictionarySize)
+	{
+		super(delegate);
+
+		this.compressor = Args.notNull(compressor, "compressor");
+		this.samples = Args.withinRange(0, Integer.MAX_VALUE, samples, "samples");
+		this.maxDictionarySize = (int)Math.min(Integer.MAX_VALUE,
+			Args.notNull(maxDictionarySize, "maxDictionarySize").bytes());
+	}
+
+	/**
+	 * Pages are always serialized, so versioning is supported.
+	 */
+	@Override
+	public boolean supportsVersioning()
+	{
+		return true;
+	}
+
+	/**
+	 * Supports asynchronous add if the delegate supports it.
+	 */
+	@Override
+	public boolean canBeAsynchronous(IPageContext context)
+	{
+		return getDelegate().canBeAsynchronous(context);
+	}
+
+	@Override
+	public IManageablePage getPage(IPageContext context, int id)
+	{
+		IManageablePage page = getDelegate().getPage(context, id);
+
+		if (page != null)
+		{
+			if (!(page instanceof SerializedPage))
+			{
+				throw new WicketRuntimeException("CompressingPageStore expects serialized pages");
+			}
+			SerializedPage serializedPage = (SerializedPage)page;
+
+			byte[] data = decompress(serializedPage.getData());
+			if (data == null)
+			{
+				return null;
+			}
+
+			page = new SerializedPage(page.getPageId(), serializedPage.getPageType(), data);
+		}
+
+		return page;
+	}
+
+	@Override
+	public void addPage(IPageContext context, IManageablePage page)
+	{
+		if (!(page instanceof SerializedPage))
+		{
+			throw new WicketRuntimeException("CompressingPageStore works with serialized pages only");
+		}
+		SerializedPage serializedPage = (SerializedPage)page;
+
+		byte[] data = compress(serializedPage.getPageType(), serializedPage.getData());
+
+		page = new SerializedPage(page.getPageId(), serializedPage.getPageType(), data);
+
+		getDelegate().addPage(context, page);
+	}
+
+	private byte[] compress(String pageType, byte[] data)
+	{
+		long dictionaryId = NO_DICTIONARY;
+		if (samples > 0 && pageType != null)
+		{
+			dictionaryId = trainings.computeIfAbsent(pageType, key -> new Training()).sample(data);
+		}
+
+		byte[] compressed = compressor.compress(data,
+			dictionaryId == NO_DICTIONARY ? null : dictionaries.get(dictionaryId));
+
+		ByteArrayOutputStream out;
+		if (compressed.length + HEADER < data.length)
+		{
+			out = new ByteArrayOutputStream(compressed.length + HEADER);
+			if (dictionaryId == NO_DICTIONARY)
+			{
+				out.write(COMPRESSED);
+				out.write(0);
+			}
+			else
+			{
+				out.write(COMPRESSED_WITH_DICTIONARY);
+				out.write(ByteBuffer.allocate(Long.BYTES).putLong(dictionaryId).array(), 0,
+					Long.BYTES);
+			}
+			out.write(compressed, 0, compressed.length);
+		}
+		else
+		{
+			out = new ByteArrayOutputStream(data.length + 1);
+			out.write(PLAIN);
+			out.write(data, 0, data.length);
+		}
+		return out.toByteArray();
+	}
+
+	private byte[] decompress(byte[] data)
+	{
+		if (data.length == 0)
+		{
+			throw new WicketRuntimeException("Malformed compressed page");
+		}
+
+		if (data[0] == PLAIN)
+		{
+			return Arrays.copyOfRange(data, 1, data.length);
+		}
+
+		int offset;
+		byte[] dictionary = null;
+		if (data[0] == COMPRESSED_WITH_DICTIONARY)
+		{
+			if (data.length < HEADER)
+			{
+				throw new WicketRuntimeException("Malformed compressed page");
+			}
+
+			long dictionaryId = ByteBuffer.wrap(data, 1, Long.BYTES).getLong();
+			dictionary = dictionaries.get(dictionaryId);
+			if (dictionary == null)
+			{
+				log.warn("Page compressed with unknown dictionary {}",
+					Long.toHexString(dictionaryId));
+				return null;
+			}
+			offset = HEADER;
+		}
+		else if (data[0] == COMPRESSED && data.length > 1 && data[1] == 0)
+		{
+			offset = 2;
+		}
+		else
+		{
+			throw new WicketRuntimeException("Malformed compressed page");
+		}
+
+		return compressor.decompress(Arrays.copyOfRange(data, offset, data.length), dictionary);
+	}
+
+	/**
+	 * Identify a dictionary by a hash of its content, so identifiers do not collide across
+	 * restarts or nodes of a cluster.
+	 * 
+	 * @param dictionary
+	 *            dictionary
+	 * @return identifier, never {@value #NO_DICTIONARY}
+	 */
+	private static long identify(byte[] dictionary)
+	{
+		try
+		{
+			byte[] digest = MessageDigest.getInstance("SHA-256").digest(dictionary);
+			long id = ByteBuffer.wrap(digest).getLong();
+			return id == NO_DICTIONARY ? 1 : id;
+		}
+		catch (NoSuchAlgorithmException e)
+		{
+			throw new WicketRuntimeException(e);
+		}
+	}
+
+	/**
+	 * Train a dictionary from the given samples.
+	 * <p>
+	 * The default implementation collects segments of the samples contained in other samples too.
+	 * The most common segments are put at the end of the dictionary, where they are most
+	 * efficiently referenced by compressors.
+	 * 
+	 * @param samples
+	 *            sampled pages of a single class
+	 * @return dictionary, may be empty
+	 */
+	protected byte[] trainDictionary(List<byte[]> samples)
+	{
+		// sorted hashes of segments at all positions of each sample
+		List<long[]> contained = new ArrayList<>();
+		for (byte[] sample : samples)
+		{
+			long[] hashes = new long[Math.max(0, sample.length - SEGMENT + 1)];
+			for (int p = 0; p < hashes.length; p++)
+			{
+				hashes[p] = hash(sample, p);
+			}
+			Arrays.sort(hashes);
+			contained.add(hashes);
+		}
+
+		// aligned segments of each sample, scored by the count of samples containing it
+		Map<Long, Segment> segments = new LinkedHashMap<>();
+		for (byte[] sample : samples)
+		{
+			for (int p = 0; p + SEGMENT <= sample.length; p += SEGMENT)
+			{
+				long hash = hash(sample, p);
+				if (segments.containsKey(hash))
+				{
+					continue;
+				}
+
+				int score = 0;
+				for (long[] hashes : contained)
+				{
+					if (Arrays.binarySearch(hashes, hash) >= 0)
+					{
+						score++;
+					}
+				}
+				if (score > 1)
+				{
+					segments.put(hash, new Segment(sample, p, score, segments.size()));
+				}
+			}
+		}
+
+		List<Segment> sorted = new ArrayList<>(segments.values());
+		sorted.sort(Comparator.comparingInt((Segment segment) -> segment.score)
+			.thenComparingInt(segment -> segment.order));
+
+		int count = Math.min(maxDictionarySize / SEGMENT, sorted.size());
+		byte[] dictionary = new byte[count * SEGMENT];
+		for (int i = 0; i < count; i++)
+		{
+			Segment segment = sorted.get(sorted.size() - 1 - i);
+			System.arraycopy(segment.sample, segment.offset, dictionary,
+				dictionary.length - (i + 1) * SEGMENT, SEGMENT);
+		}
+		return dictionary;
+	}
+
+	private static long hash(byte[] bytes, int offset)
+	{
+		long hash = 0;
+		for (int i = 0; i < SEGMENT; i++)
+		{
+			hash = hash * 1099511628211L + bytes[offset + i];
+		}
+		return hash;
+	}
+
+	/**
+	 * Training of a dictionary for a single page class.
+	 */
+	private class Training
+	{
+		private final List<byte[]> sampled = new ArrayList<>();
+
+		private long dictionaryId = NO_DICTIONARY;
+
+		private volatile boolean trained;
+
+		/**
+		 * Sample the given data if no dictionary is trained yet.
+		 * 
+		 * @return identifier of the dictionary to use
+		 */
+		long sample(byte[] data)
+		{
+			if (trained)
+			{
+				return dictionaryId;
+			}
+
+			synchronized (this)
+			{
+				if (trained)
+				{
+					return dictionaryId;
+				}
+
+				sampled.add(data);
+				if (sampled.size() < samples)
+				{
+					return NO_DICTIONARY;
+				}
+
+				long id = NO_DICTIONARY;
+				byte[] dictionary = trainDictionary(sampled);
+				if (dictionary.length > 0)
+				{
+					id = identify(dictionary);
+					dictionaries.put(id, dictionary);
+				}
+				sampled.clear();
+
+				dictionaryId = id;
+				trained = true;
+				return id;
+			}
+		}
+	}
+
+	private static class Segment
+	{
+		private final byte[] sample;
+
+		private final int offset;
+
+		private final int score;
+
+		private final int order;
+
+		Segment(byte[] sample, int offset, int score, int order)
+		{
+			this.sample = sample;
+			this.offset = offset;
+			this.score = score;
+			this.order = order;
+		}
+	}
+}
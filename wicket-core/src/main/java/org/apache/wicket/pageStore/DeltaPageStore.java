@@ -0,0 +1,477 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.pageStore;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+import org.apache.wicket.WicketRuntimeException;
+import org.apache.wicket.page.IManageablePage;
+import org.apache.wicket.util.lang.Args;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A store that delegates the differences between consecutive versions of a page only.
+ * <p>
+ * Ajax requests do not change the id of a page, thus each of them results in a new
+ * {@link SerializedPage} for the same page id, usually differing in a few bytes only. This store
+ * keeps the first version of a page as a <em>base</em> and delegates each following version as a
+ * binary delta to this base, reconstructing the page when it is requested. When a delta exceeds a
+ * configurable ratio of the page's size, the current version becomes the new base.
+ * <p>
+ * The base is delegated under a negative page id derived from the page's id (see
+ * {@link #getBaseId(int)}), thus it will show up in {@link IPersistentPageStore#getPersistedPages(String)}.
+ * If the delegate evicts a base while the delta is still present, the page is no longer available.
+ * <p>
+ * All pages passing through this store are restricted to be {@link SerializedPage}s. You can
+ * achieve this with a {@link SerializingPageStore} delegating to this store.
+ */
+public class DeltaPageStore extends DelegatingPageStore
+{
+	private static final Logger log = LoggerFactory.getLogger(DeltaPageStore.class);
+
+	/**
+	 * Page data is stored as is.
+	 */
+	private static final byte FULL = 0;
+
+	/**
+	 * Page data is stored as delta to its base.
+	 */
+	private static final byte DELTA = 1;
+
+	private static final byte COPY = 1;
+
+	private static final byte INSERT = 2;
+
+	/**
+	 * Size of blocks to find in a base.
+	 */
+	private static final int BLOCK_SIZE = 16;
+
+	/**
+	 * Pages smaller than this size are never delta-encoded.
+	 */
+	private static final int MIN_DELTA_SIZE = 256;
+
+	/**
+	 * Multiplier of the rolling hash.
+	 */
+	private static final int PRIME = 31;
+
+	/**
+	 * {@code PRIME^(BLOCK_SIZE - 1)} to remove the leading byte from a rolling hash.
+	 */
+	private static final int LEADING;
+
+	static
+	{
+		int leading = 1;
+		for (int i = 1; i < BLOCK_SIZE; i++)
+		{
+			leading *= PRIME;
+		}
+		LEADING = leading;
+	}
+
+	private final float maxDeltaRatio;
+
+	/**
+	 * Rebase when a delta exceeds half of the page's size.
+	 *
+	 * @param delegate
+	 *            store to delegate to
+	 */
+	public DeltaPageStore(IPageStore delegate)
+	{
+		this(delegate, 0.5f);
+	}
+
+	/**
+	 * @param delegate
+	 *            store to delegate to
+	 * @param maxDeltaRatio
+	 *            maximum ratio of delta size to page size, before the page becomes the new base
+	 */
+	public DeltaPageStore(IPageStore delegate, float maxDeltaRatio)
+	{
+		super(delegate);
+
+		this.maxDeltaRatio = Args.withinRange(0f, 1f, maxDeltaRatio, "maxDeltaRatio");
+	}
+
+	/**
+	 * Supports asynchronous add if the delegate supports it.
+	 */
+	@Override
+	public boolean canBeAsynchronous(IPageContext context)
+	{
+		return getDelegate().canBeAsynchronous(context);
+	}
+
+	/**
+	 * Get the id under which the base of a page is delegated.
+	 * <p>
+	 * Page ids are non-negative, so the base ids never collide with them - -1 is skipped, since
+	 * some stores use it as a marker.
+	 *
+	 * @param pageId
+	 *            id of page
+	 * @return id of base
+	 */
+	protected int getBaseId(int pageId)
+	{
+		return -pageId - 2;
+	}
+
+	@Override
+	public IManageablePage getPage(IPageContext context, int id)
+	{
+		SerializedPage page = getSerializedPage(context, id);
+		if (page == null || page.getData().length == 0)
+		{
+			return page;
+		}
+
+		byte[] data = page.getData();
+		if (data[0] == FULL)
+		{
+			return new SerializedPage(id, page.getPageType(), Arrays.copyOfRange(data, 1, data.length));
+		}
+
+		byte[] base = getBase(context, id);
+		if (base == null)
+		{
+			log.debug("Base of page with id '{}' is no longer available", id);
+			return null;
+		}
+
+		byte[] decoded = decode(base, data);
+		if (decoded == null)
+		{
+			log.warn("Base of page with id '{}' does not match its delta", id);
+			return null;
+		}
+		return new SerializedPage(id, page.getPageType(), decoded);
+	}
+
+	private SerializedPage getSerializedPage(IPageContext context, int id)
+	{
+		IManageablePage page = getDelegate().getPage(context, id);
+		if (page != null && !(page instanceof SerializedPage))
+		{
+			throw new WicketRuntimeException("DeltaPageStore expects serialized pages");
+		}
+		return (SerializedPage)page;
+	}
+
+	/**
+	 * Get the base of the given page.
+	 * 
+	 * @return base data including its header or <code>null</code>
+	 */
+	private byte[] getBase(IPageContext context, int id)
+	{
+		SerializedPage base = getSerializedPage(context, getBaseId(id));
+		if (base == null || base.getData().length == 0 || base.getData()[0] != FULL)
+		{
+			return null;
+		}
+		return base.getData();
+	}
+
+	@Override
+	public void addPage(IPageContext context, IManageablePage page)
+	{
+		if (!(page instanceof SerializedPage))
+		{
+			throw new WicketRuntimeException("DeltaPageStore works with serialized pages only");
+		}
+		SerializedPage serializedPage = (SerializedPage)page;
+
+		int id = page.getPageId();
+		String type = serializedPage.getPageType();
+		byte[] data = serializedPage.getData();
+
+		if (data.length < MIN_DELTA_SIZE)
+		{
+			getDelegate().addPage(context, new SerializedPage(id, type, full(data)));
+			return;
+		}
+
+		byte[] base = getBase(context, id);
+		if (base != null)
+		{
+			byte[] delta = encode(base, data);
+			if (delta.length <= data.length * maxDeltaRatio)
+			{
+				getDelegate().addPage(context, new SerializedPage(id, type, delta));
+				return;
+			}
+		}
+
+		// (re)base
+		byte[] full = full(data);
+		getDelegate().addPage(context, new SerializedPage(getBaseId(id), type, full));
+		getDelegate().addPage(context, new SerializedPage(id, type, encode(full, data)));
+	}
+
+	@Override
+	public void removePage(IPageContext context, IManageablePage page)
+	{
+		super.removePage(context, page);
+
+		getDelegate().removePage(context, new SerializedPage(getBaseId(page.getPageId()), new byte[0]));
+	}
+
+	private static byte[] full(byte[] data)
+	{
+		byte[] full = new byte[data.length + 1];
+		full[0] = FULL;
+		System.arraycopy(data, 0, full, 1, data.length);
+		return full;
+	}
+
+	/**
+	 * Encode data as a delta to a base.
+	 *
+	 * @param base
+	 *            base including its header
+	 * @param data
+	 *            data to encode
+	 * @return delta including header
+	 */
+	static byte[] encode(byte[] base, byte[] data)
+	{
+		DeltaOutputStream out = new DeltaOutputStream(data.length / 8);
+		out.write(DELTA);
+		out.writeVarInt(base.length);
+		out.writeVarInt((int)checksum(base));
+		out.writeVarInt(data.length);
+
+		// index blocks of base, skipping the header
+		int blocks = (base.length - 1) / BLOCK_SIZE;
+		int[] table = new int[Integer.highestOneBit(Math.max(blocks, 1) * 2) * 2];
+		int mask = table.length - 1;
+		Arrays.fill(table, -1);
+		for (int b = blocks - 1; b >= 0; b--)
+		{
+			int offset = 1 + b * BLOCK_SIZE;
+			table[mix(hash(base, offset)) & mask] = offset;
+		}
+
+		int literal = 0;
+		int i = 0;
+		int hash = data.length >= BLOCK_SIZE ? hash(data, 0) : 0;
+		while (i + BLOCK_SIZE <= data.length)
+		{
+			int candidate = table[mix(hash) & mask];
+			if (candidate != -1 && equal(base, candidate, data, i, BLOCK_SIZE))
+			{
+				// extend match backwards into pending literal
+				int start = i;
+				int baseStart = candidate;
+				while (start > literal && baseStart > 1 && base[baseStart - 1] == data[start - 1])
+				{
+					start--;
+					baseStart--;
+				}
+
+				// extend match forwards
+				int end = i + BLOCK_SIZE;
+				int baseEnd = candidate + BLOCK_SIZE;
+				while (end < data.length && baseEnd < base.length && base[baseEnd] == data[end])
+				{
+					end++;
+					baseEnd++;
+				}
+
+				out.insert(data, literal, start - literal);
+				out.copy(baseStart - 1, end - start);
+
+				i = end;
+				literal = end;
+				if (i + BLOCK_SIZE <= data.length)
+				{
+					hash = hash(data, i);
+				}
+			}
+			else
+			{
+				if (i + BLOCK_SIZE < data.length)
+				{
+					hash = roll(hash, data[i], data[i + BLOCK_SIZE]);
+				}
+				i++;
+			}
+		}
+		out.insert(data, literal, data.length - literal);
+
+		return out.toByteArray();
+	}
+
+	/**
+	 * Decode a delta.
+	 *
+	 * @param base
+	 *            base including its header
+	 * @param delta
+	 *            delta including its header
+	 * @return decoded data or <code>null</code> if the base does not match
+	 */
+	static byte[] decode(byte[] base, byte[] delta)
+	{
+		DeltaInput in = new DeltaInput(delta);
+		in.read();
+
+		int baseLength = in.readVarInt();
+		int checksum = in.readVarInt();
+		if (baseLength != base.length || checksum != (int)checksum(base))
+		{
+			return null;
+		}
+
+		byte[] data = new byte[in.readVarInt()];
+		int position = 0;
+		while (in.position < delta.length)
+		{
+			byte op = in.read();
+			if (op == COPY)
+			{
+				int offset = in.readVarInt();
+				int length = in.readVarInt();
+				System.arraycopy(base, 1 + offset, data, position, length);
+				position += length;
+			}
+			else
+			{
+				int length = in.readVarInt();
+				System.arraycopy(delta, in.position, data, position, length);
+				in.position += length;
+				position += length;
+			}
+		}
+		return data;
+	}
+
+	private static long checksum(byte[] data)
+	{
+		CRC32 crc = new CRC32();
+		crc.update(data);
+		return crc.getValue();
+	}
+
+	private static int hash(byte[] data, int offset)
+	{
+		int hash = 0;
+		for (int i = offset; i < offset + BLOCK_SIZE; i++)
+		{
+			hash = hash * PRIME + (data[i] & 0xFF);
+		}
+		return hash;
+	}
+
+	private static int roll(int hash, byte leading, byte trailing)
+	{
+		return (hash - (leading & 0xFF) * LEADING) * PRIME + (trailing & 0xFF);
+	}
+
+	private static int mix(int hash)
+	{
+		return hash ^ (hash >>> 16);
+	}
+
+	private static boolean equal(byte[] a, int aOffset, byte[] b, int bOffset, int length)
+	{
+		return Arrays.equals(a, aOffset, aOffset + length, b, bOffset, bOffset + length);
+	}
+
+	/**
+	 * Output of a delta.
+	 */
+	private static class DeltaOutputStream extends ByteArrayOutputStream
+	{
+		DeltaOutputStream(int size)
+		{
+			super(Math.max(size, 32));
+		}
+
+		void insert(byte[] data, int offset, int length)
+		{
+			if (length > 0)
+			{
+				write(INSERT);
+				writeVarInt(length);
+				write(data, offset, length);
+			}
+		}
+
+		void copy(int offset, int length)
+		{
+			write(COPY);
+			writeVarInt(offset);
+			writeVarInt(length);
+		}
+
+		void writeVarInt(int value)
+		{
+			while ((value & ~0x7F) != 0)
+			{
+				write((value & 0x7F) | 0x80);
+				value >>>= 7;
+			}
+			write(value);
+		}
+	}
+
+	/**
+	 * Input of a delta.
+	 */
+	private static class DeltaInput
+	{
+		private final byte[] data;
+
+		private int position;
+
+		DeltaInput(byte[] data)
+		{
+			this.data = data;
+		}
+
+		byte read()
+		{
+			return data[position++];
+		}
+
+		int readVarInt()
+		{
+			int value = 0;
+			for (int shift = 0; shift < 32; shift += 7)
+			{
+				int b = data[position++] & 0xFF;
+				value |= (b & 0x7F) << shift;
+				if ((b & 0x80) == 0)
+				{
+					break;
+				}
+			}
+			return value;
+		}
+	}
+}
@@ -219,11 +219,22 @@ public class DiskPageStore extends AbstractPersistentPageStore implements IPersi
 			return diskDatas.get(sessionIdentifier);
 		}
 
-		DiskData data = new DiskData(this, sessionIdentifier);
+		DiskData data = newDiskData(sessionIdentifier);
 		DiskData existing = diskDatas.putIfAbsent(sessionIdentifier, data);
 		return existing != null ? existing : data;
 	}
 
+	/**
+	 * Create the data on disk for the given session identifier.
+	 * 
+	 * @param sessionIdentifier identifier of session
+	 * @return data
+	 */
+	protected DiskData newDiskData(String sessionIdentifier)
+	{
+		return new DiskData(this, sessionIdentifier);
+	}
+
 	/**
 	 * Load the index
 	 */
@@ -362,7 +373,18 @@ public class DiskPageStore extends AbstractPersistentPageStore implements IPersi
 			return manager;
 		}
 
-		private String getFileName()
+		/**
+		 * @return the store this data belongs to
+		 */
+		protected DiskPageStore getPageStore()
+		{
+			return pageStore;
+		}
+
+		/**
+		 * @return absolute name of the file holding the data
+		 */
+		protected String getFileName()
 		{
 			if (fileName == null)
 			{
@@ -27,10 +27,16 @@ import java.nio.file.StandardOpenOption;
 import java.nio.file.attribute.UserDefinedFileAttributeView;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.wicket.WicketRuntimeException;
 import org.apache.wicket.page.IManageablePage;
@@ -50,6 +56,10 @@ import org.slf4j.LoggerFactory;
  * While {@link DiskPageStore} uses a single file per session, this implementation stores each page
  * in its own file. This improves on a {@link DiskPageStore disadvantage of DiskPageStore} surfacing
  * with alternating Ajax requests from different browser tabs.  
+ * <p>
+ * Size and type of all pages are kept in an index in memory, ordered by their modification, so the
+ * files of a session do not have to be listed on each access. The index of each session is built
+ * from its folder when it is accessed for the first time, e.g. after a restart of the application.
  */
 public class FilePageStore extends AbstractPersistentPageStore implements IPersistentPageStore
 {
@@ -63,6 +73,21 @@ public class FilePageStore extends AbstractPersistentPageStore implements IPersi
 
 	private final NestedFolders folders;
 
+	/**
+	 * Index of pages for each session folder, loaded lazily.
+	 */
+	private final ConcurrentMap<File, SessionIndex> indices = new ConcurrentHashMap<>();
+
+	/**
+	 * Total size of all indexed sessions.
+	 */
+	private final AtomicLong totalSize = new AtomicLong();
+
+	/**
+	 * Have all sessions been indexed.
+	 */
+	private volatile boolean indexed;
+
 	/**
 	 * Create a store that supports {@link SerializedPage}s only.
 	 * 
@@ -102,6 +127,13 @@ public class FilePageStore extends AbstractPersistentPageStore implements IPersi
 	@Override
 	protected IManageablePage getPersistedPage(String sessionIdentifier, int id)
 	{
+		SessionIndex index = getIndex(sessionIdentifier, false);
+		IndexedPage indexedPage = index == null ? null : index.get(id);
+		if (indexedPage == null)
+		{
+			return null;
+		}
+
 		File file = getPageFile(sessionIdentifier, id, false);
 		if (!(file.exists()))
 		{
@@ -119,7 +151,9 @@ public class FilePageStore extends AbstractPersistentPageStore implements IPersi
 			return null;
 		}
 
-		return new SerializedPage(id, "unknown", data);
+		String pageType = indexedPage.pageType == null ? "unknown" : indexedPage.pageType;
+
+		return new SerializedPage(id, pageType, data);
 	}
 
 	/**
@@ -154,6 +188,12 @@ public class FilePageStore extends AbstractPersistentPageStore implements IPersi
 	@Override
 	protected void removePersistedPage(String sessionIdentifier, IManageablePage page)
 	{
+		SessionIndex index = getIndex(sessionIdentifier, false);
+		if (index != null)
+		{
+			index.remove(page.getPageId());
+		}
+
 		File file = getPageFile(sessionIdentifier, page.getPageId(), false);
 		if (file.exists() && !file.delete())
 		{
@@ -164,6 +204,12 @@ public class FilePageStore extends AbstractPersistentPageStore implements IPersi
 	@Override
 	protected void removeAllPersistedPages(String sessionIdentifier)
 	{
+		SessionIndex index = indices.remove(folders.get(sessionIdentifier, false));
+		if (index != null)
+		{
+			index.clear();
+		}
+
 		folders.remove(sessionIdentifier);
 	}
 
@@ -187,11 +233,16 @@ public class FilePageStore extends AbstractPersistentPageStore implements IPersi
 		{
 			log.warn("cannot store page data for session {} page {}", sessionIdentifier,
 				serializedPage.getPageId(), ex);
+			return;
 		}
 
 		setPageType(file, serializedPage.getPageType());
 
-		checkMaxSize(sessionIdentifier);
+		SessionIndex index = getIndex(sessionIdentifier, true);
+		index.put(new IndexedPage(serializedPage.getPageId(), serializedPage.getPageType(),
+			data.length));
+
+		checkMaxSize(sessionIdentifier, index);
 	}
 
 	/**
@@ -224,21 +275,71 @@ public class FilePageStore extends AbstractPersistentPageStore implements IPersi
 		}
 	}
 
-	private void checkMaxSize(String sessionIdentifier)
+	private void checkMaxSize(String sessionIdentifier, SessionIndex index)
 	{
-		File[] files = folders.get(sessionIdentifier, true).listFiles();
-		Arrays.sort(files, new LastModifiedComparator());
+		for (IndexedPage evicted : index.evict(maxSizePerSession.bytes()))
+		{
+			File candidate = getPageFile(sessionIdentifier, evicted.pageId, false);
+			if (!Files.remove(candidate))
+			{
+				log.warn("cannot remove page data for session {} page {}", sessionIdentifier, candidate.getName());
+			}
+		}
+	}
 
-		long total = 0;
-		for (File candidate : files)
+	/**
+	 * Get the index of a session, loading it from its folder if not already present.
+	 * <p>
+	 * Indices are kept by folder, since a folder name does not necessarily reveal the identifier
+	 * of its session.
+	 * 
+	 * @param create
+	 *            whether to create an index even if the session has no folder
+	 * @return index, may be {@code null} if not created
+	 */
+	private SessionIndex getIndex(String sessionIdentifier, boolean create)
+	{
+		File folder = folders.get(sessionIdentifier, false);
+
+		SessionIndex index = indices.get(folder);
+		if (index == null && (create || folder.exists()))
 		{
-			total += candidate.length();
+			index = indices.computeIfAbsent(folder, this::loadIndex);
+		}
+		return index;
+	}
 
-			if (total > maxSizePerSession.bytes() && !Files.remove(candidate))
+	private SessionIndex loadIndex(File folder)
+	{
+		SessionIndex index = new SessionIndex();
+
+		File[] files = folder.listFiles();
+		if (files != null)
+		{
+			// eldest first
+			Arrays.sort(files, Collections.reverseOrder(new LastModifiedComparator()));
+			for (File file : files)
 			{
-				log.warn("cannot remove page data for session {} page {}", sessionIdentifier, candidate.getName());
+				String name = file.getName();
+				if (name.endsWith(FILE_SUFFIX))
+				{
+					int pageId;
+					try
+					{
+						pageId = Integer.parseInt(name.substring(0, name.length() - FILE_SUFFIX.length()), 10);
+					}
+					catch (Exception ex)
+					{
+						log.debug("unexpected file {}", file.getAbsolutePath());
+						continue;
+					}
+
+					index.put(new IndexedPage(pageId, getPageType(file), file.length()));
+				}
 			}
 		}
+
+		return index;
 	}
 
 	public static class LastModifiedComparator implements Comparator<File>
@@ -268,31 +369,12 @@ public class FilePageStore extends AbstractPersistentPageStore implements IPersi
 	{
 		List<IPersistedPage> pages = new ArrayList<>();
 
-		File folder = folders.get(sessionIdentifier, false);
-		if (folder.exists())
+		SessionIndex index = getIndex(sessionIdentifier, false);
+		if (index != null)
 		{
-			File[] files = folder.listFiles();
-			Arrays.sort(files, new LastModifiedComparator());
-			for (File file : files)
+			for (IndexedPage page : index.getAll())
 			{
-				String name = file.getName();
-				if (name.endsWith(FILE_SUFFIX))
-				{
-					int pageId;
-					try
-					{
-						pageId = Integer.parseInt(name.substring(0, name.length() - FILE_SUFFIX.length()), 10);
-					}
-					catch (Exception ex)
-					{
-						log.debug("unexpected file {}", file.getAbsolutePath());
-						continue;
-					}
-
-					String pageType = getPageType(file);
-
-					pages.add(new PersistedPage(pageId, pageType, file.length()));
-				}
+				pages.add(new PersistedPage(page.pageId, page.pageType, page.size));
 			}
 		}
 
@@ -358,20 +440,119 @@ public class FilePageStore extends AbstractPersistentPageStore implements IPersi
 	@Override
 	public Bytes getTotalSize()
 	{
-		long total = 0;
+		if (!indexed)
+		{
+			for (File folder : folders.getAll())
+			{
+				indices.computeIfAbsent(folder, this::loadIndex);
+			}
+			indexed = true;
+		}
 
-		for (File folder : folders.getAll())
+		return Bytes.bytes(totalSize.get());
+	}
+
+	@Override
+	public void destroy()
+	{
+		indices.clear();
+
+		super.destroy();
+	}
+
+	/**
+	 * A page in the index.
+	 */
+	private static class IndexedPage
+	{
+		private final int pageId;
+
+		private final String pageType;
+
+		private final long size;
+
+		IndexedPage(int pageId, String pageType, long size)
 		{
-			for (File file : folder.listFiles())
+			this.pageId = pageId;
+			this.pageType = pageType;
+			this.size = size;
+		}
+	}
+
+	/**
+	 * The pages of a single session, in order of their modification.
+	 */
+	private class SessionIndex
+	{
+		private final LinkedHashMap<Integer, IndexedPage> pages = new LinkedHashMap<>();
+
+		private long size;
+
+		synchronized IndexedPage get(int pageId)
+		{
+			return pages.get(pageId);
+		}
+
+		synchronized void put(IndexedPage page)
+		{
+			// move to end
+			remove(page.pageId);
+
+			pages.put(page.pageId, page);
+			add(page.size);
+		}
+
+		synchronized void remove(int pageId)
+		{
+			IndexedPage page = pages.remove(pageId);
+			if (page != null)
 			{
-				String name = file.getName();
-				if (name.endsWith(FILE_SUFFIX))
-				{
-					total += file.length();
-				}
+				add(-page.size);
 			}
 		}
 
-		return Bytes.bytes(total);
+		synchronized void clear()
+		{
+			pages.clear();
+			add(-size);
+		}
+
+		/**
+		 * Evict the eldest pages until the given size is no longer exceeded.
+		 * 
+		 * @return evicted pages
+		 */
+		synchronized List<IndexedPage> evict(long maxSize)
+		{
+			List<IndexedPage> evicted = new ArrayList<>();
+
+			Iterator<IndexedPage> iterator = pages.values().iterator();
+			while (size > maxSize && iterator.hasNext())
+			{
+				IndexedPage page = iterator.next();
+				iterator.remove();
+				add(-page.size);
+
+				evicted.add(page);
+			}
+
+			return evicted;
+		}
+
+		/**
+		 * @return all pages, most recently modified first
+		 */
+		synchronized List<IndexedPage> getAll()
+		{
+			List<IndexedPage> all = new ArrayList<>(pages.values());
+			Collections.reverse(all);
+			return all;
+		}
+
+		private void add(long delta)
+		{
+			size += delta;
+			totalSize.addAndGet(delta);
+		}
 	}
 }
@@ -0,0 +1,412 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.pageStore;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.concurrent.locks.StampedLock;
+
+import org.apache.wicket.pageStore.disk.PageWindowManager;
+import org.apache.wicket.pageStore.disk.PageWindowManager.FileWindow;
+import org.apache.wicket.util.lang.Args;
+import org.apache.wicket.util.lang.Bytes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link DiskPageStore} keeping the file of each session memory-mapped.
+ * <p>
+ * The file layout is identical to {@link DiskPageStore}, but instead of opening a {@link FileChannel}
+ * for each access, pages are copied from and into a {@link MappedByteBuffer}. The mapping does not
+ * hold a file handle, so the number of open files is independent of the number of sessions.
+ * <p>
+ * Instead of synchronizing on each session's data, allocation of windows in the
+ * {@link PageWindowManager} and writing into them is guarded by a fixed set of striped locks, while
+ * pages are read optimistically without locking. Only if a concurrent write is detected, the read is
+ * repeated while holding the lock.
+ * <p>
+ * Note that mapped files cannot be deleted on some operating systems (e.g. Windows) until the
+ * mapping is garbage collected, thus removal of session data might be delayed there.
+ */
+public class MappedDiskPageStore extends DiskPageStore
+{
+	private static final Logger log = LoggerFactory.getLogger(MappedDiskPageStore.class);
+
+	/**
+	 * Default count of lock stripes.
+	 */
+	private static final int DEFAULT_STRIPES = 64;
+
+	/**
+	 * Minimal size of a mapping.
+	 */
+	private static final int MIN_MAPPING_SIZE = 64 * 1024;
+
+	private final long maxSizePerSession;
+
+	private final StampedLock[] stripes;
+
+	/**
+	 * Create a store that supports {@link SerializedPage}s only.
+	 *
+	 * @param applicationName
+	 *            name of application
+	 * @param fileStoreFolder
+	 *            folder to store to
+	 * @param maxSizePerSession
+	 *            maximum size per session
+	 *
+	 * @see SerializingPageStore
+	 */
+	public MappedDiskPageStore(String applicationName, File fileStoreFolder, Bytes maxSizePerSession)
+	{
+		this(applicationName, fileStoreFolder, maxSizePerSession, DEFAULT_STRIPES);
+	}
+
+	/**
+	 * Create a store that supports {@link SerializedPage}s only.
+	 *
+	 * @param applicationName
+	 *            name of application
+	 * @param fileStoreFolder
+	 *            folder to store to
+	 * @param maxSizePerSession
+	 *            maximum size per session
+	 * @param stripes
+	 *            count of locks to distribute sessions on, will be rounded up to a power of two
+	 *
+	 * @see SerializingPageStore
+	 */
+	public MappedDiskPageStore(String applicationName, File fileStoreFolder, Bytes maxSizePerSession,
+		int stripes)
+	{
+		super(applicationName, fileStoreFolder, maxSizePerSession);
+
+		Args.withinRange(1, 1 << 16, stripes, "stripes");
+
+		this.maxSizePerSession = maxSizePerSession.bytes();
+
+		int count = Integer.highestOneBit(stripes);
+		if (count < stripes)
+		{
+			count = count << 1;
+		}
+		this.stripes = new StampedLock[count];
+		for (int i = 0; i < count; i++)
+		{
+			this.stripes[i] = new StampedLock();
+		}
+	}
+
+	@Override
+	protected DiskData newDiskData(String sessionIdentifier)
+	{
+		return new MappedDiskData(this, sessionIdentifier, getLock(sessionIdentifier),
+			maxSizePerSession);
+	}
+
+	@Override
+	protected DiskData getDiskData(String sessionIdentifier, boolean create)
+	{
+		DiskData diskData = super.getDiskData(sessionIdentifier, create);
+		if (diskData instanceof MappedDiskData)
+		{
+			// data restored from the index is not attached yet
+			((MappedDiskData)diskData).attach(getLock(sessionIdentifier), maxSizePerSession);
+		}
+		return diskData;
+	}
+
+	/**
+	 * Get the lock guarding the data of the given session.
+	 *
+	 * @param sessionIdentifier
+	 *            identifier of session, may be <code>null</code>
+	 * @return lock
+	 */
+	private StampedLock getLock(String sessionIdentifier)
+	{
+		int hash = sessionIdentifier == null ? 0 : sessionIdentifier.hashCode();
+
+		// spread higher bits, the count of stripes is a power of two
+		hash ^= (hash >>> 16);
+
+		return stripes[hash & (stripes.length - 1)];
+	}
+
+	/**
+	 * Data held in a memory-mapped file.
+	 */
+	protected static class MappedDiskData extends DiskData
+	{
+		private static final long serialVersionUID = 1L;
+
+		private transient volatile MappedByteBuffer mapping;
+
+		private transient volatile StampedLock lock;
+
+		private transient long maxSizePerSession;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param pageStore
+		 *            store this data belongs to
+		 * @param sessionIdentifier
+		 *            identifier of session
+		 * @param lock
+		 *            lock guarding this data
+		 * @param maxSizePerSession
+		 *            maximum size of the file
+		 */
+		protected MappedDiskData(DiskPageStore pageStore, String sessionIdentifier,
+			StampedLock lock, long maxSizePerSession)
+		{
+			super(pageStore, sessionIdentifier);
+
+			attach(lock, maxSizePerSession);
+
+			// create eagerly, so optimistic reads never have to
+			getManager();
+		}
+
+		/**
+		 * Attach the transient state, needed after restoring from the index.
+		 *
+		 * @param lock
+		 *            lock guarding this data
+		 * @param maxSizePerSession
+		 *            maximum size of the file
+		 */
+		void attach(StampedLock lock, long maxSizePerSession)
+		{
+			if (this.lock == null)
+			{
+				this.maxSizePerSession = maxSizePerSession;
+				this.lock = Args.notNull(lock, "lock");
+			}
+		}
+
+		private StampedLock getLock()
+		{
+			return lock;
+		}
+
+		@Override
+		public void savePage(int pageId, String pageType, byte[] data)
+		{
+			StampedLock lock = getLock();
+			long stamp = lock.writeLock();
+			try
+			{
+				// only save page that has some data
+				if (getKey() == null || data == null)
+				{
+					return;
+				}
+
+				// allocate window for page
+				FileWindow window = getManager().createPageWindow(pageId, pageType, data.length);
+
+				MappedByteBuffer buffer = map(window.getFilePartOffset() + data.length, true);
+				if (buffer != null)
+				{
+					buffer.put(window.getFilePartOffset(), data);
+				}
+				else
+				{
+					log.warn("Cannot save page with id '{}' because the data file cannot be mapped.",
+						pageId);
+				}
+			}
+			finally
+			{
+				lock.unlockWrite(stamp);
+			}
+		}
+
+		@Override
+		public void removeData(int pageId)
+		{
+			StampedLock lock = getLock();
+			long stamp = lock.writeLock();
+			try
+			{
+				if (getKey() == null)
+				{
+					return;
+				}
+
+				getManager().removePage(pageId);
+			}
+			finally
+			{
+				lock.unlockWrite(stamp);
+			}
+		}
+
+		@Override
+		public byte[] loadPage(int id)
+		{
+			StampedLock lock = getLock();
+
+			long stamp = lock.tryOptimisticRead();
+			if (stamp != 0)
+			{
+				byte[] data = read(id);
+				if (lock.validate(stamp))
+				{
+					return data;
+				}
+			}
+
+			// concurrent write, read again while holding the lock
+			stamp = lock.readLock();
+			try
+			{
+				return read(id);
+			}
+			finally
+			{
+				lock.unlockRead(stamp);
+			}
+		}
+
+		/**
+		 * Read the data of a page - result is valid only if no write happened concurrently.
+		 *
+		 * @param id
+		 *            page id
+		 * @return page data
+		 */
+		private byte[] read(int id)
+		{
+			if (getKey() == null)
+			{
+				return new byte[0];
+			}
+
+			FileWindow window = getManager().getPageWindow(id);
+			if (window == null)
+			{
+				return new byte[0];
+			}
+
+			int offset = window.getFilePartOffset();
+			int size = window.getFilePartSize();
+			if (offset < 0 || size < 0)
+			{
+				return null;
+			}
+
+			MappedByteBuffer buffer = map(offset + size, false);
+			if (buffer == null)
+			{
+				return null;
+			}
+
+			byte[] data = new byte[size];
+			buffer.get(offset, data);
+			return data;
+		}
+
+		/**
+		 * Get a mapping of the file covering at least the given size.
+		 *
+		 * @param required
+		 *            required size
+		 * @param create
+		 *            whether the file may be created or grown
+		 * @return mapping or <code>null</code> if not available
+		 */
+		private MappedByteBuffer map(long required, boolean create)
+		{
+			MappedByteBuffer current = mapping;
+			if (current != null && current.capacity() >= required)
+			{
+				return current;
+			}
+
+			return remap(required, create);
+		}
+
+		private synchronized MappedByteBuffer remap(long required, boolean create)
+		{
+			MappedByteBuffer current = mapping;
+			if (current != null && current.capacity() >= required)
+			{
+				return current;
+			}
+
+			File file = new File(getFileName());
+			if (!create && (!file.exists() || file.length() < required))
+			{
+				return null;
+			}
+
+			try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw"))
+			{
+				FileChannel channel = randomAccessFile.getChannel();
+
+				long size = Math.max(required, channel.size());
+				if (create)
+				{
+					// grow in larger steps, but not beyond what the session may hold
+					long grown = Math.max(MIN_MAPPING_SIZE,
+						current == null ? 0 : (long)current.capacity() * 2);
+					size = Math.max(size, Math.min(grown, maxSizePerSession));
+				}
+				if (size > Integer.MAX_VALUE)
+				{
+					log.error("Cannot map more than {} bytes of file {}", Integer.MAX_VALUE, file);
+					return null;
+				}
+
+				// mapping stays valid after the channel is closed
+				current = channel.map(MapMode.READ_WRITE, 0, size);
+				mapping = current;
+				return current;
+			}
+			catch (IOException e)
+			{
+				log.error("Error mapping file " + file, e);
+				return null;
+			}
+		}
+
+		@Override
+		public void unbind()
+		{
+			StampedLock lock = getLock();
+			long stamp = lock.writeLock();
+			try
+			{
+				super.unbind();
+
+				mapping = null;
+			}
+			finally
+			{
+				lock.unlockWrite(stamp);
+			}
+		}
+	}
+}
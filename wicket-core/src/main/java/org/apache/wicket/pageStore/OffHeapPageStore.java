@@ -0,0 +1,483 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.pageStore;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import org.apache.wicket.Application;
+import org.apache.wicket.WicketRuntimeException;
+import org.apache.wicket.page.IManageablePage;
+import org.apache.wicket.util.lang.Args;
+import org.apache.wicket.util.lang.Bytes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A storage of pages in direct memory, i.e. outside of the Java heap.
+ * <p>
+ * All pages passed into this store are restricted to be {@link SerializedPage}s. You can achieve
+ * this by letting a {@link SerializingPageStore} delegate to this store.
+ * <p>
+ * In contrast to {@link InMemoryPageStore} the size of this store is limited by a single budget for
+ * all sessions: The memory is divided into blocks of equal size, which are allocated lazily in
+ * larger segments. Each page occupies as many blocks as needed for its data. When the budget is
+ * exhausted, the least recently used pages are evicted - regardless of the session they belong to.
+ * <p>
+ * The occupancy of this store and the count of evictions are available to size the budget
+ * appropriately.
+ */
+public class OffHeapPageStore extends AbstractPersistentPageStore implements IPersistentPageStore
+{
+	private static final Logger log = LoggerFactory.getLogger(OffHeapPageStore.class);
+
+	/**
+	 * Default size of a single block.
+	 */
+	private static final Bytes DEFAULT_BLOCK_SIZE = Bytes.kilobytes(4);
+
+	/**
+	 * Maximum size of a segment of blocks.
+	 */
+	private static final int MAX_SEGMENT_SIZE = 1024 * 1024;
+
+	private final int blockSize;
+
+	private final int blockCount;
+
+	private final int blocksPerSegment;
+
+	private final ByteBuffer[] segments;
+
+	/**
+	 * Stack of released blocks.
+	 */
+	private final int[] freeBlocks;
+
+	private int freeBlocksCount;
+
+	/**
+	 * Count of blocks used at least once, i.e. all following blocks are still unused.
+	 */
+	private int touchedBlocks;
+
+	/**
+	 * All pages in access order.
+	 */
+	private final LinkedHashMap<PageKey, StoredPage> pages = new LinkedHashMap<>(16, 0.75f, true);
+
+	/**
+	 * Pages of each session.
+	 */
+	private final Map<String, Map<Integer, StoredPage>> sessions = new HashMap<>();
+
+	private long size;
+
+	private long evictions;
+
+	/**
+	 * Keep pages up to {@code maxBytes} for all sessions.
+	 *
+	 * @param applicationName
+	 *            {@link Application#getName()}
+	 * @param maxBytes
+	 *            maximum bytes to keep off-heap
+	 */
+	public OffHeapPageStore(String applicationName, Bytes maxBytes)
+	{
+		this(applicationName, maxBytes, DEFAULT_BLOCK_SIZE);
+	}
+
+	/**
+	 * Keep pages up to {@code maxBytes} for all sessions.
+	 *
+	 * @param applicationName
+	 *            {@link Application#getName()}
+	 * @param maxBytes
+	 *            maximum bytes to keep off-heap
+	 * @param blockSize
+	 *            size of a single block
+	 */
+	public OffHeapPageStore(String applicationName, Bytes maxBytes, Bytes blockSize)
+	{
+		super(applicationName);
+
+		Args.notNull(maxBytes, "maxBytes");
+		Args.notNull(blockSize, "blockSize");
+
+		this.blockSize = (int)Args
+			.withinRange(Bytes.bytes(16), Bytes.bytes(MAX_SEGMENT_SIZE), blockSize, "blockSize")
+			.bytes();
+
+		long blocks = maxBytes.bytes() / this.blockSize;
+		this.blockCount = (int)Args.withinRange(1L, (long)Integer.MAX_VALUE, blocks, "maxBytes / blockSize")
+			.longValue();
+
+		this.blocksPerSegment = Math.min(blockCount, MAX_SEGMENT_SIZE / this.blockSize);
+		this.segments = new ByteBuffer[(blockCount + blocksPerSegment - 1) / blocksPerSegment];
+
+		this.freeBlocks = new int[blockCount];
+	}
+
+	/**
+	 * Pages are already serialized.
+	 */
+	@Override
+	public boolean supportsVersioning()
+	{
+		return true;
+	}
+
+	@Override
+	public synchronized void destroy()
+	{
+		pages.clear();
+		sessions.clear();
+		size = 0;
+
+		freeBlocksCount = 0;
+		touchedBlocks = 0;
+		Arrays.fill(segments, null);
+
+		super.destroy();
+	}
+
+	@Override
+	protected synchronized IManageablePage getPersistedPage(String sessionIdentifier, int id)
+	{
+		StoredPage stored = pages.get(new PageKey(sessionIdentifier, id));
+		if (stored == null)
+		{
+			return null;
+		}
+
+		byte[] data = new byte[stored.length];
+		int offset = 0;
+		for (int block : stored.blocks)
+		{
+			int length = Math.min(blockSize, data.length - offset);
+			segment(block).get(position(block), data, offset, length);
+			offset += length;
+		}
+
+		return new SerializedPage(id, stored.pageType, data);
+	}
+
+	@Override
+	protected synchronized void removePersistedPage(String sessionIdentifier, IManageablePage page)
+	{
+		StoredPage stored = pages.remove(new PageKey(sessionIdentifier, page.getPageId()));
+		if (stored != null)
+		{
+			release(stored);
+		}
+	}
+
+	@Override
+	protected synchronized void removeAllPersistedPages(String sessionIdentifier)
+	{
+		Map<Integer, StoredPage> stored = sessions.get(sessionIdentifier);
+		if (stored != null)
+		{
+			for (StoredPage page : new ArrayList<>(stored.values()))
+			{
+				pages.remove(page.key);
+				release(page);
+			}
+		}
+	}
+
+	@Override
+	protected synchronized void addPersistedPage(String sessionIdentifier, IManageablePage page)
+	{
+		if (!(page instanceof SerializedPage))
+		{
+			throw new WicketRuntimeException("OffHeapPageStore works with serialized pages only");
+		}
+		SerializedPage serializedPage = (SerializedPage)page;
+
+		PageKey key = new PageKey(sessionIdentifier, page.getPageId());
+
+		StoredPage previous = pages.remove(key);
+		if (previous != null)
+		{
+			release(previous);
+		}
+
+		byte[] data = serializedPage.getData();
+		int required = (data.length + blockSize - 1) / blockSize;
+		if (required > blockCount)
+		{
+			log.warn("Page with id '{}' of size {} exceeds the capacity of {}", page.getPageId(),
+				Bytes.bytes(data.length), getCapacity());
+			return;
+		}
+
+		while (availableBlocks() < required)
+		{
+			evictEldest();
+		}
+
+		StoredPage stored = new StoredPage(key, serializedPage.getPageType(), data.length, required);
+		int offset = 0;
+		for (int b = 0; b < required; b++)
+		{
+			int block = allocate();
+			stored.blocks[b] = block;
+
+			int length = Math.min(blockSize, data.length - offset);
+			segment(block).put(position(block), data, offset, length);
+			offset += length;
+		}
+
+		pages.put(key, stored);
+		sessions.computeIfAbsent(sessionIdentifier, s -> new HashMap<>()).put(key.pageId, stored);
+		size += data.length;
+	}
+
+	private int availableBlocks()
+	{
+		return freeBlocksCount + (blockCount - touchedBlocks);
+	}
+
+	private void evictEldest()
+	{
+		Iterator<StoredPage> iterator = pages.values().iterator();
+		StoredPage eldest = iterator.next();
+		iterator.remove();
+
+		release(eldest);
+
+		evictions++;
+
+		if (log.isDebugEnabled())
+		{
+			log.debug("Evicted page with id '{}' in session with id '{}'", eldest.key.pageId,
+				eldest.key.sessionIdentifier);
+		}
+	}
+
+	private int allocate()
+	{
+		if (freeBlocksCount > 0)
+		{
+			return freeBlocks[--freeBlocksCount];
+		}
+
+		return touchedBlocks++;
+	}
+
+	/**
+	 * Release the blocks of a page, which has already been removed from {@link #pages}.
+	 */
+	private void release(StoredPage stored)
+	{
+		Map<Integer, StoredPage> sessionPages = sessions.get(stored.key.sessionIdentifier);
+		if (sessionPages != null)
+		{
+			sessionPages.remove(stored.key.pageId);
+			if (sessionPages.isEmpty())
+			{
+				sessions.remove(stored.key.sessionIdentifier);
+			}
+		}
+
+		for (int block : stored.blocks)
+		{
+			freeBlocks[freeBlocksCount++] = block;
+		}
+
+		size -= stored.length;
+	}
+
+	private ByteBuffer segment(int block)
+	{
+		int index = block / blocksPerSegment;
+
+		ByteBuffer segment = segments[index];
+		if (segment == null)
+		{
+			int blocks = Math.min(blocksPerSegment, blockCount - index * blocksPerSegment);
+			segment = ByteBuffer.allocateDirect(blocks * blockSize);
+			segments[index] = segment;
+		}
+		return segment;
+	}
+
+	private int position(int block)
+	{
+		return (block % blocksPerSegment) * blockSize;
+	}
+
+	@Override
+	public synchronized Set<String> getSessionIdentifiers()
+	{
+		return Collections.unmodifiableSet(new HashSet<>(sessions.keySet()));
+	}
+
+	@Override
+	public synchronized List<IPersistedPage> getPersistedPages(String sessionIdentifier)
+	{
+		List<IPersistedPage> persisted = new ArrayList<>();
+
+		Map<Integer, StoredPage> stored = sessions.get(sessionIdentifier);
+		if (stored != null)
+		{
+			for (StoredPage page : stored.values())
+			{
+				persisted.add(new PersistedPage(page.key.pageId, page.pageType, page.length));
+			}
+		}
+
+		return persisted;
+	}
+
+	/**
+	 * Get the total size of all stored pages' data.
+	 */
+	@Override
+	public synchronized Bytes getTotalSize()
+	{
+		return Bytes.bytes(size);
+	}
+
+	/**
+	 * Get the size of all memory occupied by pages, including unused space in their last blocks.
+	 *
+	 * @return occupied memory
+	 */
+	public synchronized Bytes getOccupiedSize()
+	{
+		return Bytes.bytes((long)(blockCount - availableBlocks()) * blockSize);
+	}
+
+	/**
+	 * Get the size of all memory allocated for segments so far.
+	 *
+	 * @return allocated memory
+	 */
+	public synchronized Bytes getAllocatedSize()
+	{
+		long allocated = 0;
+		for (ByteBuffer segment : segments)
+		{
+			if (segment != null)
+			{
+				allocated += segment.capacity();
+			}
+		}
+		return Bytes.bytes(allocated);
+	}
+
+	/**
+	 * Get the maximum size of memory to occupy.
+	 *
+	 * @return capacity
+	 */
+	public Bytes getCapacity()
+	{
+		return Bytes.bytes((long)blockCount * blockSize);
+	}
+
+	/**
+	 * Get the count of all stored pages.
+	 *
+	 * @return page count
+	 */
+	public synchronized int getPageCount()
+	{
+		return pages.size();
+	}
+
+	/**
+	 * Get the count of pages evicted since this store was created.
+	 *
+	 * @return eviction count
+	 */
+	public synchronized long getEvictionCount()
+	{
+		return evictions;
+	}
+
+	/**
+	 * Key of a page.
+	 */
+	private static class PageKey
+	{
+		private final String sessionIdentifier;
+
+		private final int pageId;
+
+		PageKey(String sessionIdentifier, int pageId)
+		{
+			this.sessionIdentifier = sessionIdentifier;
+			this.pageId = pageId;
+		}
+
+		@Override
+		public boolean equals(Object obj)
+		{
+			if (this == obj)
+			{
+				return true;
+			}
+			if (obj instanceof PageKey other)
+			{
+				return pageId == other.pageId && sessionIdentifier.equals(other.sessionIdentifier);
+			}
+			return false;
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return Objects.hash(sessionIdentifier, pageId);
+		}
+	}
+
+	/**
+	 * A page stored in blocks.
+	 */
+	private static class StoredPage
+	{
+		private final PageKey key;
+
+		private final String pageType;
+
+		private final int length;
+
+		private final int[] blocks;
+
+		StoredPage(PageKey key, String pageType, int length, int blockCount)
+		{
+			this.key = key;
+			this.pageType = pageType;
+			this.length = length;
+			this.blocks = new int[blockCount];
+		}
+	}
+}
@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.pageStore.compress;
+
+import java.io.ByteArrayOutputStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.apache.wicket.WicketRuntimeException;
+
+/**
+ * Compression with {@link Deflater}, using the dictionary as a preset dictionary.
+ */
+public class DeflateCompressor implements ICompressor
+{
+	private static final int BUFFER_SIZE = 4 * 1024;
+
+	/**
+	 * Creates the {@code Deflater}. Override this method to customize the deflater, for example to
+	 * change the compression level and/or strategy.
+	 * 
+	 * @return the {@code Deflater}
+	 */
+	protected Deflater createDeflater()
+	{
+		return new Deflater(Deflater.BEST_SPEED);
+	}
+
+	@Override
+	public byte[] compress(byte[] bytes, byte[] dictionary)
+	{
+		Deflater deflater = createDeflater();
+		try
+		{
+			if (dictionary != null)
+			{
+				deflater.setDictionary(dictionary);
+			}
+			deflater.setInput(bytes);
+			deflater.finish();
+
+			ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 2 + 16);
+			byte[] buffer = new byte[BUFFER_SIZE];
+			while (!deflater.finished())
+			{
+				int length = deflater.deflate(buffer);
+				out.write(buffer, 0, length);
+			}
+			return out.toByteArray();
+		}
+		finally
+		{
+			deflater.end();
+		}
+	}
+
+	@Override
+	public byte[] decompress(byte[] bytes, byte[] dictionary)
+	{
+		Inflater inflater = new Inflater();
+		try
+		{
+			inflater.setInput(bytes);
+
+			ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length * 4);
+			byte[] buffer = new byte[BUFFER_SIZE];
+			while (!inflater.finished())
+			{
+				int length = inflater.inflate(buffer);
+				if (length == 0 && !inflater.finished())
+				{
+					if (inflater.needsDictionary() && dictionary != null)
+					{
+						inflater.setDictionary(dictionary);
+						dictionary = null;
+					}
+					else if (inflater.needsInput() || inflater.needsDictionary())
+					{
+						throw new WicketRuntimeException("Truncated compressed data");
+					}
+				}
+				out.write(buffer, 0, length);
+			}
+			return out.toByteArray();
+		}
+		catch (DataFormatException ex)
+		{
+			throw new WicketRuntimeException(ex);
+		}
+		finally
+		{
+			inflater.end();
+		}
+	}
+}
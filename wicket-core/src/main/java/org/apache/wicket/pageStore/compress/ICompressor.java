@@ -0,0 +1,48 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.pageStore.compress;
+
+/**
+ * A compressor and decompressor of pages.
+ * <p>
+ * An optional dictionary holds data similar to the compressed data, improving compression of
+ * small pages. The identical dictionary has to be used for decompression.
+ */
+public interface ICompressor
+{
+	/**
+	 * Compress the given bytes.
+	 * 
+	 * @param bytes
+	 *            bytes to compress
+	 * @param dictionary
+	 *            optional dictionary, may be {@code null}
+	 * @return compressed bytes
+	 */
+	byte[] compress(byte[] bytes, byte[] dictionary);
+
+	/**
+	 * Decompress the given bytes.
+	 * 
+	 * @param bytes
+	 *            compressed bytes
+	 * @param dictionary
+	 *            dictionary used for compression, may be {@code null}
+	 * @return decompressed bytes
+	 */
+	byte[] decompress(byte[] bytes, byte[] dictionary);
+}
@@ -0,0 +1,250 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.pageStore.compress;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+import org.apache.wicket.WicketRuntimeException;
+
+/**
+ * A fast LZ77-style compression in pure Java, trading compression ratio for speed.
+ * <p>
+ * The compressed data consists of sequences of literals followed by a back-reference into the
+ * already decompressed data or the dictionary, similar to the LZ4 block format:
+ * <ul>
+ * <li>the length of the uncompressed data</li>
+ * <li>a token with the length of the literals (high nibble) and the length of the match (low
+ * nibble), each followed by additional length bytes if the nibble is 15</li>
+ * <li>the literals</li>
+ * <li>the offset of the match, two bytes little endian</li>
+ * </ul>
+ * The last sequence has literals only.
+ */
+public class LzCompressor implements ICompressor
+{
+	private static final int MIN_MATCH = 4;
+
+	private static final int MAX_OFFSET = 0xFFFF;
+
+	private static final int HASH_LOG = 14;
+
+	@Override
+	public byte[] compress(byte[] bytes, byte[] dictionary)
+	{
+		// dictionary (as far as it is reachable) followed by the bytes
+		int base = dictionary == null ? 0 : Math.min(dictionary.length, MAX_OFFSET);
+		byte[] in = new byte[base + bytes.length];
+		if (base > 0)
+		{
+			System.arraycopy(dictionary, dictionary.length - base, in, 0, base);
+		}
+		System.arraycopy(bytes, 0, in, base, bytes.length);
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 2 + 16);
+		writeVarInt(out, bytes.length);
+
+		int[] table = new int[1 << HASH_LOG];
+		Arrays.fill(table, -1);
+		for (int p = 0; p + MIN_MATCH <= base; p++)
+		{
+			table[hash(in, p)] = p;
+		}
+
+		int anchor = base;
+		int p = base;
+		int limit = in.length - MIN_MATCH;
+		while (p <= limit)
+		{
+			int h = hash(in, p);
+			int ref = table[h];
+			table[h] = p;
+
+			if (ref >= 0 && p - ref <= MAX_OFFSET && readInt(in, ref) == readInt(in, p))
+			{
+				int length = MIN_MATCH;
+				while (p + length < in.length && in[ref + length] == in[p + length])
+				{
+					length++;
+				}
+
+				writeSequence(out, in, anchor, p - anchor, p - ref, length);
+
+				p += length;
+				anchor = p;
+			}
+			else
+			{
+				p++;
+			}
+		}
+
+		// last literals
+		writeSequence(out, in, anchor, in.length - anchor, 0, 0);
+
+		return out.toByteArray();
+	}
+
+	@Override
+	public byte[] decompress(byte[] bytes, byte[] dictionary)
+	{
+		try
+		{
+			int[] position = { 0 };
+			int length = readVarInt(bytes, position);
+			if (length < 0)
+			{
+				throw new WicketRuntimeException("Malformed compressed data");
+			}
+			int ip = position[0];
+
+			int base = dictionary == null ? 0 : Math.min(dictionary.length, MAX_OFFSET);
+			byte[] out = new byte[base + length];
+			if (base > 0)
+			{
+				System.arraycopy(dictionary, dictionary.length - base, out, 0, base);
+			}
+
+			int op = base;
+			while (true)
+			{
+				int token = bytes[ip++] & 0xFF;
+
+				int literals = token >>> 4;
+				if (literals == 15)
+				{
+					int b;
+					do
+					{
+						b = bytes[ip++] & 0xFF;
+						literals += b;
+					}
+					while (b == 255);
+				}
+				System.arraycopy(bytes, ip, out, op, literals);
+				ip += literals;
+				op += literals;
+
+				if (op == out.length)
+				{
+					break;
+				}
+
+				int offset = (bytes[ip++] & 0xFF) | ((bytes[ip++] & 0xFF) << 8);
+				if (offset == 0 || offset > op)
+				{
+					throw new WicketRuntimeException("Malformed compressed data");
+				}
+
+				int match = token & 0x0F;
+				if (match == 15)
+				{
+					int b;
+					do
+					{
+						b = bytes[ip++] & 0xFF;
+						match += b;
+					}
+					while (b == 255);
+				}
+				match += MIN_MATCH;
+
+				// byte by byte, match may overlap
+				int ref = op - offset;
+				for (int m = 0; m < match; m++)
+				{
+					out[op++] = out[ref++];
+				}
+			}
+
+			return base == 0 ? out : Arrays.copyOfRange(out, base, out.length);
+		}
+		catch (IndexOutOfBoundsException ex)
+		{
+			throw new WicketRuntimeException("Malformed compressed data", ex);
+		}
+	}
+
+	private static void writeSequence(ByteArrayOutputStream out, byte[] in, int start, int literals,
+		int offset, int match)
+	{
+		int matchCode = match == 0 ? 0 : match - MIN_MATCH;
+
+		out.write((Math.min(literals, 15) << 4) | Math.min(matchCode, 15));
+		if (literals >= 15)
+		{
+			writeLength(out, literals - 15);
+		}
+		out.write(in, start, literals);
+
+		if (match > 0)
+		{
+			out.write(offset & 0xFF);
+			out.write(offset >>> 8);
+			if (matchCode >= 15)
+			{
+				writeLength(out, matchCode - 15);
+			}
+		}
+	}
+
+	private static void writeLength(ByteArrayOutputStream out, int length)
+	{
+		while (length >= 255)
+		{
+			out.write(255);
+			length -= 255;
+		}
+		out.write(length);
+	}
+
+	private static void writeVarInt(ByteArrayOutputStream out, int value)
+	{
+		while ((value & ~0x7F) != 0)
+		{
+			out.write((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.write(value);
+	}
+
+	private static int readVarInt(byte[] bytes, int[] position)
+	{
+		int value = 0;
+		for (int shift = 0; shift < 32; shift += 7)
+		{
+			int b = bytes[position[0]++] & 0xFF;
+			value |= (b & 0x7F) << shift;
+			if ((b & 0x80) == 0)
+			{
+				return value;
+			}
+		}
+		throw new WicketRuntimeException("Malformed compressed data");
+	}
+
+	private static int readInt(byte[] bytes, int p)
+	{
+		return (bytes[p] & 0xFF) | ((bytes[p + 1] & 0xFF) << 8) | ((bytes[p + 2] & 0xFF) << 16) |
+			((bytes[p + 3] & 0xFF) << 24);
+	}
+
+	private static int hash(byte[] bytes, int p)
+	{
+		return (readInt(bytes, p) * -1640531535) >>> (32 - HASH_LOG);
+	}
+}
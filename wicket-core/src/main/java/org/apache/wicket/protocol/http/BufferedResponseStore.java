@@ -0,0 +1,421 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.protocol.http;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.wicket.util.lang.Args;
+import org.apache.wicket.util.lang.Bytes;
+
+/**
+ * Keeps buffered responses for {@link org.apache.wicket.settings.RequestCycleSettings.RenderStrategy#REDIRECT_TO_BUFFER}
+ * until they are fetched by the redirected request.
+ * <p>
+ * Responses are grouped by session, sessions are distributed over a fixed number of shards
+ * with a lock each. Every shard can hold a fraction of the maximum size, when it is exceeded the
+ * responses stored the longest time ago are evicted. The response stored last is never evicted,
+ * so a single response larger than a shard's fraction is still kept until it is fetched or
+ * replaced. Responses older than the lifetime are considered expired.
+ * <p>
+ * Optionally the bodies of stored responses are compressed, trading CPU for heap.
+ * 
+ * @see WebApplication#newBufferedResponseStore()
+ */
+public class BufferedResponseStore
+{
+	/** Approximate size of an entry besides its body */
+	private static final long ENTRY_OVERHEAD = 256;
+
+	private static final int DEFAULT_SHARDS = 16;
+
+	/**
+	 * A stored response.
+	 */
+	private static class Entry
+	{
+		private final BufferedWebResponse response;
+
+		private final Instant creationTime;
+
+		private final long size;
+
+		private Entry(BufferedWebResponse response, Instant creationTime, long size)
+		{
+			this.response = response;
+			this.creationTime = creationTime;
+			this.size = size;
+		}
+	}
+
+	/**
+	 * Responses of the sessions mapped to a single shard, each session with its responses in the
+	 * order they were stored. Sessions are ordered by their last stored response.
+	 */
+	private static class Shard
+	{
+		private final LinkedHashMap<String, LinkedHashMap<String, Entry>> sessions =
+			new LinkedHashMap<>();
+
+		private long size;
+
+		private int count;
+	}
+
+	private final Shard[] shards;
+
+	private final long maxShardSize;
+
+	private final Duration lifetime;
+
+	private final boolean compress;
+
+	private final LongAdder hits = new LongAdder();
+
+	private final LongAdder misses = new LongAdder();
+
+	private final LongAdder expired = new LongAdder();
+
+	private final LongAdder evicted = new LongAdder();
+
+	/**
+	 * Construct.
+	 * 
+	 * @param maxSize
+	 *            maximum size of all stored responses
+	 * @param lifetime
+	 *            the duration of time to keep a response before considering it expired
+	 */
+	public BufferedResponseStore(Bytes maxSize, Duration lifetime)
+	{
+		this(DEFAULT_SHARDS, maxSize, lifetime, false);
+	}
+
+	/**
+	 * Construct.
+	 * 
+	 * @param shards
+	 *            number of shards
+	 * @param maxSize
+	 *            maximum size of all stored responses
+	 * @param lifetime
+	 *            the duration of time to keep a response before considering it expired
+	 * @param compress
+	 *            whether to compress the bodies of stored responses
+	 */
+	public BufferedResponseStore(int shards, Bytes maxSize, Duration lifetime, boolean compress)
+	{
+		Args.withinRange(1, 1024, shards, "shards");
+		Args.notNull(maxSize, "maxSize");
+		this.lifetime = Args.notNull(lifetime, "lifetime");
+
+		this.shards = new Shard[shards];
+		for (int i = 0; i < shards; i++)
+		{
+			this.shards[i] = new Shard();
+		}
+		maxShardSize = maxSize.bytes() / shards;
+		this.compress = compress;
+	}
+
+	/**
+	 * Stores a response.
+	 * 
+	 * @param sessionId
+	 *            id of the session
+	 * @param url
+	 *            the url the response is stored for
+	 * @param response
+	 *            the response
+	 */
+	public void put(String sessionId, String url, BufferedWebResponse response)
+	{
+		Args.notNull(sessionId, "sessionId");
+		Args.notNull(url, "url");
+		Args.notNull(response, "response");
+
+		if (compress)
+		{
+			response.compress();
+		}
+
+		Instant now = Instant.now();
+		Entry entry = new Entry(response, now, ENTRY_OVERHEAD + url.length() * 2L +
+			response.getBufferedSize());
+
+		Shard shard = shard(sessionId);
+		synchronized (shard)
+		{
+			// move session to the end
+			LinkedHashMap<String, Entry> entries = shard.sessions.remove(sessionId);
+			if (entries == null)
+			{
+				entries = new LinkedHashMap<>(4);
+			}
+			shard.sessions.put(sessionId, entries);
+
+			Entry old = entries.remove(url);
+			if (old != null)
+			{
+				removed(shard, old);
+			}
+			entries.put(url, entry);
+			shard.size += entry.size;
+			shard.count++;
+
+			evict(shard, entry, now);
+		}
+	}
+
+	/**
+	 * Checks whether a non expired response is stored.
+	 * 
+	 * @param sessionId
+	 *            id of the session
+	 * @param url
+	 *            the url the response is stored for
+	 * @return {@code true} if a response is stored
+	 */
+	public boolean contains(String sessionId, String url)
+	{
+		Shard shard = shard(sessionId);
+		synchronized (shard)
+		{
+			LinkedHashMap<String, Entry> entries = shard.sessions.get(sessionId);
+			if (entries != null)
+			{
+				Entry entry = entries.get(url);
+				return entry != null && isExpired(entry, Instant.now()) == false;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Removes a stored response.
+	 * 
+	 * @param sessionId
+	 *            id of the session
+	 * @param url
+	 *            the url the response is stored for
+	 * @return the stored response, {@code null} if there is none or it is expired
+	 */
+	public BufferedWebResponse remove(String sessionId, String url)
+	{
+		Entry entry = null;
+
+		Shard shard = shard(sessionId);
+		synchronized (shard)
+		{
+			LinkedHashMap<String, Entry> entries = shard.sessions.get(sessionId);
+			if (entries != null)
+			{
+				entry = entries.remove(url);
+				if (entry != null)
+				{
+					removed(shard, entry);
+					if (entries.isEmpty())
+					{
+						shard.sessions.remove(sessionId);
+					}
+				}
+			}
+		}
+
+		if (entry == null)
+		{
+			misses.increment();
+			return null;
+		}
+		else if (isExpired(entry, Instant.now()))
+		{
+			expired.increment();
+			return null;
+		}
+		hits.increment();
+		return entry.response;
+	}
+
+	/**
+	 * Removes all responses stored for a session.
+	 * 
+	 * @param sessionId
+	 *            id of the session, may be {@code null}
+	 */
+	public void removeSession(String sessionId)
+	{
+		if (sessionId == null)
+		{
+			return;
+		}
+
+		Shard shard = shard(sessionId);
+		synchronized (shard)
+		{
+			LinkedHashMap<String, Entry> entries = shard.sessions.remove(sessionId);
+			if (entries != null)
+			{
+				for (Entry entry : entries.values())
+				{
+					removed(shard, entry);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Removes all responses.
+	 */
+	public void clear()
+	{
+		for (Shard shard : shards)
+		{
+			synchronized (shard)
+			{
+				shard.sessions.clear();
+				shard.size = 0;
+				shard.count = 0;
+			}
+		}
+	}
+
+	/**
+	 * @return number of stored responses, including expired ones not evicted yet
+	 */
+	public int size()
+	{
+		int size = 0;
+		for (Shard shard : shards)
+		{
+			synchronized (shard)
+			{
+				size += shard.count;
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * @return approximate size of all stored responses
+	 */
+	public Bytes getSize()
+	{
+		long size = 0;
+		for (Shard shard : shards)
+		{
+			synchronized (shard)
+			{
+				size += shard.size;
+			}
+		}
+		return Bytes.bytes(size);
+	}
+
+	/**
+	 * @return number of responses fetched successfully
+	 */
+	public long getHits()
+	{
+		return hits.sum();
+	}
+
+	/**
+	 * @return number of responses not found
+	 */
+	public long getMisses()
+	{
+		return misses.sum();
+	}
+
+	/**
+	 * @return number of responses found or evicted after their lifetime
+	 */
+	public long getExpired()
+	{
+		return expired.sum();
+	}
+
+	/**
+	 * @return number of responses evicted to stay within the maximum size
+	 */
+	public long getEvicted()
+	{
+		return evicted.sum();
+	}
+
+	private Shard shard(String sessionId)
+	{
+		int hash = sessionId.hashCode();
+		hash ^= (hash >>> 16);
+		return shards[Math.floorMod(hash, shards.length)];
+	}
+
+	private boolean isExpired(Entry entry, Instant now)
+	{
+		return lifetime.compareTo(Duration.between(entry.creationTime, now)) <= 0;
+	}
+
+	private void removed(Shard shard, Entry entry)
+	{
+		shard.size -= entry.size;
+		shard.count--;
+	}
+
+	/**
+	 * Evicts expired responses and - if the shard is still too large - the oldest ones, except
+	 * the newest one just stored.
+	 */
+	private void evict(Shard shard, Entry newest, Instant now)
+	{
+		Iterator<LinkedHashMap<String, Entry>> sessions = shard.sessions.values().iterator();
+		while (sessions.hasNext())
+		{
+			LinkedHashMap<String, Entry> entries = sessions.next();
+
+			Iterator<Entry> iterator = entries.values().iterator();
+			while (iterator.hasNext())
+			{
+				Entry entry = iterator.next();
+				if (entry == newest)
+				{
+					// the newest entry is the last one
+					return;
+				}
+				else if (isExpired(entry, now))
+				{
+					expired.increment();
+				}
+				else if (shard.size > maxShardSize)
+				{
+					evicted.increment();
+				}
+				else
+				{
+					// stop at the first live entry, expired ones further on are detected on access
+					return;
+				}
+				iterator.remove();
+				removed(shard, entry);
+			}
+
+			sessions.remove();
+		}
+	}
+}
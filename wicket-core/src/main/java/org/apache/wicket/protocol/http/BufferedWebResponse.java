@@ -16,15 +16,24 @@
  */
 package org.apache.wicket.protocol.http;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 import java.util.function.Consumer;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
 import jakarta.servlet.http.Cookie;
 import org.apache.wicket.Application;
 import org.apache.wicket.WicketRuntimeException;
@@ -45,6 +54,9 @@ public class BufferedWebResponse extends WebResponse implements IMetaDataBufferi
 {
 	private final WebResponse originalResponse;
 
+	/** charset to encode written characters with, may be {@code null} */
+	private final Charset encoding;
+
 	/**
 	 * Construct.
 	 * 
@@ -52,6 +64,26 @@ public class BufferedWebResponse extends WebResponse implements IMetaDataBufferi
 	 */
 	public BufferedWebResponse(WebResponse originalResponse)
 	{
+		this(originalResponse, null);
+	}
+
+	/**
+	 * Construct a response that encodes written characters right away into pooled byte chunks,
+	 * which are written as bytes to the original response. The charset must match the one of the
+	 * content type, since the original response's writer is bypassed.
+	 * <p>
+	 * If response filters are configured, the characters are buffered as text nevertheless.
+	 * Encoded contents can be written once only, its chunks are returned to the pool afterwards.
+	 * 
+	 * @param originalResponse
+	 * @param encoding
+	 *            charset to encode characters with, {@code null} to buffer text
+	 * @see ByteChunkBuffer
+	 */
+	public BufferedWebResponse(WebResponse originalResponse, Charset encoding)
+	{
+		this.encoding = encoding;
+
 		// if original response had some metadata set
 		// we should transfer it to the current response
 		if (originalResponse instanceof IMetaDataBufferingWebResponse)
@@ -166,6 +198,8 @@ public class BufferedWebResponse extends WebResponse implements IMetaDataBufferi
 	private final List<Action> actions = new ArrayList<>();
 	private StringBuilder charSequenceBuilder;
 	private ByteArrayOutputStream dataStream;
+	private ByteChunkBuffer encodedBuffer;
+	private byte[] compressedData;
 
 	@Override
 	public void reset()
@@ -174,6 +208,12 @@ public class BufferedWebResponse extends WebResponse implements IMetaDataBufferi
 		actions.clear();
 		charSequenceBuilder = null;
 		dataStream = null;
+		compressedData = null;
+		if (encodedBuffer != null)
+		{
+			encodedBuffer.release();
+			encodedBuffer = null;
+		}
 	}
 
 	@Override
@@ -234,35 +274,66 @@ public class BufferedWebResponse extends WebResponse implements IMetaDataBufferi
 	@Override
 	public void write(CharSequence sequence)
 	{
+		checkNotCompressed();
 		if (dataStream != null)
 		{
 			throw new IllegalStateException(
 				"Can't call write(CharSequence) after write(byte[]) has been called.");
 		}
 
+		if (charSequenceBuilder == null && encodedBuffer == null && encoding != null &&
+			hasResponseFilters() == false)
+		{
+			encodedBuffer = new ByteChunkBuffer(encoding);
+			actions.add(ActionType.DATA.action(this::writeEncodedBuffer));
+		}
+
+		if (encodedBuffer != null)
+		{
+			encodedBuffer.write(sequence);
+			return;
+		}
+
 		if (charSequenceBuilder == null)
 		{
 			StringBuilder builder = new StringBuilder(4096);
 			charSequenceBuilder = builder;
-			actions.add(ActionType.DATA.action(res ->
-			{
-				AppendingStringBuffer responseBuffer = new AppendingStringBuffer(builder);
+			actions.add(ActionType.DATA.action(res -> writeText(res, builder)));
+		}
+		charSequenceBuilder.append(sequence);
+	}
 
-				List<IResponseFilter> responseFilters = Application.get()
-						.getRequestCycleSettings()
-						.getResponseFilters();
+	private static void writeText(WebResponse response, CharSequence text)
+	{
+		AppendingStringBuffer responseBuffer = new AppendingStringBuffer(text);
 
-				if (responseFilters != null)
-				{
-					for (IResponseFilter filter : responseFilters)
-					{
-						responseBuffer = filter.filter(responseBuffer);
-					}
-				}
-				res.write(responseBuffer);
-			}));
+		List<IResponseFilter> responseFilters = Application.get()
+				.getRequestCycleSettings()
+				.getResponseFilters();
+
+		if (responseFilters != null)
+		{
+			for (IResponseFilter filter : responseFilters)
+			{
+				responseBuffer = filter.filter(responseBuffer);
+			}
 		}
-		charSequenceBuilder.append(sequence);
+		response.write(responseBuffer);
+	}
+
+	private static boolean hasResponseFilters()
+	{
+		List<IResponseFilter> responseFilters = Application.get()
+			.getRequestCycleSettings()
+			.getResponseFilters();
+
+		return responseFilters != null && responseFilters.isEmpty() == false;
+	}
+
+	private void writeEncodedBuffer(WebResponse response)
+	{
+		encodedBuffer.writeTo(response);
+		encodedBuffer.release();
 	}
 
 	/**
@@ -272,11 +343,16 @@ public class BufferedWebResponse extends WebResponse implements IMetaDataBufferi
 	 */
 	public CharSequence getText()
 	{
+		checkNotCompressed();
 		if (dataStream != null)
 		{
 			throw new IllegalStateException("write(byte[]) has already been called.");
 		}
-		if (charSequenceBuilder != null)
+		if (encodedBuffer != null)
+		{
+			return encodedBuffer.toString();
+		}
+		else if (charSequenceBuilder != null)
 		{
 			return charSequenceBuilder;
 		}
@@ -293,11 +369,17 @@ public class BufferedWebResponse extends WebResponse implements IMetaDataBufferi
 	 */
 	public void setText(CharSequence text)
 	{
+		checkNotCompressed();
 		if (dataStream != null)
 		{
 			throw new IllegalStateException("write(byte[]) has already been called.");
 		}
-		if (charSequenceBuilder != null)
+		if (encodedBuffer != null)
+		{
+			encodedBuffer.release();
+			encodedBuffer = new ByteChunkBuffer(encoding);
+		}
+		else if (charSequenceBuilder != null)
 		{
 			charSequenceBuilder.setLength(0);
 		}
@@ -313,7 +395,8 @@ public class BufferedWebResponse extends WebResponse implements IMetaDataBufferi
 	@Override
 	public void write(byte[] array, int offset, int length)
 	{
-		if (charSequenceBuilder != null)
+		checkNotCompressed();
+		if (charSequenceBuilder != null || encodedBuffer != null)
 		{
 			throw new IllegalStateException(
 				"Can't call write(byte[]) after write(CharSequence) has been called.");
@@ -382,6 +465,119 @@ public class BufferedWebResponse extends WebResponse implements IMetaDataBufferi
 		actions.add(ActionType.NORMAL.action(WebResponse::flush));
 	}
 
+	/**
+	 * @return the approximate number of bytes held by the buffered body
+	 */
+	long getBufferedSize()
+	{
+		if (compressedData != null)
+		{
+			return compressedData.length;
+		}
+		else if (encodedBuffer != null)
+		{
+			return encodedBuffer.size();
+		}
+		else if (dataStream != null)
+		{
+			return dataStream.size();
+		}
+		else if (charSequenceBuilder != null)
+		{
+			return charSequenceBuilder.length() * 2L;
+		}
+		return 0;
+	}
+
+	/**
+	 * Compresses the buffered body, after which nothing can be written anymore. Text is kept as
+	 * text, i.e. response filters are still applied when the response is written.
+	 */
+	void compress()
+	{
+		if (compressedData != null ||
+			(charSequenceBuilder == null && encodedBuffer == null && dataStream == null))
+		{
+			return;
+		}
+
+		final boolean text = charSequenceBuilder != null;
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+		try (DeflaterOutputStream out = new DeflaterOutputStream(bytes, deflater))
+		{
+			if (text)
+			{
+				Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+				writer.append(charSequenceBuilder);
+				writer.flush();
+			}
+			else if (encodedBuffer != null)
+			{
+				encodedBuffer.writeTo(out);
+			}
+			else
+			{
+				dataStream.writeTo(out);
+			}
+		}
+		catch (IOException e)
+		{
+			throw new WicketRuntimeException(e);
+		}
+		finally
+		{
+			deflater.end();
+		}
+
+		if (encodedBuffer != null)
+		{
+			encodedBuffer.release();
+		}
+		charSequenceBuilder = null;
+		encodedBuffer = null;
+		dataStream = null;
+
+		byte[] compressed = bytes.toByteArray();
+		compressedData = compressed;
+
+		actions.removeIf(action -> action.getType() == ActionType.DATA);
+		actions.add(ActionType.DATA.action(res -> writeCompressed(res, compressed, text)));
+	}
+
+	private static void writeCompressed(WebResponse response, byte[] compressed, boolean text)
+	{
+		try (InputStream in = new InflaterInputStream(new ByteArrayInputStream(compressed)))
+		{
+			if (text)
+			{
+				writeText(response, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+			}
+			else
+			{
+				byte[] buffer = new byte[8192];
+				int read;
+				while ((read = in.read(buffer)) != -1)
+				{
+					response.write(buffer, 0, read);
+				}
+			}
+		}
+		catch (IOException e)
+		{
+			throw new WicketRuntimeException(e);
+		}
+	}
+
+	private void checkNotCompressed()
+	{
+		if (compressedData != null)
+		{
+			throw new IllegalStateException("The response has already been compressed.");
+		}
+	}
+
 	private static void writeStream(final Response response, ByteArrayOutputStream stream)
 	{
 		final boolean copied[] = { false };
@@ -424,7 +620,11 @@ public class BufferedWebResponse extends WebResponse implements IMetaDataBufferi
 	public String toString()
 	{
 		final String toString;
-		if (charSequenceBuilder != null)
+		if (encodedBuffer != null && encodedBuffer.isReleased() == false)
+		{
+			toString = encodedBuffer.toString();
+		}
+		else if (charSequenceBuilder != null)
 		{
 			toString = charSequenceBuilder.toString();
 		}
@@ -0,0 +1,336 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.protocol.http;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+
+import org.apache.wicket.request.Response;
+import org.apache.wicket.util.lang.Args;
+
+/**
+ * A buffer that encodes characters directly into a list of fixed size byte chunks, taken from a
+ * pool shared by all buffers.
+ * <p>
+ * Compared to collecting the characters in a {@link StringBuilder} and encoding them when the
+ * buffer is written, this avoids the growing copies of the char array as well as the encoded copy,
+ * and keeps the (usually smaller) encoded form only.
+ * <p>
+ * Chunks are returned to the pool by {@link #release()}, after which the buffer must not be used
+ * anymore.
+ * 
+ * @see BufferedWebResponse#BufferedWebResponse(org.apache.wicket.request.http.WebResponse,
+ *      Charset)
+ */
+public final class ByteChunkBuffer
+{
+	/** Size of a single chunk */
+	static final int CHUNK_SIZE = 8192;
+
+	/** Maximum number of chunks kept in the pool */
+	private static final int POOL_SIZE = 512;
+
+	private static final ArrayBlockingQueue<byte[]> POOL = new ArrayBlockingQueue<>(POOL_SIZE);
+
+	private final Charset charset;
+
+	private final CharsetEncoder encoder;
+
+	/** the chunks, each filled up to its position */
+	private final List<ByteBuffer> chunks = new ArrayList<>();
+
+	/** the chunk currently written to */
+	private ByteBuffer current;
+
+	/** a high surrogate held back until its low surrogate is written */
+	private char pending;
+
+	private boolean released;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param charset
+	 *            charset to encode characters with
+	 */
+	public ByteChunkBuffer(Charset charset)
+	{
+		this.charset = Args.notNull(charset, "charset");
+
+		encoder = charset.newEncoder()
+			.onMalformedInput(CodingErrorAction.REPLACE)
+			.onUnmappableCharacter(CodingErrorAction.REPLACE);
+	}
+
+	/**
+	 * @return the charset characters are encoded with
+	 */
+	public Charset getCharset()
+	{
+		return charset;
+	}
+
+	/**
+	 * Encodes the given characters into this buffer.
+	 * 
+	 * @param sequence
+	 *            characters to encode
+	 */
+	public void write(CharSequence sequence)
+	{
+		checkNotReleased();
+
+		int length = sequence.length();
+		if (length == 0)
+		{
+			return;
+		}
+
+		int start = 0;
+		if (pending != 0)
+		{
+			CharBuffer pair = CharBuffer.wrap(new char[] { pending, sequence.charAt(0) });
+			encode(pair, false);
+			pending = 0;
+
+			// the second char is left when it is a high surrogate itself
+			start = pair.hasRemaining() ? 0 : 1;
+		}
+
+		CharBuffer in = CharBuffer.wrap(sequence, start, length);
+		encode(in, false);
+
+		if (in.hasRemaining())
+		{
+			// a high surrogate at the end of the sequence
+			pending = in.get();
+		}
+	}
+
+	/**
+	 * Copies the given bytes into this buffer.
+	 * 
+	 * @param array
+	 * @param offset
+	 * @param length
+	 */
+	public void write(byte[] array, int offset, int length)
+	{
+		checkNotReleased();
+		finishEncoding();
+
+		while (length > 0)
+		{
+			ByteBuffer out = chunk();
+			int count = Math.min(length, out.remaining());
+			out.put(array, offset, count);
+			offset += count;
+			length -= count;
+		}
+	}
+
+	/**
+	 * @return the number of bytes in this buffer
+	 */
+	public long size()
+	{
+		checkNotReleased();
+		finishEncoding();
+
+		long size = 0;
+		for (ByteBuffer chunk : chunks)
+		{
+			size += chunk.position();
+		}
+		return size;
+	}
+
+	/**
+	 * Writes the contents of this buffer to the given response, one write per chunk.
+	 * 
+	 * @param response
+	 */
+	public void writeTo(Response response)
+	{
+		checkNotReleased();
+		finishEncoding();
+
+		for (ByteBuffer chunk : chunks)
+		{
+			response.write(chunk.array(), 0, chunk.position());
+		}
+	}
+
+	/**
+	 * Writes the contents of this buffer to the given stream.
+	 * 
+	 * @param out
+	 * @throws IOException
+	 */
+	public void writeTo(OutputStream out) throws IOException
+	{
+		checkNotReleased();
+		finishEncoding();
+
+		for (ByteBuffer chunk : chunks)
+		{
+			out.write(chunk.array(), 0, chunk.position());
+		}
+	}
+
+	/**
+	 * Decodes the contents of this buffer.
+	 * 
+	 * @return the buffered characters
+	 */
+	@Override
+	public String toString()
+	{
+		checkNotReleased();
+		finishEncoding();
+
+		CharsetDecoder decoder = charset.newDecoder()
+			.onMalformedInput(CodingErrorAction.REPLACE)
+			.onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+		CharBuffer out = CharBuffer.allocate((int)(size() * decoder.maxCharsPerByte()) + 1);
+		ByteBuffer in = ByteBuffer.allocate(CHUNK_SIZE + 8);
+		in.flip();
+		int last = chunks.size() - 1;
+		for (int i = 0; i <= last; i++)
+		{
+			// keep bytes of a character split over two chunks
+			in.compact();
+			in.put(chunks.get(i).array(), 0, chunks.get(i).position());
+			in.flip();
+			decoder.decode(in, out, i == last);
+		}
+		decoder.flush(out);
+		out.flip();
+		return out.toString();
+	}
+
+	/**
+	 * @return whether this buffer has been released
+	 */
+	public boolean isReleased()
+	{
+		return released;
+	}
+
+	/**
+	 * Returns all chunks to the pool. The buffer cannot be used afterwards.
+	 */
+	public void release()
+	{
+		if (released)
+		{
+			return;
+		}
+		released = true;
+
+		for (ByteBuffer chunk : chunks)
+		{
+			if (POOL.offer(chunk.array()) == false)
+			{
+				break;
+			}
+		}
+		chunks.clear();
+		current = null;
+	}
+
+	private void encode(CharBuffer in, boolean endOfInput)
+	{
+		while (true)
+		{
+			ByteBuffer out = chunk();
+			CoderResult result = encoder.encode(in, out, endOfInput);
+			if (result.isOverflow())
+			{
+				if (out.position() == 0)
+				{
+					// cannot happen with any sane charset and chunk size
+					throw new IllegalStateException("Chunk too small for " + charset);
+				}
+				current = null;
+			}
+			else
+			{
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Flushes a pending high surrogate and the encoder's state, so bytes can be appended.
+	 */
+	private void finishEncoding()
+	{
+		if (pending != 0)
+		{
+			encode(CharBuffer.wrap(new char[] { pending }), true);
+			pending = 0;
+		}
+		else
+		{
+			encode(CharBuffer.allocate(0), true);
+		}
+
+		while (encoder.flush(chunk()).isOverflow())
+		{
+			current = null;
+		}
+		encoder.reset();
+	}
+
+	/**
+	 * @return the chunk to write to, a new one if the current one is full
+	 */
+	private ByteBuffer chunk()
+	{
+		if (current == null || current.hasRemaining() == false)
+		{
+			byte[] chunk = POOL.poll();
+			if (chunk == null)
+			{
+				chunk = new byte[CHUNK_SIZE];
+			}
+			current = ByteBuffer.wrap(chunk);
+			chunks.add(current);
+		}
+		return current;
+	}
+
+	private void checkNotReleased()
+	{
+		if (released)
+		{
+			throw new IllegalStateException("Buffer has already been released.");
+		}
+	}
+}
@@ -90,6 +90,14 @@ class HeaderBufferingWebResponse extends WebResponse implements IMetaDataBufferi
 		getMetaResponse().clearCookie(cookie);
 	}
 
+	@Override
+	public WebResponse getUnbufferedResponse()
+	{
+		stopBuffering();
+
+		return originalResponse;
+	}
+
 	@Override
 	public void flush()
 	{
@@ -34,4 +34,16 @@ public interface IMetaDataBufferingWebResponse
 	 *            web response that should receive the current cookies
 	 */
 	void writeMetaData(WebResponse webResponse);
+
+	/**
+	 * Stops buffering and writes buffered meta data to the wrapped response, so content can be
+	 * written to the latter directly.
+	 * 
+	 * @return the wrapped response or {@code null} if content has to be written through this
+	 *         response
+	 */
+	default WebResponse getUnbufferedResponse()
+	{
+		return null;
+	}
 }
@@ -24,7 +24,11 @@ import org.apache.wicket.util.collections.MostRecentlyUsedMap;
 /**
  * A map that contains the buffered responses. It has a constraint on the maximum entries that it
  * can contain, and a constraint on the duration of time an entry is considered valid/non-expired
+ * 
+ * @deprecated use {@link BufferedResponseStore} instead, see
+ *             {@link WebApplication#newBufferedResponseStore()}
  */
+@Deprecated(since = "10.0.0", forRemoval = true)
 class StoredResponsesMap extends MostRecentlyUsedMap<String, Object>
 {
 	private static final long serialVersionUID = 1L;
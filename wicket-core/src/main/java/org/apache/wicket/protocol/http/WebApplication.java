@@ -79,6 +79,7 @@ import org.apache.wicket.util.file.FileCleaner;
 import org.apache.wicket.util.file.IFileCleaner;
 import org.apache.wicket.util.file.Path;
 import org.apache.wicket.util.lang.Args;
+import org.apache.wicket.util.lang.Bytes;
 import org.apache.wicket.util.lang.PackageName;
 import org.apache.wicket.util.string.Strings;
 import org.apache.wicket.util.watch.IModificationWatcher;
@@ -657,6 +658,11 @@ public abstract class WebApplication extends Application
 	{
 		super.sessionUnbound(sessionId);
 
+		if (bufferedResponseStore != null)
+		{
+			bufferedResponseStore.removeSession(sessionId);
+		}
+
 		IRequestLogger logger = getRequestLogger();
 		if (logger != null)
 		{
@@ -747,6 +753,8 @@ public abstract class WebApplication extends Application
 
 		getResourceSettings().setFileCleaner(new FileCleaner());
 
+		bufferedResponseStore = newBufferedResponseStore();
+
 		setPageRendererProvider(WebPageRenderer::new);
 		setSessionStoreProvider(HttpSessionStore::new);
 		setAjaxRequestTargetProvider(AjaxRequestHandler::new);
@@ -992,12 +1000,28 @@ public abstract class WebApplication extends Application
 			+ "********************************************************************\n");
 	}
 
-	/*
-	 * Can contain at most 1000 responses and each entry can live at most one minute. For now there
-	 * is no need to configure these parameters externally.
+	private BufferedResponseStore bufferedResponseStore;
+
+	/**
+	 * Creates the store for buffered responses. By default it can hold 64 MB of responses, each
+	 * living at most one minute. The size is split among the shards of the store, when a shard
+	 * exceeds its part older responses are evicted, but never the response stored last.
+	 * 
+	 * @return store for buffered responses
+	 * @see org.apache.wicket.settings.RequestCycleSettings.RenderStrategy#REDIRECT_TO_BUFFER
 	 */
-	private final StoredResponsesMap storedResponses = new StoredResponsesMap(1000,
-		Duration.ofSeconds(60));
+	protected BufferedResponseStore newBufferedResponseStore()
+	{
+		return new BufferedResponseStore(Bytes.megabytes(64), Duration.ofSeconds(60));
+	}
+
+	/**
+	 * @return the store for buffered responses
+	 */
+	public final BufferedResponseStore getBufferedResponseStore()
+	{
+		return bufferedResponseStore;
+	}
 
 	/**
 	 * 
@@ -1007,8 +1031,7 @@ public abstract class WebApplication extends Application
 	 */
 	public boolean hasBufferedResponse(String sessionId, Url url)
 	{
-		String key = sessionId + url.toString();
-		return storedResponses.containsKey(key);
+		return bufferedResponseStore.contains(sessionId, url.toString());
 	}
 
 	/**
@@ -1021,8 +1044,7 @@ public abstract class WebApplication extends Application
 	 */
 	public BufferedWebResponse getAndRemoveBufferedResponse(String sessionId, Url url)
 	{
-		String key = sessionId + url.toString();
-		return storedResponses.remove(key);
+		return bufferedResponseStore.remove(sessionId, url.toString());
 	}
 
 	/**
@@ -1041,8 +1063,7 @@ public abstract class WebApplication extends Application
 			return;
 		}
 
-		String key = sessionId + url.toString();
-		storedResponses.put(key, response);
+		bufferedResponseStore.put(sessionId, url.toString(), response);
 	}
 
 	@Override
@@ -16,8 +16,10 @@
  */
 package org.apache.wicket.request.handler.render;
 
+import java.nio.charset.Charset;
 import java.util.List;
 
+import org.apache.wicket.Application;
 import org.apache.wicket.Session;
 import org.apache.wicket.core.request.handler.RenderPageRequestHandler;
 import org.apache.wicket.core.request.handler.RenderPageRequestHandler.RedirectPolicy;
@@ -32,7 +34,9 @@ import org.apache.wicket.request.component.IRequestablePage;
 import org.apache.wicket.request.cycle.RequestCycle;
 import org.apache.wicket.request.http.WebRequest;
 import org.apache.wicket.request.http.WebResponse;
+import org.apache.wicket.settings.RequestCycleSettings;
 import org.apache.wicket.util.lang.Objects;
+import org.apache.wicket.util.string.Strings;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -112,7 +116,7 @@ public class WebPageRenderer extends PageRenderer
 		final WebResponse originalResponse = (WebResponse)requestCycle.getResponse();
 
 		// buffered web response for page
-		BufferedWebResponse response = new BufferedWebResponse(originalResponse);
+		BufferedWebResponse response = newBufferedResponse(originalResponse);
 
 		// keep the original base URL
 		Url originalBaseUrl = requestCycle.getUrlRenderer().setBaseUrl(targetUrl);
@@ -146,6 +150,27 @@ public class WebPageRenderer extends PageRenderer
 		}
 	}
 
+	/**
+	 * Creates the response to render a page to.
+	 * 
+	 * @param originalResponse
+	 * @return BufferedWebResponse
+	 * @see RequestCycleSettings#setEncodeBufferedResponse(boolean)
+	 */
+	protected BufferedWebResponse newBufferedResponse(WebResponse originalResponse)
+	{
+		if (Application.exists())
+		{
+			RequestCycleSettings settings = Application.get().getRequestCycleSettings();
+			String encoding = settings.getResponseRequestEncoding();
+			if (settings.getEncodeBufferedResponse() && Strings.isEmpty(encoding) == false)
+			{
+				return new BufferedWebResponse(originalResponse, Charset.forName(encoding));
+			}
+		}
+		return new BufferedWebResponse(originalResponse);
+	}
+
 	/**
 	 * 
 	 * @param url
@@ -242,6 +267,7 @@ public class WebPageRenderer extends PageRenderer
 				// will not work, we need to rerender the page. This can happen
 				// with IRequestHandlers that produce different URLs with
 				// different amount of segments for stateless and stateful pages
+				response.reset();
 				response = renderPage(afterRenderUrl, requestCycle);
 			}
 
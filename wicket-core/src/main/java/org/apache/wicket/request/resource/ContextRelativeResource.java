@@ -16,12 +16,16 @@
  */
 package org.apache.wicket.request.resource;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Serializable;
 
+import org.apache.wicket.Application;
 import org.apache.wicket.WicketRuntimeException;
 import org.apache.wicket.core.util.resource.WebExternalResourceStream;
+import org.apache.wicket.protocol.http.WebApplication;
+import org.apache.wicket.request.cycle.RequestCycle;
 import org.apache.wicket.request.resource.caching.IStaticCacheableResource;
 import org.apache.wicket.util.io.IOUtils;
 import org.apache.wicket.util.io.Streams;
@@ -97,6 +101,23 @@ public class ContextRelativeResource extends AbstractResource implements IStatic
 		resourceResponse.setContentType(webExternalResourceStream.getContentType());
 		resourceResponse.setLastModified(webExternalResourceStream.lastModifiedTime());
 		resourceResponse.setFileName(path);
+
+		final File file = getFile();
+		if (file != null)
+		{
+			long length = file.length();
+			resourceResponse.setContentLength(length);
+			resourceResponse.setAcceptRange(ContentRangeType.BYTES);
+
+			RequestCycle cycle = RequestCycle.get();
+			Long startbyte = cycle.getMetaData(CONTENT_RANGE_STARTBYTE);
+			Long endbyte = cycle.getMetaData(CONTENT_RANGE_ENDBYTE);
+			resourceResponse.setWriteCallback(
+				new FilePartWriterCallback(file.toPath(), length, startbyte, endbyte));
+
+			return resourceResponse;
+		}
+
 		resourceResponse.setWriteCallback(new WriteCallback()
 		{
 			@Override
@@ -123,6 +144,29 @@ public class ContextRelativeResource extends AbstractResource implements IStatic
 		return resourceResponse;
 	}
 
+	/**
+	 * Get the file of this resource, if the servlet context is backed by the file system.
+	 * 
+	 * @return file or {@code null} if not available as a file
+	 */
+	private File getFile()
+	{
+		Application application = Application.get();
+		if (application instanceof WebApplication)
+		{
+			String realPath = ((WebApplication)application).getServletContext().getRealPath(path);
+			if (realPath != null)
+			{
+				File file = new File(realPath);
+				if (file.isFile())
+				{
+					return file;
+				}
+			}
+		}
+		return null;
+	}
+
 	@Override
 	public int hashCode()
 	{
@@ -0,0 +1,286 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.request.resource;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.apache.wicket.protocol.http.IMetaDataBufferingWebResponse;
+import org.apache.wicket.protocol.http.servlet.ResponseIOException;
+import org.apache.wicket.protocol.http.servlet.ServletWebResponse;
+import org.apache.wicket.request.Response;
+import org.apache.wicket.request.resource.AbstractResource.WriteCallback;
+import org.apache.wicket.request.resource.IResource.Attributes;
+import org.apache.wicket.settings.RequestCycleSettings;
+import org.apache.wicket.util.lang.Args;
+
+/**
+ * Writes a file or a part of it to the response taken from attributes in
+ * {@link #writeData(org.apache.wicket.request.resource.IResource.Attributes)}, with the same range
+ * semantics as {@link PartWriterCallback}.
+ * <p>
+ * Instead of skipping and copying an input stream, the file is read through a {@link FileChannel}
+ * starting at the requested position. If the output stream of the container is a
+ * {@link WritableByteChannel}, the data is transferred with
+ * {@link FileChannel#transferTo(long, long, WritableByteChannel)}, allowing the operating system to
+ * send the file without copying it into the heap. Otherwise the data is read at the requested
+ * position into a buffer and written to the response.
+ * 
+ * @see PartWriterCallback
+ */
+public class FilePartWriterCallback extends WriteCallback
+{
+	/**
+	 * The file to read from
+	 */
+	private final Path path;
+
+	/**
+	 * The total length to read if {@link #endbyte} is not specified
+	 */
+	private final Long contentLength;
+
+	/**
+	 * The byte to start reading from. If omitted then the file will be read from its beginning
+	 */
+	private final Long startbyte;
+
+	/**
+	 * The end byte to read to. If omitted then the file will be read till its end
+	 */
+	private final Long endbyte;
+
+	/**
+	 * The size of the buffer that is used for the copying of the data
+	 */
+	private int bufferSize;
+
+	/**
+	 * Creates a file part writer callback.
+	 * 
+	 * @param path
+	 *            the file to read from, must be located on the default file system
+	 * @param contentLength
+	 *            content length of the file. Ignored if <em>endByte</em> is specified
+	 * @param startbyte
+	 *            the start position to read from (if null the file is read from its beginning)
+	 * @param endbyte
+	 *            the end position to read to (if not null the file is going to be read till
+	 *            endbyte, else to the end of the whole file)
+	 */
+	public FilePartWriterCallback(Path path, Long contentLength, Long startbyte, Long endbyte)
+	{
+		this.path = Args.notNull(path, "path");
+		this.contentLength = Args.notNull(contentLength, "contentLength");
+		this.startbyte = startbyte;
+		this.endbyte = endbyte;
+	}
+
+	/**
+	 * Writes the data
+	 * 
+	 * @param attributes
+	 *            the attributes to get the output stream of the response
+	 * @throws IOException
+	 *             if something went wrong while writing the data to the output stream
+	 */
+	@Override
+	public void writeData(Attributes attributes) throws IOException
+	{
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+		{
+			long position = startbyte != null ? startbyte : 0;
+
+			long end = endbyte == null || endbyte == -1 ? contentLength : endbyte;
+			long count = Math.min(end - position + 1, channel.size() - position);
+
+			if (count <= 0)
+			{
+				return;
+			}
+
+			WritableByteChannel target = getContainerChannel(attributes.getResponse());
+			if (target != null)
+			{
+				transfer(channel, position, count, target);
+			}
+			else
+			{
+				copy(channel, position, count, attributes.getResponse().getOutputStream());
+			}
+		}
+		catch (ResponseIOException e)
+		{
+			// the client has closed the connection and
+			// doesn't read the stream further on
+			// we ignore this case as PartWriterCallback does
+		}
+	}
+
+	/**
+	 * Transfers the given range of the channel to the target channel.
+	 * <p>
+	 * Only failures writing to the target are reported as {@link ResponseIOException}, failures
+	 * reading the file are propagated as they are.
+	 */
+	private void transfer(FileChannel channel, long position, long count,
+		WritableByteChannel target) throws IOException
+	{
+		WritableByteChannel response = new ResponseChannel(target);
+
+		while (count > 0)
+		{
+			long transferred = channel.transferTo(position, count, response);
+			if (transferred <= 0)
+			{
+				// end of file reached
+				break;
+			}
+			position += transferred;
+			count -= transferred;
+		}
+	}
+
+	/**
+	 * Copies the given range of the channel to the output stream.
+	 */
+	private void copy(FileChannel channel, long position, long count, OutputStream outputStream)
+		throws IOException
+	{
+		int size = (int)Math.min(count, getBufferSize());
+		ByteBuffer buffer = ByteBuffer.allocate(size);
+		while (count > 0)
+		{
+			buffer.clear();
+			if (buffer.remaining() > count)
+			{
+				buffer.limit((int)count);
+			}
+
+			int read = channel.read(buffer, position);
+			if (read == -1)
+			{
+				// end of file reached
+				break;
+			}
+			outputStream.write(buffer.array(), 0, read);
+
+			position += read;
+			count -= read;
+		}
+	}
+
+	/**
+	 * Get the channel to write to directly, if the container supports this.
+	 * <p>
+	 * Only used if the response is the {@link ServletWebResponse} itself, i.e. its output is not
+	 * buffered or filtered. A response buffering meta data only, as installed by default with
+	 * {@link RequestCycleSettings#setBufferResponse(boolean)}, writes its headers and is skipped.
+	 * 
+	 * @param response
+	 *            the response
+	 * @return channel or {@code null} if writing through the response is needed
+	 * @throws IOException
+	 */
+	protected WritableByteChannel getContainerChannel(Response response) throws IOException
+	{
+		if (response instanceof IMetaDataBufferingWebResponse)
+		{
+			response = ((IMetaDataBufferingWebResponse)response).getUnbufferedResponse();
+		}
+
+		if (response != null && response.getClass() == ServletWebResponse.class)
+		{
+			HttpServletResponse containerResponse = ((ServletWebResponse)response).getContainerResponse();
+			OutputStream outputStream = containerResponse.getOutputStream();
+			if (outputStream instanceof WritableByteChannel)
+			{
+				return (WritableByteChannel)outputStream;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Gets the buffer size used to copy the data, if the container does not support channels.
+	 *
+	 * @return the buffer size used to send the data to the client (default is 8192)
+	 */
+	public int getBufferSize()
+	{
+		return bufferSize > 0 ? bufferSize : 8192;
+	}
+
+	/**
+	 * Sets the buffer size used to copy the data, if the container does not support channels.
+	 *
+	 * @param bufferSize
+	 *            the buffer size used to send the data to the client
+	 * @return the file part writer callback
+	 */
+	public FilePartWriterCallback setBufferSize(int bufferSize)
+	{
+		this.bufferSize = bufferSize;
+		return this;
+	}
+
+	/**
+	 * A channel to the response, distinguishing failures writing to the client.
+	 */
+	private static class ResponseChannel implements WritableByteChannel
+	{
+		private final WritableByteChannel target;
+
+		ResponseChannel(WritableByteChannel target)
+		{
+			this.target = target;
+		}
+
+		@Override
+		public int write(ByteBuffer source) throws IOException
+		{
+			try
+			{
+				return target.write(source);
+			}
+			catch (IOException e)
+			{
+				// the client has closed the connection
+				throw new ResponseIOException(e);
+			}
+		}
+
+		@Override
+		public boolean isOpen()
+		{
+			return target.isOpen();
+		}
+
+		@Override
+		public void close() throws IOException
+		{
+			target.close();
+		}
+	}
+}
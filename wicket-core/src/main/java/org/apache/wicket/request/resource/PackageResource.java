@@ -17,14 +17,20 @@
 package org.apache.wicket.request.resource;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Serializable;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.time.Instant;
+import java.util.Arrays;
 import java.util.Locale;
 import java.util.Objects;
+import java.util.zip.CRC32C;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
 import jakarta.servlet.http.HttpServletResponse;
 import org.apache.wicket.Application;
 import org.apache.wicket.IWicketInternalException;
@@ -35,8 +41,10 @@ import org.apache.wicket.core.util.resource.locator.IResourceStreamLocator;
 import org.apache.wicket.javascript.IJavaScriptCompressor;
 import org.apache.wicket.markup.html.IPackageResourceGuard;
 import org.apache.wicket.mock.MockWebRequest;
+import org.apache.wicket.request.Request;
 import org.apache.wicket.request.Url;
 import org.apache.wicket.request.cycle.RequestCycle;
+import org.apache.wicket.request.http.WebRequest;
 import org.apache.wicket.request.resource.caching.IStaticCacheableResource;
 import org.apache.wicket.resource.IScopeAwareTextResourceProcessor;
 import org.apache.wicket.resource.ITextResourceCompressor;
@@ -80,6 +88,16 @@ public class PackageResource extends AbstractResource implements IStaticCacheabl
 
 	private static final long serialVersionUID = 1L;
 
+	/**
+	 * Suffix of precompressed siblings of resources.
+	 */
+	private static final String GZIP_SUFFIX = ".gz";
+
+	/**
+	 * Minimum length of contents to be compressed with gzip.
+	 */
+	private static final int MIN_GZIP_LENGTH = 256;
+
 	/**
 	 * Exception thrown when the creation of a package resource is not allowed.
 	 */
@@ -333,15 +351,22 @@ public class PackageResource extends AbstractResource implements IStaticCacheabl
 
 		resourceResponse.setLastModified(lastModified);
 
-		if (resourceResponse.dataNeedsToBeWritten(attributes))
+		String contentType = resourceStream.getContentType();
+
+		if (contentType == null && Application.exists())
 		{
-			String contentType = resourceStream.getContentType();
+			contentType = Application.get().getMimeType(path);
+		}
 
-			if (contentType == null && Application.exists())
-			{
-				contentType = Application.get().getMimeType(path);
-			}
+		final boolean gzip = getUseGzip() && isGzipCompressible(contentType);
+		if (gzip)
+		{
+			// representation depends on the request, regardless whether it is gzipped or not
+			resourceResponse.getHeaders().addHeader("Vary", "Accept-Encoding");
+		}
 
+		if (resourceResponse.dataNeedsToBeWritten(attributes))
+		{
 			// set Content-Type (may be null)
 			resourceResponse.setContentType(contentType);
 
@@ -361,6 +386,17 @@ public class PackageResource extends AbstractResource implements IStaticCacheabl
 				if (readBuffered)
 				{
 					bytes = IOUtils.toByteArray(inputStream);
+
+					if (gzip && acceptsGzip(attributes.getRequest()))
+					{
+						byte[] gzipped = getGzipped(bytes);
+						if (gzipped != null)
+						{
+							bytes = gzipped;
+							resourceResponse.getHeaders().addHeader("Content-Encoding", "gzip");
+						}
+					}
+
 					resourceResponse.setContentLength(bytes.length);
 				}
 				else
@@ -411,6 +447,216 @@ public class PackageResource extends AbstractResource implements IStaticCacheabl
 		return resourceResponse;
 	}
 
+	/**
+	 * Should contents be served gzipped to clients accepting it, by default as configured in the
+	 * application's resource settings.
+	 * <p>
+	 * Note that this requires the resource to be {@link #readBuffered(boolean) read buffered}.
+	 * 
+	 * @return whether to use gzip
+	 * 
+	 * @see org.apache.wicket.settings.ResourceSettings#getUseGzipPackageResources()
+	 */
+	protected boolean getUseGzip()
+	{
+		return Application.exists() &&
+			Application.get().getResourceSettings().getUseGzipPackageResources();
+	}
+
+	/**
+	 * Can contents of the given type be compressed with gzip. By default all textual contents are
+	 * accepted.
+	 * 
+	 * @param contentType
+	 *            content type, may be {@code null}
+	 * @return whether gzip reduces the size of the contents
+	 */
+	protected boolean isGzipCompressible(String contentType)
+	{
+		if (contentType == null)
+		{
+			return false;
+		}
+
+		contentType = contentType.toLowerCase(Locale.ROOT);
+
+		return contentType.startsWith("text/") || contentType.contains("javascript") ||
+			contentType.contains("json") || contentType.contains("xml");
+	}
+
+	/**
+	 * Does the client accept gzip content encoding.
+	 */
+	private boolean acceptsGzip(Request request)
+	{
+		if (!(request instanceof WebRequest))
+		{
+			return false;
+		}
+
+		String acceptEncoding = ((WebRequest)request).getHeader("Accept-Encoding");
+		if (acceptEncoding == null)
+		{
+			return false;
+		}
+
+		Boolean gzip = null;
+		Boolean any = null;
+		for (String coding : Strings.split(acceptEncoding, ','))
+		{
+			String[] parameters = Strings.split(coding, ';');
+			String name = parameters[0].trim().toLowerCase(Locale.ROOT);
+
+			boolean accepted = true;
+			for (int p = 1; p < parameters.length; p++)
+			{
+				String parameter = parameters[p].trim();
+				if (parameter.startsWith("q="))
+				{
+					try
+					{
+						accepted = Double.parseDouble(parameter.substring(2)) > 0;
+					}
+					catch (NumberFormatException ex)
+					{
+						accepted = false;
+					}
+				}
+			}
+
+			if ("gzip".equals(name) || "x-gzip".equals(name))
+			{
+				gzip = accepted;
+			}
+			else if ("*".equals(name))
+			{
+				any = accepted;
+			}
+		}
+
+		if (gzip != null)
+		{
+			return gzip;
+		}
+		return Boolean.TRUE.equals(any);
+	}
+
+	/**
+	 * Get the gzipped contents, either from a precompressed sibling with suffix {@value #GZIP_SUFFIX}
+	 * or by compressing the given contents.
+	 * <p>
+	 * A precompressed sibling is used only, if it decompresses to the given contents, i.e. it has to
+	 * contain the processed contents (e.g. minified already). The result is kept in the
+	 * {@link ProcessedResourceCache}, so neither the sibling is read nor the contents are compressed
+	 * again until the contents change.
+	 * 
+	 * @param bytes
+	 *            the contents
+	 * @return gzipped contents or {@code null} if compression is not worthwhile
+	 */
+	private byte[] getGzipped(byte[] bytes)
+	{
+		ProcessedResourceCache cache = getProcessedResourceCache();
+		GzippedKey key = null;
+		if (cache != null)
+		{
+			key = new GzippedKey(new CacheKey(scopeName, absolutePath, getCurrentLocale(),
+				getCurrentStyle(), variation), bytes.length, checksum(bytes));
+
+			byte[] gzipped = cache.get(key);
+			if (gzipped != null)
+			{
+				return gzipped.length < bytes.length ? gzipped : null;
+			}
+		}
+
+		byte[] gzipped = readPrecompressed(bytes);
+		if (gzipped == null)
+		{
+			if (bytes.length < MIN_GZIP_LENGTH)
+			{
+				return null;
+			}
+
+			try
+			{
+				ByteArrayOutputStream output = new ByteArrayOutputStream(bytes.length / 4);
+				try (GZIPOutputStream gzip = new GZIPOutputStream(output))
+				{
+					gzip.write(bytes);
+				}
+				gzipped = output.toByteArray();
+			}
+			catch (IOException ex)
+			{
+				log.debug("Unable to gzip resource {}", absolutePath, ex);
+				return null;
+			}
+		}
+
+		if (cache != null)
+		{
+			cache.put(key, gzipped);
+		}
+
+		return gzipped.length < bytes.length ? gzipped : null;
+	}
+
+	/**
+	 * Read a precompressed sibling, if it matches the given contents.
+	 * 
+	 * @param bytes
+	 *            the contents
+	 * @return precompressed contents or {@code null}
+	 */
+	private byte[] readPrecompressed(byte[] bytes)
+	{
+		IResourceStream sibling = Application.get()
+			.getResourceSettings()
+			.getResourceStreamLocator()
+			.locate(getScope(), absolutePath + GZIP_SUFFIX, getCurrentStyle(), variation,
+				getCurrentLocale(), null, false);
+		if (sibling == null)
+		{
+			return null;
+		}
+
+		try
+		{
+			byte[] precompressed = IOUtils.toByteArray(sibling.getInputStream());
+
+			byte[] decompressed;
+			try (InputStream input = new GZIPInputStream(new ByteArrayInputStream(precompressed)))
+			{
+				decompressed = IOUtils.toByteArray(input);
+			}
+
+			if (Arrays.equals(bytes, decompressed))
+			{
+				return precompressed;
+			}
+
+			log.debug("Ignoring precompressed resource {} not matching its contents",
+				absolutePath);
+		}
+		catch (IOException | ResourceStreamNotFoundException ex)
+		{
+			log.debug("Unable to read precompressed resource {}", absolutePath, ex);
+		}
+		finally
+		{
+			IOUtils.closeQuietly(sibling);
+		}
+		return null;
+	}
+
+	private static long checksum(byte[] bytes)
+	{
+		CRC32C checksum = new CRC32C();
+		checksum.update(bytes);
+		return checksum.getValue();
+	}
+
 	/**
 	 * Gives a chance to modify the resource going to be written in the response
 	 * 
@@ -440,6 +686,19 @@ public class PackageResource extends AbstractResource implements IStaticCacheabl
 
 		if (compressor != null && getCompress())
 		{
+			ProcessedResourceCache cache = getProcessedResourceCache();
+			ProcessedKey key = null;
+			if (cache != null)
+			{
+				key = newProcessedKey(attributes, compressor, original);
+
+				byte[] processed = cache.get(key);
+				if (processed != null)
+				{
+					return processed;
+				}
+			}
+
 			try
 			{
 				Charset charset = getProcessingEncoding();
@@ -463,7 +722,14 @@ public class PackageResource extends AbstractResource implements IStaticCacheabl
 				{
 					outputCharset = Charset.forName(textEncodingVar);
 				}
-				return output.getBytes(outputCharset);
+				byte[] processed = output.getBytes(outputCharset);
+
+				if (cache != null)
+				{
+					cache.put(key, processed);
+				}
+
+				return processed;
 			}
 			catch (Exception e)
 			{
@@ -478,6 +744,44 @@ public class PackageResource extends AbstractResource implements IStaticCacheabl
 		}
 	}
 
+	/**
+	 * Get the cache for compressed contents, by default the one configured in the application's
+	 * resource settings.
+	 * 
+	 * @return cache, may be {@code null}
+	 * 
+	 * @see org.apache.wicket.settings.ResourceSettings#getProcessedResourceCache()
+	 */
+	protected ProcessedResourceCache getProcessedResourceCache()
+	{
+		if (Application.exists())
+		{
+			return Application.get().getResourceSettings().getProcessedResourceCache();
+		}
+		return null;
+	}
+
+	/**
+	 * The contents are identified by their checksum, so a modified resource is processed again.
+	 * Scope aware processors might generate urls relative to the current request, so its url is part
+	 * of the key too.
+	 */
+	private ProcessedKey newProcessedKey(Attributes attributes, ITextResourceCompressor compressor,
+		byte[] original)
+	{
+		CacheKey resource = new CacheKey(scopeName, absolutePath, getCurrentLocale(),
+			getCurrentStyle(), variation);
+
+		String url = null;
+		if (compressor instanceof IScopeAwareTextResourceProcessor)
+		{
+			url = attributes.getRequest().getUrl().getPath();
+		}
+
+		return new ProcessedKey(resource, compressor, getTextEncoding(), url, original.length,
+			checksum(original));
+	}
+
 	/**
 	 * @return The charset to use to read the resource
 	 */
@@ -836,6 +1140,95 @@ public class PackageResource extends AbstractResource implements IStaticCacheabl
 		}
 	}
 
+	/**
+	 * Key of processed contents in a {@link ProcessedResourceCache}.
+	 */
+	private static class ProcessedKey
+	{
+		private final CacheKey resource;
+		private final ITextResourceCompressor compressor;
+		private final String textEncoding;
+		private final String url;
+		private final int length;
+		private final long checksum;
+
+		ProcessedKey(CacheKey resource, ITextResourceCompressor compressor, String textEncoding,
+			String url, int length, long checksum)
+		{
+			this.resource = resource;
+			this.compressor = compressor;
+			this.textEncoding = textEncoding;
+			this.url = url;
+			this.length = length;
+			this.checksum = checksum;
+		}
+
+		@Override
+		public boolean equals(Object o)
+		{
+			if (this == o)
+				return true;
+			if (!(o instanceof ProcessedKey))
+				return false;
+
+			ProcessedKey other = (ProcessedKey)o;
+
+			return length == other.length && checksum == other.checksum &&
+				compressor == other.compressor && resource.equals(other.resource) &&
+				Objects.equals(textEncoding, other.textEncoding) && Objects.equals(url, other.url);
+		}
+
+		@Override
+		public int hashCode()
+		{
+			int result = resource.hashCode();
+			result = 31 * result + Long.hashCode(checksum);
+			result = 31 * result + length;
+			result = 31 * result + (url != null ? url.hashCode() : 0);
+			return result;
+		}
+	}
+
+	/**
+	 * Key of gzipped contents in a {@link ProcessedResourceCache}.
+	 */
+	private static class GzippedKey
+	{
+		private final CacheKey resource;
+		private final int length;
+		private final long checksum;
+
+		GzippedKey(CacheKey resource, int length, long checksum)
+		{
+			this.resource = resource;
+			this.length = length;
+			this.checksum = checksum;
+		}
+
+		@Override
+		public boolean equals(Object o)
+		{
+			if (this == o)
+				return true;
+			if (!(o instanceof GzippedKey))
+				return false;
+
+			GzippedKey other = (GzippedKey)o;
+
+			return length == other.length && checksum == other.checksum &&
+				resource.equals(other.resource);
+		}
+
+		@Override
+		public int hashCode()
+		{
+			int result = resource.hashCode();
+			result = 31 * result + Long.hashCode(checksum);
+			result = 31 * result + length;
+			return result;
+		}
+	}
+
 	/**
 	 * If the package resource should be read buffered.<br>
 	 * <br>
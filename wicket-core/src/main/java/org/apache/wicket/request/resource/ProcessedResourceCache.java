@@ -0,0 +1,161 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.request.resource;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+import org.apache.wicket.util.lang.Args;
+import org.apache.wicket.util.lang.Bytes;
+
+/**
+ * A cache of processed resource contents, e.g. the output of a
+ * {@link org.apache.wicket.resource.ITextResourceCompressor}, limited by size.
+ * <p>
+ * When the size is exceeded, the least recently used contents are evicted.
+ * 
+ * @see org.apache.wicket.settings.ResourceSettings#setProcessedResourceCache(ProcessedResourceCache)
+ */
+public class ProcessedResourceCache
+{
+	private final long maxSize;
+
+	private final LinkedHashMap<Object, byte[]> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+	private long size;
+
+	private long hits;
+
+	private long misses;
+
+	/**
+	 * Construct.
+	 * 
+	 * @param maxSize
+	 *            maximum size of all contents
+	 */
+	public ProcessedResourceCache(Bytes maxSize)
+	{
+		Args.notNull(maxSize, "maxSize");
+
+		this.maxSize = maxSize.bytes();
+	}
+
+	/**
+	 * Get processed contents.
+	 * 
+	 * @param key
+	 *            key of the contents
+	 * @return contents or {@code null}
+	 */
+	public synchronized byte[] get(Object key)
+	{
+		byte[] data = entries.get(key);
+		if (data == null)
+		{
+			misses++;
+		}
+		else
+		{
+			hits++;
+		}
+		return data;
+	}
+
+	/**
+	 * Put processed contents.
+	 * 
+	 * @param key
+	 *            key of the contents, has to implement {@link Object#equals(Object)} and
+	 *            {@link Object#hashCode()}
+	 * @param data
+	 *            contents
+	 */
+	public synchronized void put(Object key, byte[] data)
+	{
+		Args.notNull(key, "key");
+		Args.notNull(data, "data");
+
+		if (data.length > maxSize)
+		{
+			return;
+		}
+
+		byte[] previous = entries.put(key, data);
+		if (previous != null)
+		{
+			size -= previous.length;
+		}
+		size += data.length;
+
+		Iterator<byte[]> iterator = entries.values().iterator();
+		while (size > maxSize)
+		{
+			size -= iterator.next().length;
+			iterator.remove();
+		}
+	}
+
+	/**
+	 * Remove all contents.
+	 */
+	public synchronized void clear()
+	{
+		entries.clear();
+		size = 0;
+	}
+
+	/**
+	 * @return the size of all contents
+	 */
+	public synchronized Bytes getSize()
+	{
+		return Bytes.bytes(size);
+	}
+
+	/**
+	 * @return the maximum size of all contents
+	 */
+	public Bytes getMaxSize()
+	{
+		return Bytes.bytes(maxSize);
+	}
+
+	/**
+	 * @return the count of cached contents
+	 */
+	public synchronized int getCount()
+	{
+		return entries.size();
+	}
+
+	/**
+	 * @return the count of contents found in this cache
+	 */
+	public synchronized long getHitCount()
+	{
+		return hits;
+	}
+
+	/**
+	 * @return the count of contents not found in this cache
+	 */
+	public synchronized long getMissCount()
+	{
+		return misses;
+	}
+}
@@ -17,19 +17,28 @@
 package org.apache.wicket.request.resource.caching.version;
 
 import java.io.Serializable;
-import java.util.Collections;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.regex.Pattern;
 
+import org.apache.wicket.WicketRuntimeException;
 import org.apache.wicket.request.resource.caching.IStaticCacheableResource;
-import org.apache.wicket.util.collections.MostRecentlyUsedMap;
 import org.apache.wicket.util.lang.Args;
 
 /**
  * Caches the results of a delegating {@link IResourceVersion} instance
  * in a member variable. The cache will be valid for the lifetime of 
- * this instance. It will expire the oldest entries if the maximum number 
+ * this instance. It will expire the least recently used entries if the maximum number 
  * of entries is exceeded.
+ * <p>
+ * Lookups do not lock: Entries are kept in a concurrent map and evicted with the CLOCK
+ * approximation of LRU, i.e. a sweep over the entries skips (and clears) those used since the
+ * previous sweep. Threads missing the same resource at the same time wait for a single
+ * computation of its version by the delegate.
  * 
  * @author Peter Ertl
  * 
@@ -43,25 +52,46 @@ public class CachingResourceVersion implements IResourceVersion
 	private static final int DEFAULT_MAX_CACHE_ENTRIES = 5000;
 
 	/**
-	 * null value replacement holder for storing <code>null</code> in the map 
+	 * A cached version, possibly still being computed.
 	 */
-	private static final String NULL_VALUE = "null";
+	private static class Entry
+	{
+		private final CompletableFuture<String> version = new CompletableFuture<>();
+
+		/** whether this entry was used since the last sweep */
+		private volatile boolean referenced = true;
+	}
 
 	/**
 	 * delegating resource version provider
 	 */
 	private final IResourceVersion delegate;
 
+	/**
+	 * maximum number of entries
+	 */
+	private final int maxEntries;
+
 	/**
 	 * cache for resource versions
 	 */
-	private final Map<Serializable, String> cache;
+	private final Map<Serializable, Entry> cache = new ConcurrentHashMap<>();
+
+	/**
+	 * held while evicting
+	 */
+	private final ReentrantLock evictionLock = new ReentrantLock();
+
+	/**
+	 * the clock hand, guarded by {@link #evictionLock}
+	 */
+	private Iterator<Map.Entry<Serializable, Entry>> hand;
 
 	/**
 	 * create version cache
 	 * <p/>
 	 * the cache will accept up to {@value #DEFAULT_MAX_CACHE_ENTRIES} before 
-	 * evicting the oldest entries.
+	 * evicting the least recently used entries.
 	 * 
 	 * @param delegate
 	 *           delegating resource version provider
@@ -75,7 +105,7 @@ public class CachingResourceVersion implements IResourceVersion
 	 * create version cache
 	 * <p/>
 	 * the cache will accept a maximum number of entries specified
-	 * by <code>maxEntries</code> before evicting the oldest entries.
+	 * by <code>maxEntries</code> before evicting the least recently used entries.
 	 * 
 	 * @param delegate
 	 *          resource version provider
@@ -90,8 +120,7 @@ public class CachingResourceVersion implements IResourceVersion
 		}
 
 		this.delegate = Args.notNull(delegate, "delegate");
-		this.cache = Collections.synchronizedMap(
-			new MostRecentlyUsedMap<Serializable, String>(maxEntries));
+		this.maxEntries = maxEntries;
 	}
 
 	@Override
@@ -107,32 +136,103 @@ public class CachingResourceVersion implements IResourceVersion
 		}
 		
 		// lookup version in cache
-		String version = cache.get(key);
+		Entry entry = cache.get(key);
 
 		// if not found
-		if (version == null)
+		if (entry == null)
 		{
-			// get version from delegate
-			version = delegate.getVersion(resource);
+			Entry created = new Entry();
+			entry = cache.putIfAbsent(key, created);
 
-			// replace null values with holder
-			if (version == null)
+			// if not added by another thread in the meantime
+			if (entry == null)
 			{
-				version = NULL_VALUE;
+				try
+				{
+					// get version from delegate
+					created.version.complete(delegate.getVersion(resource));
+				}
+				catch (Throwable e)
+				{
+					// do not cache failures, but release threads waiting for this entry
+					cache.remove(key, created);
+					created.version.completeExceptionally(e);
+					throw e;
+				}
+
+				evict();
+
+				return created.version.getNow(null);
 			}
-			// update cache
-			cache.put(key, version);
 		}
 
-		//noinspection StringEquality
-		if (NULL_VALUE.equals(version))
+		if (entry.referenced == false)
 		{
-			// replace holder with null value
-			return null;
+			entry.referenced = true;
+		}
+
+		// return version string, waiting for another thread computing it
+		try
+		{
+			return entry.version.join();
+		}
+		catch (CompletionException e)
+		{
+			if (e.getCause() instanceof RuntimeException)
+			{
+				throw (RuntimeException)e.getCause();
+			}
+			else if (e.getCause() instanceof Error)
+			{
+				throw (Error)e.getCause();
+			}
+			throw new WicketRuntimeException(e.getCause());
+		}
+	}
+
+	/**
+	 * Evict entries not used recently until the maximum number of entries is satisfied.
+	 */
+	private void evict()
+	{
+		if (cache.size() <= maxEntries || evictionLock.tryLock() == false)
+		{
+			// within bounds or another thread is evicting already
+			return;
+		}
+
+		try
+		{
+			// each entry is visited twice at most, pending entries are skipped
+			int steps = 2 * cache.size();
+			while (cache.size() > maxEntries && steps-- > 0)
+			{
+				if (hand == null || hand.hasNext() == false)
+				{
+					hand = cache.entrySet().iterator();
+					if (hand.hasNext() == false)
+					{
+						break;
+					}
+				}
+
+				Map.Entry<Serializable, Entry> candidate = hand.next();
+				Entry entry = candidate.getValue();
+				if (entry.referenced)
+				{
+					// second chance
+					entry.referenced = false;
+				}
+				else if (entry.version.isDone())
+				{
+					cache.remove(candidate.getKey(), entry);
+				}
+			}
+		}
+		finally
+		{
+			evictionLock.unlock();
 		}
-		
-		// return version string
-		return version;
 	}
 
 	@Override
@@ -0,0 +1,191 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.request.resource.caching.version;
+
+import java.util.regex.Pattern;
+
+import org.apache.wicket.Application;
+import org.apache.wicket.request.resource.PackageResource;
+import org.apache.wicket.request.resource.caching.IStaticCacheableResource;
+import org.apache.wicket.util.io.IOUtils;
+import org.apache.wicket.util.lang.Args;
+import org.apache.wicket.util.lang.Packages;
+import org.apache.wicket.util.resource.IFixedLocationResourceStream;
+import org.apache.wicket.util.resource.IResourceStream;
+import org.apache.wicket.util.resource.ResourceStreamWrapper;
+import org.apache.wicket.util.resource.ResourceUtils;
+import org.apache.wicket.util.resource.ResourceUtils.PathLocale;
+import org.apache.wicket.util.string.Strings;
+
+/**
+ * Uses the versions of {@link ResourceVersionManifest}s created at build time, so no hashes have
+ * to be computed at runtime and all nodes of a cluster render identical URLs.
+ * <p>
+ * A {@link PackageResource} is looked up in the manifest by the path of its scope's package and
+ * its name, with the style, locale and variation it was located with. All other resources and
+ * package resources not contained in any manifest are versioned by a fallback.
+ * <p>
+ * Since the resource is located for each lookup, consider wrapping this in a
+ * {@link CachingResourceVersion}. Manifests are not updated when resources change at runtime,
+ * thus this is meant for deployment mode.
+ * 
+ * @see ResourceVersionManifest#main(String[])
+ */
+public class ManifestResourceVersion implements IResourceVersion
+{
+	private final ResourceVersionManifest manifest;
+
+	private final IResourceVersion fallback;
+
+	/**
+	 * Reads all manifests in the class path of the current application, using
+	 * {@link MessageDigestResourceVersion} as fallback.
+	 */
+	public ManifestResourceVersion()
+	{
+		this(ResourceVersionManifest.read(Application.get()
+			.getApplicationSettings()
+			.getClassResolver()
+			.getResources(ResourceVersionManifest.LOCATION)), new MessageDigestResourceVersion());
+	}
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param manifest
+	 *            manifest with versions
+	 * @param fallback
+	 *            versions for resources not contained in the manifest
+	 */
+	public ManifestResourceVersion(ResourceVersionManifest manifest, IResourceVersion fallback)
+	{
+		this.manifest = Args.notNull(manifest, "manifest");
+		this.fallback = Args.notNull(fallback, "fallback");
+	}
+
+	@Override
+	public String getVersion(IStaticCacheableResource resource)
+	{
+		if (resource instanceof PackageResource == false)
+		{
+			// only package resources are known to be located in the class path
+			return fallback.getVersion(resource);
+		}
+
+		IResourceStream stream = resource.getResourceStream();
+
+		// if resource stream can not be found do not cache
+		if (stream == null)
+		{
+			return null;
+		}
+
+		String version;
+		try
+		{
+			version = lookup((PackageResource)resource, stream);
+		}
+		finally
+		{
+			IOUtils.closeQuietly(stream);
+		}
+
+		if (version == null)
+		{
+			version = fallback.getVersion(resource);
+		}
+		return version;
+	}
+
+	/**
+	 * Get the location of a stream, looking into wrapped streams.
+	 */
+	private String getLocation(IResourceStream stream)
+	{
+		while (stream instanceof ResourceStreamWrapper)
+		{
+			stream = ((ResourceStreamWrapper)stream).getDelegate();
+		}
+
+		if (stream instanceof IFixedLocationResourceStream)
+		{
+			return ((IFixedLocationResourceStream)stream).locationAsString();
+		}
+		return null;
+	}
+
+	/**
+	 * Look up a package resource by the path of its scope and name, with the style, locale and
+	 * variation its stream was located with.
+	 * 
+	 * @param resource
+	 *            package resource
+	 * @param stream
+	 *            the located stream of the resource
+	 * @return version or {@code null}
+	 */
+	private String lookup(PackageResource resource, IResourceStream stream)
+	{
+		String location = getLocation(stream);
+		if (location == null)
+		{
+			return null;
+		}
+		location = location.replace('\\', '/');
+
+		// same as ResourceStreamLocator
+		String path = Packages.absolutePath(resource.getScope(), resource.getName());
+		PathLocale data = ResourceUtils.getLocaleFromFilename(path);
+		if (data != null && data.locale != null)
+		{
+			path = data.path;
+		}
+
+		String extension = null;
+		if (path.indexOf('.') != -1)
+		{
+			extension = Strings.afterLast(path, '.');
+			path = Strings.beforeLast(path, '.');
+		}
+
+		String name = path + prepend(stream.getVariation()) + prepend(stream.getStyle()) +
+			prepend(stream.getLocale());
+
+		// the located stream might be a minified variant
+		String[] candidates = extension == null ? new String[] { name }
+			: new String[] { name + ".min." + extension, name + "." + extension };
+		for (String candidate : candidates)
+		{
+			if (location.endsWith("/" + candidate))
+			{
+				return manifest.getVersion(candidate);
+			}
+		}
+		return null;
+	}
+
+	private static String prepend(Object value)
+	{
+		return value != null ? "_" + value : "";
+	}
+
+	@Override
+	public Pattern getVersionPattern()
+	{
+		return fallback.getVersionPattern();
+	}
+}
@@ -0,0 +1,229 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.request.resource.caching.version;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import org.apache.wicket.WicketRuntimeException;
+import org.apache.wicket.util.lang.Args;
+import org.apache.wicket.util.string.Strings;
+
+/**
+ * A manifest of content hashes of the resources in a class path directory, created at build time
+ * and packaged with the resources at {@value #LOCATION}.
+ * <p>
+ * Each line of a manifest holds the hash in hexadecimal, a blank and the path of the resource
+ * relative to the class path root, e.g. {@code 0F3A... org/example/script.js}. The hashes are
+ * computed as {@link MessageDigestResourceVersion} does, but from the unprocessed files.
+ * <p>
+ * To create the manifest during a build, run {@link #main(String[])} after the resources have
+ * been copied, e.g. with the exec-maven-plugin in phase {@code process-classes} passing
+ * {@code ${project.build.outputDirectory}} as argument.
+ * 
+ * @see ManifestResourceVersion
+ */
+public class ResourceVersionManifest
+{
+	/**
+	 * Location of manifests in the class path.
+	 */
+	public static final String LOCATION = "META-INF/wicket/resource-versions";
+
+	/**
+	 * Directory excluded from scanning.
+	 */
+	private static final String META_INF = "META-INF/";
+
+	/**
+	 * Suffix of files excluded from scanning.
+	 */
+	private static final String CLASS_SUFFIX = ".class";
+
+	private final Map<String, String> versions;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param versions
+	 *            versions keyed by the path of resources
+	 */
+	public ResourceVersionManifest(Map<String, String> versions)
+	{
+		this.versions = Args.notNull(versions, "versions");
+	}
+
+	/**
+	 * Get the version of a resource.
+	 * 
+	 * @param path
+	 *            path of the resource relative to the class path root
+	 * @return version or {@code null} if the resource is not contained in this manifest
+	 */
+	public String getVersion(String path)
+	{
+		return versions.get(path);
+	}
+
+	/**
+	 * @return versions keyed by the path of resources
+	 */
+	public Map<String, String> getVersions()
+	{
+		return Collections.unmodifiableMap(versions);
+	}
+
+	/**
+	 * Writes this manifest, sorted by path so identical resources result in identical manifests.
+	 * 
+	 * @param file
+	 *            file to write to
+	 * @throws IOException
+	 */
+	public void write(Path file) throws IOException
+	{
+		Files.createDirectories(file.toAbsolutePath().getParent());
+
+		try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8))
+		{
+			for (Map.Entry<String, String> entry : new TreeMap<>(versions).entrySet())
+			{
+				writer.write(entry.getValue());
+				writer.write(' ');
+				writer.write(entry.getKey());
+				writer.write('\n');
+			}
+		}
+	}
+
+	/**
+	 * Reads all given manifests. If a resource is contained in more than one, the first version
+	 * wins, as with the class path.
+	 * 
+	 * @param manifests
+	 *            URLs of manifests
+	 * @return manifest
+	 */
+	public static ResourceVersionManifest read(Iterator<URL> manifests)
+	{
+		Map<String, String> versions = new HashMap<>();
+
+		while (manifests.hasNext())
+		{
+			URL url = manifests.next();
+			try (InputStream in = url.openStream();
+				BufferedReader reader = new BufferedReader(
+					new InputStreamReader(in, StandardCharsets.UTF_8)))
+			{
+				String line;
+				while ((line = reader.readLine()) != null)
+				{
+					int space = line.indexOf(' ');
+					if (space > 0)
+					{
+						versions.putIfAbsent(line.substring(space + 1), line.substring(0, space));
+					}
+				}
+			}
+			catch (IOException e)
+			{
+				throw new WicketRuntimeException("Cannot read resource version manifest " + url, e);
+			}
+		}
+
+		return new ResourceVersionManifest(versions);
+	}
+
+	/**
+	 * Hashes all resources in a class path directory, i.e. all files except classes and the
+	 * contents of {@code META-INF}.
+	 * 
+	 * @param directory
+	 *            class path root
+	 * @param algorithm
+	 *            digest algorithm
+	 * @return manifest
+	 * @throws IOException
+	 */
+	public static ResourceVersionManifest scan(Path directory, String algorithm) throws IOException
+	{
+		MessageDigestResourceVersion digest = new MessageDigestResourceVersion(algorithm);
+
+		Map<String, String> versions = new HashMap<>();
+		try (Stream<Path> files = Files.walk(directory))
+		{
+			Iterator<Path> iterator = files.filter(Files::isRegularFile).iterator();
+			while (iterator.hasNext())
+			{
+				Path file = iterator.next();
+
+				String path = directory.relativize(file).toString().replace(File.separatorChar, '/');
+				if (path.startsWith(META_INF) || path.endsWith(CLASS_SUFFIX))
+				{
+					continue;
+				}
+
+				try (InputStream in = Files.newInputStream(file))
+				{
+					versions.put(path, Strings.toHexString(digest.computeDigest(in)));
+				}
+			}
+		}
+
+		return new ResourceVersionManifest(versions);
+	}
+
+	/**
+	 * Creates the manifest for a class path directory.
+	 * 
+	 * @param args
+	 *            the class path directory and optionally the digest algorithm, MD5 by default
+	 * @throws IOException
+	 */
+	public static void main(String[] args) throws IOException
+	{
+		if (args.length < 1 || args.length > 2)
+		{
+			System.err.println("Usage: " + ResourceVersionManifest.class.getName() +
+				" <class path directory> [algorithm]");
+			System.exit(1);
+		}
+
+		Path directory = Path.of(args[0]);
+		String algorithm = args.length > 1 ? args[1] : "MD5";
+
+		ResourceVersionManifest manifest = scan(directory, algorithm);
+		manifest.write(directory.resolve(LOCATION));
+
+		System.out.println("Wrote versions of " + manifest.versions.size() + " resources to " +
+			directory.resolve(LOCATION));
+	}
+}
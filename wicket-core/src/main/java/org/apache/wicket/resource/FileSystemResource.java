@@ -18,6 +18,7 @@ package org.apache.wicket.resource;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -28,6 +29,7 @@ import org.apache.wicket.WicketRuntimeException;
 import org.apache.wicket.model.LoadableDetachableModel;
 import org.apache.wicket.request.cycle.RequestCycle;
 import org.apache.wicket.request.resource.AbstractResource;
+import org.apache.wicket.request.resource.FilePartWriterCallback;
 import org.apache.wicket.request.resource.PartWriterCallback;
 
 /**
@@ -119,8 +121,16 @@ public class FileSystemResource extends AbstractResource
 			RequestCycle cycle = RequestCycle.get();
 			Long startbyte = cycle.getMetaData(CONTENT_RANGE_STARTBYTE);
 			Long endbyte = cycle.getMetaData(CONTENT_RANGE_ENDBYTE);
-			resourceResponse.setWriteCallback(
-				new PartWriterCallback(getInputStream(), size, startbyte, endbyte).setClose(true));
+			if (path.getFileSystem() == FileSystems.getDefault())
+			{
+				resourceResponse.setWriteCallback(
+					new FilePartWriterCallback(path, size, startbyte, endbyte));
+			}
+			else
+			{
+				resourceResponse.setWriteCallback(
+					new PartWriterCallback(getInputStream(), size, startbyte, endbyte).setClose(true));
+			}
 			return resourceResponse;
 		}
 		catch (IOException e)
@@ -166,7 +176,8 @@ public class FileSystemResource extends AbstractResource
 	}
 
 	/**
-	 * Gets the input stream of the given path
+	 * Gets the input stream of the given path, used if the path is not located on the default file
+	 * system. Files on the default file system are written with a {@link FilePartWriterCallback}.
 	 * 
 	 * @return the input stream of the given path
 	 * @throws IOException
@@ -0,0 +1,345 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.serialize.java;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.wicket.AttributeModifier;
+import org.apache.wicket.Component;
+import org.apache.wicket.MarkupContainer;
+import org.apache.wicket.Page;
+import org.apache.wicket.application.IClassResolver;
+import org.apache.wicket.behavior.Behavior;
+import org.apache.wicket.feedback.FeedbackMessages;
+import org.apache.wicket.markup.html.WebComponent;
+import org.apache.wicket.markup.html.WebMarkupContainer;
+import org.apache.wicket.markup.html.WebPage;
+import org.apache.wicket.markup.html.basic.Label;
+import org.apache.wicket.markup.html.form.AbstractTextComponent;
+import org.apache.wicket.markup.html.form.Form;
+import org.apache.wicket.markup.html.form.FormComponent;
+import org.apache.wicket.markup.html.form.TextField;
+import org.apache.wicket.markup.html.list.AbstractItem;
+import org.apache.wicket.markup.html.list.ListItem;
+import org.apache.wicket.markup.html.list.ListView;
+import org.apache.wicket.markup.repeater.AbstractRepeater;
+import org.apache.wicket.markup.repeater.RepeatingView;
+import org.apache.wicket.model.AbstractPropertyModel;
+import org.apache.wicket.model.ChainingModel;
+import org.apache.wicket.model.LoadableDetachableModel;
+import org.apache.wicket.model.Model;
+import org.apache.wicket.model.PropertyModel;
+import org.apache.wicket.request.mapper.parameter.PageParameters;
+import org.apache.wicket.util.io.IOUtils;
+import org.apache.wicket.util.lang.Args;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link JavaSerializer} writing compact class identifiers instead of full class descriptors.
+ * <p>
+ * Java serialization writes a descriptor for each class (including all its superclasses) once per
+ * serialized page, listing the class name, its serialVersionUID and all serializable fields. This
+ * serializer writes registered classes by their index in a registry and all other classes by their
+ * name only. On deserialization the descriptor is looked up from the local class, resolved with the
+ * {@link IClassResolver} of the application as in {@link JavaSerializer}.
+ * <p>
+ * Note that this requires identical classes on serialization and deserialization, thus pages
+ * cannot be restored after the application's classes have changed, e.g. after a redeployment with
+ * a persistent page store. Additionally all classes have to be registered in identical order, on
+ * all nodes of a cluster and between restarts of the application.
+ * <p>
+ * Output buffers are reused per thread.
+ * <p>
+ * To use this serializer, put the following code in your application's init:
+ *
+ * <pre>
+ * getFrameworkSettings().setSerializer(new CompactJavaSerializer(getApplicationKey()));
+ * </pre>
+ */
+public class CompactJavaSerializer extends JavaSerializer
+{
+	private static final Logger log = LoggerFactory.getLogger(CompactJavaSerializer.class);
+
+	/**
+	 * Initial size of output buffers.
+	 */
+	private static final int INITIAL_BUFFER_SIZE = 8 * 1024;
+
+	/**
+	 * Maximum size of an output buffer to keep for reuse.
+	 */
+	private static final int MAX_RETAINED_BUFFER_SIZE = 1024 * 1024;
+
+	/**
+	 * Marker for a class written by its name.
+	 */
+	private static final int UNREGISTERED = 0;
+
+	/**
+	 * Classes registered by default.
+	 */
+	private static final Class<?>[] DEFAULT_CLASSES = { Object[].class, ArrayList.class,
+			HashMap.class, HashSet.class, LinkedHashMap.class, Number.class, Integer.class,
+			Long.class, Boolean.class, Component.class, MarkupContainer.class, Page.class,
+			WebPage.class, WebMarkupContainer.class, WebComponent.class, Label.class, Form.class,
+			FormComponent.class, AbstractTextComponent.class, TextField.class, AbstractRepeater.class,
+			RepeatingView.class, ListView.class, AbstractItem.class, ListItem.class, Model.class,
+			ChainingModel.class, AbstractPropertyModel.class, PropertyModel.class,
+			LoadableDetachableModel.class, Behavior.class, AttributeModifier.class,
+			FeedbackMessages.class, PageParameters.class };
+
+	private final ThreadLocal<ReusableOutputStream> buffers = new ThreadLocal<>();
+
+	private volatile Class<?>[] registered = new Class<?>[0];
+
+	private final ConcurrentMap<Class<?>, Integer> ids = new ConcurrentHashMap<>();
+
+	private final ConcurrentMap<String, Class<?>> resolved = new ConcurrentHashMap<>();
+
+	/**
+	 * Construct with default registrations.
+	 *
+	 * @param applicationKey
+	 *            the name of the application
+	 */
+	public CompactJavaSerializer(String applicationKey)
+	{
+		super(applicationKey);
+
+		register(DEFAULT_CLASSES);
+	}
+
+	/**
+	 * Register classes to be written by a compact identifier.
+	 * <p>
+	 * Registration has to happen in identical order for all serializers that need to read each
+	 * other's output, and before any object is serialized.
+	 *
+	 * @param classes
+	 *            classes to register
+	 * @return this
+	 */
+	public synchronized CompactJavaSerializer register(Class<?>... classes)
+	{
+		Args.notNull(classes, "classes");
+
+		List<Class<?>> list = new ArrayList<>(List.of(registered));
+		for (Class<?> clazz : classes)
+		{
+			if (!ids.containsKey(clazz))
+			{
+				ids.put(clazz, list.size());
+				list.add(clazz);
+			}
+		}
+		registered = list.toArray(new Class<?>[0]);
+
+		return this;
+	}
+
+	@Override
+	public byte[] serialize(final Object object)
+	{
+		// borrow the buffer, in case of re-entrant serialization
+		ReusableOutputStream out = buffers.get();
+		if (out == null)
+		{
+			out = new ReusableOutputStream();
+		}
+		else
+		{
+			buffers.remove();
+		}
+
+		try
+		{
+			ObjectOutputStream oos = null;
+			try
+			{
+				oos = newObjectOutputStream(out);
+				oos.writeObject(getApplicationKey());
+				oos.writeObject(object);
+			}
+			finally
+			{
+				IOUtils.close(oos);
+			}
+			return out.toByteArray();
+		}
+		catch (Exception e)
+		{
+			log.error("Error serializing object {} [object={}]", object.getClass(), object, e);
+		}
+		finally
+		{
+			if (out.capacity() <= MAX_RETAINED_BUFFER_SIZE)
+			{
+				out.reset();
+				buffers.set(out);
+			}
+		}
+		return null;
+	}
+
+	@Override
+	protected ObjectOutputStream newObjectOutputStream(OutputStream out) throws IOException
+	{
+		return new SerializationCheckerObjectOutputStream(out, new CompactObjectOutputStream(out));
+	}
+
+	@Override
+	protected ObjectInputStream newObjectInputStream(InputStream in) throws IOException
+	{
+		return new CompactObjectInputStream(in);
+	}
+
+	/**
+	 * Writes class identifiers instead of class descriptors.
+	 */
+	private class CompactObjectOutputStream extends ObjectOutputStream
+	{
+		CompactObjectOutputStream(OutputStream out) throws IOException
+		{
+			super(out);
+		}
+
+		@Override
+		protected void writeClassDescriptor(ObjectStreamClass desc) throws IOException
+		{
+			Integer id = ids.get(desc.forClass());
+			if (id == null)
+			{
+				writeVarInt(UNREGISTERED);
+				writeUTF(desc.getName());
+			}
+			else
+			{
+				writeVarInt(id + 1);
+			}
+		}
+
+		private void writeVarInt(int value) throws IOException
+		{
+			while ((value & ~0x7F) != 0)
+			{
+				writeByte((value & 0x7F) | 0x80);
+				value >>>= 7;
+			}
+			writeByte(value);
+		}
+	}
+
+	/**
+	 * Reads class identifiers written by {@link CompactObjectOutputStream}.
+	 */
+	private class CompactObjectInputStream extends ClassResolverObjectInputStream
+	{
+		CompactObjectInputStream(InputStream in) throws IOException
+		{
+			super(in);
+		}
+
+		@Override
+		protected ObjectStreamClass readClassDescriptor() throws IOException,
+			ClassNotFoundException
+		{
+			int id = readVarInt();
+
+			Class<?> clazz;
+			if (id == UNREGISTERED)
+			{
+				String name = readUTF();
+
+				clazz = resolved.get(name);
+				if (clazz == null)
+				{
+					clazz = resolveClassByName(name);
+					resolved.put(name, clazz);
+				}
+			}
+			else
+			{
+				Class<?>[] classes = registered;
+				if (id > classes.length)
+				{
+					throw new ClassNotFoundException("No class registered with id " + (id - 1));
+				}
+				clazz = classes[id - 1];
+			}
+
+			return ObjectStreamClass.lookupAny(clazz);
+		}
+
+		@Override
+		protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException,
+			ClassNotFoundException
+		{
+			// already resolved in #readClassDescriptor()
+			Class<?> clazz = desc.forClass();
+			if (clazz != null)
+			{
+				return clazz;
+			}
+			return super.resolveClass(desc);
+		}
+
+		private int readVarInt() throws IOException
+		{
+			int value = 0;
+			for (int shift = 0; shift < 32; shift += 7)
+			{
+				int b = readUnsignedByte();
+				value |= (b & 0x7F) << shift;
+				if ((b & 0x80) == 0)
+				{
+					return value;
+				}
+			}
+			throw new IOException("Malformed class identifier");
+		}
+	}
+
+	/**
+	 * Exposes the capacity of the buffer.
+	 */
+	private static class ReusableOutputStream extends ByteArrayOutputStream
+	{
+		ReusableOutputStream()
+		{
+			super(INITIAL_BUFFER_SIZE);
+		}
+
+		int capacity()
+		{
+			return buf.length;
+		}
+	}
+}
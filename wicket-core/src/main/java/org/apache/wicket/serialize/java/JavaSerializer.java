@@ -83,6 +83,14 @@ public class JavaSerializer implements ISerializer
 		this.applicationKey = applicationKey;
 	}
 
+	/**
+	 * @return the key of the application written in front of each serialized object
+	 */
+	protected final String getApplicationKey()
+	{
+		return applicationKey;
+	}
+
 	@Override
 	public byte[] serialize(final Object object)
 	{
@@ -194,7 +202,7 @@ public class JavaSerializer implements ISerializer
 	/**
 	 * Extend {@link ObjectInputStream} to add framework class resolution logic.
 	 */
-	private static class ClassResolverObjectInputStream extends ObjectInputStream
+	protected static class ClassResolverObjectInputStream extends ObjectInputStream
 	{
 		public ClassResolverObjectInputStream(InputStream in) throws IOException
 		{
@@ -226,6 +234,20 @@ public class JavaSerializer implements ISerializer
 			}
 		}
 
+		/**
+		 * Resolves a class by name, first using the latest user defined class loader, but looking in
+		 * the Wicket ClassResolvers as well.
+		 * 
+		 * @param className
+		 *            name of class
+		 * @return resolved class
+		 * @throws ClassNotFoundException
+		 */
+		protected Class<?> resolveClassByName(String className) throws ClassNotFoundException
+		{
+			return resolveClassByName(className, latestUserDefinedLoader());
+		}
+
 		/*
 		 * resolves a class by name, first using the default Class.forName, but looking in the
 		 * Wicket ClassResolvers as well.
@@ -372,16 +394,31 @@ public class JavaSerializer implements ISerializer
 	 *     This is done so to save some CPU time to make the checks for no reason.
 	 * </p>
 	 */
-	private static class SerializationCheckerObjectOutputStream extends ObjectOutputStream
+	protected static class SerializationCheckerObjectOutputStream extends ObjectOutputStream
 	{
 		private final OutputStream outputStream;
 
 		private final ObjectOutputStream oos;
 
 		private SerializationCheckerObjectOutputStream(OutputStream outputStream) throws IOException
+		{
+			this(outputStream, new ObjectOutputStream(outputStream));
+		}
+
+		/**
+		 * Check serialization of objects written to the given stream.
+		 * 
+		 * @param outputStream
+		 *            the output stream
+		 * @param oos
+		 *            the object output stream writing to {@code outputStream}
+		 * @throws IOException
+		 */
+		protected SerializationCheckerObjectOutputStream(OutputStream outputStream,
+			ObjectOutputStream oos) throws IOException
 		{
 			this.outputStream = outputStream;
-			oos = new ObjectOutputStream(outputStream);
+			this.oos = oos;
 		}
 
 		@Override
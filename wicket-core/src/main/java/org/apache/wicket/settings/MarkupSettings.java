@@ -19,6 +19,7 @@ package org.apache.wicket.settings;
 import org.apache.wicket.DefaultMarkupIdGenerator;
 import org.apache.wicket.IMarkupIdGenerator;
 import org.apache.wicket.markup.MarkupFactory;
+import org.apache.wicket.markup.MarkupPreloader;
 import org.apache.wicket.util.lang.Args;
 
 /**
@@ -71,6 +72,9 @@ public class MarkupSettings
 	 */
 	private IMarkupIdGenerator markupIdGenerator = new DefaultMarkupIdGenerator();
 
+	/** Loads markup into the cache at application startup, if set */
+	private MarkupPreloader markupPreloader;
+
 	/**
 	 * Construct
 	 */
@@ -273,4 +277,26 @@ public class MarkupSettings
 		this.markupIdGenerator = Args.notNull(markupIdGenerator, "markupIdGenerator");
 		return this;
 	}
+
+	/**
+	 * @return The preloader of markup at application startup, {@code null} by default
+	 */
+	public MarkupPreloader getMarkupPreloader()
+	{
+		return markupPreloader;
+	}
+
+	/**
+	 * Sets a preloader to fill the markup cache when the application has been initialized, so the
+	 * first requests do not have to parse markup.
+	 *
+	 * @param markupPreloader
+	 *          The preloader, {@code null} to load markup on first use only
+	 * @return {@code this} object for chaining
+	 */
+	public MarkupSettings setMarkupPreloader(MarkupPreloader markupPreloader)
+	{
+		this.markupPreloader = markupPreloader;
+		return this;
+	}
 }
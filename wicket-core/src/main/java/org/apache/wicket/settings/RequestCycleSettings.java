@@ -140,6 +140,9 @@ public class RequestCycleSettings
 	/** True if the response should be buffered */
 	private boolean bufferResponse = true;
 
+	/** True if buffered page renders should be encoded into pooled byte chunks */
+	private boolean encodeBufferedResponse = false;
+
 	/**
 	 * Whether Wicket should try to get extensive client info by redirecting to
 	 * {@link org.apache.wicket.markup.html.pages.BrowserInfoPage a page that polls for client
@@ -206,6 +209,17 @@ public class RequestCycleSettings
 		return bufferResponse;
 	}
 
+	/**
+	 * Gets whether pages rendered to a buffer are encoded right away into pooled byte chunks.
+	 *
+	 * @return {@code true} if buffered page renders are encoded
+	 * @see #setEncodeBufferedResponse(boolean)
+	 */
+	public boolean getEncodeBufferedResponse()
+	{
+		return encodeBufferedResponse;
+	}
+
 	/**
 	 * Gets whether Wicket should try to get extensive client info by redirecting to
 	 * {@link org.apache.wicket.markup.html.pages.BrowserInfoPage a page that polls for client capabilities}. This method is used by the
@@ -296,6 +310,24 @@ public class RequestCycleSettings
 		return this;
 	}
 
+	/**
+	 * Sets whether pages rendered to a buffer (for the current request or for a later one with
+	 * {@link RenderStrategy#REDIRECT_TO_BUFFER}) are encoded right away with the
+	 * {@link #getResponseRequestEncoding() response encoding} into pooled byte chunks, instead of
+	 * being collected as text and encoded by the container's writer. This saves copies and memory
+	 * for large pages, but requires pages not to change the charset of their content type. Not
+	 * used if response filters are configured.
+	 *
+	 * @param encodeBufferedResponse
+	 *            {@code true} to encode buffered page renders
+	 * @return {@code this} object for chaining
+	 */
+	public RequestCycleSettings setEncodeBufferedResponse(boolean encodeBufferedResponse)
+	{
+		this.encodeBufferedResponse = encodeBufferedResponse;
+		return this;
+	}
+
 	/**
 	 * Sets whether Wicket should try to get extensive client info by redirecting to
 	 * {@link org.apache.wicket.markup.html.pages.BrowserInfoPage a page that polls for client capabilities}. This method is used by the
@@ -36,6 +36,7 @@ import org.apache.wicket.markup.head.ResourceAggregator.RecordedHeaderItem;
 import org.apache.wicket.markup.html.IPackageResourceGuard;
 import org.apache.wicket.markup.html.SecurePackageResourceGuard;
 import org.apache.wicket.request.http.WebResponse;
+import org.apache.wicket.request.resource.ProcessedResourceCache;
 import org.apache.wicket.request.resource.caching.FilenameWithVersionResourceCachingStrategy;
 import org.apache.wicket.request.resource.caching.IResourceCachingStrategy;
 import org.apache.wicket.request.resource.caching.NoOpResourceCachingStrategy;
@@ -55,6 +56,7 @@ import org.apache.wicket.resource.loader.ValidatorStringResourceLoader;
 import org.apache.wicket.util.file.IFileCleaner;
 import org.apache.wicket.util.file.IResourceFinder;
 import org.apache.wicket.util.lang.Args;
+import org.apache.wicket.util.lang.Bytes;
 import org.apache.wicket.util.lang.Generics;
 import org.apache.wicket.util.resource.IResourceStream;
 import org.apache.wicket.util.watch.IModificationWatcher;
@@ -172,6 +174,12 @@ public class ResourceSettings implements IPropertiesFactoryContext
 		false);
 
 	private boolean encodeJSessionId = false;
+
+	private boolean useGzipPackageResources = false;
+
+	/** cache of processed package resources */
+	private ProcessedResourceCache processedResourceCache = new ProcessedResourceCache(
+		Bytes.megabytes(4));
 	
 	/**
 	 * Configures Wicket's default ResourceLoaders.<br>
@@ -768,4 +776,58 @@ public class ResourceSettings implements IPropertiesFactoryContext
 		this.encodeJSessionId = encodeJSessionId;
 		return this;
 	}
+
+	/**
+	 * Get the cache of processed package resources, e.g. the output of the
+	 * {@link #getJavaScriptCompressor() JavaScript} or {@link #getCssCompressor() CSS compressor}.
+	 * 
+	 * @return cache, may be {@code null}
+	 */
+	public ProcessedResourceCache getProcessedResourceCache()
+	{
+		return processedResourceCache;
+	}
+
+	/**
+	 * Set the cache of processed package resources, or {@code null} to process package resources
+	 * on each request.
+	 * 
+	 * @param cache
+	 *            cache
+	 * @return {@code this} object for chaining
+	 */
+	public ResourceSettings setProcessedResourceCache(ProcessedResourceCache cache)
+	{
+		this.processedResourceCache = cache;
+		return this;
+	}
+
+	/**
+	 * Should package resources be served gzipped to clients accepting it.
+	 * 
+	 * @return {@code true} if package resources are gzipped
+	 */
+	public boolean getUseGzipPackageResources()
+	{
+		return useGzipPackageResources;
+	}
+
+	/**
+	 * Sets whether package resources with textual contents should be served gzipped to clients
+	 * accepting it.
+	 * <p>
+	 * A precompressed sibling of a resource with suffix {@code .gz} is served if it decompresses
+	 * to the processed contents, otherwise the contents are compressed on first request. Either
+	 * result is kept in the {@link #getProcessedResourceCache() processed resource cache}. Do not
+	 * enable this setting if the container or a proxy compresses responses already.
+	 * 
+	 * @param useGzipPackageResources
+	 *            {@code true} if package resources should be gzipped
+	 * @return {@code this} object for chaining
+	 */
+	public ResourceSettings setUseGzipPackageResources(boolean useGzipPackageResources)
+	{
+		this.useGzipPackageResources = useGzipPackageResources;
+		return this;
+	}
 }
@@ -22,6 +22,8 @@ import java.util.function.Supplier;
 
 import org.apache.wicket.Application;
 import org.apache.wicket.WicketRuntimeException;
+import org.apache.wicket.pageStore.compress.DeflateCompressor;
+import org.apache.wicket.pageStore.compress.ICompressor;
 import org.apache.wicket.pageStore.crypt.DefaultCrypter;
 import org.apache.wicket.pageStore.crypt.ICrypter;
 import org.apache.wicket.protocol.http.WebApplication;
@@ -50,12 +52,18 @@ public class StoreSettings
 
 	private int asynchronousQueueCapacity = DEFAULT_ASYNCHRONOUS_QUEUE_CAPACITY;
 
+	private int asynchronousWorkers = 1;
+
 	private boolean asynchronous = true;
 	
 	private boolean encrypted = false;
 	
 	private Supplier<ICrypter> crypter = DefaultCrypter::new;
 
+	private boolean compressed = false;
+
+	private Supplier<ICompressor> compressor = DeflateCompressor::new;
+
 	/**
 	 * Construct.
 	 * 
@@ -164,6 +172,36 @@ public class StoreSettings
 		return this;
 	}
 
+	/**
+	 * @return the count of workers storing the pages asynchronously
+	 * @see org.apache.wicket.pageStore.AsynchronousPageStore
+	 */
+	public int getAsynchronousWorkers()
+	{
+		return asynchronousWorkers;
+	}
+
+	/**
+	 * Sets the count of workers storing the pages asynchronously. More than one worker should be
+	 * used only if the wrapped {@link org.apache.wicket.pageStore.IPageStore} supports concurrent
+	 * writes, e.g. {@link org.apache.wicket.pageStore.MappedDiskPageStore}.
+	 *
+	 * @param workers
+	 *            the count of workers
+	 * @see org.apache.wicket.pageStore.AsynchronousPageStore
+	 * @return {@code this} object for chaining
+	 */
+	public StoreSettings setAsynchronousWorkers(int workers)
+	{
+		if (workers < 1)
+		{
+			throw new IllegalArgumentException(
+				"The count of asynchronous workers should be at least 1.");
+		}
+		asynchronousWorkers = workers;
+		return this;
+	}
+
 	/**
 	 * Sets a flag whether to wrap the configured {@link org.apache.wicket.pageStore.IPageStore} with
 	 * {@link org.apache.wicket.pageStore.AsynchronousPageStore}. By doing this the HTTP worker thread will not wait for the
@@ -232,4 +270,50 @@ public class StoreSettings
 	{
 		return crypter;
 	}
+
+	/**
+	 * Sets a flag whether to compress stored pages with a
+	 * {@link org.apache.wicket.pageStore.CompressingPageStore}.
+	 * 
+	 * @param compressed
+	 *            {@code true} to compress, {@code false} - otherwise
+	 * @return {@code this} object for chaining
+	 */
+	public StoreSettings setCompressed(boolean compressed)
+	{
+		this.compressed = compressed;
+		return this;
+	}
+
+	/**
+	 * @return {@code true} if the storing of page is compressed
+	 */
+	public boolean isCompressed()
+	{
+		return compressed;
+	}
+
+	/**
+	 * Sets the supplier for the {@link ICompressor} used by a
+	 * {@link org.apache.wicket.pageStore.CompressingPageStore}.
+	 * 
+	 * @param compressor
+	 *            The new supplier for an {@link ICompressor}.
+	 * @return {@code this} object for chaining
+	 */
+	public StoreSettings setCompressor(Supplier<ICompressor> compressor)
+	{
+		this.compressor = compressor;
+		return this;
+	}
+
+	/**
+	 * @return the supplier used to create a {@link ICompressor} for a
+	 *         {@link org.apache.wicket.pageStore.CompressingPageStore}. The default is
+	 *         {@link DeflateCompressor}.
+	 */
+	public Supplier<ICompressor> getCompressor()
+	{
+		return compressor;
+	}
 }
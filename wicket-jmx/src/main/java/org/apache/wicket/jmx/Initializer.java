@@ -40,6 +40,7 @@ import org.apache.wicket.jmx.wrapper.Application;
 import org.apache.wicket.jmx.wrapper.ApplicationSettings;
 import org.apache.wicket.jmx.wrapper.DebugSettings;
 import org.apache.wicket.jmx.wrapper.MarkupSettings;
+import org.apache.wicket.jmx.wrapper.PageCache;
 import org.apache.wicket.jmx.wrapper.PageSettings;
 import org.apache.wicket.jmx.wrapper.RequestCycleSettings;
 import org.apache.wicket.jmx.wrapper.RequestLogger;
@@ -199,6 +200,8 @@ public class Initializer implements IInitializer
 				+ ":type=Application,name=SessionSettings"));
 			register(application, new StoreSettings(application), new ObjectName(domain
 				+ ":type=Application,name=StoreSettings"));
+			register(application, new PageCache(application), new ObjectName(domain
+				+ ":type=Application,name=PageCache"));
 
 			RequestLogger sessionsBean = new RequestLogger(application);
 			ObjectName sessionsBeanName = new ObjectName(domain + ":type=RequestLogger");
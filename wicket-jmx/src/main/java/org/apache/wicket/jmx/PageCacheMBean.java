@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.jmx;
+
+import org.apache.wicket.pageStore.ApplicationCachePageStore;
+
+/**
+ * JMX MBean for the application's {@link ApplicationCachePageStore}.
+ * <p>
+ * All values are {@code null} if the application does not use such a cache.
+ */
+public interface PageCacheMBean
+{
+	/**
+	 * @return the ratio of requested pages found in the cache
+	 */
+	Double getHitRatio();
+
+	/**
+	 * @return the count of requested pages found in the cache
+	 */
+	Long getHitCount();
+
+	/**
+	 * @return the count of requested pages not found in the cache
+	 */
+	Long getMissCount();
+
+	/**
+	 * @return the count of pages evicted to admit other pages
+	 */
+	Long getEvictionCount();
+
+	/**
+	 * @return the count of pages not admitted to the cache
+	 */
+	Long getRejectionCount();
+
+	/**
+	 * @return the count of cached pages
+	 */
+	Integer getPageCount();
+
+	/**
+	 * @return the size of all cached pages in bytes
+	 */
+	Long getSize();
+
+	/**
+	 * @return the maximum size of cached pages in bytes
+	 */
+	Long getCapacity();
+}
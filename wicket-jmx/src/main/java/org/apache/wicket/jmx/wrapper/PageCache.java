@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.jmx.wrapper;
+
+import org.apache.wicket.Application;
+import org.apache.wicket.jmx.PageCacheMBean;
+import org.apache.wicket.pageStore.ApplicationCachePageStore;
+
+/**
+ * Exposes the {@link ApplicationCachePageStore} of an application for JMX.
+ */
+public class PageCache implements PageCacheMBean
+{
+	private final Application application;
+
+	/**
+	 * Construct.
+	 * 
+	 * @param application
+	 *            The application
+	 */
+	public PageCache(final Application application)
+	{
+		this.application = application;
+	}
+
+	@Override
+	public Double getHitRatio()
+	{
+		ApplicationCachePageStore cache = getCache();
+		if (cache != null)
+		{
+			return cache.getHitRatio();
+		}
+		return null;
+	}
+
+	@Override
+	public Long getHitCount()
+	{
+		ApplicationCachePageStore cache = getCache();
+		if (cache != null)
+		{
+			return cache.getHitCount();
+		}
+		return null;
+	}
+
+	@Override
+	public Long getMissCount()
+	{
+		ApplicationCachePageStore cache = getCache();
+		if (cache != null)
+		{
+			return cache.getMissCount();
+		}
+		return null;
+	}
+
+	@Override
+	public Long getEvictionCount()
+	{
+		ApplicationCachePageStore cache = getCache();
+		if (cache != null)
+		{
+			return cache.getEvictionCount();
+		}
+		return null;
+	}
+
+	@Override
+	public Long getRejectionCount()
+	{
+		ApplicationCachePageStore cache = getCache();
+		if (cache != null)
+		{
+			return cache.getRejectionCount();
+		}
+		return null;
+	}
+
+	@Override
+	public Integer getPageCount()
+	{
+		ApplicationCachePageStore cache = getCache();
+		if (cache != null)
+		{
+			return cache.getPageCount();
+		}
+		return null;
+	}
+
+	@Override
+	public Long getSize()
+	{
+		ApplicationCachePageStore cache = getCache();
+		if (cache != null)
+		{
+			return cache.getSize().bytes();
+		}
+		return null;
+	}
+
+	@Override
+	public Long getCapacity()
+	{
+		ApplicationCachePageStore cache = getCache();
+		if (cache != null)
+		{
+			return cache.getCapacity().bytes();
+		}
+		return null;
+	}
+
+	/**
+	 * The cache is looked up on each access, since it is created lazily along with the page
+	 * manager.
+	 */
+	private ApplicationCachePageStore getCache()
+	{
+		return ApplicationCachePageStore.get(application.getName());
+	}
+}
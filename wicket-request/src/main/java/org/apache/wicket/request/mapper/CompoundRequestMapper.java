@@ -34,6 +34,9 @@ import org.slf4j.LoggerFactory;
  * Thread safe compound {@link IRequestMapper}. The mappers are searched depending on their
  * compatibility score and the orders they were registered. If two or more {@link IRequestMapper}s
  * have the same compatibility score, the last registered mapper has highest priority.
+ * <p>
+ * {@link IIndexableRequestMapper}s are kept in an index, so only those which might be compatible
+ * with a request or handler are asked.
  * 
  * @author igor.vaynberg
  * @author Matej Knopp
@@ -97,25 +100,60 @@ public class CompoundRequestMapper implements ICompoundRequestMapper
 
 	private final List<IRequestMapper> mappers = new CopyOnWriteArrayList<>();
 
+	/**
+	 * Index of the mappers, built on first use after a modification
+	 */
+	private volatile RequestMapperIndex index;
+
 	@Override
 	public CompoundRequestMapper add(final IRequestMapper mapper)
 	{
-		mappers.add(0, mapper);
+		synchronized (mappers)
+		{
+			mappers.add(0, mapper);
+			index = null;
+		}
 		return this;
 	}
 
 	@Override
 	public CompoundRequestMapper remove(final IRequestMapper mapper)
 	{
-		mappers.remove(mapper);
+		synchronized (mappers)
+		{
+			mappers.remove(mapper);
+			index = null;
+		}
 		return this;
 	}
 
+	/**
+	 * @return the index of the current mappers
+	 */
+	private RequestMapperIndex getIndex()
+	{
+		RequestMapperIndex current = index;
+		if (current == null)
+		{
+			// synchronized with modifications, so no outdated index is kept
+			synchronized (mappers)
+			{
+				current = index;
+				if (current == null)
+				{
+					current = new RequestMapperIndex(mappers);
+					index = current;
+				}
+			}
+		}
+		return current;
+	}
+
 	/**
 	 * Searches the registered {@link IRequestMapper}s to find one that can map the {@link Request}.
-	 * Each registered {@link IRequestMapper} is asked to provide its compatibility score. Then the
-	 * mappers are asked to map the request in order depending on the provided compatibility
-	 * score.
+	 * Each registered {@link IRequestMapper} that might be compatible with the url of the request is
+	 * asked to provide its compatibility score. Then the mappers are asked to map the request in
+	 * order depending on the provided compatibility score.
 	 * <p>
 	 * The mapper with highest compatibility score which can map the request is returned.
 	 * 
@@ -126,9 +164,10 @@ public class CompoundRequestMapper implements ICompoundRequestMapper
 	@Override
 	public IRequestHandler mapRequest(final Request request)
 	{
-		List<MapperWithScore> list = new ArrayList<>(mappers.size());
+		List<IRequestMapper> candidates = getIndex().getCandidates(request.getUrl());
+		List<MapperWithScore> list = new ArrayList<>(candidates.size());
 
-		for (IRequestMapper mapper : this)
+		for (IRequestMapper mapper : candidates)
 		{
 			int score = mapper.getCompatibilityScore(request);
 			list.add(new MapperWithScore(mapper, score));
@@ -192,8 +231,8 @@ public class CompoundRequestMapper implements ICompoundRequestMapper
 
 	/**
 	 * Searches the registered {@link IRequestMapper}s to find one that can map the
-	 * {@link IRequestHandler}. Each registered {@link IRequestMapper} is asked to map the
-	 * {@link IRequestHandler} until a mapper which can map the {@link IRequestHandler} is found or
+	 * {@link IRequestHandler}. Each registered {@link IRequestMapper} that might map the type of the
+	 * handler is asked to map the {@link IRequestHandler} until a mapper which can map the {@link IRequestHandler} is found or
 	 * no more mappers are left.
 	 * <p>
 	 * The mappers are searched in reverse order as they have been registered. More recently
@@ -205,7 +244,7 @@ public class CompoundRequestMapper implements ICompoundRequestMapper
 	@Override
 	public Url mapHandler(final IRequestHandler handler)
 	{
-		for (IRequestMapper mapper : this)
+		for (IRequestMapper mapper : getIndex().getCandidates(handler))
 		{
 			Url url = mapper.mapHandler(handler);
 			if (url != null)
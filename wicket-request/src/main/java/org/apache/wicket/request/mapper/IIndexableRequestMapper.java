@@ -0,0 +1,56 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.request.mapper;
+
+import java.util.Collection;
+
+import org.apache.wicket.request.IRequestHandler;
+import org.apache.wicket.request.IRequestMapper;
+
+/**
+ * A interface to be implemented by {@link IRequestMapper}s that are compatible with a known set of
+ * urls and handlers only. This allows {@link CompoundRequestMapper} to look up the mappers to ask
+ * in an index instead of asking all of them.
+ * <p>
+ * A mapper must not map a request, nor have a positive compatibility score for it, if its url does
+ * not start with the {@link #getUrlPrefix() prefix}. Requests with an empty url are an exception,
+ * these are asked to all mappers. A mapper must not map other handlers than those of its
+ * {@link #getHandlerTypes() handler types}.
+ * <p>
+ * Since subclasses might change how urls are matched or which handlers are mapped, the
+ * implementations of Wicket return <code>null</code> for subclasses, i.e. these are asked for all
+ * requests and handlers. Subclasses can opt in to the index by overriding these methods.
+ */
+public interface IIndexableRequestMapper extends IRequestMapper
+{
+	/**
+	 * Returns the segments the urls of compatible requests start with. A segment in the format
+	 * <code>${key}</code> matches any segment, a segment in the format <code>#{key}</code> matches
+	 * any or no segment. Other segments match the url segment ignoring case.
+	 *
+	 * @return the segments or <code>null</code> if any url might be compatible
+	 */
+	String[] getUrlPrefix();
+
+	/**
+	 * Returns the types of {@link IRequestHandler}s this mapper can map to urls, including their
+	 * subtypes. Handlers delegating to other handlers are asked to all mappers.
+	 *
+	 * @return the types or <code>null</code> if any handler might be mapped
+	 */
+	Collection<Class<? extends IRequestHandler>> getHandlerTypes();
+}
@@ -0,0 +1,283 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.request.mapper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.wicket.request.IRequestHandler;
+import org.apache.wicket.request.IRequestHandlerDelegate;
+import org.apache.wicket.request.IRequestMapper;
+import org.apache.wicket.request.Url;
+
+/**
+ * An immutable index of the mappers of a {@link CompoundRequestMapper}.
+ * <p>
+ * {@link IIndexableRequestMapper}s are kept in a trie of their url prefix segments, so the
+ * candidates for an url are found in time depending on the length of the url instead of the number
+ * of mappers. Candidates for handlers are cached by handler class. Candidates are always returned
+ * in the order of registration, most recently registered first.
+ * 
+ * @see IIndexableRequestMapper
+ */
+final class RequestMapperIndex
+{
+	/**
+	 * A node in the trie of url prefixes.
+	 */
+	private static final class Node
+	{
+		/** children for literal segments, keyed by the case folded segment */
+		private Map<String, Node> literals;
+
+		/** child for a mandatory placeholder */
+		private Node placeholder;
+
+		/** child for an optional placeholder */
+		private Node optional;
+
+		/** positions of the mappers whose prefix ends here */
+		private final BitSet positions = new BitSet();
+
+		private Node child(final String segment)
+		{
+			if (isPlaceholder(segment, '$'))
+			{
+				if (placeholder == null)
+				{
+					placeholder = new Node();
+				}
+				return placeholder;
+			}
+			else if (isPlaceholder(segment, '#'))
+			{
+				if (optional == null)
+				{
+					optional = new Node();
+				}
+				return optional;
+			}
+			else
+			{
+				if (literals == null)
+				{
+					literals = new HashMap<>();
+				}
+				return literals.computeIfAbsent(fold(segment), key -> new Node());
+			}
+		}
+
+		private void collect(final List<String> segments, final int index, final BitSet result)
+		{
+			result.or(positions);
+
+			if (index < segments.size())
+			{
+				if (literals != null)
+				{
+					Node literal = literals.get(fold(segments.get(index)));
+					if (literal != null)
+					{
+						literal.collect(segments, index + 1, result);
+					}
+				}
+				if (placeholder != null)
+				{
+					placeholder.collect(segments, index + 1, result);
+				}
+				if (optional != null)
+				{
+					optional.collect(segments, index + 1, result);
+				}
+			}
+
+			if (optional != null)
+			{
+				// the optional segment might be missing
+				optional.collect(segments, index, result);
+			}
+		}
+	}
+
+	/** all mappers, most recently registered first */
+	private final IRequestMapper[] mappers;
+
+	private final List<IRequestMapper> all;
+
+	/** positions of the mappers not in the trie */
+	private final BitSet unindexed = new BitSet();
+
+	private final Node root = new Node();
+
+	private final Map<Class<?>, List<IRequestMapper>> handlerCandidates = new ConcurrentHashMap<>();
+
+	/**
+	 * Construct.
+	 * 
+	 * @param mappers
+	 *            the mappers, most recently registered first
+	 */
+	RequestMapperIndex(final List<IRequestMapper> mappers)
+	{
+		this.mappers = mappers.toArray(new IRequestMapper[0]);
+		all = Collections.unmodifiableList(Arrays.asList(this.mappers));
+
+		for (int position = 0; position < this.mappers.length; position++)
+		{
+			String[] prefix = null;
+			if (this.mappers[position] instanceof IIndexableRequestMapper)
+			{
+				prefix = ((IIndexableRequestMapper)this.mappers[position]).getUrlPrefix();
+			}
+
+			if (prefix == null)
+			{
+				unindexed.set(position);
+			}
+			else
+			{
+				Node node = root;
+				for (String segment : prefix)
+				{
+					node = node.child(segment);
+				}
+				node.positions.set(position);
+			}
+		}
+	}
+
+	/**
+	 * Get the mappers which might be compatible with an url.
+	 * 
+	 * @param url
+	 *            the url
+	 * @return candidates in order of registration
+	 */
+	List<IRequestMapper> getCandidates(final Url url)
+	{
+		List<String> segments = url != null ? url.getSegments() : null;
+		if (segments == null || segments.isEmpty())
+		{
+			return all;
+		}
+
+		BitSet positions = (BitSet)unindexed.clone();
+		root.collect(segments, 0, positions);
+
+		List<IRequestMapper> candidates = new ArrayList<>(positions.cardinality());
+		int position = positions.nextSetBit(0);
+		while (position >= 0)
+		{
+			candidates.add(mappers[position]);
+			position = positions.nextSetBit(position + 1);
+		}
+		return candidates;
+	}
+
+	/**
+	 * Get the mappers which might map a handler.
+	 * 
+	 * @param handler
+	 *            the handler
+	 * @return candidates in order of registration
+	 */
+	List<IRequestMapper> getCandidates(final IRequestHandler handler)
+	{
+		if (handler == null || handler instanceof IRequestHandlerDelegate)
+		{
+			return all;
+		}
+
+		return handlerCandidates.computeIfAbsent(handler.getClass(), this::findCandidates);
+	}
+
+	private List<IRequestMapper> findCandidates(final Class<?> handlerClass)
+	{
+		List<IRequestMapper> candidates = new ArrayList<>();
+		for (IRequestMapper mapper : mappers)
+		{
+			if (canMap(mapper, handlerClass))
+			{
+				candidates.add(mapper);
+			}
+		}
+		return candidates;
+	}
+
+	private static boolean canMap(final IRequestMapper mapper, final Class<?> handlerClass)
+	{
+		if ((mapper instanceof IIndexableRequestMapper) == false)
+		{
+			return true;
+		}
+
+		Collection<Class<? extends IRequestHandler>> types = ((IIndexableRequestMapper)mapper)
+			.getHandlerTypes();
+		if (types == null)
+		{
+			return true;
+		}
+
+		for (Class<? extends IRequestHandler> type : types)
+		{
+			if (type.isAssignableFrom(handlerClass))
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Matches {@link AbstractMapper#getPlaceholder(String, char)}.
+	 */
+	private static boolean isPlaceholder(final String segment, final char startChar)
+	{
+		return segment.length() >= 4 && segment.charAt(0) == startChar &&
+			segment.charAt(1) == '{' && segment.charAt(segment.length() - 1) == '}';
+	}
+
+	/**
+	 * Folds the case of a segment, so that two segments are equal ignoring case if their folded
+	 * segments are equal, as with {@link String#equalsIgnoreCase(String)}.
+	 */
+	private static String fold(final String segment)
+	{
+		StringBuilder folded = null;
+		for (int i = 0; i < segment.length(); i++)
+		{
+			char c = segment.charAt(i);
+			char f = Character.toLowerCase(Character.toUpperCase(c));
+			if (f != c && folded == null)
+			{
+				folded = new StringBuilder(segment.length()).append(segment, 0, i);
+			}
+			if (folded != null)
+			{
+				folded.append(f);
+			}
+		}
+		return folded != null ? folded.toString() : segment;
+	}
+}
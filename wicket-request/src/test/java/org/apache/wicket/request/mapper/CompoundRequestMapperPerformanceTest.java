@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.request.mapper;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.wicket.request.Request;
+import org.apache.wicket.request.mapper.CompoundRequestMapperTest.MountMapper;
+import org.apache.wicket.request.mapper.CompoundRequestMapperTest.Unindexed;
+import org.apache.wicket.util.WicketTestTag;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Compares mapping of requests by a {@link CompoundRequestMapper} with and without index, at 10,
+ * 100 and 1000 mounts.
+ */
+@Tag(WicketTestTag.SLOW)
+class CompoundRequestMapperPerformanceTest
+{
+	private static final int ROUNDS = 20;
+
+	@Test
+	void mapRequest()
+	{
+		for (int mounts : new int[] { 10, 100, 1000 })
+		{
+			List<MountMapper> mappers = new ArrayList<>();
+			List<Request> requests = new ArrayList<>();
+			CompoundRequestMapperTest.mount(mounts, mappers, requests);
+
+			CompoundRequestMapper indexed = new CompoundRequestMapper();
+			CompoundRequestMapper unindexed = new CompoundRequestMapper();
+			for (MountMapper mapper : mappers)
+			{
+				indexed.add(mapper);
+				unindexed.add(new Unindexed(mapper));
+			}
+
+			// warmup
+			measure(unindexed, requests);
+			measure(indexed, requests);
+
+			System.out.println(mounts + " mounts: " + measure(unindexed, requests) +
+				" ns per request unindexed, " + measure(indexed, requests) +
+				" ns per request indexed");
+		}
+	}
+
+	private long measure(CompoundRequestMapper compound, List<Request> requests)
+	{
+		long start = System.nanoTime();
+		for (int round = 0; round < ROUNDS; round++)
+		{
+			for (Request request : requests)
+			{
+				compound.mapRequest(request);
+			}
+		}
+		return (System.nanoTime() - start) / (ROUNDS * requests.size());
+	}
+}
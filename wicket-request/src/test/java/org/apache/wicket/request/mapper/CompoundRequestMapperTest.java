@@ -17,8 +17,22 @@
 package org.apache.wicket.request.mapper;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+
+import org.apache.wicket.request.IRequestCycle;
+import org.apache.wicket.request.IRequestHandler;
+import org.apache.wicket.request.IRequestMapper;
+import org.apache.wicket.request.Request;
+import org.apache.wicket.request.Url;
 import org.apache.wicket.request.mapper.CompoundRequestMapper.MapperWithScore;
 import org.junit.jupiter.api.Test;
 
@@ -49,4 +63,252 @@ class CompoundRequestMapperTest
 	{
 		return new MapperWithScore(null, score);
 	}
+
+	/**
+	 * Indexed mappers are found by literal segments, placeholders and optional placeholders.
+	 */
+	@Test
+	void indexedRequests()
+	{
+		MountMapper placeholder = new MountMapper("a/${x}");
+		MountMapper literal = new MountMapper("a/b");
+		MountMapper optional = new MountMapper("c/#{x}/d");
+		CompoundRequestMapper compound = new CompoundRequestMapper().add(placeholder)
+			.add(literal)
+			.add(optional);
+
+		// same score, last registered wins
+		assertSame(literal.handler, compound.mapRequest(request("a/b")));
+		assertSame(placeholder.handler, compound.mapRequest(request("a/c")));
+		assertSame(optional.handler, compound.mapRequest(request("c/x/d")));
+		assertSame(optional.handler, compound.mapRequest(request("C/X/D")));
+		assertNull(compound.mapRequest(request("a")));
+		assertNull(compound.mapRequest(request("b/a")));
+
+		compound.remove(literal);
+		assertSame(placeholder.handler, compound.mapRequest(request("a/b")));
+	}
+
+	/**
+	 * Unindexed mappers are always asked.
+	 */
+	@Test
+	void unindexedRequests()
+	{
+		MountMapper mounted = new MountMapper("a/b");
+		MountMapper unindexed = new MountMapper("x/y");
+		CompoundRequestMapper compound = new CompoundRequestMapper().add(new Unindexed(unindexed))
+			.add(mounted);
+
+		assertSame(unindexed.handler, compound.mapRequest(request("x/y")));
+		assertSame(mounted.handler, compound.mapRequest(request("a/b")));
+
+		assertEquals(Url.parse("x/y"), compound.mapHandler(unindexed.handler));
+		assertEquals(Url.parse("a/b"), compound.mapHandler(mounted.handler));
+		assertNull(compound.mapHandler(requestCycle -> {}));
+	}
+
+	/**
+	 * The index maps requests and handlers as the mappers would without index, at 10, 100 and 1000
+	 * mounts.
+	 */
+	@Test
+	void sameAsUnindexed()
+	{
+		for (int mounts : new int[] { 10, 100, 1000 })
+		{
+			List<MountMapper> mappers = new ArrayList<>();
+			List<Request> requests = new ArrayList<>();
+			mount(mounts, mappers, requests);
+
+			CompoundRequestMapper indexed = new CompoundRequestMapper();
+			CompoundRequestMapper unindexed = new CompoundRequestMapper();
+			for (MountMapper mapper : mappers)
+			{
+				indexed.add(mapper);
+				unindexed.add(new Unindexed(mapper));
+			}
+
+			for (Request request : requests)
+			{
+				assertSame(unindexed.mapRequest(request), indexed.mapRequest(request));
+			}
+			for (MountMapper mapper : mappers)
+			{
+				assertEquals(unindexed.mapHandler(mapper.handler), indexed.mapHandler(mapper.handler));
+			}
+		}
+	}
+
+	/**
+	 * Create mappers with literal segments, placeholders and optional placeholders, and requests
+	 * for them.
+	 */
+	static void mount(int mounts, List<MountMapper> mappers, List<Request> requests)
+	{
+		for (int i = 0; i < mounts; i++)
+		{
+			switch (i % 4)
+			{
+				case 0 :
+					mappers.add(new MountMapper("page" + i));
+					requests.add(request("page" + i));
+					break;
+				case 1 :
+					mappers.add(new MountMapper("page" + (i - 1) + "/${id}"));
+					requests.add(request("page" + (i - 1) + "/" + i));
+					break;
+				case 2 :
+					mappers.add(new MountMapper("section" + (i % 10) + "/#{opt}/page" + i));
+					requests.add(request("section" + (i % 10) + "/x/page" + i));
+					break;
+				default :
+					mappers.add(new MountMapper("resource/" + i + "/file.css"));
+					requests.add(request("resource/" + i + "/file.css"));
+					requests.add(request("resource/" + i + "/missing.css"));
+			}
+		}
+	}
+
+	static Request request(String url)
+	{
+		return new Request()
+		{
+			@Override
+			public Url getUrl()
+			{
+				return Url.parse(url);
+			}
+
+			@Override
+			public Url getClientUrl()
+			{
+				return getUrl();
+			}
+
+			@Override
+			public Locale getLocale()
+			{
+				return Locale.ENGLISH;
+			}
+
+			@Override
+			public Charset getCharset()
+			{
+				return StandardCharsets.UTF_8;
+			}
+
+			@Override
+			public Object getContainerRequest()
+			{
+				return null;
+			}
+		};
+	}
+
+	private static class MountHandler implements IRequestHandler
+	{
+		@Override
+		public void respond(IRequestCycle requestCycle)
+		{
+		}
+	}
+
+	/**
+	 * Maps an url starting with its mount path to its handler, ignoring case.
+	 */
+	static class MountMapper extends AbstractMapper implements IIndexableRequestMapper
+	{
+		private final String path;
+
+		private final String[] segments;
+
+		private final MountHandler handler = new MountHandler();
+
+		MountMapper(String path)
+		{
+			this.path = path;
+			segments = getMountSegments(path);
+		}
+
+		@Override
+		public String[] getUrlPrefix()
+		{
+			return segments;
+		}
+
+		@Override
+		public Collection<Class<? extends IRequestHandler>> getHandlerTypes()
+		{
+			return List.of(MountHandler.class);
+		}
+
+		@Override
+		public int getCompatibilityScore(Request request)
+		{
+			return matches(request.getUrl()) ? segments.length : 0;
+		}
+
+		@Override
+		public IRequestHandler mapRequest(Request request)
+		{
+			return matches(request.getUrl()) ? handler : null;
+		}
+
+		@Override
+		public Url mapHandler(IRequestHandler requestHandler)
+		{
+			return requestHandler == handler ? Url.parse(path) : null;
+		}
+
+		private boolean matches(Url url)
+		{
+			List<String> urlSegments = url.getSegments();
+			for (int i = 0; i < segments.length; i++)
+			{
+				String urlSegment = safeSegmentGetter(urlSegments, i, null);
+				if (getOptionalPlaceholder(segments[i]) != null)
+				{
+					continue;
+				}
+				if (urlSegment == null || (getPlaceholder(segments[i]) == null &&
+					segments[i].equalsIgnoreCase(urlSegment) == false))
+				{
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * Hides a mapper from the index.
+	 */
+	static class Unindexed implements IRequestMapper
+	{
+		private final IRequestMapper delegate;
+
+		Unindexed(IRequestMapper delegate)
+		{
+			this.delegate = delegate;
+		}
+
+		@Override
+		public IRequestHandler mapRequest(Request request)
+		{
+			return delegate.mapRequest(request);
+		}
+
+		@Override
+		public int getCompatibilityScore(Request request)
+		{
+			return delegate.getCompatibilityScore(request);
+		}
+
+		@Override
+		public Url mapHandler(IRequestHandler requestHandler)
+		{
+			return delegate.mapHandler(requestHandler);
+		}
+	}
 }
@@ -33,8 +33,20 @@ public final class VariableAssignmentParser extends MetaPatternParser
 	private static final MetaPattern namespace = new OptionalMetaPattern(new MetaPattern[] {
 			MetaPattern.VARIABLE_NAME, MetaPattern.COLON, new OptionalMetaPattern(new MetaPattern[] {MetaPattern.VARIABLE_NAME, MetaPattern.COLON })});
 
+	/** The key of the default pattern */
+	private static final Group DEFAULT_KEY = newKey();
+
+	/** The value of the default pattern */
+	private static final Group DEFAULT_VALUE = new Group(MetaPattern.STRING);
+
+	/**
+	 * The pattern for {@link MetaPattern#STRING} values, shared by all parsers to compile it only
+	 * once
+	 */
+	private static final MetaPattern DEFAULT_PATTERN = newPattern(DEFAULT_KEY, DEFAULT_VALUE);
+
 	/** The key (lvalue) like "name" or "namespace:name" or "namespace:name:subname" */
-	private final Group key = new Group(new MetaPattern(namespace, MetaPattern.XML_ATTRIBUTE_NAME));
+	private final Group key;
 
 	/** The rvalue of the assignment */
 	private final Group value;
@@ -62,16 +74,34 @@ public final class VariableAssignmentParser extends MetaPatternParser
 	{
 		super(input);
 
-		// Create group for value pattern
-		value = new Group(valuePattern);
+		if (valuePattern == MetaPattern.STRING)
+		{
+			key = DEFAULT_KEY;
+			value = DEFAULT_VALUE;
+			setPattern(DEFAULT_PATTERN);
+		}
+		else
+		{
+			key = newKey();
+			value = new Group(valuePattern);
+			setPattern(newPattern(key, value));
+		}
+	}
 
+	private static Group newKey()
+	{
+		return new Group(new MetaPattern(namespace, MetaPattern.XML_ATTRIBUTE_NAME));
+	}
+
+	private static MetaPattern newPattern(final Group key, final Group value)
+	{
 		// Pattern for =<value>
 		final MetaPattern variableAssignment = new MetaPattern(MetaPattern.OPTIONAL_WHITESPACE,
 			MetaPattern.EQUALS, MetaPattern.OPTIONAL_WHITESPACE, value);
 
-		// Set parse pattern to <key>=<value>?
-		setPattern(new MetaPattern(MetaPattern.OPTIONAL_WHITESPACE, key, new OptionalMetaPattern(
-			variableAssignment), MetaPattern.OPTIONAL_WHITESPACE));
+		// Parse pattern is <key>=<value>?
+		return new MetaPattern(MetaPattern.OPTIONAL_WHITESPACE, key, new OptionalMetaPattern(
+			variableAssignment), MetaPattern.OPTIONAL_WHITESPACE);
 	}
 
 	/**
@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.util.parse.metapattern.parsers;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import org.apache.wicket.util.WicketTestTag;
+import org.apache.wicket.util.parse.metapattern.MetaPattern;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Compares allocations of {@link VariableAssignmentParser}s sharing the compiled default pattern
+ * with parsers compiling a pattern of their own, as all parsers did before.
+ */
+@Tag(WicketTestTag.SLOW)
+class VariableAssignmentParserPerformanceTest
+{
+	private static final int ITERATIONS = 10000;
+
+	@Test
+	void allocations()
+	{
+		// equal to the default, but not shared
+		MetaPattern own = new MetaPattern(MetaPattern.STRING);
+
+		// warmup
+		measure(null);
+		measure(own);
+
+		long shared = measure(null);
+		long compiled = measure(own);
+
+		System.out.println("shared pattern: " + shared + " bytes per parser, own pattern: " +
+			compiled + " bytes per parser");
+
+		if (shared > 0)
+		{
+			assertTrue(shared < compiled);
+		}
+	}
+
+	private long measure(MetaPattern valuePattern)
+	{
+		long allocated = allocatedBytes();
+		for (int i = 0; i < ITERATIONS; i++)
+		{
+			VariableAssignmentParser parser = valuePattern == null
+				? new VariableAssignmentParser("name='value'")
+				: new VariableAssignmentParser("name='value'", valuePattern);
+			assertTrue(parser.matches());
+		}
+		return (allocatedBytes() - allocated) / ITERATIONS;
+	}
+
+	private static long allocatedBytes()
+	{
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (bean instanceof com.sun.management.ThreadMXBean)
+		{
+			return ((com.sun.management.ThreadMXBean)bean).getCurrentThreadAllocatedBytes();
+		}
+		return 0;
+	}
+}
@@ -16,9 +16,12 @@
  */
 package org.apache.wicket.util.parse.metapattern.parsers;
 
+import org.apache.wicket.util.parse.metapattern.MetaPattern;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
@@ -98,4 +101,28 @@ class VariableAssignmentParserTest
 		assertEquals("@test4", key);
 		assertEquals("\"test4\"", value);
 	}
+
+	/**
+	 * The pattern for string values is compiled once only, other value patterns still work.
+	 */
+	@Test
+	void sharedPattern()
+	{
+		VariableAssignmentParser parser1 = new VariableAssignmentParser("a='b'");
+		VariableAssignmentParser parser2 = new VariableAssignmentParser("c=\"d\"");
+
+		assertSame(parser1.matcher().pattern(), parser2.matcher().pattern());
+		assertTrue(parser2.matches());
+		assertEquals("c", parser2.getKey());
+		assertEquals("\"d\"", parser2.getValue());
+
+		VariableAssignmentParser parser3 = new VariableAssignmentParser("e=42", MetaPattern.INTEGER);
+		assertNotSame(parser1.matcher().pattern(), parser3.matcher().pattern());
+		assertTrue(parser3.matches());
+		assertEquals("e", parser3.getKey());
+		assertEquals("42", parser3.getValue());
+		assertTrue(parser1.matches());
+		assertEquals("a", parser1.getKey());
+		assertEquals("'b'", parser1.getValue());
+	}
 }